@@ -0,0 +1,65 @@
+package com.bes.jira.plugins.authbridge.callback;
+
+import org.apache.http.entity.ContentType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 回调响应解析：只含 redirectUrl 的小响应、redirectUrl 位于大量无关字段之后的大响应，以及错误响应。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CallbackResponseReaderBenchmark {
+    private static final int MAX_BYTES = 64 * 1024;
+
+    // redirectUrl 之前的无关字段数
+    @Param({"0", "100", "1000"})
+    public int extraFields;
+
+    private byte[] success;
+    private byte[] error;
+
+    @Setup
+    public void setUp() {
+        StringBuilder json = new StringBuilder("{");
+        for (int i = 0; i < extraFields; i++) {
+            json.append("\"field").append(i).append("\":{\"id\":").append(i).append(",\"tags\":[\"a\",\"b\"]},");
+        }
+        json.append("\"redirectUrl\":\"https://app.example.com/sso/landing?ticket=ST-12345-abcdef\"}");
+        success = json.toString().getBytes(StandardCharsets.UTF_8);
+
+        StringBuilder html = new StringBuilder("<html><body>");
+        for (int i = 0; i < 200; i++) {
+            html.append("<p>Internal Server Error</p>");
+        }
+        error = html.append("</body></html>").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public CallbackResult success() throws IOException {
+        return CallbackResponseReader.read(200, ContentType.APPLICATION_JSON, new ByteArrayInputStream(success), MAX_BYTES);
+    }
+
+    @Benchmark
+    public CallbackResult error() throws IOException {
+        return CallbackResponseReader.read(500, ContentType.TEXT_HTML, new ByteArrayInputStream(error), MAX_BYTES);
+    }
+}
@@ -0,0 +1,150 @@
+package com.bes.jira.plugins.authbridge.http.factory;
+
+import com.bes.jira.plugins.authbridge.model.AuthBridgeSetting;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.cert.CertificateException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多线程并发借出/归还 HttpClient 的开销：
+ * <ul>
+ *     <li>{@code acquire*}：8 个线程借出同一信任配置的已缓存 Client；</li>
+ *     <li>{@code certificateChange}：7 个线程持续借出，1 个线程不断更换 CA 证书包，
+ *     并修改连接 TTL（ClientKey 的一部分）使每次更换后都必须新建 Client，观察重建期间其他线程的延迟。</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HttpClientFactoryBenchmark {
+    // 两个自签名 CA 证书，只用于构建信任库，不会发起连接
+    private static final String CA_A =
+            "-----BEGIN CERTIFICATE-----\n"
+            + "MIIDKzCCAhOgAwIBAgIUJjJl05SONp84BGMdwgv6oo1vdEcwDQYJKoZIhvcNAQEL\n"
+            + "BQAwJDEiMCAGA1UEAwwZQXV0aEJyaWRnZSBCZW5jaG1hcmsgQ0EgYTAgFw0yNjEw\n"
+            + "MTgwOTA0NDZaGA8yMTI2MDkyNDA5MDQ0NlowJDEiMCAGA1UEAwwZQXV0aEJyaWRn\n"
+            + "ZSBCZW5jaG1hcmsgQ0EgYTCCASIwDQYJKoZIhvcNAQEBBQADggEPADCCAQoCggEB\n"
+            + "AJ5Hh31xDIVwEzvxvaRYWMAXglsAsNd/6otfdBWazGbTOnqlCPWEq6cGXCDHjbJv\n"
+            + "bZ2K1X7/vwPer/A8iHm+0FMELLeXj1IZ29dADBFMiiuELoz8wFKWWOi84j1p4TqV\n"
+            + "anskqgxOX56matjEX0p8WR+fxwFvRI4ObEN+tuIc9omuICYqroihkNAG2KklbfxZ\n"
+            + "xp5rm/LMwkPZPCvM8xXBCShJohyeQkmpSxI6ler1o+sluNVGgIYdTuubOXnigIzJ\n"
+            + "xCcs0SOTP1tp7pqffGiBXJ2ozld+A7W34LiRVd+73pjPdlixmDC4+OZ5CXcUR1p0\n"
+            + "fZEXMeMV/wwT6QHOEWvF32UCAwEAAaNTMFEwHQYDVR0OBBYEFNRuFeJY+197DPCy\n"
+            + "6HX5OSxfBo1JMB8GA1UdIwQYMBaAFNRuFeJY+197DPCy6HX5OSxfBo1JMA8GA1Ud\n"
+            + "EwEB/wQFMAMBAf8wDQYJKoZIhvcNAQELBQADggEBAAF1PNHiFT7qPKzPh4PJaRXI\n"
+            + "n3pzOtjJtC4DRMwinhH+qWUsg8T1YMYc7LLYl5hfXbrTXM7Gf/l2vC4MA9KBjAiY\n"
+            + "3MdnEfv7AsiZib2mQLczMI/BLzay4Rp9tO9XahhqnGyF3WW0GmA3R/uTwgTBS8MF\n"
+            + "DlqNcqh/K2+goD+eyUkKQs3+dukTxLXXr3wItHZbDRTaVSFHbsdTpRZnxrT/b2lF\n"
+            + "i09w1QEqE2WodD/d8cYkHQQIsA+LA4yy5TntRZPkFzMwQZmqXU+7NYnUcn6GRAKr\n"
+            + "n8ogVCLBvhUZ6s5gJ7Ztu/ahiNZmtEGPipbc3Wrch5GDiSKVlsNJiiSW4lUcHY4=\n"
+            + "-----END CERTIFICATE-----\n";
+    private static final String CA_B =
+            "-----BEGIN CERTIFICATE-----\n"
+            + "MIIDKzCCAhOgAwIBAgIURZa9O8YVVv6SkBy+cCrdeLwx77UwDQYJKoZIhvcNAQEL\n"
+            + "BQAwJDEiMCAGA1UEAwwZQXV0aEJyaWRnZSBCZW5jaG1hcmsgQ0EgYjAgFw0yNjEw\n"
+            + "MTgwOTA0NDdaGA8yMTI2MDkyNDA5MDQ0N1owJDEiMCAGA1UEAwwZQXV0aEJyaWRn\n"
+            + "ZSBCZW5jaG1hcmsgQ0EgYjCCASIwDQYJKoZIhvcNAQEBBQADggEPADCCAQoCggEB\n"
+            + "AJe/lunzEewfn7TPD5NRG8jiRvr81QBeufnXwK5MbZHBOxQIs8Y36xk3jmBZlxzy\n"
+            + "04lBoK6UdpGQF1DzJf80Ug9oXl2nKhfp4qukYNCFH0DLF0nxLBT2F2W82KZthECc\n"
+            + "v2fuZ34/g86V4GngbrI/O/8lmJB0V1tXf+UfKXPvUxJxY2g/ckMX6L+OBX1PIxMI\n"
+            + "iwJ31tiZUnuV5YGz9baLELLQpVaeDgzpM8dqc4zVWBGKwEMjRhVfp51z7b2YYrgU\n"
+            + "4e4JtpensMgevoDpK+MRBXFg5qzOZ1CLK2SQpnWmfMWzx5gMW+RFsO1wxZO7G/jY\n"
+            + "olPbKoK1P3BoA4ZPLzVffycCAwEAAaNTMFEwHQYDVR0OBBYEFPNnpzokhAzUQRCd\n"
+            + "8sysYdER8LvWMB8GA1UdIwQYMBaAFPNnpzokhAzUQRCd8sysYdER8LvWMA8GA1Ud\n"
+            + "EwEB/wQFMAMBAf8wDQYJKoZIhvcNAQELBQADggEBACkoq6m2sjOScTlS0M8OCBje\n"
+            + "/Y/lEiJxGycQMrvtcvb8lQC2p65RoyRdDciKYMdGou4A3h5EpHDSOWdDZni/RTfW\n"
+            + "yUhT89H/dBeLzaqRPE4Pnkys04G8JyzNTBscjGDUGmQhTdsneiD0fPtEXmCTvqZx\n"
+            + "qpVaBeiR3yIszx+gTOckv6ayR3xTVad0P0JL4aE7iN1/QVWmUu9yJULzPkM38EIL\n"
+            + "pver30k4zIn5jS5FsCxuDktG2hjlAI7dH4cYu2EJsXvnKHDVr1w9MMh4HYW9W1Rn\n"
+            + "WFpyfJOceVhR7LuP7poB6/6RHBKlUHY+wwagDfu1wb9d1hrJzlVDb2Vms58Wadg=\n"
+            + "-----END CERTIFICATE-----\n";
+
+    private HttpClientFactory factory;
+    private TrustBundle[] bundles;
+    private volatile TrustBundle currentBundle;
+    private long ttl;
+
+    @Setup(Level.Trial)
+    public void setUp() throws CertificateException {
+        factory = new HttpClientFactory();
+        bundles = new TrustBundle[]{TrustBundle.parse(CA_A), TrustBundle.parse(CA_B)};
+        currentBundle = bundles[0];
+        ttl = new AuthBridgeSetting().getConnectionTimeToLiveMillis();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        factory.destroy();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public CloseableHttpClient acquireStandard() {
+        RefCountedClient<CloseableHttpClient> client = factory.acquireClient(false, null);
+        try {
+            return client.get();
+        } finally {
+            client.release();
+        }
+    }
+
+    @Benchmark
+    @Threads(8)
+    public CloseableHttpClient acquireCustomCa() {
+        RefCountedClient<CloseableHttpClient> client = factory.acquireClient(false, bundles[0]);
+        try {
+            return client.get();
+        } finally {
+            client.release();
+        }
+    }
+
+    @Benchmark
+    @Group("certificateChange")
+    @GroupThreads(7)
+    public CloseableHttpClient acquireDuringChange() {
+        RefCountedClient<CloseableHttpClient> client = factory.acquireClient(false, currentBundle);
+        try {
+            return client.get();
+        } finally {
+            client.release();
+        }
+    }
+
+    @Benchmark
+    @Group("certificateChange")
+    @GroupThreads(1)
+    public CloseableHttpClient changeCertificate() {
+        AuthBridgeSetting setting = new AuthBridgeSetting();
+        setting.setConnectionTimeToLiveMillis(++ttl);
+        factory.applyPoolSettings(setting);
+        TrustBundle bundle = currentBundle == bundles[0] ? bundles[1] : bundles[0];
+        currentBundle = bundle;
+
+        RefCountedClient<CloseableHttpClient> client = factory.acquireClient(false, bundle);
+        try {
+            return client.get();
+        } finally {
+            client.release();
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.bes.jira.plugins.authbridge.loadtest;
+
+import com.bes.jira.plugins.authbridge.audit.AuditTrail;
+import com.bes.jira.plugins.authbridge.callback.CallbackInvoker;
+import com.bes.jira.plugins.authbridge.callback.CallbackResultCache;
+import com.bes.jira.plugins.authbridge.callback.CallbackRetryExecutor;
+import com.bes.jira.plugins.authbridge.callback.CircuitBreakerRegistry;
+import com.bes.jira.plugins.authbridge.http.factory.HttpClientFactory;
+import com.bes.jira.plugins.authbridge.http.factory.RoutePoolStats;
+import com.bes.jira.plugins.authbridge.metrics.AuthBridgeMetrics;
+import com.bes.jira.plugins.authbridge.metrics.LatencyHistogram;
+import com.bes.jira.plugins.authbridge.model.AuthBridgeSetting;
+import com.bes.jira.plugins.authbridge.model.ClientConfigPair;
+import com.bes.jira.plugins.authbridge.ratelimit.RateLimiter;
+import com.bes.jira.plugins.authbridge.service.ConnectionWarmer;
+import com.bes.jira.plugins.authbridge.service.SettingService;
+import com.bes.jira.plugins.authbridge.servlet.AuthBridgeServlet;
+
+import javax.servlet.http.HttpServletResponse;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 本地端到端压测：在进程内组装 AuthBridgeServlet（真实的 CallbackInvoker / HttpClientFactory / 熔断器 / single-flight，
+ * 替身化的 UserManager 与 PluginSettings），对 {@link StubCallbackServer} 逐级提高并发，输出吞吐量和延迟百分位，
+ * 以及连接池中等待租借的最大请求数，用于在上线前确定连接池大小和超时。
+ * <p>
+ * 参数均为 {@code --name=value}，例如：
+ * <pre>
+ * java -cp target/benchmarks.jar com.bes.jira.plugins.authbridge.loadtest.LoadTestHarness \
+ *     --concurrency=1,16,64,256 --duration=20 --latency=50 --jitter=20 --errorRate=0.01 --maxConnPerRoute=50
+ * </pre>
+ * 每个用户的每次请求使用不同的 JSESSIONID，因此 single-flight 不会合并请求；回调结果缓存不启用。
+ */
+public final class LoadTestHarness {
+    private static final String CLIENT_ID = "load-test";
+
+    private LoadTestHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        int[] concurrencyLevels = parseInts(option(options, "concurrency", "1,8,32,64,128"));
+        long durationSeconds = Long.parseLong(option(options, "duration", "15"));
+        long warmupSeconds = Long.parseLong(option(options, "warmup", "5"));
+
+        StubCallbackServer stub = new StubCallbackServer(
+                Long.parseLong(option(options, "latency", "20")),
+                Long.parseLong(option(options, "jitter", "10")),
+                Double.parseDouble(option(options, "errorRate", "0")),
+                Integer.parseInt(option(options, "responseBytes", "256")));
+        stub.start();
+
+        HttpClientFactory httpClientFactory = new HttpClientFactory();
+        ConnectionWarmer connectionWarmer = new ConnectionWarmer(httpClientFactory);
+        SettingService settingService = new SettingService(ServletFakes.pluginSettingsFactory(), connectionWarmer,
+                ServletFakes.clusterMessagingService(), ServletFakes.clusterLockService());
+        settingService.updateSetting(current -> buildSetting(options, stub.getCallbackUrl()));
+
+        AuthBridgeMetrics metrics = new AuthBridgeMetrics();
+        AuditTrail auditTrail = new AuditTrail();
+        CallbackRetryExecutor retryExecutor = new CallbackRetryExecutor();
+        AuthBridgeServlet servlet = new AuthBridgeServlet(ServletFakes.userManager(), new CallbackInvoker(httpClientFactory), settingService,
+                new CircuitBreakerRegistry(), new CallbackResultCache(ServletFakes.eventPublisher()), metrics, auditTrail,
+                new RateLimiter(), retryExecutor);
+
+        System.out.printf(Locale.ROOT, "Stub callback: %s latency=%sms jitter=%sms errorRate=%s responseBytes=%s%n",
+                stub.getCallbackUrl(), option(options, "latency", "20"), option(options, "jitter", "10"),
+                option(options, "errorRate", "0"), option(options, "responseBytes", "256"));
+        System.out.printf(Locale.ROOT, "Settings: %s%n%n", settingService.getSetting());
+        System.out.printf(Locale.ROOT, "%11s %9s %10s %9s %9s %9s %9s %9s %9s %11s%n",
+                "concurrency", "requests", "req/s", "failed", "p50(ms)", "p95(ms)", "p99(ms)", "max(ms)", "stubReqs", "maxPending");
+
+        try {
+            for (int concurrency : concurrencyLevels) {
+                // 预热：建立连接、JIT 编译，不计入结果
+                runLevel(servlet, httpClientFactory, stub, concurrency, warmupSeconds);
+                Result result = runLevel(servlet, httpClientFactory, stub, concurrency, durationSeconds);
+                System.out.printf(Locale.ROOT, "%11d %9d %10.1f %9d %9.1f %9.1f %9.1f %9.1f %9d %11d%n",
+                        concurrency, result.requests, result.requests / (double) durationSeconds, result.failed,
+                        millis(result.latency.getPercentileMicros(0.50)), millis(result.latency.getPercentileMicros(0.95)),
+                        millis(result.latency.getPercentileMicros(0.99)), millis(result.latency.getMaxMicros()),
+                        result.stubRequests, result.maxPending);
+            }
+        } finally {
+            auditTrail.destroy();
+            retryExecutor.destroy();
+            settingService.destroy();
+            metrics.destroy();
+            connectionWarmer.destroy();
+            httpClientFactory.destroy();
+            stub.stop();
+        }
+    }
+
+    private static AuthBridgeSetting buildSetting(Map<String, String> options, String callback) {
+        ClientConfigPair pair = new ClientConfigPair(callback, CLIENT_ID, "https://app.example.com/default");
+        if (ClientConfigPair.PROTOCOL_HTTP2.equals(options.get("protocol"))) {
+            // 桩服务端只支持 HTTP/1.1，这里衡量的是 HttpClient 5 路径本身的开销
+            pair.setProtocol(ClientConfigPair.PROTOCOL_HTTP2);
+        }
+
+        AuthBridgeSetting setting = new AuthBridgeSetting(new ArrayList<>(Collections.singletonList(pair)), false, "");
+        setting.setMaxConnPerRoute(Integer.parseInt(option(options, "maxConnPerRoute", String.valueOf(AuthBridgeSetting.DEFAULT_MAX_CONN_PER_ROUTE))));
+        setting.setMaxConnTotal(Integer.parseInt(option(options, "maxConnTotal", String.valueOf(AuthBridgeSetting.DEFAULT_MAX_CONN_TOTAL))));
+        setting.setConnectTimeoutMillis(Integer.parseInt(option(options, "connectTimeout", String.valueOf(AuthBridgeSetting.DEFAULT_CONNECT_TIMEOUT_MILLIS))));
+        setting.setReadTimeoutMillis(Integer.parseInt(option(options, "readTimeout", String.valueOf(AuthBridgeSetting.DEFAULT_READ_TIMEOUT_MILLIS))));
+        setting.setLeaseTimeoutMillis(Integer.parseInt(option(options, "leaseTimeout", String.valueOf(AuthBridgeSetting.DEFAULT_LEASE_TIMEOUT_MILLIS))));
+        setting.setCircuitBreakerEnabled(Boolean.parseBoolean(option(options, "circuitBreaker", "false")));
+        return setting;
+    }
+
+    private static Result runLevel(AuthBridgeServlet servlet, HttpClientFactory httpClientFactory, StubCallbackServer stub,
+                                   int concurrency, long seconds) throws InterruptedException {
+        LatencyHistogram latency = new LatencyHistogram();
+        LongAdder failed = new LongAdder();
+        AtomicLong sequence = new AtomicLong();
+        long stubRequestsBefore = stub.getRequests();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+
+        CountDownLatch done = new CountDownLatch(concurrency);
+        for (int t = 0; t < concurrency; t++) {
+            String username = "user" + t;
+            Thread worker = new Thread(() -> {
+                try {
+                    while (System.nanoTime() < deadline) {
+                        ServletFakes.Response response = new ServletFakes.Response();
+                        long start = System.nanoTime();
+                        boolean ok;
+                        try {
+                            servlet.service(ServletFakes.request(CLIENT_ID, stub.getCallbackUrl(), username,
+                                    "session-" + sequence.incrementAndGet()), response.get());
+                            ok = response.getStatus() == HttpServletResponse.SC_FOUND && response.getRedirect() != null;
+                        } catch (Exception e) {
+                            ok = false;
+                        }
+                        latency.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+                        if (!ok) {
+                            failed.increment();
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "load-test-" + t);
+            worker.setDaemon(true);
+            worker.start();
+        }
+
+        // 采样连接池中等待租借的请求数
+        AtomicInteger maxPending = new AtomicInteger();
+        while (!done.await(100, TimeUnit.MILLISECONDS)) {
+            int pending = 0;
+            for (RoutePoolStats stats : httpClientFactory.getPoolStats()) {
+                pending += stats.getPending();
+            }
+            maxPending.accumulateAndGet(pending, Math::max);
+        }
+
+        return new Result(latency.getCount(), failed.sum(), latency, stub.getRequests() - stubRequestsBefore, maxPending.get());
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || arg.indexOf('=') < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        return options;
+    }
+
+    private static String option(Map<String, String> options, String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+
+    private static int[] parseInts(String value) {
+        String[] parts = value.split(",");
+        int[] result = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            result[i] = Integer.parseInt(parts[i].trim());
+        }
+        return result;
+    }
+
+    private static final class Result {
+        private final long requests;
+        private final long failed;
+        private final LatencyHistogram latency;
+        private final long stubRequests;
+        private final int maxPending;
+
+        Result(long requests, long failed, LatencyHistogram latency, long stubRequests, int maxPending) {
+            this.requests = requests;
+            this.failed = failed;
+            this.latency = latency;
+            this.stubRequests = stubRequests;
+            this.maxPending = maxPending;
+        }
+    }
+}
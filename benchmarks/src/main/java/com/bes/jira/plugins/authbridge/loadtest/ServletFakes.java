@@ -0,0 +1,228 @@
+package com.bes.jira.plugins.authbridge.loadtest;
+
+import com.atlassian.beehive.ClusterLock;
+import com.atlassian.beehive.ClusterLockService;
+import com.atlassian.event.api.EventPublisher;
+import com.atlassian.jira.cluster.ClusterMessagingService;
+import com.atlassian.sal.api.pluginsettings.PluginSettings;
+import com.atlassian.sal.api.pluginsettings.PluginSettingsFactory;
+import com.atlassian.sal.api.user.UserManager;
+import com.atlassian.sal.api.user.UserProfile;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * 压测用的最小替身：基于动态代理实现 Servlet 请求/响应以及 SAL / 事件接口，只实现 AuthBridgeServlet 用到的方法，
+ * 其余方法返回类型默认值。请求不支持异步（isAsyncSupported 为 false），异步模式配置会回退为同步执行。
+ */
+final class ServletFakes {
+    private ServletFakes() {
+    }
+
+    static HttpServletRequest request(String clientId, String callback, String username, String sessionId) {
+        Map<String, String> parameters = new HashMap<>();
+        parameters.put("client_id", clientId);
+        parameters.put("callback", callback);
+        String queryString = "client_id=" + clientId + "&callback=" + callback;
+        Cookie[] cookies = {new Cookie("JSESSIONID", sessionId), new Cookie("seraph.rememberme.cookie", "load-test")};
+
+        Map<String, Function<Object[], Object>> methods = new HashMap<>();
+        methods.put("getMethod", args -> "GET");
+        methods.put("getProtocol", args -> "HTTP/1.1");
+        methods.put("getParameter", args -> parameters.get((String) args[0]));
+        methods.put("getQueryString", args -> queryString);
+        methods.put("getRequestURL", args -> new StringBuffer("http://localhost:2990/jira/plugins/servlet/authbridge"));
+        methods.put("getContextPath", args -> "/jira");
+        methods.put("getRemoteUser", args -> username);
+        methods.put("getCookies", args -> cookies);
+        methods.put("getDateHeader", args -> -1L);
+        return fake(HttpServletRequest.class, methods);
+    }
+
+    /**
+     * 记录状态码和重定向地址的响应
+     */
+    static final class Response {
+        private int status = HttpServletResponse.SC_OK;
+        private String redirect;
+        private boolean committed;
+        private final StringWriter body = new StringWriter();
+        private final HttpServletResponse proxy;
+
+        Response() {
+            Map<String, Function<Object[], Object>> methods = new HashMap<>();
+            methods.put("setStatus", args -> {
+                status = (Integer) args[0];
+                return null;
+            });
+            methods.put("getStatus", args -> status);
+            methods.put("sendRedirect", args -> {
+                status = HttpServletResponse.SC_FOUND;
+                redirect = (String) args[0];
+                committed = true;
+                return null;
+            });
+            methods.put("sendError", args -> {
+                status = (Integer) args[0];
+                committed = true;
+                return null;
+            });
+            methods.put("isCommitted", args -> committed);
+            methods.put("getWriter", args -> new PrintWriter(body, true));
+            proxy = fake(HttpServletResponse.class, methods);
+        }
+
+        HttpServletResponse get() {
+            return proxy;
+        }
+
+        int getStatus() {
+            return status;
+        }
+
+        String getRedirect() {
+            return redirect;
+        }
+    }
+
+    /**
+     * getRemoteUser 返回请求中的用户名
+     */
+    static UserManager userManager() {
+        Map<String, Function<Object[], Object>> methods = new HashMap<>();
+        methods.put("getRemoteUser", args -> {
+            String username = args != null && args.length == 1 ? ((HttpServletRequest) args[0]).getRemoteUser() : null;
+            return username == null ? null : userProfile(username);
+        });
+        return fake(UserManager.class, methods);
+    }
+
+    /**
+     * 内存中的全局 PluginSettings
+     */
+    static PluginSettingsFactory pluginSettingsFactory() {
+        Map<String, Object> store = new ConcurrentHashMap<>();
+        Map<String, Function<Object[], Object>> settings = new HashMap<>();
+        settings.put("get", args -> store.get((String) args[0]));
+        settings.put("put", args -> store.put((String) args[0], args[1]));
+        settings.put("remove", args -> store.remove((String) args[0]));
+        PluginSettings pluginSettings = fake(PluginSettings.class, settings);
+
+        Map<String, Function<Object[], Object>> methods = new HashMap<>();
+        methods.put("createGlobalSettings", args -> pluginSettings);
+        return fake(PluginSettingsFactory.class, methods);
+    }
+
+    static EventPublisher eventPublisher() {
+        return fake(EventPublisher.class, new HashMap<>());
+    }
+
+    /**
+     * 单节点：集群消息为空操作
+     */
+    static ClusterMessagingService clusterMessagingService() {
+        return fake(ClusterMessagingService.class, new HashMap<>());
+    }
+
+    /**
+     * 单节点：集群锁即 JVM 内的可重入锁
+     */
+    static ClusterLockService clusterLockService() {
+        Map<String, ClusterLock> locks = new ConcurrentHashMap<>();
+        Map<String, Function<Object[], Object>> methods = new HashMap<>();
+        methods.put("getLockForName", args -> locks.computeIfAbsent((String) args[0], name -> clusterLock(new ReentrantLock())));
+        return fake(ClusterLockService.class, methods);
+    }
+
+    private static ClusterLock clusterLock(ReentrantLock lock) {
+        Map<String, Function<Object[], Object>> methods = new HashMap<>();
+        methods.put("lock", args -> {
+            lock.lock();
+            return null;
+        });
+        methods.put("unlock", args -> {
+            lock.unlock();
+            return null;
+        });
+        methods.put("tryLock", args -> {
+            try {
+                return args == null ? lock.tryLock() : lock.tryLock((Long) args[0], (TimeUnit) args[1]);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        });
+        return fake(ClusterLock.class, methods);
+    }
+
+    private static UserProfile userProfile(String username) {
+        Map<String, Function<Object[], Object>> methods = new HashMap<>();
+        methods.put("getUsername", args -> username);
+        return fake(UserProfile.class, methods);
+    }
+
+    private static <T> T fake(Class<T> type, Map<String, Function<Object[], Object>> methods) {
+        Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (self, method, args) -> {
+            Function<Object[], Object> handler = methods.get(method.getName());
+            if (handler != null) {
+                return handler.apply(args);
+            }
+            if (method.getDeclaringClass() == Object.class) {
+                return objectMethod(self, method, args);
+            }
+            return defaultValue(method.getReturnType());
+        });
+        return type.cast(proxy);
+    }
+
+    private static Object objectMethod(Object self, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "equals":
+                return self == args[0];
+            case "hashCode":
+                return System.identityHashCode(self);
+            default:
+                return self.getClass().getName();
+        }
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive() || type == void.class) {
+            return null;
+        }
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == char.class) {
+            return '\0';
+        }
+        if (type == double.class) {
+            return 0d;
+        }
+        if (type == float.class) {
+            return 0f;
+        }
+        if (type == byte.class) {
+            return (byte) 0;
+        }
+        if (type == short.class) {
+            return (short) 0;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,114 @@
+package com.bes.jira.plugins.authbridge.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 进程内的回调服务端桩（JDK HttpServer，HTTP/1.1，keep-alive）：
+ * 按配置的延迟（基础值 + 均匀抖动）后返回，按错误率返回 500，成功响应为包含 redirectUrl 的 JSON，按配置的大小填充。
+ */
+final class StubCallbackServer {
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final long latencyMillis;
+    private final long jitterMillis;
+    private final double errorRate;
+    private final byte[] successBody;
+    private final byte[] errorBody = "{\"error\":\"stub failure\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    StubCallbackServer(long latencyMillis, long jitterMillis, double errorRate, int responseBytes) throws IOException {
+        this.latencyMillis = latencyMillis;
+        this.jitterMillis = jitterMillis;
+        this.errorRate = errorRate;
+        this.successBody = buildBody(responseBytes);
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        // 处理线程不应成为瓶颈：每个请求一个线程，延迟通过 sleep 模拟
+        executor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "stub-callback");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/callback", this::handle);
+    }
+
+    void start() {
+        server.start();
+    }
+
+    void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    String getCallbackUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/callback";
+    }
+
+    long getRequests() {
+        return requests.sum();
+    }
+
+    long getErrors() {
+        return errors.sum();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.increment();
+        try (InputStream body = exchange.getRequestBody()) {
+            byte[] skip = new byte[1024];
+            while (body.read(skip) != -1) {
+                // 读完请求体，保持连接可复用
+            }
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long delay = latencyMillis + (jitterMillis > 0 ? random.nextLong(jitterMillis + 1) : 0);
+        if (delay > 0) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        boolean fail = errorRate > 0 && random.nextDouble() < errorRate;
+        byte[] response = fail ? errorBody : successBody;
+        if (fail) {
+            errors.increment();
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(fail ? 500 : 200, response.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+        }
+    }
+
+    /**
+     * redirectUrl 放在最后，填充字段在前，使解析器必须跳过全部填充内容
+     */
+    private static byte[] buildBody(int responseBytes) {
+        String suffix = "\"redirectUrl\":\"https://app.example.com/landing\"}";
+        int padding = Math.max(0, responseBytes - suffix.length() - "{\"padding\":\"\",".length());
+        char[] filler = new char[padding];
+        Arrays.fill(filler, 'x');
+        return ("{\"padding\":\"" + new String(filler) + "\"," + suffix).getBytes(StandardCharsets.UTF_8);
+    }
+}
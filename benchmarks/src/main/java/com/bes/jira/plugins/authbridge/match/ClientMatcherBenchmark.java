@@ -0,0 +1,127 @@
+package com.bes.jira.plugins.authbridge.match;
+
+import com.bes.jira.plugins.authbridge.model.ClientConfigPair;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * client_id + callback 匹配：10 到 10,000 条配置下的命中、未命中（含通配规则）以及配置编译与 URL 归一化的开销。
+ * 每 10 条配置中有 1 条为通配回调。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClientMatcherBenchmark {
+    // 轮流查询的请求数，避免每次命中同一条目
+    private static final int LOOKUPS = 1024;
+
+    @Param({"10", "100", "1000", "10000"})
+    public int pairs;
+
+    private List<ClientConfigPair> clientConfigPairs;
+    private ClientMatcher matcher;
+    private String[] clientIds;
+    private String[] exactCallbacks;
+    private String[] wildcardClientIds;
+    private String[] wildcardCallbacks;
+    private String[] rawCallbacks;
+    private URL[] urls;
+    private int next;
+
+    @Setup
+    public void setUp() throws MalformedURLException {
+        clientConfigPairs = new ArrayList<>(pairs);
+        for (int i = 0; i < pairs; i++) {
+            String callback = i % 10 == 9
+                    ? "https://*.tenant" + i + ".example.com/sso/*"
+                    : "https://app" + i + ".example.com:8443/sso/callback";
+            clientConfigPairs.add(new ClientConfigPair(callback, "client-" + i, "https://app" + i + ".example.com/"));
+        }
+        matcher = ClientMatcher.compile(clientConfigPairs);
+
+        clientIds = new String[LOOKUPS];
+        exactCallbacks = new String[LOOKUPS];
+        wildcardClientIds = new String[LOOKUPS];
+        wildcardCallbacks = new String[LOOKUPS];
+        rawCallbacks = new String[LOOKUPS];
+        urls = new URL[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            // 精确查询只选非通配的配置
+            int index = (int) ((i * 2654435761L) % pairs);
+            index -= index % 10 == 9 ? 1 : 0;
+            int wildcardIndex = (int) ((i * 2654435761L) % (pairs / 10)) * 10 + 9;
+            clientIds[i] = "client-" + index;
+            wildcardClientIds[i] = "client-" + wildcardIndex;
+            exactCallbacks[i] = "https://app" + index + ".example.com:8443/sso/callback";
+            wildcardCallbacks[i] = "https://eu.node.tenant" + wildcardIndex + ".example.com/sso/login/callback";
+            rawCallbacks[i] = "https://app" + index + ".example.com:8443/sso/callback?state=abc123&nonce=xyz#fragment";
+            urls[i] = new URL(rawCallbacks[i]);
+        }
+    }
+
+    private int next() {
+        next = (next + 1) & (LOOKUPS - 1);
+        return next;
+    }
+
+    @Benchmark
+    public ClientConfigPair matchExact() {
+        int i = next();
+        return matcher.match(clientIds[i], exactCallbacks[i]);
+    }
+
+    @Benchmark
+    public ClientConfigPair matchWildcard() {
+        int i = next();
+        return matcher.match(wildcardClientIds[i], wildcardCallbacks[i]);
+    }
+
+    @Benchmark
+    public ClientConfigPair matchMiss() {
+        int i = next();
+        return matcher.match(clientIds[i], "https://attacker.example.net/sso/callback");
+    }
+
+    /**
+     * 每次保存配置时的编译开销
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public ClientMatcher compile() {
+        return ClientMatcher.compile(clientConfigPairs);
+    }
+
+    /**
+     * 只归一化已解析的 URL
+     */
+    @Benchmark
+    public String normalize() {
+        return ClientMatcher.normalize(urls[next()]);
+    }
+
+    /**
+     * 请求路径上的完整开销：解析 callback 参数并归一化
+     */
+    @Benchmark
+    public String parseAndNormalize() throws MalformedURLException {
+        return ClientMatcher.normalize(new URL(rawCallbacks[next()]));
+    }
+}
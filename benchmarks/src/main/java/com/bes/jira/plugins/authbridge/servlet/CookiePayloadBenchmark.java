@@ -0,0 +1,57 @@
+package com.bes.jira.plugins.authbridge.servlet;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.servlet.http.Cookie;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 回调请求体 {@code {"cookie":"..."}} 的构造：默认 allowlist 与自定义 allowlist，浏览器携带少量或大量 cookie。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CookiePayloadBenchmark {
+    @Param({"3", "30"})
+    public int cookieCount;
+
+    private Cookie[] cookies;
+    private final List<String> customNames = Arrays.asList("JSESSIONID", "atlassian.xsrf.token", "seraph.*");
+
+    @Setup
+    public void setUp() {
+        cookies = new Cookie[cookieCount];
+        cookies[0] = new Cookie("JSESSIONID", "A1B2C3D4E5F60718293A4B5C6D7E8F90");
+        cookies[1] = new Cookie("seraph.rememberme.cookie", "12345%3Aabcdef0123456789abcdef0123456789abcdef");
+        cookies[2] = new Cookie("atlassian.xsrf.token", "BWP3-NZB2-6EDY-6C7K_0123456789abcdef0123456789abcdef_lin");
+        for (int i = 3; i < cookieCount; i++) {
+            // 其他站点/分析类 cookie，默认不转发；部分值需要 JSON 转义
+            cookies[i] = new Cookie("_ga_" + i, i % 5 == 0 ? "GA1.2.\"quoted\"\\value." + i : "GA1.2.1234567890." + i);
+        }
+    }
+
+    @Benchmark
+    public byte[] defaultAllowlist() {
+        return CookiePayloadWriter.write(cookies, null);
+    }
+
+    @Benchmark
+    public byte[] customAllowlist() {
+        return CookiePayloadWriter.write(cookies, customNames);
+    }
+}
@@ -1,9 +1,20 @@
 package com.bes.jira.plugins.authbridge.action;
 
 import com.atlassian.jira.web.action.JiraWebActionSupport;
+import com.bes.jira.plugins.authbridge.assertion.AssertionKeys;
+import com.bes.jira.plugins.authbridge.audit.AuditTrail;
+import com.bes.jira.plugins.authbridge.http.factory.HttpClientFactory;
+import com.bes.jira.plugins.authbridge.http.factory.RoutePoolStats;
+import com.bes.jira.plugins.authbridge.metrics.AuthBridgeMetrics;
+import com.bes.jira.plugins.authbridge.metrics.ClientMetrics;
+import com.bes.jira.plugins.authbridge.http.factory.TrustBundle;
 import com.bes.jira.plugins.authbridge.model.ClientConfigPair;
 import com.bes.jira.plugins.authbridge.model.AuthBridgeSetting;
+import com.bes.jira.plugins.authbridge.service.ConnectionWarmer;
 import com.bes.jira.plugins.authbridge.service.SettingService;
+import com.bes.jira.plugins.authbridge.service.WarmUpStatus;
+import com.bes.jira.plugins.authbridge.transfer.ClientConfigValidator;
+import org.apache.commons.lang3.StringUtils;
 import org.codehaus.jackson.map.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -11,10 +22,19 @@ import org.slf4j.LoggerFactory;
 import javax.inject.Inject;
 import javax.inject.Named;
 import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
 
 @Named
 public class AuthBridgeAction extends JiraWebActionSupport {
@@ -22,42 +42,150 @@ public class AuthBridgeAction extends JiraWebActionSupport {
 
     private static final Logger log = LoggerFactory.getLogger(AuthBridgeAction.class);
     private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final int PAGE_SIZE = 25;
 
     private final SettingService settingService;
+    private final HttpClientFactory httpClientFactory;
+    private final ConnectionWarmer connectionWarmer;
+    private final AuthBridgeMetrics metrics;
+    private final AuditTrail auditTrail;
 
     public boolean insecureSkipVerify;
     public String trustCaCert;
+    public boolean asyncEnabled;
+    public long asyncTimeoutMillis = AuthBridgeSetting.DEFAULT_ASYNC_TIMEOUT_MILLIS;
+    public int connectTimeoutMillis = AuthBridgeSetting.DEFAULT_CONNECT_TIMEOUT_MILLIS;
+    public int readTimeoutMillis = AuthBridgeSetting.DEFAULT_READ_TIMEOUT_MILLIS;
+    public int leaseTimeoutMillis = AuthBridgeSetting.DEFAULT_LEASE_TIMEOUT_MILLIS;
+    public int maxConnTotal = AuthBridgeSetting.DEFAULT_MAX_CONN_TOTAL;
+    public int maxConnPerRoute = AuthBridgeSetting.DEFAULT_MAX_CONN_PER_ROUTE;
+    public long connectionTimeToLiveMillis = AuthBridgeSetting.DEFAULT_CONNECTION_TTL_MILLIS;
+    public long idleConnectionTimeoutMillis = AuthBridgeSetting.DEFAULT_IDLE_CONNECTION_TIMEOUT_MILLIS;
+    public int maxCallbackResponseBytes = AuthBridgeSetting.DEFAULT_MAX_CALLBACK_RESPONSE_BYTES;
+    public boolean warmUpEnabled;
+    public int warmUpConnections = AuthBridgeSetting.DEFAULT_WARM_UP_CONNECTIONS;
+    public int resultCacheMaxEntries = AuthBridgeSetting.DEFAULT_RESULT_CACHE_MAX_ENTRIES;
+    public boolean auditEnabled = true;
+    public int auditSamplePercent = AuthBridgeSetting.DEFAULT_AUDIT_SAMPLE_PERCENT;
+    public boolean rateLimitEnabled;
+    public int clientRateLimitPerMinute = AuthBridgeSetting.DEFAULT_CLIENT_RATE_LIMIT_PER_MINUTE;
+    public int clientRateLimitBurst = AuthBridgeSetting.DEFAULT_CLIENT_RATE_LIMIT_BURST;
+    public int userRateLimitPerMinute = AuthBridgeSetting.DEFAULT_USER_RATE_LIMIT_PER_MINUTE;
+    public int userRateLimitBurst = AuthBridgeSetting.DEFAULT_USER_RATE_LIMIT_BURST;
+    public int callbackMaxRetries = AuthBridgeSetting.DEFAULT_CALLBACK_MAX_RETRIES;
+    public int retryBackoffMillis = AuthBridgeSetting.DEFAULT_RETRY_BACKOFF_MILLIS;
+    public int retryMaxBackoffMillis = AuthBridgeSetting.DEFAULT_RETRY_MAX_BACKOFF_MILLIS;
+    public long callbackDeadlineMillis = AuthBridgeSetting.DEFAULT_CALLBACK_DEADLINE_MILLIS;
+    public boolean hedgeEnabled;
+    public int hedgeMinDelayMillis = AuthBridgeSetting.DEFAULT_HEDGE_MIN_DELAY_MILLIS;
+    public int assertionTtlSeconds = AuthBridgeSetting.DEFAULT_ASSERTION_TTL_SECONDS;
+    // 生成新密钥时使用的算法
+    public String assertionAlgorithm = AssertionKeys.ALG_RS256;
+    public boolean circuitBreakerEnabled;
+    public int circuitBreakerFailureRate = AuthBridgeSetting.DEFAULT_CIRCUIT_BREAKER_FAILURE_RATE;
+    public int circuitBreakerSlowCallRate = AuthBridgeSetting.DEFAULT_CIRCUIT_BREAKER_SLOW_CALL_RATE;
+    public long circuitBreakerSlowCallMillis = AuthBridgeSetting.DEFAULT_CIRCUIT_BREAKER_SLOW_CALL_MILLIS;
+    public int circuitBreakerWindowSize = AuthBridgeSetting.DEFAULT_CIRCUIT_BREAKER_WINDOW_SIZE;
+    public int circuitBreakerMinimumCalls = AuthBridgeSetting.DEFAULT_CIRCUIT_BREAKER_MINIMUM_CALLS;
+    public long circuitBreakerOpenMillis = AuthBridgeSetting.DEFAULT_CIRCUIT_BREAKER_OPEN_MILLIS;
+    public int circuitBreakerHalfOpenCalls = AuthBridgeSetting.DEFAULT_CIRCUIT_BREAKER_HALF_OPEN_CALLS;
+    public boolean circuitBreakerFallbackToRedirect;
 
+    // client 列表的搜索条件和页码，只展示当前页
+    private String q;
+    private int page = 1;
+    private int pageCount = 1;
+    private int clientTotal;
     private List<ClientConfigPair> clientConfigPairs = Collections.emptyList();
+    // 行级编辑时被修改配置原来的 clientId 和 callback
+    private String originalClientId;
+    private String originalCallback;
 
     private String[] clientIds;
     private String[] callbacks;
     private String[] redirectUrls;
+    // 每个 client 的可选连接设置，与 clientIds 按下标对应，空值表示使用全局默认值
+    private String[] connectTimeouts;
+    private String[] readTimeouts;
+    private String[] leaseTimeouts;
+    private String[] maxConnPerRoutes;
+    private String[] resultCacheTtls;
+    private String[] maxRetries;
+    // 每个 client 允许转发的 cookie 名称，逗号分隔，空值表示使用默认值
+    private String[] cookieNames;
+    private String[] modes;
+    // 每个 client 的 TLS 信任：inherit（使用全局配置）/ verify / skip，以及可选的 CA 证书
+    private String[] tlsModes;
+    private String[] protocols;
+    // 每个 client 并行通知的其他回调地址（空白分隔）及结果判定策略
+    private String[] fanOutCallbacks;
+    private String[] fanOutPolicies;
+    private String[] trustCaCerts;
 
     @Inject
-    public AuthBridgeAction(SettingService settingService) {
+    public AuthBridgeAction(SettingService settingService, HttpClientFactory httpClientFactory, ConnectionWarmer connectionWarmer,
+                            AuthBridgeMetrics metrics, AuditTrail auditTrail) {
         this.settingService = settingService;
+        this.httpClientFactory = httpClientFactory;
+        this.connectionWarmer = connectionWarmer;
+        this.metrics = metrics;
+        this.auditTrail = auditTrail;
     }
 
     @Override
     public String doDefault() {
-        log.info("User is accessing Auth Bridge configuration page (doDefault).");
+        log.debug("User is accessing Auth Bridge configuration page (doDefault).");
 
         AuthBridgeSetting setting = settingService.getSetting();
         if (setting != null) {
             insecureSkipVerify = setting.isInsecureSkipVerify();
             trustCaCert = setting.getTrustCaCert();
-            clientConfigPairs = setting.getClientConfigPairs();
+            asyncEnabled = setting.isAsyncEnabled();
+            asyncTimeoutMillis = setting.getAsyncTimeoutMillis();
+            connectTimeoutMillis = setting.getConnectTimeoutMillis();
+            readTimeoutMillis = setting.getReadTimeoutMillis();
+            leaseTimeoutMillis = setting.getLeaseTimeoutMillis();
+            maxConnTotal = setting.getMaxConnTotal();
+            maxConnPerRoute = setting.getMaxConnPerRoute();
+            connectionTimeToLiveMillis = setting.getConnectionTimeToLiveMillis();
+            idleConnectionTimeoutMillis = setting.getIdleConnectionTimeoutMillis();
+            maxCallbackResponseBytes = setting.getMaxCallbackResponseBytes();
+            warmUpEnabled = setting.isWarmUpEnabled();
+            warmUpConnections = setting.getWarmUpConnections();
+            resultCacheMaxEntries = setting.getResultCacheMaxEntries();
+            auditEnabled = setting.isAuditEnabled();
+            auditSamplePercent = setting.getAuditSamplePercent();
+            rateLimitEnabled = setting.isRateLimitEnabled();
+            clientRateLimitPerMinute = setting.getClientRateLimitPerMinute();
+            clientRateLimitBurst = setting.getClientRateLimitBurst();
+            userRateLimitPerMinute = setting.getUserRateLimitPerMinute();
+            userRateLimitBurst = setting.getUserRateLimitBurst();
+            callbackMaxRetries = setting.getCallbackMaxRetries();
+            retryBackoffMillis = setting.getRetryBackoffMillis();
+            retryMaxBackoffMillis = setting.getRetryMaxBackoffMillis();
+            callbackDeadlineMillis = setting.getCallbackDeadlineMillis();
+            hedgeEnabled = setting.isHedgeEnabled();
+            hedgeMinDelayMillis = setting.getHedgeMinDelayMillis();
+            assertionTtlSeconds = setting.getAssertionTtlSeconds();
+            if (setting.getAssertionAlgorithm() != null) {
+                assertionAlgorithm = setting.getAssertionAlgorithm();
+            }
+            circuitBreakerEnabled = setting.isCircuitBreakerEnabled();
+            circuitBreakerFailureRate = setting.getCircuitBreakerFailureRate();
+            circuitBreakerSlowCallRate = setting.getCircuitBreakerSlowCallRate();
+            circuitBreakerSlowCallMillis = setting.getCircuitBreakerSlowCallMillis();
+            circuitBreakerWindowSize = setting.getCircuitBreakerWindowSize();
+            circuitBreakerMinimumCalls = setting.getCircuitBreakerMinimumCalls();
+            circuitBreakerOpenMillis = setting.getCircuitBreakerOpenMillis();
+            circuitBreakerHalfOpenCalls = setting.getCircuitBreakerHalfOpenCalls();
+            circuitBreakerFallbackToRedirect = setting.isCircuitBreakerFallbackToRedirect();
 
-            log.info("Loaded existing settings: insecureSkipVerify={}, trustCaCert present={}, clientConfigPairs size={}",
-                    insecureSkipVerify, trustCaCert != null && !trustCaCert.isEmpty(), clientConfigPairs.size());
+            loadClientPage();
 
-            // 打印每一条 client 配置
-            for (ClientConfigPair c : clientConfigPairs) {
-                log.info("Loaded clientConfigPair - clientId: '{}', callback: '{}'", c.getClientId(), c.getCallback());
-            }
+            log.debug("Loaded existing settings: insecureSkipVerify={}, trustCaCert present={}, clients matched={}, page={}/{}",
+                    insecureSkipVerify, trustCaCert != null && !trustCaCert.isEmpty(), clientTotal, page, pageCount);
         } else {
-            log.info("No existing Auth Bridge settings found, initializing defaults.");
+            log.debug("No existing Auth Bridge settings found, initializing defaults.");
         }
 
         return INPUT;
@@ -72,47 +200,89 @@ public class AuthBridgeAction extends JiraWebActionSupport {
             return this.doDefault();
         }
 
+        if ("rotateAssertionKey".equals(command)) {
+            return doRotateAssertionKey();
+        }
+        if ("saveClient".equals(command)) {
+            return doSaveClient();
+        }
+        if ("deleteClient".equals(command)) {
+            return doDeleteClient();
+        }
+
         log.info("Starting Auth Bridge settings update...");
 
-        if (clientIds != null) {
-            log.info("Received clientIds: {}", Arrays.toString(clientIds));
-        } else {
-            log.warn("Received clientIds is null!");
+        if (asyncTimeoutMillis <= 0) {
+            log.warn("Invalid asyncTimeoutMillis={}, using default {}", asyncTimeoutMillis, AuthBridgeSetting.DEFAULT_ASYNC_TIMEOUT_MILLIS);
+            asyncTimeoutMillis = AuthBridgeSetting.DEFAULT_ASYNC_TIMEOUT_MILLIS;
         }
 
-        if (callbacks != null) {
-            log.info("Received callbacks: {}", Arrays.toString(callbacks));
-        } else {
-            log.warn("Received callbacks is null!");
-        }
-
-        List<ClientConfigPair> newClientConfigPairs = new ArrayList<>();
-        if (clientIds != null && callbacks != null && redirectUrls != null &&
-                clientIds.length == callbacks.length && redirectUrls.length == callbacks.length) {
-            for (int i = 0; i < clientIds.length; i++) {
-                String clientId = clientIds[i];
-                String callback = callbacks[i];
-                String redirectUrl = redirectUrls[i];
-
-                if (clientId != null && !clientId.trim().isEmpty() && callback != null && !callback.isEmpty()) {
-                    newClientConfigPairs.add(new ClientConfigPair(callback, clientId.trim(), redirectUrl.trim()));
-                    log.info("Adding clientConfigPair - clientId: '{}', callback: '{}', redirectUrl: '{}'", clientId.trim(), callback, redirectUrl);
-                } else {
-                    log.warn("Skipping empty or invalid clientConfigPair - clientId: '{}', callback: '{}', redirectUrl: '{}'", clientId, callback, redirectUrl);
-                }
-            }
-        } else {
-            log.warn("clientIds and callbacks arrays are null or have different lengths: clientIds.length={}, callbacks.length={}",
-                    clientIds != null ? clientIds.length : "null",
-                    callbacks != null ? callbacks.length : "null");
+        if (connectTimeoutMillis <= 0 || readTimeoutMillis <= 0 || leaseTimeoutMillis <= 0
+                || maxConnTotal <= 0 || maxConnPerRoute <= 0) {
+            addErrorMessage("Timeouts and connection pool limits must be positive.");
+            return ERROR;
         }
 
-        AuthBridgeSetting authBridgeSetting = new AuthBridgeSetting(newClientConfigPairs, insecureSkipVerify, trustCaCert);
-        log.info("Prepared AuthBridgeSetting for saving: clientConfigPairs size={}, insecureSkipVerify={}, trustCaCert present={}",
-                newClientConfigPairs.size(), insecureSkipVerify, trustCaCert != null && !trustCaCert.isEmpty());
+        if (maxCallbackResponseBytes <= 0) {
+            addErrorMessage("Max callback response size must be positive.");
+            return ERROR;
+        }
+
+        if (warmUpConnections <= 0) {
+            addErrorMessage("Warm-up connections must be positive.");
+            return ERROR;
+        }
+
+        if (resultCacheMaxEntries <= 0) {
+            addErrorMessage("Result cache size must be positive.");
+            return ERROR;
+        }
+
+        if (auditSamplePercent < 0 || auditSamplePercent > 100) {
+            addErrorMessage("Audit sample rate must be between 0 and 100.");
+            return ERROR;
+        }
+
+        if (clientRateLimitPerMinute < 0 || userRateLimitPerMinute < 0 || clientRateLimitBurst <= 0 || userRateLimitBurst <= 0) {
+            addErrorMessage("Rate limits must not be negative and burst sizes must be positive.");
+            return ERROR;
+        }
+
+        if (callbackMaxRetries < 0 || retryBackoffMillis <= 0 || retryMaxBackoffMillis < retryBackoffMillis
+                || callbackDeadlineMillis <= 0 || hedgeMinDelayMillis <= 0) {
+            addErrorMessage("Retries must not be negative, backoff, deadline and hedge delay must be positive, "
+                    + "and the maximum backoff must not be less than the initial backoff.");
+            return ERROR;
+        }
+
+        if (assertionTtlSeconds <= 0) {
+            addErrorMessage("Assertion lifetime must be positive.");
+            return ERROR;
+        }
+
+        if (connectionTimeToLiveMillis < 0 || idleConnectionTimeoutMillis <= 0) {
+            addErrorMessage("Connection TTL must not be negative and idle timeout must be positive.");
+            return ERROR;
+        }
+
+        if (circuitBreakerFailureRate < 1 || circuitBreakerFailureRate > 100
+                || circuitBreakerSlowCallRate < 1 || circuitBreakerSlowCallRate > 100) {
+            addErrorMessage("Circuit breaker failure rate and slow call rate must be between 1 and 100.");
+            return ERROR;
+        }
+        if (circuitBreakerSlowCallMillis <= 0 || circuitBreakerWindowSize <= 0 || circuitBreakerMinimumCalls <= 0
+                || circuitBreakerOpenMillis <= 0 || circuitBreakerHalfOpenCalls <= 0) {
+            addErrorMessage("Circuit breaker durations, window size and call counts must be positive.");
+            return ERROR;
+        }
+
+        // CA 证书在保存时解析校验（包括证书链中的全部证书），无效时不保存
+        if (!validateTrustCaCert(trustCaCert, "global")) {
+            return ERROR;
+        }
 
         try {
-            settingService.updateSetting(authBridgeSetting);
+            settingService.updateSetting(this::toSetting);
             log.info("Auth Bridge settings updated successfully.");
         } catch (Exception e) {
             log.error("Failed to update Auth Bridge settings.", e);
@@ -123,11 +293,465 @@ public class AuthBridgeAction extends JiraWebActionSupport {
         return getRedirect("authbridge.jspa");
     }
 
+    /**
+     * 表单中的全局配置，client 列表和断言密钥沿用 current
+     *
+     * @param current 保存时加载的最新配置
+     */
+    private AuthBridgeSetting toSetting(AuthBridgeSetting current) {
+        // client 列表通过行级编辑单独保存，这里沿用当前配置
+        AuthBridgeSetting authBridgeSetting = new AuthBridgeSetting(current.getClientConfigPairs(), insecureSkipVerify, trustCaCert);
+        authBridgeSetting.setAsyncEnabled(asyncEnabled);
+        authBridgeSetting.setAsyncTimeoutMillis(asyncTimeoutMillis);
+        authBridgeSetting.setConnectTimeoutMillis(connectTimeoutMillis);
+        authBridgeSetting.setReadTimeoutMillis(readTimeoutMillis);
+        authBridgeSetting.setLeaseTimeoutMillis(leaseTimeoutMillis);
+        authBridgeSetting.setMaxConnTotal(maxConnTotal);
+        authBridgeSetting.setMaxConnPerRoute(maxConnPerRoute);
+        authBridgeSetting.setConnectionTimeToLiveMillis(connectionTimeToLiveMillis);
+        authBridgeSetting.setIdleConnectionTimeoutMillis(idleConnectionTimeoutMillis);
+        authBridgeSetting.setMaxCallbackResponseBytes(maxCallbackResponseBytes);
+        authBridgeSetting.setCircuitBreakerEnabled(circuitBreakerEnabled);
+        authBridgeSetting.setCircuitBreakerFailureRate(circuitBreakerFailureRate);
+        authBridgeSetting.setCircuitBreakerSlowCallRate(circuitBreakerSlowCallRate);
+        authBridgeSetting.setCircuitBreakerSlowCallMillis(circuitBreakerSlowCallMillis);
+        authBridgeSetting.setCircuitBreakerWindowSize(circuitBreakerWindowSize);
+        authBridgeSetting.setCircuitBreakerMinimumCalls(circuitBreakerMinimumCalls);
+        authBridgeSetting.setCircuitBreakerOpenMillis(circuitBreakerOpenMillis);
+        authBridgeSetting.setCircuitBreakerHalfOpenCalls(circuitBreakerHalfOpenCalls);
+        authBridgeSetting.setCircuitBreakerFallbackToRedirect(circuitBreakerFallbackToRedirect);
+        authBridgeSetting.setWarmUpEnabled(warmUpEnabled);
+        authBridgeSetting.setWarmUpConnections(warmUpConnections);
+        authBridgeSetting.setResultCacheMaxEntries(resultCacheMaxEntries);
+        authBridgeSetting.setAuditEnabled(auditEnabled);
+        authBridgeSetting.setAuditSamplePercent(auditSamplePercent);
+        authBridgeSetting.setRateLimitEnabled(rateLimitEnabled);
+        authBridgeSetting.setClientRateLimitPerMinute(clientRateLimitPerMinute);
+        authBridgeSetting.setClientRateLimitBurst(clientRateLimitBurst);
+        authBridgeSetting.setUserRateLimitPerMinute(userRateLimitPerMinute);
+        authBridgeSetting.setUserRateLimitBurst(userRateLimitBurst);
+        authBridgeSetting.setCallbackMaxRetries(callbackMaxRetries);
+        authBridgeSetting.setRetryBackoffMillis(retryBackoffMillis);
+        authBridgeSetting.setRetryMaxBackoffMillis(retryMaxBackoffMillis);
+        authBridgeSetting.setCallbackDeadlineMillis(callbackDeadlineMillis);
+        authBridgeSetting.setHedgeEnabled(hedgeEnabled);
+        authBridgeSetting.setHedgeMinDelayMillis(hedgeMinDelayMillis);
+        authBridgeSetting.setAssertionTtlSeconds(assertionTtlSeconds);
+        // 密钥只通过 rotateAssertionKey 生成，保存表单时沿用当前密钥
+        authBridgeSetting.setAssertionAlgorithm(current.getAssertionAlgorithm());
+        authBridgeSetting.setAssertionKeyId(current.getAssertionKeyId());
+        authBridgeSetting.setAssertionSecret(current.getAssertionSecret());
+        authBridgeSetting.setAssertionPublicKey(current.getAssertionPublicKey());
+        authBridgeSetting.setAssertionPreviousAlgorithm(current.getAssertionPreviousAlgorithm());
+        authBridgeSetting.setAssertionPreviousKeyId(current.getAssertionPreviousKeyId());
+        authBridgeSetting.setAssertionPreviousSecret(current.getAssertionPreviousSecret());
+        authBridgeSetting.setAssertionPreviousPublicKey(current.getAssertionPreviousPublicKey());
+        authBridgeSetting.setAssertionKeyActivatesAt(current.getAssertionKeyActivatesAt());
+        log.info("Prepared AuthBridgeSetting for saving: clientConfigPairs size={}, insecureSkipVerify={}, trustCaCert present={}",
+                current.getClientConfigPairs().size(), insecureSkipVerify, trustCaCert != null && !trustCaCert.isEmpty());
+        return authBridgeSetting;
+    }
+
+    private boolean validateTrustCaCert(String pem, String owner) {
+        if (pem == null || pem.trim().isEmpty()) {
+            return true;
+        }
+        try {
+            TrustBundle bundle = TrustBundle.parse(pem);
+            log.info("Validated trusted CA certificate for {}: {}", owner, bundle.describe());
+            return true;
+        } catch (Exception e) {
+            log.warn("Invalid trusted CA certificate for {}: {}", owner, e.getMessage());
+            addErrorMessage("Invalid CA certificate for " + owner + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 保存单行 client 配置（新增或修改），其余 client 和全局配置不变
+     */
+    private String doSaveClient() {
+        ClientConfigPair pair;
+        try {
+            pair = parseClientConfigPair(0);
+        } catch (NumberFormatException e) {
+            return clientError("Invalid connection setting for client " + (clientIds != null && clientIds.length > 0 ? clientIds[0] : "") + ": " + e.getMessage());
+        }
+        if (pair == null) {
+            return clientError("Client ID and callback are required.");
+        }
+        String error = ClientConfigValidator.validate(pair);
+        if (error != null) {
+            return clientError("Invalid settings for client " + pair.getClientId() + ": " + error);
+        }
+
+        try {
+            settingService.saveClientConfigPair(StringUtils.trimToNull(originalClientId), originalCallback, pair);
+            log.info("Client config saved. clientId={}, originalClientId={}", pair.getClientId(), originalClientId);
+        } catch (IllegalArgumentException e) {
+            return clientError(e.getMessage());
+        } catch (Exception e) {
+            log.error("Failed to save client config for '{}'.", pair.getClientId(), e);
+            return clientError("Failed to save settings: " + e.getMessage());
+        }
+        return getRedirect(getPageUrl(page));
+    }
+
+    /**
+     * 删除单行 client 配置
+     */
+    private String doDeleteClient() {
+        if (StringUtils.isBlank(originalClientId)) {
+            return clientError("Client ID is required.");
+        }
+        try {
+            settingService.removeClientConfigPair(originalClientId, originalCallback);
+            log.info("Client config removed. clientId={}", originalClientId);
+        } catch (Exception e) {
+            log.error("Failed to remove client config for '{}'.", originalClientId, e);
+            return clientError("Failed to save settings: " + e.getMessage());
+        }
+        return getRedirect(getPageUrl(page));
+    }
+
+    /**
+     * 行级编辑失败时重新加载页面数据，页面上的其他表单保持当前配置
+     */
+    private String clientError(String message) {
+        addErrorMessage(message);
+        doDefault();
+        return ERROR;
+    }
+
+    /**
+     * 按下标解析页面提交的 client 配置
+     *
+     * @return clientId 或 callback 为空时返回 null
+     * @throws NumberFormatException 可选数值不是正整数
+     */
+    private ClientConfigPair parseClientConfigPair(int i) {
+        String clientId = value(clientIds, i);
+        String callback = value(callbacks, i);
+        if (clientId == null || callback == null) {
+            return null;
+        }
+        String redirectUrl = value(redirectUrls, i);
+        ClientConfigPair pair = new ClientConfigPair(callback, clientId, redirectUrl != null ? redirectUrl : "");
+        pair.setConnectTimeoutMillis(parseOptionalPositive(connectTimeouts, i));
+        pair.setReadTimeoutMillis(parseOptionalPositive(readTimeouts, i));
+        pair.setLeaseTimeoutMillis(parseOptionalPositive(leaseTimeouts, i));
+        pair.setMaxConnPerRoute(parseOptionalPositive(maxConnPerRoutes, i));
+        pair.setResultCacheTtlSeconds(parseOptionalPositive(resultCacheTtls, i));
+        pair.setMaxRetries(parseOptionalNonNegative(maxRetries, i));
+        pair.setCookieNames(parseCookieNames(cookieNames, i));
+        pair.setInsecureSkipVerify(parseTlsMode(tlsModes, i));
+        pair.setTrustCaCert(value(trustCaCerts, i));
+        if (ClientConfigPair.MODE_ASSERTION.equals(value(modes, i))) {
+            pair.setMode(ClientConfigPair.MODE_ASSERTION);
+        }
+        if (ClientConfigPair.PROTOCOL_HTTP2.equals(value(protocols, i))) {
+            pair.setProtocol(ClientConfigPair.PROTOCOL_HTTP2);
+        }
+        String fanOut = value(fanOutCallbacks, i);
+        if (fanOut != null) {
+            pair.setFanOutCallbacks(new ArrayList<>(Arrays.asList(fanOut.split("\\s+"))));
+            String fanOutPolicy = value(fanOutPolicies, i);
+            if (!ClientConfigPair.FAN_OUT_PRIMARY.equals(fanOutPolicy)) {
+                pair.setFanOutPolicy(fanOutPolicy);
+            }
+        }
+        return pair;
+    }
+
+    /**
+     * @return 去掉首尾空白后的值，空值返回 null
+     */
+    private static String value(String[] values, int index) {
+        return values != null && index < values.length ? StringUtils.trimToNull(values[index]) : null;
+    }
+
+    /**
+     * 按搜索条件过滤并分页，数据来自内存中的配置快照
+     */
+    private void loadClientPage() {
+        List<ClientConfigPair> matched = new ArrayList<>();
+        String query = StringUtils.trimToNull(q) != null ? q.trim().toLowerCase(Locale.ROOT) : null;
+        for (ClientConfigPair pair : settingService.getSetting().getClientConfigPairs()) {
+            if (query == null || matches(pair, query)) {
+                matched.add(pair);
+            }
+        }
+        clientTotal = matched.size();
+        pageCount = Math.max(1, (clientTotal + PAGE_SIZE - 1) / PAGE_SIZE);
+        page = Math.min(Math.max(1, page), pageCount);
+        int from = (page - 1) * PAGE_SIZE;
+        clientConfigPairs = matched.subList(from, Math.min(from + PAGE_SIZE, clientTotal));
+    }
+
+    /**
+     * clientId 包含搜索词，或 callback 的主机名包含搜索词（不区分大小写）
+     */
+    private static boolean matches(ClientConfigPair pair, String query) {
+        if (pair.getClientId() != null && pair.getClientId().toLowerCase(Locale.ROOT).contains(query)) {
+            return true;
+        }
+        try {
+            String host = pair.getCallback() != null ? URI.create(pair.getCallback()).getHost() : null;
+            return host != null && host.toLowerCase(Locale.ROOT).contains(query);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 搜索结果中指定页的地址，保存或删除后也返回到当前页
+     */
+    public String getPageUrl(int page) {
+        StringBuilder url = new StringBuilder("authbridge.jspa?page=").append(page);
+        if (StringUtils.isNotBlank(q)) {
+            try {
+                url.append("&q=").append(URLEncoder.encode(q.trim(), StandardCharsets.UTF_8.name()));
+            } catch (UnsupportedEncodingException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return url.toString();
+    }
+
+    /**
+     * 生成新的断言签名密钥，其余配置不变
+     */
+    private String doRotateAssertionKey() {
+        try {
+            settingService.rotateAssertionKey(assertionAlgorithm);
+        } catch (Exception e) {
+            log.error("Failed to rotate assertion signing key.", e);
+            addErrorMessage("Failed to generate assertion signing key: " + e.getMessage());
+            return ERROR;
+        }
+        return getRedirect("authbridge.jspa");
+    }
+
+    /**
+     * 解析与 clientIds 同下标的可选正整数，空值返回 null
+     */
+    private static Integer parseOptionalPositive(String[] values, int index) {
+        if (values == null || index >= values.length || values[index] == null || values[index].trim().isEmpty()) {
+            return null;
+        }
+        int value = Integer.parseInt(values[index].trim());
+        if (value <= 0) {
+            throw new NumberFormatException("value must be positive: " + value);
+        }
+        return value;
+    }
+
+    /**
+     * 解析与 clientIds 同下标的可选非负整数，空值返回 null
+     */
+    private static Integer parseOptionalNonNegative(String[] values, int index) {
+        String value = value(values, index);
+        if (value == null) {
+            return null;
+        }
+        int parsed = Integer.parseInt(value);
+        if (parsed < 0) {
+            throw new NumberFormatException("value must not be negative: " + parsed);
+        }
+        return parsed;
+    }
+
+    /**
+     * 解析与 clientIds 同下标的 TLS 信任方式：skip 返回 true，verify 返回 false，其余（inherit）返回 null
+     */
+    private static Boolean parseTlsMode(String[] values, int index) {
+        if (values == null || index >= values.length) {
+            return null;
+        }
+        if ("skip".equals(values[index])) {
+            return Boolean.TRUE;
+        }
+        if ("verify".equals(values[index])) {
+            return Boolean.FALSE;
+        }
+        return null;
+    }
+
+    /**
+     * 页面上展示的 TLS 信任方式
+     */
+    public String formatTlsMode(ClientConfigPair pair) {
+        if (pair.getInsecureSkipVerify() == null) {
+            return "inherit";
+        }
+        return pair.getInsecureSkipVerify() ? "skip" : "verify";
+    }
+
+    /**
+     * 解析与 clientIds 同下标的逗号分隔 cookie 名称，空值返回 null
+     */
+    private static List<String> parseCookieNames(String[] values, int index) {
+        if (values == null || index >= values.length || values[index] == null) {
+            return null;
+        }
+        List<String> names = new ArrayList<>();
+        for (String name : values[index].split(",")) {
+            if (!name.trim().isEmpty()) {
+                names.add(name.trim());
+            }
+        }
+        return names.isEmpty() ? null : names;
+    }
+
+    /**
+     * 页面上展示的 cookie 名称，未配置时为空（使用默认值）
+     */
+    public String formatCookieNames(ClientConfigPair pair) {
+        return pair.getCookieNames() == null ? "" : String.join(", ", pair.getCookieNames());
+    }
+
+    /**
+     * 页面上展示的其他回调地址，每行一个
+     */
+    public String formatFanOutCallbacks(ClientConfigPair pair) {
+        return pair.getFanOutCallbacks() == null ? "" : String.join("\n", pair.getFanOutCallbacks());
+    }
+
     // Getters / Setters
+    /**
+     * 当前全局 CA 证书包的摘要（证书数量与指纹），未配置时返回 null
+     */
+    public String getTrustCaCertSummary() {
+        TrustBundle bundle = settingService.getCompiledSetting().getTrustBundle(new ClientConfigPair());
+        return bundle != null ? bundle.describe() : null;
+    }
+
+    public String getAssertionKeyId() {
+        return settingService.getSetting().getAssertionKeyId();
+    }
+
+    public String getCurrentAssertionAlgorithm() {
+        return settingService.getSetting().getAssertionAlgorithm();
+    }
+
+    /**
+     * @return 轮换后新密钥尚未开始用于签名时为生效时间，否则为 null
+     */
+    public Date getAssertionKeyPendingUntil() {
+        long activatesAt = settingService.getSetting().getAssertionKeyActivatesAt();
+        return activatesAt > System.currentTimeMillis() ? new Date(activatesAt) : null;
+    }
+
+    /**
+     * RS256 时为公钥 PEM；HS256 时为 null，见 {@link #getAssertionClientSecrets()}
+     */
+    public String getAssertionVerificationKey() {
+        AuthBridgeSetting setting = settingService.getSetting();
+        if (AssertionKeys.ALG_HS256.equals(setting.getAssertionAlgorithm())) {
+            return null;
+        }
+        return setting.getAssertionPublicKey();
+    }
+
+    /**
+     * HS256 时断言模式 client 各自的验证密钥（clientId → 密钥，需以安全方式分别提供给对应的下游）；RS256 时为空
+     */
+    public Map<String, String> getAssertionClientSecrets() {
+        AuthBridgeSetting setting = settingService.getSetting();
+        Map<String, String> secrets = new TreeMap<>();
+        if (!AssertionKeys.ALG_HS256.equals(setting.getAssertionAlgorithm()) || setting.getAssertionSecret() == null) {
+            return secrets;
+        }
+        try {
+            for (ClientConfigPair pair : setting.getClientConfigPairs()) {
+                if (ClientConfigPair.MODE_ASSERTION.equals(pair.getMode()) && !secrets.containsKey(pair.getClientId())) {
+                    secrets.put(pair.getClientId(), AssertionKeys.clientSecret(setting.getAssertionSecret(), pair.getClientId()));
+                }
+            }
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            log.error("Failed to derive assertion client secrets.", e);
+        }
+        return secrets;
+    }
+
+    public List<RoutePoolStats> getPoolStats() {
+        return httpClientFactory.getPoolStats();
+    }
+
+    /**
+     * 自插件启动以来按 client 汇总的请求指标（同时通过 JMX 发布）
+     */
+    public List<ClientMetrics> getClientMetrics() {
+        return metrics.getAll();
+    }
+
+    /**
+     * @return 本节点当前使用的配置版本戳，用于核对集群中各节点是否一致
+     */
+    public String getSettingsVersion() {
+        return settingService.getLoadedVersion();
+    }
+
+    public AuditTrail getAuditTrail() {
+        return auditTrail;
+    }
+
+    public List<WarmUpStatus> getWarmUpResults() {
+        return connectionWarmer.getLastResults();
+    }
+
+    /**
+     * 最近一次预热完成时间，从未执行时返回 null
+     */
+    public Date getWarmUpRunAt() {
+        long lastRunAt = connectionWarmer.getLastRunAt();
+        return lastRunAt > 0 ? new Date(lastRunAt) : null;
+    }
+
     public List<ClientConfigPair> getClientConfigPairs() {
         return clientConfigPairs;
     }
 
+    public String getQ() {
+        return q;
+    }
+
+    public void setQ(String q) {
+        this.q = q;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public void setPage(int page) {
+        this.page = page;
+    }
+
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    public int getClientTotal() {
+        return clientTotal;
+    }
+
+    public String getOriginalClientId() {
+        return originalClientId;
+    }
+
+    public void setOriginalClientId(String originalClientId) {
+        this.originalClientId = originalClientId;
+    }
+
+    public String getOriginalCallback() {
+        return originalCallback;
+    }
+
+    public void setOriginalCallback(String originalCallback) {
+        this.originalCallback = originalCallback;
+    }
+
     public String[] getClientIds() {
         return clientIds;
     }
@@ -167,4 +791,404 @@ public class AuthBridgeAction extends JiraWebActionSupport {
     public void setTrustCaCert(String trustCaCert) {
         this.trustCaCert = trustCaCert;
     }
-}
\ No newline at end of file
+
+    public boolean isAsyncEnabled() {
+        return asyncEnabled;
+    }
+
+    public void setAsyncEnabled(boolean asyncEnabled) {
+        this.asyncEnabled = asyncEnabled;
+    }
+
+    public long getAsyncTimeoutMillis() {
+        return asyncTimeoutMillis;
+    }
+
+    public void setAsyncTimeoutMillis(long asyncTimeoutMillis) {
+        this.asyncTimeoutMillis = asyncTimeoutMillis;
+    }
+
+    public boolean isCircuitBreakerEnabled() {
+        return circuitBreakerEnabled;
+    }
+
+    public void setCircuitBreakerEnabled(boolean circuitBreakerEnabled) {
+        this.circuitBreakerEnabled = circuitBreakerEnabled;
+    }
+
+    public int getCircuitBreakerFailureRate() {
+        return circuitBreakerFailureRate;
+    }
+
+    public void setCircuitBreakerFailureRate(int circuitBreakerFailureRate) {
+        this.circuitBreakerFailureRate = circuitBreakerFailureRate;
+    }
+
+    public int getCircuitBreakerSlowCallRate() {
+        return circuitBreakerSlowCallRate;
+    }
+
+    public void setCircuitBreakerSlowCallRate(int circuitBreakerSlowCallRate) {
+        this.circuitBreakerSlowCallRate = circuitBreakerSlowCallRate;
+    }
+
+    public long getCircuitBreakerSlowCallMillis() {
+        return circuitBreakerSlowCallMillis;
+    }
+
+    public void setCircuitBreakerSlowCallMillis(long circuitBreakerSlowCallMillis) {
+        this.circuitBreakerSlowCallMillis = circuitBreakerSlowCallMillis;
+    }
+
+    public int getCircuitBreakerWindowSize() {
+        return circuitBreakerWindowSize;
+    }
+
+    public void setCircuitBreakerWindowSize(int circuitBreakerWindowSize) {
+        this.circuitBreakerWindowSize = circuitBreakerWindowSize;
+    }
+
+    public int getCircuitBreakerMinimumCalls() {
+        return circuitBreakerMinimumCalls;
+    }
+
+    public void setCircuitBreakerMinimumCalls(int circuitBreakerMinimumCalls) {
+        this.circuitBreakerMinimumCalls = circuitBreakerMinimumCalls;
+    }
+
+    public long getCircuitBreakerOpenMillis() {
+        return circuitBreakerOpenMillis;
+    }
+
+    public void setCircuitBreakerOpenMillis(long circuitBreakerOpenMillis) {
+        this.circuitBreakerOpenMillis = circuitBreakerOpenMillis;
+    }
+
+    public int getCircuitBreakerHalfOpenCalls() {
+        return circuitBreakerHalfOpenCalls;
+    }
+
+    public void setCircuitBreakerHalfOpenCalls(int circuitBreakerHalfOpenCalls) {
+        this.circuitBreakerHalfOpenCalls = circuitBreakerHalfOpenCalls;
+    }
+
+    public boolean isCircuitBreakerFallbackToRedirect() {
+        return circuitBreakerFallbackToRedirect;
+    }
+
+    public void setCircuitBreakerFallbackToRedirect(boolean circuitBreakerFallbackToRedirect) {
+        this.circuitBreakerFallbackToRedirect = circuitBreakerFallbackToRedirect;
+    }
+
+    public String[] getConnectTimeouts() {
+        return connectTimeouts;
+    }
+
+    public void setConnectTimeouts(String[] connectTimeouts) {
+        this.connectTimeouts = connectTimeouts;
+    }
+
+    public String[] getReadTimeouts() {
+        return readTimeouts;
+    }
+
+    public void setReadTimeouts(String[] readTimeouts) {
+        this.readTimeouts = readTimeouts;
+    }
+
+    public String[] getLeaseTimeouts() {
+        return leaseTimeouts;
+    }
+
+    public void setLeaseTimeouts(String[] leaseTimeouts) {
+        this.leaseTimeouts = leaseTimeouts;
+    }
+
+    public String[] getMaxConnPerRoutes() {
+        return maxConnPerRoutes;
+    }
+
+    public void setMaxConnPerRoutes(String[] maxConnPerRoutes) {
+        this.maxConnPerRoutes = maxConnPerRoutes;
+    }
+
+    public int getConnectTimeoutMillis() {
+        return connectTimeoutMillis;
+    }
+
+    public void setConnectTimeoutMillis(int connectTimeoutMillis) {
+        this.connectTimeoutMillis = connectTimeoutMillis;
+    }
+
+    public int getReadTimeoutMillis() {
+        return readTimeoutMillis;
+    }
+
+    public void setReadTimeoutMillis(int readTimeoutMillis) {
+        this.readTimeoutMillis = readTimeoutMillis;
+    }
+
+    public int getLeaseTimeoutMillis() {
+        return leaseTimeoutMillis;
+    }
+
+    public void setLeaseTimeoutMillis(int leaseTimeoutMillis) {
+        this.leaseTimeoutMillis = leaseTimeoutMillis;
+    }
+
+    public int getMaxConnTotal() {
+        return maxConnTotal;
+    }
+
+    public void setMaxConnTotal(int maxConnTotal) {
+        this.maxConnTotal = maxConnTotal;
+    }
+
+    public int getMaxConnPerRoute() {
+        return maxConnPerRoute;
+    }
+
+    public void setMaxConnPerRoute(int maxConnPerRoute) {
+        this.maxConnPerRoute = maxConnPerRoute;
+    }
+
+    public long getConnectionTimeToLiveMillis() {
+        return connectionTimeToLiveMillis;
+    }
+
+    public void setConnectionTimeToLiveMillis(long connectionTimeToLiveMillis) {
+        this.connectionTimeToLiveMillis = connectionTimeToLiveMillis;
+    }
+
+    public long getIdleConnectionTimeoutMillis() {
+        return idleConnectionTimeoutMillis;
+    }
+
+    public void setIdleConnectionTimeoutMillis(long idleConnectionTimeoutMillis) {
+        this.idleConnectionTimeoutMillis = idleConnectionTimeoutMillis;
+    }
+
+    public int getMaxCallbackResponseBytes() {
+        return maxCallbackResponseBytes;
+    }
+
+    public void setMaxCallbackResponseBytes(int maxCallbackResponseBytes) {
+        this.maxCallbackResponseBytes = maxCallbackResponseBytes;
+    }
+
+    public String[] getCookieNames() {
+        return cookieNames;
+    }
+
+    public void setCookieNames(String[] cookieNames) {
+        this.cookieNames = cookieNames;
+    }
+
+    public int getAssertionTtlSeconds() {
+        return assertionTtlSeconds;
+    }
+
+    public void setAssertionTtlSeconds(int assertionTtlSeconds) {
+        this.assertionTtlSeconds = assertionTtlSeconds;
+    }
+
+    public String getAssertionAlgorithm() {
+        return assertionAlgorithm;
+    }
+
+    public void setAssertionAlgorithm(String assertionAlgorithm) {
+        this.assertionAlgorithm = assertionAlgorithm;
+    }
+
+    public String[] getModes() {
+        return modes;
+    }
+
+    public void setModes(String[] modes) {
+        this.modes = modes;
+    }
+
+    public int getResultCacheMaxEntries() {
+        return resultCacheMaxEntries;
+    }
+
+    public void setResultCacheMaxEntries(int resultCacheMaxEntries) {
+        this.resultCacheMaxEntries = resultCacheMaxEntries;
+    }
+
+    public boolean isAuditEnabled() {
+        return auditEnabled;
+    }
+
+    public void setAuditEnabled(boolean auditEnabled) {
+        this.auditEnabled = auditEnabled;
+    }
+
+    public int getAuditSamplePercent() {
+        return auditSamplePercent;
+    }
+
+    public void setAuditSamplePercent(int auditSamplePercent) {
+        this.auditSamplePercent = auditSamplePercent;
+    }
+
+    public boolean isRateLimitEnabled() {
+        return rateLimitEnabled;
+    }
+
+    public void setRateLimitEnabled(boolean rateLimitEnabled) {
+        this.rateLimitEnabled = rateLimitEnabled;
+    }
+
+    public int getClientRateLimitPerMinute() {
+        return clientRateLimitPerMinute;
+    }
+
+    public void setClientRateLimitPerMinute(int clientRateLimitPerMinute) {
+        this.clientRateLimitPerMinute = clientRateLimitPerMinute;
+    }
+
+    public int getClientRateLimitBurst() {
+        return clientRateLimitBurst;
+    }
+
+    public void setClientRateLimitBurst(int clientRateLimitBurst) {
+        this.clientRateLimitBurst = clientRateLimitBurst;
+    }
+
+    public int getUserRateLimitPerMinute() {
+        return userRateLimitPerMinute;
+    }
+
+    public void setUserRateLimitPerMinute(int userRateLimitPerMinute) {
+        this.userRateLimitPerMinute = userRateLimitPerMinute;
+    }
+
+    public int getUserRateLimitBurst() {
+        return userRateLimitBurst;
+    }
+
+    public void setUserRateLimitBurst(int userRateLimitBurst) {
+        this.userRateLimitBurst = userRateLimitBurst;
+    }
+
+    public String[] getMaxRetries() {
+        return maxRetries;
+    }
+
+    public void setMaxRetries(String[] maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    public int getCallbackMaxRetries() {
+        return callbackMaxRetries;
+    }
+
+    public void setCallbackMaxRetries(int callbackMaxRetries) {
+        this.callbackMaxRetries = callbackMaxRetries;
+    }
+
+    public int getRetryBackoffMillis() {
+        return retryBackoffMillis;
+    }
+
+    public void setRetryBackoffMillis(int retryBackoffMillis) {
+        this.retryBackoffMillis = retryBackoffMillis;
+    }
+
+    public int getRetryMaxBackoffMillis() {
+        return retryMaxBackoffMillis;
+    }
+
+    public void setRetryMaxBackoffMillis(int retryMaxBackoffMillis) {
+        this.retryMaxBackoffMillis = retryMaxBackoffMillis;
+    }
+
+    public long getCallbackDeadlineMillis() {
+        return callbackDeadlineMillis;
+    }
+
+    public void setCallbackDeadlineMillis(long callbackDeadlineMillis) {
+        this.callbackDeadlineMillis = callbackDeadlineMillis;
+    }
+
+    public boolean isHedgeEnabled() {
+        return hedgeEnabled;
+    }
+
+    public void setHedgeEnabled(boolean hedgeEnabled) {
+        this.hedgeEnabled = hedgeEnabled;
+    }
+
+    public int getHedgeMinDelayMillis() {
+        return hedgeMinDelayMillis;
+    }
+
+    public void setHedgeMinDelayMillis(int hedgeMinDelayMillis) {
+        this.hedgeMinDelayMillis = hedgeMinDelayMillis;
+    }
+
+    public String[] getResultCacheTtls() {
+        return resultCacheTtls;
+    }
+
+    public void setResultCacheTtls(String[] resultCacheTtls) {
+        this.resultCacheTtls = resultCacheTtls;
+    }
+
+    public String[] getTlsModes() {
+        return tlsModes;
+    }
+
+    public void setTlsModes(String[] tlsModes) {
+        this.tlsModes = tlsModes;
+    }
+
+    public String[] getProtocols() {
+        return protocols;
+    }
+
+    public void setProtocols(String[] protocols) {
+        this.protocols = protocols;
+    }
+
+    public String[] getFanOutCallbacks() {
+        return fanOutCallbacks;
+    }
+
+    public void setFanOutCallbacks(String[] fanOutCallbacks) {
+        this.fanOutCallbacks = fanOutCallbacks;
+    }
+
+    public String[] getFanOutPolicies() {
+        return fanOutPolicies;
+    }
+
+    public void setFanOutPolicies(String[] fanOutPolicies) {
+        this.fanOutPolicies = fanOutPolicies;
+    }
+
+    public String[] getTrustCaCerts() {
+        return trustCaCerts;
+    }
+
+    public void setTrustCaCerts(String[] trustCaCerts) {
+        this.trustCaCerts = trustCaCerts;
+    }
+
+    public boolean isWarmUpEnabled() {
+        return warmUpEnabled;
+    }
+
+    public void setWarmUpEnabled(boolean warmUpEnabled) {
+        this.warmUpEnabled = warmUpEnabled;
+    }
+
+    public int getWarmUpConnections() {
+        return warmUpConnections;
+    }
+
+    public void setWarmUpConnections(int warmUpConnections) {
+        this.warmUpConnections = warmUpConnections;
+    }
+}
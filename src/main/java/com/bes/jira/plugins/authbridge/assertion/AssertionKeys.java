@@ -0,0 +1,112 @@
+package com.bes.jira.plugins.authbridge.assertion;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+
+/**
+ * 签名断言密钥的生成与 PEM 编解码。
+ */
+public final class AssertionKeys {
+    public static final String ALG_HS256 = "HS256";
+    public static final String ALG_RS256 = "RS256";
+    // JWKS 的缓存时间；轮换后新的 RS256 密钥至少发布这么久才开始用于签名
+    public static final int JWKS_MAX_AGE_SECONDS = 300;
+
+    private static final int HMAC_SECRET_BYTES = 32;
+    private static final int RSA_KEY_BITS = 2048;
+    private static final SecureRandom random = new SecureRandom();
+
+    private AssertionKeys() {
+    }
+
+    public static boolean isSupported(String algorithm) {
+        return ALG_HS256.equals(algorithm) || ALG_RS256.equals(algorithm);
+    }
+
+    /**
+     * @return Base64URL 编码的随机 HMAC 密钥
+     */
+    public static String generateHmacSecret() {
+        return base64Url(randomBytes(HMAC_SECRET_BYTES));
+    }
+
+    /**
+     * HS256 下每个 client 的独立密钥：HMAC-SHA256(主密钥, clientId)。
+     * 持有某个 client 密钥的下游无法推出主密钥，也无法为其他 aud 签发断言。
+     *
+     * @param masterSecret Base64URL 编码的主密钥
+     */
+    public static byte[] deriveClientSecret(String masterSecret, String clientId) throws GeneralSecurityException {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(Base64.getUrlDecoder().decode(masterSecret), "HmacSHA256"));
+        return mac.doFinal(("authbridge-assertion:" + clientId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return Base64URL 编码的 client 密钥，提供给该 client 的下游验证 HS256 断言
+     */
+    public static String clientSecret(String masterSecret, String clientId) throws GeneralSecurityException {
+        return base64Url(deriveClientSecret(masterSecret, clientId));
+    }
+
+    public static KeyPair generateRsaKeyPair() throws GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(RSA_KEY_BITS, random);
+        return generator.generateKeyPair();
+    }
+
+    /**
+     * 随机密钥 ID，下游可据此在轮换期间选择验证公钥
+     */
+    public static String newKeyId() {
+        return base64Url(randomBytes(9));
+    }
+
+    public static String toPem(PrivateKey key) {
+        return toPem("PRIVATE KEY", key.getEncoded());
+    }
+
+    public static String toPem(PublicKey key) {
+        return toPem("PUBLIC KEY", key.getEncoded());
+    }
+
+    public static PrivateKey parsePrivateKey(String pem) throws GeneralSecurityException {
+        return KeyFactory.getInstance("RSA").generatePrivate(new PKCS8EncodedKeySpec(fromPem(pem)));
+    }
+
+    public static PublicKey parsePublicKey(String pem) throws GeneralSecurityException {
+        return KeyFactory.getInstance("RSA").generatePublic(new X509EncodedKeySpec(fromPem(pem)));
+    }
+
+    static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    static String base64Url(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static String toPem(String type, byte[] der) {
+        return "-----BEGIN " + type + "-----\n"
+                + Base64.getMimeEncoder(64, new byte[]{'\n'}).encodeToString(der)
+                + "\n-----END " + type + "-----\n";
+    }
+
+    private static byte[] fromPem(String pem) {
+        String base64 = pem.replaceAll("-----(BEGIN|END) [A-Z ]+-----", "").replaceAll("\\s", "");
+        return Base64.getDecoder().decode(base64);
+    }
+}
@@ -0,0 +1,237 @@
+package com.bes.jira.plugins.authbridge.assertion;
+
+import com.bes.jira.plugins.authbridge.model.AuthBridgeSetting;
+import org.apache.commons.lang3.StringUtils;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.interfaces.RSAPublicKey;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 签发紧凑格式（JWT，HS256 / RS256）的短期登录断言：
+ * <pre>
+ * header:  {"alg":"RS256","typ":"JWT","kid":"..."}
+ * payload: {"sub":username,"aud":clientId,"iat":..,"exp":..,"jti":nonce}
+ * </pre>
+ * 下游使用该 client 的独立密钥（HS256，由主密钥派生）或 {@code /plugins/servlet/authbridge/keys} 发布的公钥（RS256）在本地验证，
+ * 并应校验 aud、exp 以及 jti 未被使用过。
+ * <p>
+ * 轮换后新密钥生效前仍使用旧密钥签名；旧的 RS256 公钥在新密钥生效后继续发布一个断言有效期。
+ * 实例在配置编译时创建，密钥只解析一次；线程安全。
+ */
+public final class AssertionSigner {
+    private static final Logger log = LoggerFactory.getLogger(AssertionSigner.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final int NONCE_BYTES = 16;
+
+    private final int ttlSeconds;
+    private final SigningKey current;
+    // 没有轮换前的密钥时为 null
+    private final SigningKey previous;
+    // current 开始用于签名的时间（epoch 毫秒），之前使用 previous
+    private final long activatesAt;
+
+    private AssertionSigner(int ttlSeconds, SigningKey current, SigningKey previous, long activatesAt) {
+        this.ttlSeconds = ttlSeconds;
+        this.current = current;
+        this.previous = previous;
+        this.activatesAt = activatesAt;
+    }
+
+    /**
+     * 根据配置中的密钥创建签名器。
+     *
+     * @return 未配置或密钥无效时返回 null（使用断言模式的 client 将无法登录，错误已记录日志）
+     */
+    public static AssertionSigner create(AuthBridgeSetting setting) {
+        String algorithm = setting.getAssertionAlgorithm();
+        if (StringUtils.isBlank(algorithm) || StringUtils.isBlank(setting.getAssertionSecret())) {
+            return null;
+        }
+        int ttlSeconds = setting.getAssertionTtlSeconds() > 0 ? setting.getAssertionTtlSeconds() : AuthBridgeSetting.DEFAULT_ASSERTION_TTL_SECONDS;
+
+        SigningKey current;
+        try {
+            current = SigningKey.create(algorithm, setting.getAssertionKeyId(), setting.getAssertionSecret(), setting.getAssertionPublicKey());
+        } catch (GeneralSecurityException | IOException | IllegalArgumentException e) {
+            log.error("[AuthBridge] Failed to load assertion signing key. alg={}, kid={}", algorithm, setting.getAssertionKeyId(), e);
+            return null;
+        }
+        if (current == null) {
+            log.error("[AuthBridge] Unsupported assertion algorithm: {}", algorithm);
+            return null;
+        }
+
+        SigningKey previous = null;
+        if (StringUtils.isNotBlank(setting.getAssertionPreviousSecret())) {
+            try {
+                previous = SigningKey.create(setting.getAssertionPreviousAlgorithm(), setting.getAssertionPreviousKeyId(),
+                        setting.getAssertionPreviousSecret(), setting.getAssertionPreviousPublicKey());
+            } catch (GeneralSecurityException | IOException | IllegalArgumentException e) {
+                // 旧密钥无法使用时直接使用新密钥
+                log.warn("[AuthBridge] Failed to load previous assertion signing key. kid={}", setting.getAssertionPreviousKeyId(), e);
+            }
+        }
+        return new AssertionSigner(ttlSeconds, current, previous, setting.getAssertionKeyActivatesAt());
+    }
+
+    /**
+     * 签发断言。
+     */
+    public String sign(String username, String clientId) throws IOException {
+        SigningKey key = signingKey();
+        long now = System.currentTimeMillis() / 1000;
+
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("sub", username);
+        claims.put("aud", clientId);
+        claims.put("iat", now);
+        claims.put("exp", now + ttlSeconds);
+        claims.put("jti", AssertionKeys.base64Url(AssertionKeys.randomBytes(NONCE_BYTES)));
+
+        String signingInput = key.encodedHeader + '.' + AssertionKeys.base64Url(objectMapper.writeValueAsBytes(claims));
+        byte[] data = signingInput.getBytes(StandardCharsets.US_ASCII);
+        try {
+            return signingInput + '.' + AssertionKeys.base64Url(key.sign(clientId, data));
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Failed to sign assertion", e);
+        }
+    }
+
+    public String getAlgorithm() {
+        return signingKey().algorithm;
+    }
+
+    /**
+     * @return 当前用于签名的密钥 ID
+     */
+    public String getKeyId() {
+        return signingKey().keyId;
+    }
+
+    /**
+     * @return 需要在 JWKS 中发布的 RS256 公钥（密钥 ID → 公钥）：当前密钥，以及已签发的断言可能仍未过期的旧密钥
+     */
+    public Map<String, RSAPublicKey> getPublicKeys() {
+        Map<String, RSAPublicKey> keys = new LinkedHashMap<>();
+        for (SigningKey key : publishedKeys()) {
+            if (key.publicKey instanceof RSAPublicKey) {
+                keys.put(key.keyId, (RSAPublicKey) key.publicKey);
+            }
+        }
+        return keys;
+    }
+
+    private List<SigningKey> publishedKeys() {
+        List<SigningKey> keys = new ArrayList<>(2);
+        keys.add(current);
+        if (previous != null && System.currentTimeMillis() < activatesAt + TimeUnit.SECONDS.toMillis(ttlSeconds)) {
+            keys.add(previous);
+        }
+        return keys;
+    }
+
+    private SigningKey signingKey() {
+        return previous != null && System.currentTimeMillis() < activatesAt ? previous : current;
+    }
+
+    /**
+     * 一个签名密钥：HS256 主密钥（按 client 派生）或 RS256 私钥
+     */
+    private static final class SigningKey {
+        private final String algorithm;
+        private final String keyId;
+        private final String encodedHeader;
+        private final String hmacMasterSecret;
+        private final PrivateKey privateKey;
+        private final PublicKey publicKey;
+        // 派生的 client 密钥，数量受已配置的 client 限制
+        private final ConcurrentMap<String, SecretKeySpec> clientKeys = new ConcurrentHashMap<>();
+        // Mac / Signature 实例不是线程安全的，按线程复用
+        private final ThreadLocal<Mac> macs;
+        private final ThreadLocal<Signature> signatures;
+
+        private SigningKey(String algorithm, String keyId, String hmacMasterSecret, PrivateKey privateKey, PublicKey publicKey)
+                throws IOException {
+            this.algorithm = algorithm;
+            this.keyId = keyId;
+            this.hmacMasterSecret = hmacMasterSecret;
+            this.privateKey = privateKey;
+            this.publicKey = publicKey;
+
+            Map<String, Object> header = new LinkedHashMap<>();
+            header.put("alg", algorithm);
+            header.put("typ", "JWT");
+            if (keyId != null) {
+                header.put("kid", keyId);
+            }
+            this.encodedHeader = AssertionKeys.base64Url(objectMapper.writeValueAsBytes(header));
+
+            this.macs = ThreadLocal.withInitial(() -> {
+                try {
+                    return Mac.getInstance("HmacSHA256");
+                } catch (GeneralSecurityException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            this.signatures = ThreadLocal.withInitial(() -> {
+                try {
+                    Signature signature = Signature.getInstance("SHA256withRSA");
+                    signature.initSign(this.privateKey);
+                    return signature;
+                } catch (GeneralSecurityException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        }
+
+        /**
+         * @return 不支持的算法返回 null
+         */
+        static SigningKey create(String algorithm, String keyId, String secret, String publicKeyPem) throws GeneralSecurityException, IOException {
+            if (AssertionKeys.ALG_HS256.equals(algorithm)) {
+                // 提前校验主密钥可用
+                AssertionKeys.deriveClientSecret(secret, "");
+                return new SigningKey(algorithm, keyId, secret, null, null);
+            }
+            if (AssertionKeys.ALG_RS256.equals(algorithm)) {
+                PrivateKey privateKey = AssertionKeys.parsePrivateKey(secret);
+                PublicKey publicKey = StringUtils.isBlank(publicKeyPem) ? null : AssertionKeys.parsePublicKey(publicKeyPem);
+                return new SigningKey(algorithm, keyId, null, privateKey, publicKey);
+            }
+            return null;
+        }
+
+        byte[] sign(String clientId, byte[] data) throws GeneralSecurityException {
+            if (hmacMasterSecret != null) {
+                SecretKeySpec clientKey = clientKeys.get(clientId);
+                if (clientKey == null) {
+                    clientKey = new SecretKeySpec(AssertionKeys.deriveClientSecret(hmacMasterSecret, clientId), "HmacSHA256");
+                    clientKeys.putIfAbsent(clientId, clientKey);
+                }
+                Mac mac = macs.get();
+                mac.init(clientKey);
+                return mac.doFinal(data);
+            }
+            Signature rsa = signatures.get();
+            rsa.update(data);
+            return rsa.sign();
+        }
+    }
+}
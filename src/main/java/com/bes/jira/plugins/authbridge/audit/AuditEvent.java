@@ -0,0 +1,57 @@
+package com.bes.jira.plugins.authbridge.audit;
+
+import com.bes.jira.plugins.authbridge.metrics.RequestOutcome;
+
+/**
+ * 一次 /authbridge 请求的审计记录。请求线程只填充字段，格式化在后台写入线程上完成。
+ */
+public final class AuditEvent {
+    private final long timestampMillis;
+    private final String clientId;
+    private final String username;
+    private final RequestOutcome outcome;
+    private final long durationMicros;
+    private final int callbackStatus;
+
+    AuditEvent(long timestampMillis, String clientId, String username, RequestOutcome outcome, long durationMicros, int callbackStatus) {
+        this.timestampMillis = timestampMillis;
+        this.clientId = clientId;
+        this.username = username;
+        this.outcome = outcome;
+        this.durationMicros = durationMicros;
+        this.callbackStatus = callbackStatus;
+    }
+
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    /**
+     * @return 请求中的 client_id，未经校验，可能为 null
+     */
+    public String getClientId() {
+        return clientId;
+    }
+
+    /**
+     * @return 已登录用户名；用户校验之前结束的请求为 null
+     */
+    public String getUsername() {
+        return username;
+    }
+
+    public RequestOutcome getOutcome() {
+        return outcome;
+    }
+
+    public long getDurationMicros() {
+        return durationMicros;
+    }
+
+    /**
+     * @return 回调响应状态码；未发出回调或回调失败时为 0
+     */
+    public int getCallbackStatus() {
+        return callbackStatus;
+    }
+}
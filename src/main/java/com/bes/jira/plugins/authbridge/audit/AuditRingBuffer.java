@@ -0,0 +1,83 @@
+package com.bes.jira.plugins.authbridge.audit;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 有界、无锁的多生产者单消费者环形缓冲区（每个槽位带序号，参考 Vyukov bounded queue）。
+ * <p>
+ * 生产者通过 CAS 抢占写入位置，缓冲区已满时 {@link #offer} 立即返回 false，不阻塞请求线程；
+ * 只有后台写入线程调用 {@link #drainTo}。
+ */
+final class AuditRingBuffer {
+    private final AuditEvent[] events;
+    // 槽位序号：等于写入位置时可写，等于写入位置 + 1 时可读
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    // 只由消费者线程访问
+    private long head;
+
+    /**
+     * @param capacity 向上取整为 2 的幂
+     */
+    AuditRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.events = new AuditEvent[size];
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * @return 缓冲区已满时返回 false，事件被丢弃
+     */
+    boolean offer(AuditEvent event) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long diff = sequences.get(index) - position;
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    events[index] = event;
+                    // 发布：序号的 volatile 写保证消费者能看到上面的普通写
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (diff < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * 取出最多 maxEvents 条已发布的事件，只能由单个消费者线程调用
+     *
+     * @return 取出的条数
+     */
+    int drainTo(List<AuditEvent> target, int maxEvents) {
+        int drained = 0;
+        while (drained < maxEvents) {
+            int index = (int) (head & mask);
+            if (sequences.get(index) != head + 1) {
+                break;
+            }
+            target.add(events[index]);
+            events[index] = null;
+            sequences.lazySet(index, head + events.length);
+            head++;
+            drained++;
+        }
+        return drained;
+    }
+
+    int capacity() {
+        return events.length;
+    }
+}
@@ -0,0 +1,176 @@
+package com.bes.jira.plugins.authbridge.audit;
+
+import com.bes.jira.plugins.authbridge.metrics.RequestOutcome;
+import com.bes.jira.plugins.authbridge.model.AuthBridgeSetting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Named;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 登录审计：每个 /authbridge 请求生成一条 {@link AuditEvent}，写入无锁环形缓冲区，
+ * 由后台线程批量取出、格式化后写入独立的 logger {@value #AUDIT_LOGGER}（可在 Jira 的 log4j 配置中指向单独的文件）。
+ * <p>
+ * 请求线程上只有采样判断、对象分配和一次 CAS，不做字符串格式化和 I/O。缓冲区满时丢弃事件并计数，不阻塞请求。
+ * 成功类结果（回调成功、缓存命中、断言）按 {@link AuthBridgeSetting#getAuditSamplePercent()} 采样，
+ * 失败和拒绝的请求始终记录。
+ */
+@Named
+public class AuditTrail {
+    private static final Logger log = LoggerFactory.getLogger(AuditTrail.class);
+
+    public static final String AUDIT_LOGGER = "com.bes.jira.plugins.authbridge.audit";
+    private static final Logger auditLog = LoggerFactory.getLogger(AUDIT_LOGGER);
+
+    private static final int BUFFER_CAPACITY = 8192;
+    private static final int BATCH_SIZE = 256;
+    private static final long FLUSH_INTERVAL_MILLIS = 200L;
+    // 用户名和 client_id 来自请求，写入日志前截断
+    private static final int MAX_FIELD_LENGTH = 128;
+
+    private final AuditRingBuffer buffer = new AuditRingBuffer(BUFFER_CAPACITY);
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder sampledOut = new LongAdder();
+    private final ScheduledExecutorService writer;
+
+    public AuditTrail() {
+        writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "authbridge-audit-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_MILLIS, FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 记录一次请求的最终结果，可在请求线程和 I/O 线程上并发调用
+     *
+     * @param username       已登录用户名，用户校验之前结束的请求为 null
+     * @param callbackStatus 回调响应状态码；未发出回调或回调失败时为 0
+     * @param startNanos     请求开始时的 {@link System#nanoTime()}
+     */
+    public void record(AuthBridgeSetting setting, RequestOutcome outcome, String clientId, String username, int callbackStatus,
+                       long startNanos) {
+        if (setting != null && !setting.isAuditEnabled()) {
+            return;
+        }
+        if (setting != null && isSampled(outcome) && setting.getAuditSamplePercent() < 100
+                && ThreadLocalRandom.current().nextInt(100) >= setting.getAuditSamplePercent()) {
+            sampledOut.increment();
+            return;
+        }
+
+        AuditEvent event = new AuditEvent(System.currentTimeMillis(), clientId, username, outcome,
+                TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos), callbackStatus);
+        if (!buffer.offer(event)) {
+            dropped.increment();
+        }
+    }
+
+    private static boolean isSampled(RequestOutcome outcome) {
+        return outcome == RequestOutcome.SUCCESS || outcome == RequestOutcome.CACHED || outcome == RequestOutcome.ASSERTION;
+    }
+
+    /**
+     * 后台线程：按批取出缓冲区中的全部事件并写入审计日志
+     */
+    private void flush() {
+        try {
+            List<AuditEvent> batch = new ArrayList<>(BATCH_SIZE);
+            StringBuilder line = new StringBuilder(160);
+            while (buffer.drainTo(batch, BATCH_SIZE) > 0) {
+                if (auditLog.isInfoEnabled()) {
+                    for (AuditEvent event : batch) {
+                        line.setLength(0);
+                        format(event, line);
+                        auditLog.info(line.toString());
+                    }
+                }
+                written.add(batch.size());
+                batch.clear();
+            }
+        } catch (RuntimeException e) {
+            // 异常会终止周期任务，这里只记录
+            log.warn("[AuthBridge] Failed to write audit events: {}", e.getMessage(), e);
+        }
+    }
+
+    static void format(AuditEvent event, StringBuilder line) {
+        line.append(Instant.ofEpochMilli(event.getTimestampMillis()))
+                .append(" outcome=").append(event.getOutcome())
+                .append(" clientId=");
+        appendSanitized(line, event.getClientId());
+        line.append(" user=");
+        appendSanitized(line, event.getUsername());
+        line.append(" callbackStatus=").append(event.getCallbackStatus())
+                .append(" durationMs=").append(event.getDurationMicros() / 1000).append('.')
+                .append(event.getDurationMicros() % 1000 / 100);
+    }
+
+    /**
+     * 去掉控制字符和空白，避免伪造日志行
+     */
+    private static void appendSanitized(StringBuilder line, String value) {
+        if (value == null) {
+            line.append('-');
+            return;
+        }
+        int length = Math.min(value.length(), MAX_FIELD_LENGTH);
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            line.append(Character.isISOControl(c) || Character.isWhitespace(c) ? '_' : c);
+        }
+        if (value.length() > MAX_FIELD_LENGTH) {
+            line.append("...");
+        }
+    }
+
+    public long getWritten() {
+        return written.sum();
+    }
+
+    /**
+     * @return 因缓冲区已满丢弃的事件数
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return 因采样未记录的事件数
+     */
+    public long getSampledOut() {
+        return sampledOut.sum();
+    }
+
+    public int getBufferCapacity() {
+        return buffer.capacity();
+    }
+
+    /**
+     * 插件卸载时写出缓冲区中剩余的事件
+     */
+    @PreDestroy
+    public void destroy() {
+        writer.shutdownNow();
+        try {
+            writer.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        if (dropped.sum() > 0) {
+            log.warn("[AuthBridge] Audit trail dropped {} events because the buffer was full.", dropped.sum());
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.bes.jira.plugins.authbridge.callback;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.protocol.AbstractAsyncResponseConsumer;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * 异步模式下的有界响应消费者：最多缓存 maxBytes + 1 字节（错误响应只缓存前缀），其余内容读取后直接丢弃，
+ * 连接仍可复用。缓存内容交给 {@link CallbackResponseReader} 解析为 {@link CallbackResult}。
+ */
+class BoundedResponseConsumer extends AbstractAsyncResponseConsumer<CallbackResult> {
+    private final int maxBytes;
+    private final ByteBuffer chunk = ByteBuffer.allocate(4096);
+
+    private int status;
+    private int limit;
+    private ContentType contentType;
+    private byte[] buffer;
+    private int length;
+
+    BoundedResponseConsumer(int maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    protected void onResponseReceived(HttpResponse response) {
+        status = response.getStatusLine().getStatusCode();
+        // 多缓存 1 字节，用于判断是否超出限制
+        limit = (status == HttpStatus.SC_OK ? maxBytes : CallbackResponseReader.ERROR_BODY_PREFIX_BYTES) + 1;
+    }
+
+    @Override
+    protected void onEntityEnclosed(HttpEntity entity, ContentType contentType) {
+        this.contentType = contentType;
+        long contentLength = entity.getContentLength();
+        buffer = new byte[(int) Math.min(contentLength > 0 ? contentLength : 1024, limit)];
+    }
+
+    @Override
+    protected void onContentReceived(ContentDecoder decoder, IOControl ioControl) throws IOException {
+        int n;
+        while ((n = decoder.read(chunk)) > 0) {
+            chunk.flip();
+            int keep = Math.min(n, limit - length);
+            if (keep > 0) {
+                if (length + keep > buffer.length) {
+                    buffer = Arrays.copyOf(buffer, Math.min(limit, Math.max(buffer.length * 2, length + keep)));
+                }
+                chunk.get(buffer, length, keep);
+                length += keep;
+            }
+            chunk.clear();
+        }
+    }
+
+    @Override
+    protected CallbackResult buildResult(HttpContext context) throws Exception {
+        ByteArrayInputStream body = buffer == null ? null : new ByteArrayInputStream(buffer, 0, length);
+        return CallbackResponseReader.read(status, contentType, body, maxBytes);
+    }
+
+    @Override
+    protected void releaseResources() {
+        buffer = null;
+    }
+}
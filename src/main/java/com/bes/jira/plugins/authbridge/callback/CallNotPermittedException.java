@@ -0,0 +1,11 @@
+package com.bes.jira.plugins.authbridge.callback;
+
+/**
+ * 熔断器处于打开（或半开且无剩余探测名额）状态时拒绝调用。
+ */
+public class CallNotPermittedException extends RuntimeException {
+
+    public CallNotPermittedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,153 @@
+package com.bes.jira.plugins.authbridge.callback;
+
+import com.bes.jira.plugins.authbridge.model.ClientConfigPair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 合并并行通知多个回调地址的结果，重定向地址总是取自主回调。
+ * <ul>
+ *     <li>{@link ClientConfigPair#FAN_OUT_ALL}：全部成功时返回主回调的结果；任一失败或返回错误时立即以该失败结束，并取消其余回调；</li>
+ *     <li>{@link ClientConfigPair#FAN_OUT_FIRST_SUCCESS}：任一成功即可登录。主回调成功时使用其结果；其他地址先成功时继续等待主回调
+ *     （直到共享的截止时间），主回调失败或超时才使用配置的 redirectUrl；全部失败时以主回调的结果结束；</li>
+ *     <li>{@link ClientConfigPair#FAN_OUT_PRIMARY}（默认）：以主回调的结果为准，其余回调的失败只记录日志。</li>
+ * </ul>
+ * 返回结果后未完成的回调继续执行，由调用方在共享的截止时间取消；返回的 future 被取消时取消全部回调。
+ */
+public final class CallbackFanOut {
+    private static final Logger log = LoggerFactory.getLogger(CallbackFanOut.class);
+
+    private CallbackFanOut() {
+    }
+
+    /**
+     * @param primaryEndpoint 主回调地址，只用于日志
+     * @param secondaries     其他回调地址 → 对应的回调
+     */
+    public static CompletableFuture<CallbackResult> combine(String policy, String primaryEndpoint, CompletableFuture<CallbackResult> primary,
+                                                            Map<String, CompletableFuture<CallbackResult>> secondaries) {
+        List<CompletableFuture<CallbackResult>> all = new ArrayList<>(secondaries.size() + 1);
+        all.add(primary);
+        all.addAll(secondaries.values());
+
+        CompletableFuture<CallbackResult> result = new CompletableFuture<>();
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                cancelAll(all);
+            }
+        });
+        secondaries.forEach((endpoint, future) -> future.whenComplete((value, error) -> {
+            if (error != null) {
+                log.warn("[AuthBridge] Fan-out callback failed. endpoint={}, error={}", endpoint, failure(endpoint, error).toString());
+            } else if (!value.isSuccess()) {
+                log.warn("[AuthBridge] Fan-out callback returned error. endpoint={}, status={}", endpoint, value.getStatus());
+            }
+        }));
+
+        if (ClientConfigPair.FAN_OUT_ALL.equals(policy)) {
+            AtomicInteger remaining = new AtomicInteger(all.size());
+            whenComplete(primaryEndpoint, primary, result, remaining, primary);
+            secondaries.forEach((endpoint, future) -> whenComplete(endpoint, future, result, remaining, primary));
+            result.whenComplete((value, error) -> {
+                if (error != null || !value.isSuccess()) {
+                    cancelAll(all);
+                }
+            });
+        } else if (ClientConfigPair.FAN_OUT_FIRST_SUCCESS.equals(policy)) {
+            // 每个回调完成时按当前状态重新判定，complete 只生效一次
+            for (CompletableFuture<CallbackResult> future : all) {
+                future.whenComplete((value, error) -> firstSuccess(primaryEndpoint, primary, secondaries.values(), result));
+            }
+        } else {
+            propagate(primaryEndpoint, primary, result);
+        }
+        return result;
+    }
+
+    /**
+     * all 策略下单个回调完成：失败或返回错误时结束，全部成功时返回主回调的结果
+     */
+    private static void whenComplete(String endpoint, CompletableFuture<CallbackResult> future, CompletableFuture<CallbackResult> result,
+                                     AtomicInteger remaining, CompletableFuture<CallbackResult> primary) {
+        future.whenComplete((value, error) -> {
+            if (error != null) {
+                result.completeExceptionally(failure(endpoint, error));
+            } else if (!value.isSuccess()) {
+                result.complete(value);
+            } else if (remaining.decrementAndGet() == 0) {
+                result.complete(primary.join());
+            }
+        });
+    }
+
+    /**
+     * first 策略的判定：主回调成功时返回其结果；主回调未成功时，任一其他地址成功则使用配置的 redirectUrl，
+     * 全部结束仍无成功时返回主回调的结果。主回调未完成时继续等待
+     */
+    private static void firstSuccess(String primaryEndpoint, CompletableFuture<CallbackResult> primary,
+                                     Collection<CompletableFuture<CallbackResult>> secondaries, CompletableFuture<CallbackResult> result) {
+        if (!primary.isDone()) {
+            return;
+        }
+        if (succeeded(primary)) {
+            result.complete(primary.join());
+            return;
+        }
+        boolean pending = false;
+        for (CompletableFuture<CallbackResult> future : secondaries) {
+            if (succeeded(future)) {
+                log.warn("[AuthBridge] Fan-out primary callback did not succeed, using the configured redirect. endpoint={}", primaryEndpoint);
+                result.complete(CallbackResult.success(null));
+                return;
+            }
+            pending |= !future.isDone();
+        }
+        if (!pending) {
+            propagate(primaryEndpoint, primary, result);
+        }
+    }
+
+    private static boolean succeeded(CompletableFuture<CallbackResult> future) {
+        return future.isDone() && !future.isCompletedExceptionally() && future.join().isSuccess();
+    }
+
+    private static void propagate(String endpoint, CompletableFuture<CallbackResult> source, CompletableFuture<CallbackResult> target) {
+        source.whenComplete((value, error) -> {
+            if (error != null) {
+                target.completeExceptionally(failure(endpoint, error));
+            } else {
+                target.complete(value);
+            }
+        });
+    }
+
+    /**
+     * 到达截止时间被取消的回调转为超时，其余失败原样返回
+     */
+    private static Throwable failure(String endpoint, Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException) && error.getCause() != null) {
+            error = error.getCause();
+        }
+        if (error instanceof CancellationException) {
+            return new SocketTimeoutException("Callback did not complete before the deadline: " + endpoint);
+        }
+        return error;
+    }
+
+    private static void cancelAll(List<CompletableFuture<CallbackResult>> futures) {
+        for (CompletableFuture<CallbackResult> future : futures) {
+            future.cancel(true);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.bes.jira.plugins.authbridge.callback;
+
+import com.bes.jira.plugins.authbridge.http.factory.HttpClientFactory;
+import com.bes.jira.plugins.authbridge.http.factory.RefCountedClient;
+import com.bes.jira.plugins.authbridge.model.AuthBridgeSetting;
+import com.bes.jira.plugins.authbridge.model.ClientConfigPair;
+import com.bes.jira.plugins.authbridge.service.CompiledSetting;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.nio.client.methods.HttpAsyncMethods;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+/**
+ * 执行到下游 callback 的内部 POST，并把响应解析为 {@link CallbackResult}。
+ * 同步模式占用调用线程；异步模式基于 HttpAsyncClient，不占用容器线程；
+ * 配置为 HTTP/2 的 client 使用 HttpClient 5，多个回调在同一连接上多路复用。
+ */
+@Named
+public class CallbackInvoker {
+    private static final Logger log = LoggerFactory.getLogger(CallbackInvoker.class);
+
+    private final HttpClientFactory httpClientFactory;
+    private final Http2CallbackExecutor http2Executor;
+
+    @Inject
+    public CallbackInvoker(HttpClientFactory httpClientFactory) {
+        this.httpClientFactory = httpClientFactory;
+        this.http2Executor = new Http2CallbackExecutor(httpClientFactory);
+    }
+
+    public CallbackResult execute(CompiledSetting compiledSetting, ClientConfigPair pair, HttpPost post) throws IOException {
+        AuthBridgeSetting setting = compiledSetting.getSetting();
+        prepare(setting, pair, post);
+        RefCountedClient<CloseableHttpClient> httpClient = httpClientFactory.acquireClient(
+                compiledSetting.isInsecureSkipVerify(pair), compiledSetting.getTrustBundle(pair));
+
+        try (CloseableHttpResponse response = httpClient.get().execute(post)) {
+            int maxBytes = setting.getMaxCallbackResponseBytes();
+            HttpEntity entity = response.getEntity();
+            if (entity == null) {
+                return CallbackResponseReader.read(response.getStatusLine().getStatusCode(), null, null, maxBytes);
+            }
+
+            InputStream content = entity.getContent();
+            CallbackResult result = CallbackResponseReader.read(response.getStatusLine().getStatusCode(), contentTypeOf(entity), content, maxBytes);
+            // 丢弃剩余内容以便复用连接；剩余内容过大时直接中止连接，不再继续读取
+            if (!CallbackResponseReader.drain(content, maxBytes)) {
+                log.debug("[AuthBridge] Callback response not fully consumed. Aborting connection.");
+                post.abort();
+            }
+            return result;
+        } finally {
+            httpClient.release();
+        }
+    }
+
+    /**
+     * 异步执行回调 POST。返回的 future 被取消时（例如 AsyncContext 超时），底层请求同时被中止并释放连接。
+     */
+    public CompletableFuture<CallbackResult> executeAsync(CompiledSetting compiledSetting, ClientConfigPair pair, HttpPost post) {
+        AuthBridgeSetting setting = compiledSetting.getSetting();
+        prepare(setting, pair, post);
+        RefCountedClient<CloseableHttpAsyncClient> httpClient = httpClientFactory.acquireAsyncClient(
+                compiledSetting.isInsecureSkipVerify(pair), compiledSetting.getTrustBundle(pair));
+
+        CompletableFuture<CallbackResult> future = new CompletableFuture<>();
+        Future<CallbackResult> pending;
+        try {
+            pending = httpClient.get().execute(HttpAsyncMethods.create(post),
+                    new BoundedResponseConsumer(setting.getMaxCallbackResponseBytes()), new FutureCallback<CallbackResult>() {
+                        @Override
+                        public void completed(CallbackResult result) {
+                            future.complete(result);
+                        }
+
+                        @Override
+                        public void failed(Exception e) {
+                            future.completeExceptionally(e);
+                        }
+
+                        @Override
+                        public void cancelled() {
+                            future.cancel(false);
+                        }
+                    });
+        } catch (RuntimeException e) {
+            httpClient.release();
+            throw e;
+        }
+
+        future.whenComplete((result, error) -> {
+            if (future.isCancelled()) {
+                pending.cancel(true);
+            }
+            httpClient.release();
+        });
+        return future;
+    }
+
+    /**
+     * 通过 HTTP/2 执行回调 POST（下游未协商 h2 时为 HTTP/1.1），总是异步执行。取消语义与
+     * {@link #executeAsync(CompiledSetting, ClientConfigPair, HttpPost)} 相同。
+     */
+    public CompletableFuture<CallbackResult> executeHttp2(CompiledSetting compiledSetting, ClientConfigPair pair, String callback, byte[] payload) {
+        AuthBridgeSetting setting = compiledSetting.getSetting();
+        httpClientFactory.applyPoolSettings(setting);
+        return http2Executor.execute(compiledSetting, pair, callback, payload,
+                valueOrDefault(pair.getConnectTimeoutMillis(), setting.getConnectTimeoutMillis()),
+                valueOrDefault(pair.getReadTimeoutMillis(), setting.getReadTimeoutMillis()),
+                valueOrDefault(pair.getLeaseTimeoutMillis(), setting.getLeaseTimeoutMillis()));
+    }
+
+    /**
+     * 应用连接池上限（配置未变化时只做引用比较），并按 client 设置连接、读取和连接池租借超时。
+     */
+    private void prepare(AuthBridgeSetting setting, ClientConfigPair pair, HttpPost post) {
+        httpClientFactory.applyPoolSettings(setting);
+
+        post.setConfig(RequestConfig.custom()
+                .setConnectTimeout(valueOrDefault(pair.getConnectTimeoutMillis(), setting.getConnectTimeoutMillis()))
+                .setSocketTimeout(valueOrDefault(pair.getReadTimeoutMillis(), setting.getReadTimeoutMillis()))
+                .setConnectionRequestTimeout(valueOrDefault(pair.getLeaseTimeoutMillis(), setting.getLeaseTimeoutMillis()))
+                .build());
+    }
+
+    private static int valueOrDefault(Integer value, int defaultValue) {
+        return value != null ? value : defaultValue;
+    }
+
+    private static ContentType contentTypeOf(HttpEntity entity) {
+        try {
+            return ContentType.get(entity);
+        } catch (RuntimeException e) {
+            log.debug("[AuthBridge] Invalid callback response content type: {}", e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.bes.jira.plugins.authbridge.callback;
+
+import org.apache.http.HttpStatus;
+import org.apache.http.entity.ContentType;
+import org.codehaus.jackson.JsonFactory;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 有界地读取回调响应：
+ * <ul>
+ *     <li>200：校验 Content-Type 后用流式解析器只提取顶层 {@code redirectUrl}，其余内容跳过不做物化，最多读取 maxBytes 字节；</li>
+ *     <li>其他状态：只保留响应体前 {@link #ERROR_BODY_PREFIX_BYTES} 字节用于日志和错误信息。</li>
+ * </ul>
+ * 解析失败、内容类型不符或超出大小限制时按原有语义回退到配置的 redirectUrl。
+ */
+final class CallbackResponseReader {
+    private static final Logger log = LoggerFactory.getLogger(CallbackResponseReader.class);
+
+    static final int ERROR_BODY_PREFIX_BYTES = 512;
+
+    private static final String REDIRECT_URL_FIELD = "redirectUrl";
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    private CallbackResponseReader() {
+    }
+
+    /**
+     * @param body 响应体，可以为 null；本方法不会关闭它，也不会读取超过 maxBytes + 1 字节
+     */
+    static CallbackResult read(int status, ContentType contentType, InputStream body, int maxBytes) throws IOException {
+        log.debug("[AuthBridge] Callback response status: {}", status);
+
+        if (status != HttpStatus.SC_OK) {
+            return CallbackResult.error(status, body == null ? "<empty>" : readPrefix(body, charsetOf(contentType)));
+        }
+        if (body == null) {
+            return CallbackResult.success(null);
+        }
+        if (contentType != null && !isJson(contentType.getMimeType())) {
+            log.warn("[AuthBridge] Unexpected callback response content type '{}'. Using default redirectUrl.", contentType.getMimeType());
+            return CallbackResult.success(null);
+        }
+
+        try {
+            String redirectUrl = extractRedirectUrl(new LimitedInputStream(body, maxBytes));
+            log.debug("[AuthBridge] Callback response redirectUrl: {}", redirectUrl);
+            return CallbackResult.success(redirectUrl == null || redirectUrl.trim().isEmpty() ? null : redirectUrl);
+        } catch (IOException e) {
+            log.warn("[AuthBridge] Failed to parse callback response JSON. Using default redirectUrl. reason={}", e.getMessage());
+            return CallbackResult.success(null);
+        }
+    }
+
+    /**
+     * 读取并丢弃剩余内容（最多 maxBytes 字节），使连接可以被复用。
+     *
+     * @return 是否已读到流末尾；返回 false 时调用方应中止连接
+     */
+    static boolean drain(InputStream body, int maxBytes) {
+        byte[] skipBuffer = new byte[Math.min(maxBytes, 4096) + 1];
+        long remaining = maxBytes;
+        try {
+            int n;
+            while ((n = body.read(skipBuffer)) != -1) {
+                remaining -= n;
+                if (remaining < 0) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static String extractRedirectUrl(InputStream body) throws IOException {
+        try (JsonParser parser = jsonFactory.createJsonParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Callback response is not a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (REDIRECT_URL_FIELD.equals(field) && value == JsonToken.VALUE_STRING) {
+                    // 找到后立即返回，剩余内容不再解析
+                    return parser.getText();
+                }
+                parser.skipChildren();
+            }
+            return null;
+        }
+    }
+
+    private static String readPrefix(InputStream body, Charset charset) throws IOException {
+        byte[] prefix = new byte[ERROR_BODY_PREFIX_BYTES + 1];
+        int len = 0;
+        int n;
+        while (len < prefix.length && (n = body.read(prefix, len, prefix.length - len)) != -1) {
+            len += n;
+        }
+        if (len == 0) {
+            return "<empty>";
+        }
+        if (len > ERROR_BODY_PREFIX_BYTES) {
+            return new String(prefix, 0, ERROR_BODY_PREFIX_BYTES, charset) + "...(truncated)";
+        }
+        return new String(prefix, 0, len, charset);
+    }
+
+    private static boolean isJson(String mimeType) {
+        if (mimeType == null) {
+            return true;
+        }
+        String mime = mimeType.toLowerCase();
+        return mime.equals("application/json") || mime.equals("text/json") || mime.endsWith("+json");
+    }
+
+    private static Charset charsetOf(ContentType contentType) {
+        return contentType != null && contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8;
+    }
+}
@@ -0,0 +1,42 @@
+package com.bes.jira.plugins.authbridge.callback;
+
+import org.apache.http.HttpStatus;
+
+/**
+ * 一次回调 POST 的结果：状态码 + 回调返回的 redirectUrl（可能为空）或错误响应体。
+ */
+public final class CallbackResult {
+    private final int status;
+    private final String redirectUrl;
+    private final String errorBody;
+
+    private CallbackResult(int status, String redirectUrl, String errorBody) {
+        this.status = status;
+        this.redirectUrl = redirectUrl;
+        this.errorBody = errorBody;
+    }
+
+    public static CallbackResult success(String redirectUrl) {
+        return new CallbackResult(HttpStatus.SC_OK, redirectUrl, null);
+    }
+
+    public static CallbackResult error(int status, String errorBody) {
+        return new CallbackResult(status, null, errorBody);
+    }
+
+    public boolean isSuccess() {
+        return status == HttpStatus.SC_OK;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public String getRedirectUrl() {
+        return redirectUrl;
+    }
+
+    public String getErrorBody() {
+        return errorBody;
+    }
+}
@@ -0,0 +1,309 @@
+package com.bes.jira.plugins.authbridge.callback;
+
+import com.atlassian.event.api.EventListener;
+import com.atlassian.event.api.EventPublisher;
+import com.atlassian.jira.event.user.LogoutEvent;
+import com.atlassian.plugin.spring.scanner.annotation.imports.ComponentImport;
+import com.bes.jira.plugins.authbridge.model.AuthBridgeSetting;
+import com.bes.jira.plugins.authbridge.model.ClientConfigPair;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 成功回调结果的 TTL + LRU 缓存，按 (Jira 会话 ID 的哈希, clientId, callback) 缓存，命中时直接重定向，不再发起回调 POST。
+ * <ul>
+ *     <li>只保存会话 ID 的 SHA-256 哈希，不在内存中保留原始会话 ID；</li>
+ *     <li>用户登出时清除该用户的全部条目；配置快照变化时只清除配置有变化的 clientId 的条目，全局配置变化时整体清空；</li>
+ *     <li>按 key 的哈希分为 {@link #STRIPES} 段，每段是独立加锁的 access-order LRU，
+ *     容量为 {@link AuthBridgeSetting#getResultCacheMaxEntries()} 平均到每段，超出时淘汰该段最久未使用的条目。</li>
+ * </ul>
+ */
+@Named
+public class CallbackResultCache {
+    private static final Logger log = LoggerFactory.getLogger(CallbackResultCache.class);
+
+    private static final int STRIPES = 16;
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final EventPublisher eventPublisher;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private volatile int stripeCapacity = stripeCapacity(AuthBridgeSetting.DEFAULT_RESULT_CACHE_MAX_ENTRIES);
+    // 引用不变时跳过比较；变化时在 configureLock 上比较并失效
+    private volatile AuthBridgeSetting configuredFrom;
+    private final Object configureLock = new Object();
+
+    @Inject
+    public CallbackResultCache(@ComponentImport EventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    @PostConstruct
+    public void register() {
+        eventPublisher.register(this);
+    }
+
+    @PreDestroy
+    public void unregister() {
+        eventPublisher.unregister(this);
+        clear();
+    }
+
+    /**
+     * @return 未过期的缓存结果；会话不属于该用户时视为未命中
+     */
+    public CallbackResult get(AuthBridgeSetting setting, String sessionHash, String clientId, String callback, String username) {
+        if (configuredFrom != setting) {
+            reconfigure(setting);
+        }
+
+        String key = key(sessionHash, clientId, callback);
+        Stripe stripe = stripe(key);
+        synchronized (stripe) {
+            Entry entry = stripe.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt - System.currentTimeMillis() <= 0 || !entry.username.equals(username)) {
+                stripe.remove(key);
+                return null;
+            }
+            return entry.result;
+        }
+    }
+
+    /**
+     * 缓存成功的回调结果，错误结果不缓存。
+     */
+    public void put(AuthBridgeSetting setting, String sessionHash, String clientId, String callback, String username,
+                    CallbackResult result, long ttlMillis) {
+        if (!result.isSuccess() || ttlMillis <= 0) {
+            return;
+        }
+        // 结果返回前配置已变化时不再缓存旧配置下的结果
+        if (configuredFrom != setting) {
+            return;
+        }
+
+        String key = key(sessionHash, clientId, callback);
+        Stripe stripe = stripe(key);
+        Entry entry = new Entry(clientId, username, result, System.currentTimeMillis() + ttlMillis);
+        synchronized (stripe) {
+            stripe.put(key, entry);
+        }
+        // 与配置变化并发时，失效扫描可能早于写入，写入后再检查一次
+        if (configuredFrom != setting) {
+            synchronized (stripe) {
+                stripe.remove(key, entry);
+            }
+        }
+    }
+
+    @EventListener
+    public void onLogout(LogoutEvent event) {
+        if (event.getUser() == null) {
+            return;
+        }
+        String username = event.getUser().getUsername();
+        int removed = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                for (Iterator<Entry> it = stripe.values().iterator(); it.hasNext(); ) {
+                    if (it.next().username.equals(username)) {
+                        it.remove();
+                        removed++;
+                    }
+                }
+            }
+        }
+        if (removed > 0) {
+            log.debug("[AuthBridge] User '{}' logged out. Removed {} cached callback results.", username, removed);
+        }
+    }
+
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * 会话 ID 的 SHA-256 哈希（Base64URL）
+     */
+    public static String hashSessionId(String sessionId) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(sessionId.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void reconfigure(AuthBridgeSetting setting) {
+        synchronized (configureLock) {
+            AuthBridgeSetting previous = configuredFrom;
+            if (previous == setting) {
+                return;
+            }
+            stripeCapacity = stripeCapacity(setting.getResultCacheMaxEntries());
+            Set<String> changed = previous == null ? null : changedClients(previous, setting);
+            // 先发布新快照再失效，并发的 put 要么被失效扫描清除，要么在写入后的检查中自行移除
+            configuredFrom = setting;
+
+            if (changed == null) {
+                log.debug("[AuthBridge] Settings changed. Clearing {} cached callback results.", size());
+                clear();
+            } else if (!changed.isEmpty()) {
+                int removed = invalidate(changed);
+                log.debug("[AuthBridge] Client settings changed. Removed {} cached callback results. clientIds={}", removed, changed);
+            }
+        }
+    }
+
+    private int invalidate(Set<String> clientIds) {
+        int removed = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                for (Iterator<Entry> it = stripe.values().iterator(); it.hasNext(); ) {
+                    if (clientIds.contains(it.next().clientId)) {
+                        it.remove();
+                        removed++;
+                    }
+                }
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * @return 配置有变化（包括新增、删除）的 clientId；全局配置变化或无法比较时返回 null，表示全部失效
+     */
+    static Set<String> changedClients(AuthBridgeSetting previous, AuthBridgeSetting setting) {
+        try {
+            if (!json(previous.withClientConfigPairs(Collections.emptyList()))
+                    .equals(json(setting.withClientConfigPairs(Collections.emptyList())))) {
+                return null;
+            }
+            Map<String, List<ClientConfigPair>> before = byClient(previous);
+            Map<String, List<ClientConfigPair>> after = byClient(setting);
+            Set<String> changed = new HashSet<>();
+            for (Map.Entry<String, List<ClientConfigPair>> entry : before.entrySet()) {
+                if (!same(entry.getValue(), after.get(entry.getKey()))) {
+                    changed.add(entry.getKey());
+                }
+            }
+            for (String clientId : after.keySet()) {
+                if (!before.containsKey(clientId)) {
+                    changed.add(clientId);
+                }
+            }
+            return changed;
+        } catch (IOException e) {
+            log.debug("[AuthBridge] Failed to compare settings. Clearing cached callback results.", e);
+            return null;
+        }
+    }
+
+    private static Map<String, List<ClientConfigPair>> byClient(AuthBridgeSetting setting) {
+        Map<String, List<ClientConfigPair>> clients = new HashMap<>();
+        if (setting.getClientConfigPairs() != null) {
+            for (ClientConfigPair pair : setting.getClientConfigPairs()) {
+                clients.computeIfAbsent(pair.getClientId(), k -> new ArrayList<>()).add(pair);
+            }
+        }
+        return clients;
+    }
+
+    private static boolean same(List<ClientConfigPair> before, List<ClientConfigPair> after) throws IOException {
+        if (after == null || before.size() != after.size()) {
+            return false;
+        }
+        for (int i = 0; i < before.size(); i++) {
+            // 未修改的 client 通常复用同一个对象，引用相同时不必序列化
+            if (before.get(i) != after.get(i) && !json(before.get(i)).equals(json(after.get(i)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String json(Object value) throws IOException {
+        return objectMapper.writeValueAsString(value);
+    }
+
+    private static int stripeCapacity(int maxEntries) {
+        return Math.max(1, (maxEntries + STRIPES - 1) / STRIPES);
+    }
+
+    private Stripe stripe(String key) {
+        int h = key.hashCode();
+        return stripes[(h ^ (h >>> 16)) & (STRIPES - 1)];
+    }
+
+    private static String key(String sessionHash, String clientId, String callback) {
+        return sessionHash + '\n' + clientId + '\n' + callback;
+    }
+
+    /**
+     * access-order 的 LinkedHashMap 实现 LRU，所有访问都在该段上同步
+     */
+    private final class Stripe extends LinkedHashMap<String, Entry> {
+        Stripe() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > stripeCapacity;
+        }
+    }
+
+    private static final class Entry {
+        private final String clientId;
+        private final String username;
+        private final CallbackResult result;
+        private final long expiresAt;
+
+        Entry(String clientId, String username, CallbackResult result, long expiresAt) {
+            this.clientId = clientId;
+            this.username = username;
+            this.result = result;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.bes.jira.plugins.authbridge.callback;
+
+import com.bes.jira.plugins.authbridge.metrics.ClientMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Named;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 按 {@link RetryPolicy} 执行回调：可重试的失败在退避后重新发起，可选在等待超过 p95 延迟后发出一个对冲请求。
+ * <p>
+ * 非阻塞的尝试（异步模式和 HTTP/2）由单个定时线程负责退避和对冲的计时，定时线程上只发起请求，不等待响应。
+ * 阻塞的尝试在调用线程上重试，退避期间调用线程休眠；阻塞模式下没有空闲线程可以发出对冲请求，不对冲。
+ * <p>
+ * 任一尝试成功后取消其余尝试；返回的 future 被取消时（例如 AsyncContext 超时）取消全部尝试和等待中的定时任务。
+ */
+@Named
+public class CallbackRetryExecutor {
+    private static final Logger log = LoggerFactory.getLogger(CallbackRetryExecutor.class);
+
+    private final ScheduledExecutorService scheduler;
+
+    public CallbackRetryExecutor() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "authbridge-callback-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @param attempt  发起一次回调；每次调用必须使用新的请求对象
+     * @param blocking attempt 是否在调用线程上阻塞执行（返回时 future 已完成）
+     */
+    public <T> CompletableFuture<T> execute(RetryPolicy policy, ClientMetrics metrics, Supplier<CompletableFuture<T>> attempt,
+                                            boolean blocking) {
+        if (policy.isNoop()) {
+            return attempt.get();
+        }
+        if (blocking) {
+            return executeBlocking(policy, metrics, attempt);
+        }
+        return new RetryingCall<>(policy, metrics, attempt).start();
+    }
+
+    /**
+     * 到达截止时间（{@link System#nanoTime()}）时仍未完成的 future 被取消，用于并行通知多个回调地址时的共享截止时间
+     */
+    public void cancelAt(CompletableFuture<?> future, long deadlineNanos) {
+        if (future.isDone()) {
+            return;
+        }
+        try {
+            Future<?> timer = scheduler.schedule(() -> future.cancel(true), deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+            future.whenComplete((value, error) -> timer.cancel(false));
+        } catch (RejectedExecutionException e) {
+            // 插件卸载中
+        }
+    }
+
+    private static <T> CompletableFuture<T> executeBlocking(RetryPolicy policy, ClientMetrics metrics, Supplier<CompletableFuture<T>> attempt) {
+        for (int retry = 1; ; retry++) {
+            CompletableFuture<T> future = attempt.get();
+            Throwable cause = failureOf(future);
+            if (cause == null || retry > policy.getMaxRetries() || !RetryPolicy.isRetryable(cause)) {
+                return future;
+            }
+            long backoffNanos = policy.nextBackoffNanos(retry);
+            if (backoffNanos < 0) {
+                log.debug("[AuthBridge] Not retrying callback: deadline would be exceeded. error={}", cause.toString());
+                return future;
+            }
+            log.debug("[AuthBridge] Retrying callback in {}ms ({}/{}). error={}", TimeUnit.NANOSECONDS.toMillis(backoffNanos), retry,
+                    policy.getMaxRetries(), cause.toString());
+            try {
+                TimeUnit.NANOSECONDS.sleep(backoffNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return future;
+            }
+            metrics.recordRetry();
+        }
+    }
+
+    /**
+     * @return 已完成的 future 的失败原因；成功或未完成时为 null
+     */
+    private static Throwable failureOf(CompletableFuture<?> future) {
+        if (!future.isCompletedExceptionally()) {
+            return null;
+        }
+        try {
+            future.join();
+            return null;
+        } catch (CompletionException e) {
+            return unwrap(e);
+        } catch (RuntimeException e) {
+            return e;
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException) && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * 一次非阻塞回调的全部尝试。outstanding 为进行中的尝试与等待中的重试数，降为 0 时以最后一个失败结束。
+     */
+    private final class RetryingCall<T> {
+        private final RetryPolicy policy;
+        private final ClientMetrics metrics;
+        private final Supplier<CompletableFuture<T>> attempt;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final Set<Future<?>> pending = ConcurrentHashMap.newKeySet();
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicInteger retries = new AtomicInteger();
+        private final AtomicBoolean hedged = new AtomicBoolean();
+
+        RetryingCall(RetryPolicy policy, ClientMetrics metrics, Supplier<CompletableFuture<T>> attempt) {
+            this.policy = policy;
+            this.metrics = metrics;
+            this.attempt = attempt;
+        }
+
+        CompletableFuture<T> start() {
+            result.whenComplete((value, error) -> cancelPending());
+            outstanding.incrementAndGet();
+            launch();
+            if (policy.getHedgeDelayNanos() > 0 && !result.isDone()) {
+                schedule(this::hedge, policy.getHedgeDelayNanos());
+            }
+            return result;
+        }
+
+        /**
+         * 发起一次尝试，调用前 outstanding 已计入该尝试
+         */
+        private void launch() {
+            if (result.isDone()) {
+                outstanding.decrementAndGet();
+                return;
+            }
+            CompletableFuture<T> future;
+            try {
+                future = attempt.get();
+            } catch (RuntimeException e) {
+                onFailure(e);
+                return;
+            }
+            track(future);
+            future.whenComplete((value, error) -> {
+                pending.remove(future);
+                if (error == null) {
+                    outstanding.decrementAndGet();
+                    result.complete(value);
+                } else {
+                    onFailure(unwrap(error));
+                }
+            });
+        }
+
+        /**
+         * 首个尝试仍未返回时发出对冲请求，只发出一次
+         */
+        private void hedge() {
+            if (result.isDone() || !hedged.compareAndSet(false, true)) {
+                return;
+            }
+            // 全部尝试都已结束（正在以失败结束）时不再对冲
+            if (outstanding.getAndUpdate(n -> n > 0 ? n + 1 : n) == 0) {
+                return;
+            }
+            metrics.recordHedge();
+            log.debug("[AuthBridge] Callback slower than {}ms. Sending hedged request.", TimeUnit.NANOSECONDS.toMillis(policy.getHedgeDelayNanos()));
+            launch();
+        }
+
+        private void onFailure(Throwable cause) {
+            if (!result.isDone() && RetryPolicy.isRetryable(cause)) {
+                int retry = retries.incrementAndGet();
+                long backoffNanos = retry <= policy.getMaxRetries() ? policy.nextBackoffNanos(retry) : -1L;
+                if (backoffNanos >= 0) {
+                    log.debug("[AuthBridge] Retrying callback in {}ms ({}/{}). error={}", TimeUnit.NANOSECONDS.toMillis(backoffNanos), retry,
+                            policy.getMaxRetries(), cause.toString());
+                    // 失败的尝试转为等待中的重试，outstanding 不变
+                    if (schedule(() -> {
+                        metrics.recordRetry();
+                        launch();
+                    }, backoffNanos)) {
+                        return;
+                    }
+                }
+            }
+            if (outstanding.decrementAndGet() == 0) {
+                result.completeExceptionally(cause);
+            }
+        }
+
+        private boolean schedule(Runnable task, long delayNanos) {
+            try {
+                track(scheduler.schedule(task, delayNanos, TimeUnit.NANOSECONDS));
+                return true;
+            } catch (RejectedExecutionException e) {
+                // 插件卸载中
+                return false;
+            }
+        }
+
+        /**
+         * 记录进行中的尝试或定时任务；与结束并发时由这里负责取消
+         */
+        private void track(Future<?> future) {
+            pending.add(future);
+            if (result.isDone()) {
+                future.cancel(true);
+            }
+        }
+
+        /**
+         * 结束后取消其余进行中的尝试和等待中的定时任务
+         */
+        private void cancelPending() {
+            for (Future<?> future : pending) {
+                future.cancel(true);
+            }
+        }
+    }
+}
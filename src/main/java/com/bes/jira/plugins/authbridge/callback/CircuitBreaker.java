@@ -0,0 +1,185 @@
+package com.bes.jira.plugins.authbridge.callback;
+
+import com.bes.jira.plugins.authbridge.model.AuthBridgeSetting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 单个 clientId + callback host 的熔断器。
+ * <p>
+ * 基于最近 N 次调用的滑动窗口统计失败率与慢调用比例：
+ * <ul>
+ *     <li>CLOSED：正常放行，窗口内调用数达到最小值且任一比例超过阈值时转为 OPEN；</li>
+ *     <li>OPEN：直接拒绝，不占用连接池，等待时间结束后转为 HALF_OPEN；</li>
+ *     <li>HALF_OPEN：只放行固定数量的探测调用，全部完成后按同样阈值决定回到 CLOSED 或重新 OPEN。</li>
+ * </ul>
+ * 状态变更很少且临界区很短，直接使用对象锁。
+ */
+public class CircuitBreaker {
+    private static final Logger log = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final int failureRateThreshold;
+    private final int slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final int minimumCalls;
+    private final long openNanos;
+    private final int halfOpenCalls;
+
+    // 滑动窗口：环形记录最近 windowSize 次调用是否失败 / 是否慢调用
+    private final boolean[] failures;
+    private final boolean[] slowCalls;
+    private int index;
+    private int recorded;
+    private int failureCount;
+    private int slowCount;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int halfOpenPermits;
+
+    public CircuitBreaker(String name, AuthBridgeSetting setting) {
+        this.name = name;
+        this.failureRateThreshold = setting.getCircuitBreakerFailureRate();
+        this.slowCallRateThreshold = setting.getCircuitBreakerSlowCallRate();
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(setting.getCircuitBreakerSlowCallMillis());
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(setting.getCircuitBreakerOpenMillis());
+        this.halfOpenCalls = Math.max(1, setting.getCircuitBreakerHalfOpenCalls());
+
+        int windowSize = Math.max(1, setting.getCircuitBreakerWindowSize());
+        this.minimumCalls = Math.min(windowSize, Math.max(1, setting.getCircuitBreakerMinimumCalls()));
+        this.failures = new boolean[windowSize];
+        this.slowCalls = new boolean[windowSize];
+    }
+
+    /**
+     * 经过熔断器执行一次调用。被拒绝时返回以 {@link CallNotPermittedException} 失败的 future，且不会调用 {@code call}。
+     * 调用抛出异常或返回 5xx 视为失败；被取消的调用（调用方放弃或截止时间到达）不计入统计，只归还半开状态的探测名额。
+     */
+    public CompletableFuture<CallbackResult> execute(Supplier<CompletableFuture<CallbackResult>> call) {
+        if (!tryAcquire()) {
+            CompletableFuture<CallbackResult> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(new CallNotPermittedException("Circuit breaker is " + getState() + " for " + name));
+            return rejected;
+        }
+
+        long start = System.nanoTime();
+        CompletableFuture<CallbackResult> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            onResult(true, System.nanoTime() - start);
+            throw e;
+        }
+        future.whenComplete((result, error) -> {
+            if (isCancellation(error)) {
+                onCancelled();
+            } else {
+                onResult(error != null || result.getStatus() >= 500, System.nanoTime() - start);
+            }
+        });
+        return future;
+    }
+
+    private static boolean isCancellation(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error instanceof CancellationException;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openNanos) {
+                return false;
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermits <= 0) {
+                return false;
+            }
+            halfOpenPermits--;
+        }
+        return true;
+    }
+
+    /**
+     * 调用被取消：没有结果可以统计，半开状态下归还探测名额
+     */
+    synchronized void onCancelled() {
+        if (state == State.HALF_OPEN && halfOpenPermits < halfOpenCalls) {
+            halfOpenPermits++;
+        }
+    }
+
+    synchronized void onResult(boolean failed, long durationNanos) {
+        if (state == State.OPEN) {
+            // 打开前发出的调用在打开后才返回，不再计入
+            return;
+        }
+
+        boolean slow = durationNanos >= slowCallNanos;
+        if (recorded == failures.length) {
+            if (failures[index]) {
+                failureCount--;
+            }
+            if (slowCalls[index]) {
+                slowCount--;
+            }
+        } else {
+            recorded++;
+        }
+        failures[index] = failed;
+        slowCalls[index] = slow;
+        if (failed) {
+            failureCount++;
+        }
+        if (slow) {
+            slowCount++;
+        }
+        index = (index + 1) % failures.length;
+
+        int required = state == State.HALF_OPEN ? halfOpenCalls : minimumCalls;
+        if (recorded < required) {
+            return;
+        }
+
+        boolean tripped = failureCount * 100 >= failureRateThreshold * recorded
+                || slowCount * 100 >= slowCallRateThreshold * recorded;
+        if (tripped) {
+            log.warn("[AuthBridge] Circuit breaker {} opened. failures={}/{}, slowCalls={}/{}", name, failureCount, recorded, slowCount, recorded);
+            transitionTo(State.OPEN);
+        } else if (state == State.HALF_OPEN) {
+            log.info("[AuthBridge] Circuit breaker {} closed after successful probes.", name);
+            transitionTo(State.CLOSED);
+        }
+    }
+
+    private void transitionTo(State newState) {
+        state = newState;
+        index = 0;
+        recorded = 0;
+        failureCount = 0;
+        slowCount = 0;
+        if (newState == State.OPEN) {
+            openedAt = System.nanoTime();
+        } else if (newState == State.HALF_OPEN) {
+            halfOpenPermits = halfOpenCalls;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.bes.jira.plugins.authbridge.callback;
+
+import com.bes.jira.plugins.authbridge.model.AuthBridgeSetting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Named;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 按 clientId + callback host 维护熔断器。
+ * 只有熔断参数变化时才丢弃全部熔断器并按新阈值重新统计；其他配置（例如单个 client 的修改、集群同步）不影响已有的熔断状态。
+ */
+@Named
+public class CircuitBreakerRegistry {
+    private static final Logger log = LoggerFactory.getLogger(CircuitBreakerRegistry.class);
+
+    // 通配 host 的回调可能产生大量不同 host，超过上限时整体重置，避免无界增长
+    private static final int MAX_BREAKERS = 10000;
+
+    private final ConcurrentMap<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    // 最近一次检查过的配置快照，引用不变时跳过比较
+    private volatile AuthBridgeSetting configuredFrom;
+    private List<Long> parameters;
+
+    /**
+     * @return 对应的熔断器；未启用熔断时返回 null
+     */
+    public CircuitBreaker get(AuthBridgeSetting setting, String clientId, String host) {
+        if (!setting.isCircuitBreakerEnabled()) {
+            return null;
+        }
+
+        if (configuredFrom != setting) {
+            synchronized (this) {
+                if (configuredFrom != setting) {
+                    List<Long> updated = parameters(setting);
+                    if (!updated.equals(parameters)) {
+                        log.debug("[AuthBridge] Circuit breaker settings changed. Resetting {} circuit breakers.", breakers.size());
+                        breakers.clear();
+                        parameters = updated;
+                    }
+                    configuredFrom = setting;
+                }
+            }
+        }
+
+        if (breakers.size() >= MAX_BREAKERS) {
+            log.warn("[AuthBridge] Too many circuit breakers ({}). Resetting all.", breakers.size());
+            breakers.clear();
+        }
+
+        String name = clientId + '@' + host;
+        return breakers.computeIfAbsent(name, k -> new CircuitBreaker(k, setting));
+    }
+
+    private static List<Long> parameters(AuthBridgeSetting setting) {
+        return Arrays.asList((long) setting.getCircuitBreakerFailureRate(), (long) setting.getCircuitBreakerSlowCallRate(),
+                setting.getCircuitBreakerSlowCallMillis(), (long) setting.getCircuitBreakerWindowSize(),
+                (long) setting.getCircuitBreakerMinimumCalls(), setting.getCircuitBreakerOpenMillis(),
+                (long) setting.getCircuitBreakerHalfOpenCalls());
+    }
+}
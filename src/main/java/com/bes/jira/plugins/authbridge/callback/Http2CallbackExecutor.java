@@ -0,0 +1,81 @@
+package com.bes.jira.plugins.authbridge.callback;
+
+import com.bes.jira.plugins.authbridge.http.factory.HttpClientFactory;
+import com.bes.jira.plugins.authbridge.http.factory.RefCountedClient;
+import com.bes.jira.plugins.authbridge.model.AuthBridgeSetting;
+import com.bes.jira.plugins.authbridge.model.ClientConfigPair;
+import com.bes.jira.plugins.authbridge.service.CompiledSetting;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.nio.entity.AsyncEntityProducers;
+import org.apache.hc.core5.http.nio.support.AsyncRequestBuilder;
+import org.apache.hc.core5.util.Timeout;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+/**
+ * 使用 HttpClient 5 执行 HTTP/2 回调 POST（ALPN 协商 h2，不支持时为 HTTP/1.1）。总是异步执行，
+ * 同步模式下由调用方等待返回的 future。
+ */
+final class Http2CallbackExecutor {
+    private final HttpClientFactory httpClientFactory;
+
+    Http2CallbackExecutor(HttpClientFactory httpClientFactory) {
+        this.httpClientFactory = httpClientFactory;
+    }
+
+    CompletableFuture<CallbackResult> execute(CompiledSetting compiledSetting, ClientConfigPair pair, String callback, byte[] payload,
+                                              int connectTimeoutMillis, int readTimeoutMillis, int leaseTimeoutMillis) {
+        AuthBridgeSetting setting = compiledSetting.getSetting();
+        RefCountedClient<CloseableHttpAsyncClient> httpClient = httpClientFactory.acquireHttp2Client(
+                compiledSetting.isInsecureSkipVerify(pair), compiledSetting.getTrustBundle(pair));
+
+        HttpClientContext context = HttpClientContext.create();
+        context.setRequestConfig(RequestConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMillis))
+                .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMillis))
+                .setConnectionRequestTimeout(Timeout.ofMilliseconds(leaseTimeoutMillis))
+                .build());
+
+        CompletableFuture<CallbackResult> future = new CompletableFuture<>();
+        Future<CallbackResult> pending;
+        try {
+            pending = httpClient.get().execute(
+                    AsyncRequestBuilder.post(callback)
+                            .setEntity(AsyncEntityProducers.create(payload, ContentType.APPLICATION_JSON))
+                            .build(),
+                    new Http2ResponseConsumer(setting.getMaxCallbackResponseBytes()), context, new FutureCallback<CallbackResult>() {
+                        @Override
+                        public void completed(CallbackResult result) {
+                            future.complete(result);
+                        }
+
+                        @Override
+                        public void failed(Exception e) {
+                            future.completeExceptionally(e);
+                        }
+
+                        @Override
+                        public void cancelled() {
+                            future.cancel(false);
+                        }
+                    });
+        } catch (RuntimeException e) {
+            httpClient.release();
+            throw e;
+        }
+
+        // 取消时只重置该请求的流，同一连接上的其他回调不受影响
+        future.whenComplete((result, error) -> {
+            if (future.isCancelled()) {
+                pending.cancel(true);
+            }
+            httpClient.release();
+        });
+        return future;
+    }
+}
@@ -0,0 +1,90 @@
+package com.bes.jira.plugins.authbridge.callback;
+
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.nio.support.AbstractBinResponseConsumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * HTTP/2 回调（HttpClient 5）的有界响应消费者，语义与 {@link BoundedResponseConsumer} 相同：
+ * 最多缓存 maxBytes + 1 字节（错误响应只缓存前缀），其余内容读取后直接丢弃，不影响同一连接上的其他流。
+ */
+class Http2ResponseConsumer extends AbstractBinResponseConsumer<CallbackResult> {
+    private static final Logger log = LoggerFactory.getLogger(Http2ResponseConsumer.class);
+
+    private final int maxBytes;
+
+    private int status;
+    private int limit;
+    private org.apache.http.entity.ContentType contentType;
+    private byte[] buffer;
+    private int length;
+
+    Http2ResponseConsumer(int maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    protected void start(HttpResponse response, ContentType contentType) {
+        status = response.getCode();
+        log.debug("[AuthBridge] Callback response protocol: {}", response.getVersion());
+        // 多缓存 1 字节，用于判断是否超出限制
+        limit = (status == HttpStatus.SC_OK ? maxBytes : CallbackResponseReader.ERROR_BODY_PREFIX_BYTES) + 1;
+        this.contentType = convert(contentType);
+        buffer = new byte[Math.min(1024, limit)];
+    }
+
+    @Override
+    protected int capacityIncrement() {
+        // 超出限制的内容也要读取后丢弃，不限制流量窗口
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    protected void data(ByteBuffer src, boolean endOfStream) {
+        int keep = Math.min(src.remaining(), limit - length);
+        if (keep > 0) {
+            if (length + keep > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.min(limit, Math.max(buffer.length * 2, length + keep)));
+            }
+            src.get(buffer, length, keep);
+            length += keep;
+        }
+        src.position(src.limit());
+    }
+
+    @Override
+    protected CallbackResult buildResult() {
+        try {
+            return CallbackResponseReader.read(status, contentType, new ByteArrayInputStream(buffer, 0, length), maxBytes);
+        } catch (IOException e) {
+            // 内存中的内容读取不会失败
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void releaseResources() {
+        buffer = null;
+    }
+
+    private static org.apache.http.entity.ContentType convert(ContentType contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        try {
+            return org.apache.http.entity.ContentType.create(contentType.getMimeType(), contentType.getCharset());
+        } catch (RuntimeException e) {
+            log.debug("[AuthBridge] Invalid callback response content type: {}", e.getMessage());
+            return null;
+        }
+    }
+}
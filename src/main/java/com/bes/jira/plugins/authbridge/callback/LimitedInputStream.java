@@ -0,0 +1,68 @@
+package com.bes.jira.plugins.authbridge.callback;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 限制最多读取 maxBytes 字节，超过时抛出 {@link ResponseTooLargeException}。
+ * 关闭时不关闭底层流，由调用方决定释放还是中止连接。
+ */
+class LimitedInputStream extends FilterInputStream {
+    private final long maxBytes;
+    private long count;
+
+    LimitedInputStream(InputStream in, long maxBytes) {
+        super(in);
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+            checkLimit(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) {
+            checkLimit(n);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        if (skipped > 0) {
+            checkLimit(skipped);
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private void checkLimit(long n) throws ResponseTooLargeException {
+        count += n;
+        if (count > maxBytes) {
+            throw new ResponseTooLargeException("Callback response exceeds " + maxBytes + " bytes");
+        }
+    }
+
+    static class ResponseTooLargeException extends IOException {
+        ResponseTooLargeException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.bes.jira.plugins.authbridge.callback;
+
+import com.bes.jira.plugins.authbridge.metrics.ClientMetrics;
+import com.bes.jira.plugins.authbridge.metrics.RecentCallbacks;
+import com.bes.jira.plugins.authbridge.model.AuthBridgeSetting;
+import com.bes.jira.plugins.authbridge.model.ClientConfigPair;
+
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单次回调的重试与对冲参数，在发起回调时按当前配置和该 client 的回调延迟计算。
+ * <p>
+ * 只重试请求发出前的失败：建立连接失败（拒绝、超时、无路由、DNS 解析失败）。读取超时、对端关闭连接等请求可能已被处理的失败不重试
+ * （回调是携带会话 Cookie 的 POST，下游可能在处理后才关闭连接）。退避时间为 [0, min(最大退避, 基础退避 * 2^n)) 内的随机值（full jitter），
+ * 退避结束时已超过总截止时间则不再重试。
+ * <p>
+ * 对冲请求的等待时间为该 client 最近的回调延迟（见 {@link RecentCallbacks}）的 p95（不小于配置的最小值）。最近的样本不足，
+ * 或对冲请求已占最近回调数的 {@value #MAX_HEDGE_PERCENT}% 以上（下游整体变慢）时不发出对冲请求，避免成倍放大下游压力。
+ */
+public final class RetryPolicy {
+    private static final int MIN_HEDGE_SAMPLES = 20;
+    private static final int MAX_HEDGE_PERCENT = 10;
+
+    private final int maxRetries;
+    private final long backoffNanos;
+    private final long maxBackoffNanos;
+    private final long deadlineNanos;
+    // 不发出对冲请求时为 0
+    private final long hedgeDelayNanos;
+
+    RetryPolicy(int maxRetries, long backoffNanos, long maxBackoffNanos, long deadlineNanos, long hedgeDelayNanos) {
+        this.maxRetries = maxRetries;
+        this.backoffNanos = backoffNanos;
+        this.maxBackoffNanos = maxBackoffNanos;
+        this.deadlineNanos = deadlineNanos;
+        this.hedgeDelayNanos = hedgeDelayNanos;
+    }
+
+    /**
+     * @param startNanos 总截止时间的起点
+     */
+    public static RetryPolicy of(AuthBridgeSetting setting, ClientConfigPair pair, ClientMetrics metrics, long startNanos) {
+        int maxRetries = pair.getMaxRetries() != null ? pair.getMaxRetries() : setting.getCallbackMaxRetries();
+        long hedgeDelayNanos = 0L;
+        RecentCallbacks recent = metrics.getRecentCallbacks();
+        long callbacks = setting.isHedgeEnabled() ? recent.getCallbacks() : 0L;
+        if (callbacks >= MIN_HEDGE_SAMPLES && recent.getHedges() * 100 < callbacks * MAX_HEDGE_PERCENT) {
+            long p95Micros = recent.getPercentileMicros(0.95);
+            hedgeDelayNanos = Math.max(TimeUnit.MICROSECONDS.toNanos(p95Micros), TimeUnit.MILLISECONDS.toNanos(setting.getHedgeMinDelayMillis()));
+        }
+        return new RetryPolicy(Math.max(0, maxRetries),
+                TimeUnit.MILLISECONDS.toNanos(setting.getRetryBackoffMillis()),
+                TimeUnit.MILLISECONDS.toNanos(setting.getRetryMaxBackoffMillis()),
+                startNanos + TimeUnit.MILLISECONDS.toNanos(setting.getCallbackDeadlineMillis()),
+                hedgeDelayNanos);
+    }
+
+    /**
+     * @return 是否不重试也不对冲，可以直接执行
+     */
+    boolean isNoop() {
+        return maxRetries == 0 && hedgeDelayNanos == 0;
+    }
+
+    int getMaxRetries() {
+        return maxRetries;
+    }
+
+    long getHedgeDelayNanos() {
+        return hedgeDelayNanos;
+    }
+
+    /**
+     * @param retry 第几次重试，从 1 开始
+     * @return 退避时间（纳秒）；退避结束时已超过截止时间返回 -1
+     */
+    long nextBackoffNanos(int retry) {
+        long ceiling = Math.min(maxBackoffNanos, backoffNanos << Math.min(retry - 1, 30));
+        long backoff = ceiling > 0 ? ThreadLocalRandom.current().nextLong(ceiling) : 0L;
+        return System.nanoTime() + backoff < deadlineNanos ? backoff : -1L;
+    }
+
+    /**
+     * @return 失败是否发生在请求发出之前，可以安全重试
+     */
+    static boolean isRetryable(Throwable error) {
+        return error instanceof ConnectException
+                || error instanceof NoRouteToHostException
+                || error instanceof UnknownHostException
+                || error instanceof org.apache.http.conn.ConnectTimeoutException
+                || error instanceof org.apache.hc.client5.http.ConnectTimeoutException;
+    }
+}
@@ -0,0 +1,117 @@
+package com.bes.jira.plugins.authbridge.callback;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * 相同 key 的并发调用合并为一次执行（single-flight）。
+ * <p>
+ * 第一个到达的调用者执行实际操作，执行期间到达的相同 key 调用共享同一个结果；
+ * 操作完成后立即从 in-flight 表中移除，之后的调用会重新执行。
+ * 每个调用者拿到的是共享结果的独立视图，单个调用者取消（例如异步超时）不会影响其他调用者；
+ * 全部调用者都已取消时取消实际操作（底层请求、重试与对冲），并从 in-flight 表中移除。
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, Flight> inFlight = new ConcurrentHashMap<>();
+
+    public CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> call) {
+        Flight flight = new Flight();
+        flight.join();
+        for (; ; ) {
+            Flight existing = inFlight.putIfAbsent(key, flight);
+            if (existing == null) {
+                break;
+            }
+            if (existing.join()) {
+                return view(key, existing);
+            }
+            // 已被全部调用者放弃，等待移除
+            inFlight.remove(key, existing);
+        }
+
+        CompletableFuture<V> source;
+        try {
+            source = call.get();
+        } catch (RuntimeException e) {
+            inFlight.remove(key, flight);
+            flight.shared.completeExceptionally(e);
+            return view(key, flight);
+        }
+        flight.source = source;
+
+        source.whenComplete((value, error) -> {
+            // 先移除再完成，保证拿到结果的调用者再次调用时会发起新的执行
+            inFlight.remove(key, flight);
+            if (error != null) {
+                flight.shared.completeExceptionally(error);
+            } else {
+                flight.shared.complete(value);
+            }
+        });
+        return view(key, flight);
+    }
+
+    /**
+     * 当前正在执行中的 key 数量
+     */
+    public int size() {
+        return inFlight.size();
+    }
+
+    /**
+     * 调用者的视图；调用前 flight 已计入该调用者
+     */
+    private CompletableFuture<V> view(K key, Flight flight) {
+        CompletableFuture<V> view = new CompletableFuture<>();
+        flight.shared.whenComplete((value, error) -> {
+            if (error != null) {
+                view.completeExceptionally(error);
+            } else {
+                view.complete(value);
+            }
+        });
+        view.whenComplete((value, error) -> {
+            if (view.isCancelled() && flight.leave()) {
+                inFlight.remove(key, flight);
+                flight.source.cancel(true);
+            }
+        });
+        return view;
+    }
+
+    /**
+     * 一次实际执行及等待其结果的调用者数量
+     */
+    private final class Flight {
+        private final CompletableFuture<V> shared = new CompletableFuture<>();
+        // 视图创建前已赋值
+        private volatile CompletableFuture<V> source = shared;
+        private int waiters;
+        private boolean abandoned;
+
+        /**
+         * @return 已被全部调用者放弃时返回 false
+         */
+        synchronized boolean join() {
+            if (abandoned) {
+                return false;
+            }
+            waiters++;
+            return true;
+        }
+
+        /**
+         * @return 是否为最后一个离开的调用者
+         */
+        synchronized boolean leave() {
+            if (abandoned) {
+                return false;
+            }
+            abandoned = --waiters == 0;
+            return abandoned;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.bes.jira.plugins.authbridge.http.factory;
+
+import java.util.Objects;
+
+/**
+ * HttpClient 缓存的键：同步/异步/HTTP/2、TLS 信任配置（跳过验证或 CA 证书包指纹）以及连接 TTL。
+ * 连接 TTL 只能在创建连接池时指定，因此也作为键的一部分，修改后自动使用新的 Client。
+ */
+final class ClientKey {
+    private final boolean async;
+    // HttpClient 5 实现的 HTTP/2（ALPN 协商）Client，总是异步
+    private final boolean http2;
+    private final boolean insecureSkipVerify;
+    // 跳过验证时忽略证书；按指纹比较
+    private final TrustBundle trustBundle;
+    private final long connectionTimeToLiveMillis;
+
+    ClientKey(boolean async, boolean http2, boolean insecureSkipVerify, TrustBundle trustBundle, long connectionTimeToLiveMillis) {
+        this.async = async || http2;
+        this.http2 = http2;
+        this.insecureSkipVerify = insecureSkipVerify;
+        this.trustBundle = insecureSkipVerify ? null : trustBundle;
+        this.connectionTimeToLiveMillis = connectionTimeToLiveMillis;
+    }
+
+    boolean isAsync() {
+        return async;
+    }
+
+    boolean isHttp2() {
+        return http2;
+    }
+
+    boolean isInsecureSkipVerify() {
+        return insecureSkipVerify;
+    }
+
+    TrustBundle getTrustBundle() {
+        return trustBundle;
+    }
+
+    /**
+     * 连接池名称，用于日志和统计
+     */
+    String getName() {
+        String name;
+        if (insecureSkipVerify) {
+            name = "insecure";
+        } else if (trustBundle != null) {
+            name = "custom-" + trustBundle.getFingerprint().substring(0, 12);
+        } else {
+            name = "standard";
+        }
+        if (http2) {
+            return name + "-h2";
+        }
+        return async ? name + "-async" : name;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ClientKey)) {
+            return false;
+        }
+        ClientKey other = (ClientKey) o;
+        return async == other.async
+                && http2 == other.http2
+                && insecureSkipVerify == other.insecureSkipVerify
+                && connectionTimeToLiveMillis == other.connectionTimeToLiveMillis
+                && Objects.equals(trustBundle, other.trustBundle);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(async, http2, insecureSkipVerify, trustBundle, connectionTimeToLiveMillis);
+    }
+}
@@ -0,0 +1,107 @@
+package com.bes.jira.plugins.authbridge.http.factory;
+
+import com.bes.jira.plugins.authbridge.model.AuthBridgeSetting;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.ssl.ClientTlsStrategyBuilder;
+import org.apache.hc.client5.http.ssl.NoopHostnameVerifier;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.http2.config.H2Config;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+
+import javax.net.ssl.SSLContext;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * HTTP/2 回调使用的 HttpClient 5 及其连接池，与 {@link ManagedPool} 对应：调整上限、清理过期/空闲连接、读取路由统计。
+ * <p>
+ * https 回调通过 ALPN 协商 h2，同一主机的并发回调以多路复用的流在少量 TLS 连接上发送；
+ * 下游未协商 h2（或为 http 明文）时自动使用 HTTP/1.1，行为与异步模式的 HttpAsyncClient 相同。
+ */
+final class Http2Pool {
+    private final String name;
+    private final PoolingAsyncClientConnectionManager manager;
+    private final CloseableHttpAsyncClient client;
+
+    private Http2Pool(String name, PoolingAsyncClientConnectionManager manager, CloseableHttpAsyncClient client) {
+        this.name = name;
+        this.manager = manager;
+        this.client = client;
+    }
+
+    /**
+     * 创建并启动 Client
+     */
+    static Http2Pool create(String name, SSLContext sslContext, boolean insecureSkipVerify, AuthBridgeSetting setting) {
+        ClientTlsStrategyBuilder tlsStrategy = ClientTlsStrategyBuilder.create().setSslContext(sslContext);
+        if (insecureSkipVerify) {
+            tlsStrategy.setHostnameVerifier(NoopHostnameVerifier.INSTANCE);
+        }
+        // 连接 TTL 在连接池创建时确定，是 ClientKey 的一部分
+        PoolingAsyncClientConnectionManager manager = PoolingAsyncClientConnectionManagerBuilder.create()
+                .setTlsStrategy(tlsStrategy.build())
+                .setConnectionTimeToLive(TimeValue.ofMilliseconds(setting.getConnectionTimeToLiveMillis()))
+                .build();
+
+        CloseableHttpAsyncClient client = HttpAsyncClients.custom()
+                .setConnectionManager(manager)
+                .setVersionPolicy(HttpVersionPolicy.NEGOTIATE)
+                .setH2Config(H2Config.custom().setPushEnabled(false).build())
+                .build();
+        client.start();
+        return new Http2Pool(name, manager, client);
+    }
+
+    String getName() {
+        return name;
+    }
+
+    CloseableHttpAsyncClient getClient() {
+        return client;
+    }
+
+    /**
+     * 应用连接数上限；previousRoutes 中已不在 routeLimits 里的路由恢复为默认上限
+     */
+    void configure(AuthBridgeSetting setting, Map<org.apache.http.conn.routing.HttpRoute, Integer> routeLimits,
+                   Set<org.apache.http.conn.routing.HttpRoute> previousRoutes) {
+        manager.setMaxTotal(setting.getMaxConnTotal());
+        manager.setDefaultMaxPerRoute(setting.getMaxConnPerRoute());
+        for (org.apache.http.conn.routing.HttpRoute route : previousRoutes) {
+            if (!routeLimits.containsKey(route)) {
+                manager.setMaxPerRoute(toRoute(route), setting.getMaxConnPerRoute());
+            }
+        }
+        for (Map.Entry<org.apache.http.conn.routing.HttpRoute, Integer> entry : routeLimits.entrySet()) {
+            manager.setMaxPerRoute(toRoute(entry.getKey()), entry.getValue());
+        }
+    }
+
+    void evict(long idleMillis) {
+        manager.closeExpired();
+        manager.closeIdle(TimeValue.ofMilliseconds(idleMillis));
+    }
+
+    void collectStats(List<RoutePoolStats> stats) {
+        for (HttpRoute route : manager.getRoutes()) {
+            PoolStats routeStats = manager.getStats(route);
+            stats.add(new RoutePoolStats(name, route.getTargetHost().toURI(),
+                    routeStats.getLeased(), routeStats.getAvailable(), routeStats.getPending(), routeStats.getMax()));
+        }
+    }
+
+    /**
+     * HttpClient 4 的路由转换为 HttpClient 5 中等价的直连路由
+     */
+    private static HttpRoute toRoute(org.apache.http.conn.routing.HttpRoute route) {
+        org.apache.http.HttpHost target = route.getTargetHost();
+        return new HttpRoute(new HttpHost(target.getSchemeName(), target.getHostName(), target.getPort()), null, route.isSecure());
+    }
+}
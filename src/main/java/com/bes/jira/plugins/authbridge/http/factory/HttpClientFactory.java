@@ -1,181 +1,308 @@
 package com.bes.jira.plugins.authbridge.http.factory;
 
-import org.apache.commons.lang3.StringUtils;
+import com.bes.jira.plugins.authbridge.model.AuthBridgeSetting;
+import com.bes.jira.plugins.authbridge.model.ClientConfigPair;
+import org.apache.http.HttpHost;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
 import org.apache.http.conn.ssl.NoopHostnameVerifier;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.ManagedHttpClientConnectionFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.conn.ManagedNHttpClientConnectionFactory;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.nio.conn.NoopIOSessionStrategy;
+import org.apache.http.nio.conn.SchemeIOSessionStrategy;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
+import org.apache.http.pool.ConnPoolControl;
+import org.apache.http.pool.PoolStats;
 import org.apache.http.ssl.SSLContexts;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.PreDestroy;
 import javax.inject.Named;
 import javax.net.ssl.SSLContext;
-import java.io.ByteArrayInputStream;
+import java.io.Closeable;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.net.MalformedURLException;
+import java.net.URL;
 import java.security.KeyStore;
-import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
-import java.util.Objects;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 @Named
 public class HttpClientFactory {
     private static final Logger log = LoggerFactory.getLogger(HttpClientFactory.class);
 
-    // --- 分别缓存三种类型的 Client ---
-    private volatile CloseableHttpClient standardClient;
-    private volatile CloseableHttpClient insecureClient;
+    private static final long EVICTION_INTERVAL_SECONDS = 5;
 
-    // 自定义证书 Client 及其对应的证书指纹（或内容字符串）
-    private volatile CloseableHttpClient customClient;
-    private String cachedCustomCertContent;
+    // 最多缓存的 Client 数量（按 TLS 信任配置区分），超出时淘汰最久未使用的 Client
+    private static final int MAX_CACHED_CLIENTS = 16;
+    // 超过该时间未被借出的 Client 被淘汰（例如证书已更换或 client 已删除）
+    private static final long CLIENT_IDLE_RETIRE_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    private static final int MAX_CACHED_SSL_CONTEXTS = 32;
+
+    // 按 TLS 信任配置缓存的 Client（同步与异步）
+    private final Map<ClientKey, RefCountedClient<? extends Closeable>> clients = new ConcurrentHashMap<>();
 
     private final Object lock = new Object();
 
+    // 按信任配置缓存的 SSLContext：insecure / system / CA 证书包指纹。证书包内容相同时复用，不重复构建
+    private final Map<String, SSLContext> sslContexts = new ConcurrentHashMap<>();
+
+    // 每个 Client 对应的连接池，用于在配置变更时直接调整连接数上限（无需重建 Client）、后台清理连接和读取统计
+    private final Map<Closeable, ManagedPool> pools = new ConcurrentHashMap<>();
+    // HTTP/2 Client（HttpClient 5）对应的连接池，用途同上
+    private final Map<Closeable, Http2Pool> http2Pools = new ConcurrentHashMap<>();
+    // 后台清理线程，首个连接池创建时启动
+    private volatile ScheduledExecutorService evictor;
+    // 最近一次应用到连接池的配置快照，以及其中单独设置过上限的路由
+    private volatile AuthBridgeSetting poolSetting = new AuthBridgeSetting();
+    private Set<HttpRoute> customizedRoutes = Collections.emptySet();
+
     public HttpClientFactory() {
     }
 
     /**
-     * 创建一个 HttpClient 实例，并为 Introspection Endpoint 局部设置自定义 SSL 协议。
-     *
-     * @return 局部配置好的 HttpClient 实例
+     * 借出一个按 TLS 信任配置缓存的 HttpClient，使用完毕后必须调用 {@link RefCountedClient#release()}。
+     * 优先级：跳过验证 > 自定义 CA 证书 > 系统默认信任库。
      */
-    public CloseableHttpClient createClient(boolean insecureSkipVerify, String trustCaCert) {
-        // DEBUG: 记录请求策略，帮助开发排查配置优先级问题
-        if (log.isDebugEnabled()) {
-            log.debug("Requesting HttpClient. Strategy: InsecureSkipVerify={}, HasCustomCert={}",
-                    insecureSkipVerify, StringUtils.isNotBlank(trustCaCert));
-        }
-        // 优先级 1: 如果要求跳过验证，返回 InsecureClient
-        if (insecureSkipVerify) {
-            return getInsecureClient();
-        }
+    public RefCountedClient<CloseableHttpClient> acquireClient(boolean insecureSkipVerify, TrustBundle trustBundle) {
+        ClientKey key = new ClientKey(false, false, insecureSkipVerify, trustBundle, poolSetting.getConnectionTimeToLiveMillis());
+        return acquire(key, () -> createInternal(key));
+    }
 
-        // 优先级 2: 如果提供了证书，返回 CustomClient (会检查证书是否变化)
-        if (!trustCaCert.isEmpty()) {
-            return getCustomClient(trustCaCert);
-        }
+    /**
+     * 借出异步模式使用的 HttpAsyncClient（已启动），选择策略与 {@link #acquireClient(boolean, TrustBundle)} 一致。
+     */
+    public RefCountedClient<CloseableHttpAsyncClient> acquireAsyncClient(boolean insecureSkipVerify, TrustBundle trustBundle) {
+        ClientKey key = new ClientKey(true, false, insecureSkipVerify, trustBundle, poolSetting.getConnectionTimeToLiveMillis());
+        return acquire(key, () -> createAsyncInternal(key));
+    }
 
-        // 优先级 3: 默认情况，返回 StandardClient
-        return getStandardClient();
+    /**
+     * 借出 HTTP/2 回调使用的 HttpClient 5（已启动，ALPN 协商 h2，不支持时使用 HTTP/1.1），选择策略与
+     * {@link #acquireClient(boolean, TrustBundle)} 一致。
+     */
+    public RefCountedClient<org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient> acquireHttp2Client(
+            boolean insecureSkipVerify, TrustBundle trustBundle) {
+        ClientKey key = new ClientKey(true, true, insecureSkipVerify, trustBundle, poolSetting.getConnectionTimeToLiveMillis());
+        return acquire(key, () -> createHttp2Internal(key));
     }
 
-    // ---------------------------------------------------------
-    // 1. 获取 Standard Client (懒加载单例)
-    // ---------------------------------------------------------
-    private CloseableHttpClient getStandardClient() {
-        if (standardClient != null) {
-            return standardClient;
+    /**
+     * 将配置中的连接池上限应用到所有已创建的连接池。配置快照未变化时只做一次引用比较。
+     */
+    public void applyPoolSettings(AuthBridgeSetting setting) {
+        if (setting == poolSetting) {
+            return;
         }
         synchronized (lock) {
-            if (standardClient == null) {
-                log.info("Initializing Standard HttpClient (System Default SSL).");
-                standardClient = createInternal(false, null);
+            if (setting == poolSetting) {
+                return;
+            }
+            Set<HttpRoute> previousRoutes = customizedRoutes;
+            poolSetting = setting;
+            Map<HttpRoute, Integer> routeLimits = resolveRouteLimits(setting);
+            for (ManagedPool pool : pools.values()) {
+                // 已不在配置中的路由恢复为默认上限
+                for (HttpRoute route : previousRoutes) {
+                    if (!routeLimits.containsKey(route)) {
+                        pool.control().setMaxPerRoute(route, setting.getMaxConnPerRoute());
+                    }
+                }
+                configurePool(pool.control(), setting, routeLimits);
             }
-            return standardClient;
+            for (Http2Pool pool : http2Pools.values()) {
+                pool.configure(setting, routeLimits, previousRoutes);
+            }
+            customizedRoutes = routeLimits.keySet();
+            log.info("Applied connection pool settings to {} pools. maxTotal={}, defaultMaxPerRoute={}, customRoutes={}",
+                    pools.size() + http2Pools.size(), setting.getMaxConnTotal(), setting.getMaxConnPerRoute(), routeLimits.size());
         }
     }
 
-    // ---------------------------------------------------------
-    // 2. 获取 Insecure Client (懒加载单例)
-    // ---------------------------------------------------------
-    private CloseableHttpClient getInsecureClient() {
-        if (insecureClient != null) {
-            return insecureClient;
+    /**
+     * 读取所有连接池中每条路由的 leased / available / pending 统计
+     */
+    public List<RoutePoolStats> getPoolStats() {
+        List<RoutePoolStats> stats = new ArrayList<>();
+        for (ManagedPool pool : pools.values()) {
+            ConnPoolControl<HttpRoute> control = pool.control();
+            for (HttpRoute route : pool.routes()) {
+                PoolStats routeStats = control.getStats(route);
+                stats.add(new RoutePoolStats(pool.getName(), route.getTargetHost().toURI(),
+                        routeStats.getLeased(), routeStats.getAvailable(), routeStats.getPending(), routeStats.getMax()));
+            }
         }
-        synchronized (lock) {
-            if (insecureClient == null) {
-                log.info("Initializing Insecure HttpClient (Skip Verify enabled). Security warning: SSL validation is disabled.");
-                insecureClient = createInternal(true, null);
+        for (Http2Pool pool : http2Pools.values()) {
+            pool.collectStats(stats);
+        }
+        stats.sort(Comparator.comparing(RoutePoolStats::getPool).thenComparing(RoutePoolStats::getRoute));
+        return stats;
+    }
+
+    /**
+     * 构建（或复用）对应信任配置的 Client，并预先建立 connections 个到 callback 所在主机的连接。
+     *
+     * @return 成功建立的连接数
+     * @throws Exception 创建 Client、DNS 解析、TCP 连接或 TLS 握手失败
+     */
+    public int warmUp(boolean async, boolean insecureSkipVerify, TrustBundle trustBundle, String callback, int connections) throws Exception {
+        HttpRoute route = toRoute(callback);
+        if (route == null) {
+            throw new MalformedURLException("Invalid callback URL: " + callback);
+        }
+        RefCountedClient<? extends Closeable> client = async
+                ? acquireAsyncClient(insecureSkipVerify, trustBundle)
+                : acquireClient(insecureSkipVerify, trustBundle);
+        try {
+            ManagedPool pool = pools.get(client.get());
+            if (pool == null) {
+                return 0;
             }
-            return insecureClient;
+            AuthBridgeSetting setting = poolSetting;
+            return pool.warmUp(route, connections, setting.getConnectTimeoutMillis(), setting.getIdleConnectionTimeoutMillis());
+        } finally {
+            client.release();
         }
     }
 
-    // ---------------------------------------------------------
-    // 3. 获取 Custom Client (变更检测)
-    // ---------------------------------------------------------
-    private CloseableHttpClient getCustomClient(String trustCaCert) {
-        // 检查是否已存在且证书内容未变
-        if (customClient != null && Objects.equals(cachedCustomCertContent, trustCaCert)) {
-            return customClient;
+    @SuppressWarnings("unchecked")
+    private <C extends Closeable> RefCountedClient<C> acquire(ClientKey key, Supplier<C> factory) {
+        RefCountedClient<C> client = (RefCountedClient<C>) clients.get(key);
+        if (client != null && client.tryRetain()) {
+            return client;
         }
 
         synchronized (lock) {
             // 双重检查
-            if (customClient != null && Objects.equals(cachedCustomCertContent, trustCaCert)) {
-                return customClient;
+            client = (RefCountedClient<C>) clients.get(key);
+            if (client != null && client.tryRetain()) {
+                return client;
             }
 
-            // 临时存储旧的客户端实例，以便在创建成功后关闭
-            CloseableHttpClient oldClient = customClient;
-            String logMessage;
+            if (clients.size() >= MAX_CACHED_CLIENTS) {
+                retireLeastRecentlyUsed();
+            }
 
-            if (oldClient != null) {
-                log.info("Configuration change detected: Custom Certificate content has changed. Re-initializing HttpClient.");
-            } else {
-                log.info("Initializing Custom HttpClient with provided Trusted Certificate.");
+            if (log.isDebugEnabled()) {
+                log.debug("Initializing HttpClient {}. InsecureSkipVerify={}, HasCustomCert={}",
+                        key.getName(), key.isInsecureSkipVerify(), key.getTrustBundle() != null);
             }
+            if (key.isInsecureSkipVerify()) {
+                log.info("Initializing Insecure HttpClient {} (Skip Verify enabled). Security warning: SSL validation is disabled.", key.getName());
+            }
+            C created = factory.get();
+            RefCountedClient<C> fresh = new RefCountedClient<>(key.getName(), created, () -> closeRetired(created));
+            fresh.tryRetain();
+            clients.put(key, fresh);
+            return fresh;
+        }
+    }
 
-            try {
-                // 创建新的
-                CloseableHttpClient newClient = createInternal(false, trustCaCert);
-                // 创建成功后，才关闭旧的客户端
-                if (oldClient != null) {
-                    log.info("Successfully initialized new Custom HttpClient. Closing the old instance.");
-                    closeClient(oldClient); // 关闭旧的
+    /**
+     * 调用方持有 lock
+     */
+    private void retireLeastRecentlyUsed() {
+        Map.Entry<ClientKey, RefCountedClient<? extends Closeable>> eldest = null;
+        for (Map.Entry<ClientKey, RefCountedClient<? extends Closeable>> entry : clients.entrySet()) {
+            if (eldest == null || entry.getValue().getLastUsedAt() < eldest.getValue().getLastUsedAt()) {
+                eldest = entry;
+            }
+        }
+        if (eldest != null) {
+            log.info("Too many cached HttpClients ({}). Retiring least recently used {}.", clients.size(), eldest.getValue().getName());
+            retire(eldest.getKey(), eldest.getValue());
+        }
+    }
+
+    private void retire(ClientKey key, RefCountedClient<? extends Closeable> client) {
+        if (clients.remove(key, client)) {
+            log.debug("Retiring HttpClient {}. inFlight={}", client.getName(), client.inFlight());
+            client.retire();
+        }
+    }
+
+    /**
+     * 淘汰长时间未使用的 Client
+     */
+    private void retireIdleClients() {
+        long now = System.currentTimeMillis();
+        synchronized (lock) {
+            for (Map.Entry<ClientKey, RefCountedClient<? extends Closeable>> entry : clients.entrySet()) {
+                if (now - entry.getValue().getLastUsedAt() > CLIENT_IDLE_RETIRE_MILLIS) {
+                    retire(entry.getKey(), entry.getValue());
                 }
-                // 6. 更新全局变量为新的客户端实例
-                customClient = newClient;
-                // 7. 更新缓存的证书内容
-                cachedCustomCertContent = trustCaCert;
-                return customClient;
-            } catch (Exception e) {
-                log.error("Failed to initialize Custom HttpClient. The system will continue using the previous client if available.", e);
-                // 保留抛出异常的逻辑，确保上层调用者知道客户端初始化失败
-                throw new RuntimeException(e);
             }
         }
     }
 
+    /**
+     * 最后一个引用归还时关闭 Client。归还可能发生在 HttpAsyncClient 自身的 I/O 线程上，
+     * 在该线程上关闭会等待自身结束，因此交给后台线程执行。
+     */
+    private void closeRetired(Closeable client) {
+        ScheduledExecutorService executor = evictor;
+        if (executor != null) {
+            try {
+                executor.execute(() -> closeClient(client));
+                return;
+            } catch (RejectedExecutionException e) {
+                log.debug("Evictor is shut down. Closing HttpClient inline.");
+            }
+        }
+        closeClient(client);
+    }
+
     // ---------------------------------------------------------
     // 内部工厂方法 (复用创建逻辑)
     // ---------------------------------------------------------
-    private CloseableHttpClient createInternal(boolean insecureSkipVerify, String trustCaCert) {
+    private CloseableHttpClient createInternal(ClientKey key) {
         try {
-            SSLContext sslContext;
-            SSLConnectionSocketFactory sslSocketFactory;
-
-            if (insecureSkipVerify) {
-                // Insecure 模式
-                log.debug("Building SSLContext with Trust-All strategy.");
-                sslContext = SSLContexts.custom()
-                        .loadTrustMaterial(null, (chain, authType) -> true)
-                        .build();
-                sslSocketFactory = new SSLConnectionSocketFactory(sslContext, NoopHostnameVerifier.INSTANCE);
-
-            } else if (!trustCaCert.isEmpty()) {
-                // Custom Cert 模式
-                log.debug("Building SSLContext with Custom TrustStore.");
-                KeyStore trustStore = createTrustStoreWithCert(trustCaCert);
-                sslContext = SSLContexts.custom()
-                        .loadTrustMaterial(trustStore, null)
-                        .build();
-                sslSocketFactory = new SSLConnectionSocketFactory(sslContext);
-
-            } else {
-                // Standard 模式
-                log.debug("Building SSLContext with System Default.");
-                sslContext = SSLContexts.createSystemDefault();
-                sslSocketFactory = new SSLConnectionSocketFactory(sslContext);
-            }
-
-            return HttpClients.custom()
-                    .setSSLSocketFactory(sslSocketFactory)
-                    .setMaxConnTotal(200)
-                    .setMaxConnPerRoute(20)
+            SSLContext sslContext = getSslContext(key);
+            SSLConnectionSocketFactory sslSocketFactory = key.isInsecureSkipVerify()
+                    ? new SSLConnectionSocketFactory(sslContext, NoopHostnameVerifier.INSTANCE)
+                    : new SSLConnectionSocketFactory(sslContext);
+
+            Registry<ConnectionSocketFactory> registry = RegistryBuilder.<ConnectionSocketFactory>create()
+                    .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                    .register("https", sslSocketFactory)
+                    .build();
+            AuthBridgeSetting setting = poolSetting;
+            // 连接 TTL 在连接池创建时确定，是 ClientKey 的一部分，修改后使用新的 Client
+            PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(registry,
+                    ManagedHttpClientConnectionFactory.INSTANCE, null, null,
+                    setting.getConnectionTimeToLiveMillis(), TimeUnit.MILLISECONDS);
+            configurePool(connectionManager, setting, resolveRouteLimits(setting));
+
+            CloseableHttpClient client = HttpClients.custom()
+                    .setConnectionManager(connectionManager)
                     .build();
+            registerPool(client, ManagedPool.of(key.getName(), connectionManager));
+            return client;
 
         } catch (Exception e) {
             log.error("Error building SSLContext or HttpClient: {}", e.getMessage());
@@ -183,30 +310,191 @@ public class HttpClientFactory {
         }
     }
 
-    private KeyStore createTrustStoreWithCert(String certString) throws Exception {
+    private CloseableHttpAsyncClient createAsyncInternal(ClientKey key) {
         try {
-            KeyStore keyStore = KeyStore.getInstance(KeyStore.getDefaultType());
-            keyStore.load(null, null);
-            CertificateFactory certFactory = CertificateFactory.getInstance("X.509");
-            ByteArrayInputStream certInputStream = new ByteArrayInputStream(certString.getBytes(StandardCharsets.UTF_8));
-            X509Certificate certificate = (X509Certificate) certFactory.generateCertificate(certInputStream);
+            SSLContext sslContext = getSslContext(key);
+            SSLIOSessionStrategy sslStrategy = key.isInsecureSkipVerify()
+                    ? new SSLIOSessionStrategy(sslContext, NoopHostnameVerifier.INSTANCE)
+                    : new SSLIOSessionStrategy(sslContext, SSLIOSessionStrategy.getDefaultHostnameVerifier());
 
+            Registry<SchemeIOSessionStrategy> registry = RegistryBuilder.<SchemeIOSessionStrategy>create()
+                    .register("http", NoopIOSessionStrategy.INSTANCE)
+                    .register("https", sslStrategy)
+                    .build();
+            AuthBridgeSetting setting = poolSetting;
+            PoolingNHttpClientConnectionManager connectionManager = new PoolingNHttpClientConnectionManager(
+                    new DefaultConnectingIOReactor(IOReactorConfig.DEFAULT), ManagedNHttpClientConnectionFactory.INSTANCE,
+                    registry, null, null, setting.getConnectionTimeToLiveMillis(), TimeUnit.MILLISECONDS);
+            configurePool(connectionManager, setting, resolveRouteLimits(setting));
+
+            CloseableHttpAsyncClient client = HttpAsyncClients.custom()
+                    .setConnectionManager(connectionManager)
+                    .build();
+            client.start();
+            registerPool(client, ManagedPool.of(key.getName(), connectionManager));
+            return client;
+
+        } catch (Exception e) {
+            log.error("Error building SSLContext or HttpAsyncClient: {}", e.getMessage());
+            throw new RuntimeException("Failed to create HttpAsyncClient", e);
+        }
+    }
+
+    private org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient createHttp2Internal(ClientKey key) {
+        try {
+            AuthBridgeSetting setting = poolSetting;
+            Http2Pool pool = Http2Pool.create(key.getName(), getSslContext(key), key.isInsecureSkipVerify(), setting);
+            pool.configure(setting, resolveRouteLimits(setting), Collections.emptySet());
+            http2Pools.put(pool.getClient(), pool);
+            startEvictor();
+            return pool.getClient();
+
+        } catch (Exception e) {
+            log.error("Error building SSLContext or HTTP/2 HttpAsyncClient: {}", e.getMessage());
+            throw new RuntimeException("Failed to create HTTP/2 HttpAsyncClient", e);
+        }
+    }
+
+    private void registerPool(Closeable client, ManagedPool pool) {
+        pools.put(client, pool);
+        startEvictor();
+    }
+
+    /**
+     * 首个连接池创建时启动后台清理线程，调用方持有 lock
+     */
+    private void startEvictor() {
+        if (evictor == null) {
+            evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "authbridge-connection-evictor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            evictor.scheduleWithFixedDelay(this::evictConnections, EVICTION_INTERVAL_SECONDS, EVICTION_INTERVAL_SECONDS, TimeUnit.SECONDS);
+            log.info("Started connection evictor. interval={}s", EVICTION_INTERVAL_SECONDS);
+        }
+    }
+
+    /**
+     * 后台定期关闭过期（超过 TTL）和空闲过久的连接，避免下游负载均衡静默断开后首个请求拿到失效连接
+     */
+    private void evictConnections() {
+        retireIdleClients();
+        long idleMillis = poolSetting.getIdleConnectionTimeoutMillis();
+        for (ManagedPool pool : pools.values()) {
+            try {
+                pool.evict(idleMillis);
+            } catch (RuntimeException e) {
+                log.warn("Failed to evict connections from pool {}: {}", pool.getName(), e.getMessage());
+            }
+        }
+        for (Http2Pool pool : http2Pools.values()) {
+            try {
+                pool.evict(idleMillis);
+            } catch (RuntimeException e) {
+                log.warn("Failed to evict connections from pool {}: {}", pool.getName(), e.getMessage());
+            }
+        }
+    }
+
+    private void configurePool(ConnPoolControl<HttpRoute> pool, AuthBridgeSetting setting, Map<HttpRoute, Integer> routeLimits) {
+        pool.setMaxTotal(setting.getMaxConnTotal());
+        pool.setDefaultMaxPerRoute(setting.getMaxConnPerRoute());
+        for (Map.Entry<HttpRoute, Integer> entry : routeLimits.entrySet()) {
+            pool.setMaxPerRoute(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * 计算单独配置了 maxConnPerRoute 的回调路由。通配回调无法确定具体路由，使用默认上限。
+     */
+    private Map<HttpRoute, Integer> resolveRouteLimits(AuthBridgeSetting setting) {
+        Map<HttpRoute, Integer> routeLimits = new HashMap<>();
+        for (ClientConfigPair pair : setting.getClientConfigPairs()) {
+            if (pair.getMaxConnPerRoute() == null || pair.getCallback() == null || pair.getCallback().indexOf('*') >= 0) {
+                continue;
+            }
+            HttpRoute route = toRoute(pair.getCallback());
+            if (route != null) {
+                routeLimits.merge(route, pair.getMaxConnPerRoute(), Math::max);
+            }
+        }
+        return routeLimits;
+    }
+
+    private HttpRoute toRoute(String callback) {
+        try {
+            URL url = new URL(callback);
+            String scheme = url.getProtocol();
+            int port = url.getPort() > 0 ? url.getPort() : url.getDefaultPort();
+            return new HttpRoute(new HttpHost(url.getHost(), port, scheme), null, "https".equalsIgnoreCase(scheme));
+        } catch (MalformedURLException e) {
+            log.warn("Cannot resolve connection route for callback {}: {}", callback, e.getMessage());
+            return null;
+        }
+    }
+
+    private SSLContext getSslContext(ClientKey key) throws Exception {
+        String cacheKey = key.isInsecureSkipVerify() ? "insecure"
+                : key.getTrustBundle() != null ? key.getTrustBundle().getFingerprint() : "system";
+        SSLContext sslContext = sslContexts.get(cacheKey);
+        if (sslContext != null) {
+            log.debug("Reusing cached SSLContext {}.", cacheKey);
+            return sslContext;
+        }
+
+        sslContext = buildSslContext(key.isInsecureSkipVerify(), key.getTrustBundle());
+        if (sslContexts.size() >= MAX_CACHED_SSL_CONTEXTS) {
+            sslContexts.clear();
+        }
+        sslContexts.put(cacheKey, sslContext);
+        return sslContext;
+    }
+
+    private SSLContext buildSslContext(boolean insecureSkipVerify, TrustBundle trustBundle) throws Exception {
+        if (insecureSkipVerify) {
+            // Insecure 模式
+            log.debug("Building SSLContext with Trust-All strategy.");
+            return SSLContexts.custom()
+                    .loadTrustMaterial(null, (chain, authType) -> true)
+                    .build();
+        }
+
+        if (trustBundle != null) {
+            // Custom Cert 模式
+            log.debug("Building SSLContext with Custom TrustStore.");
+            KeyStore trustStore = createTrustStore(trustBundle);
+            return SSLContexts.custom()
+                    .loadTrustMaterial(trustStore, null)
+                    .build();
+        }
+
+        // Standard 模式
+        log.debug("Building SSLContext with System Default.");
+        return SSLContexts.createSystemDefault();
+    }
+
+    /**
+     * 将证书包中的全部证书（包括中间证书）加入信任库
+     */
+    private KeyStore createTrustStore(TrustBundle trustBundle) throws Exception {
+        KeyStore keyStore = KeyStore.getInstance(KeyStore.getDefaultType());
+        keyStore.load(null, null);
+        int index = 0;
+        for (X509Certificate certificate : trustBundle.getCertificates()) {
             // DEBUG: 这里的关键是打印证书的主题（Subject），而不是打印证书内容。
-            // 这样可以确认加载的是哪张证书，且不会泄露太多信息或刷屏。
             if (log.isDebugEnabled()) {
                 log.debug("Loaded Custom Certificate. Subject DN: {}", certificate.getSubjectX500Principal());
             }
-
-            keyStore.setCertificateEntry("custom-ca", certificate);
-            return keyStore;
-        } catch (Exception e) {
-            log.error("Failed to parse the provided Custom Certificate string.", e);
-            throw e;
+            keyStore.setCertificateEntry("custom-ca-" + index++, certificate);
         }
+        return keyStore;
     }
 
-    private void closeClient(CloseableHttpClient client) {
+    private void closeClient(Closeable client) {
         if (client != null) {
+            pools.remove(client);
+            http2Pools.remove(client);
             try {
                 client.close();
                 log.debug("HttpClient instance closed successfully.");
@@ -219,15 +507,24 @@ public class HttpClientFactory {
     /**
      * 插件卸载时调用，清理所有资源
      */
+    @PreDestroy
     public void destroy() {
         log.info("Destroying HttpClientFactory. Closing all cached clients.");
         synchronized (lock) {
-            closeClient(standardClient);
-            closeClient(insecureClient);
-            closeClient(customClient);
-            standardClient = null;
-            insecureClient = null;
-            customClient = null;
+            if (evictor != null) {
+                evictor.shutdownNow();
+                evictor = null;
+            }
+            for (Map.Entry<ClientKey, RefCountedClient<? extends Closeable>> entry : clients.entrySet()) {
+                retire(entry.getKey(), entry.getValue());
+            }
+            // 插件卸载时不再等待进行中的请求
+            for (Closeable client : new ArrayList<>(pools.keySet())) {
+                closeClient(client);
+            }
+            for (Closeable client : new ArrayList<>(http2Pools.keySet())) {
+                closeClient(client);
+            }
         }
     }
 }
@@ -0,0 +1,130 @@
+package com.bes.jira.plugins.authbridge.http.factory;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.nio.NHttpClientConnection;
+import org.apache.http.nio.conn.NHttpClientConnectionManager;
+import org.apache.http.pool.ConnPoolControl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 对同步、异步两种连接池的统一封装：调整上限、清理过期/空闲连接、读取路由统计、预热连接。
+ */
+final class ManagedPool {
+    private final String name;
+    private final ConnPoolControl<HttpRoute> control;
+    private final Supplier<Set<HttpRoute>> routes;
+    private final HttpClientConnectionManager syncManager;
+    private final NHttpClientConnectionManager asyncManager;
+
+    private ManagedPool(String name, ConnPoolControl<HttpRoute> control, Supplier<Set<HttpRoute>> routes,
+                        HttpClientConnectionManager syncManager, NHttpClientConnectionManager asyncManager) {
+        this.name = name;
+        this.control = control;
+        this.routes = routes;
+        this.syncManager = syncManager;
+        this.asyncManager = asyncManager;
+    }
+
+    static ManagedPool of(String name, PoolingHttpClientConnectionManager manager) {
+        return new ManagedPool(name, manager, manager::getRoutes, manager, null);
+    }
+
+    static ManagedPool of(String name, PoolingNHttpClientConnectionManager manager) {
+        return new ManagedPool(name, manager, manager::getRoutes, null, manager);
+    }
+
+    String getName() {
+        return name;
+    }
+
+    ConnPoolControl<HttpRoute> control() {
+        return control;
+    }
+
+    Set<HttpRoute> routes() {
+        return routes.get();
+    }
+
+    /**
+     * 关闭已超过 TTL（或 Keep-Alive 期限）的连接，以及空闲超过 idleMillis 的连接
+     */
+    void evict(long idleMillis) {
+        if (syncManager != null) {
+            syncManager.closeExpiredConnections();
+            syncManager.closeIdleConnections(idleMillis, TimeUnit.MILLISECONDS);
+        } else {
+            asyncManager.closeExpiredConnections();
+            asyncManager.closeIdleConnections(idleMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 预先建立 count 个到 route 的连接（TCP 连接与 TLS 握手），建立后作为 keep-alive 连接放回连接池。
+     * 所有连接同时租借，确保得到的是不同的连接。
+     *
+     * @return 成功建立的连接数
+     */
+    int warmUp(HttpRoute route, int count, int connectTimeoutMillis, long keepAliveMillis) throws Exception {
+        // 超过路由上限时租借会一直等待，最多预热到上限
+        count = Math.min(count, control.getMaxPerRoute(route));
+        return syncManager != null
+                ? warmUpSync(route, count, connectTimeoutMillis, keepAliveMillis)
+                : warmUpAsync(route, count, connectTimeoutMillis, keepAliveMillis);
+    }
+
+    private int warmUpSync(HttpRoute route, int count, int connectTimeoutMillis, long keepAliveMillis) throws Exception {
+        List<HttpClientConnection> leased = new ArrayList<>(count);
+        int opened = 0;
+        try {
+            for (int i = 0; i < count; i++) {
+                HttpClientConnection connection = syncManager.requestConnection(route, null).get(connectTimeoutMillis, TimeUnit.MILLISECONDS);
+                leased.add(connection);
+                if (!connection.isOpen()) {
+                    HttpClientContext context = HttpClientContext.create();
+                    syncManager.connect(connection, route, connectTimeoutMillis, context);
+                    syncManager.routeComplete(connection, route, context);
+                }
+                opened++;
+            }
+        } finally {
+            for (HttpClientConnection connection : leased) {
+                syncManager.releaseConnection(connection, null, keepAliveMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        return opened;
+    }
+
+    private int warmUpAsync(HttpRoute route, int count, int connectTimeoutMillis, long keepAliveMillis) throws Exception {
+        List<NHttpClientConnection> leased = new ArrayList<>(count);
+        int opened = 0;
+        try {
+            for (int i = 0; i < count; i++) {
+                NHttpClientConnection connection = asyncManager.requestConnection(route, null, connectTimeoutMillis, connectTimeoutMillis,
+                        TimeUnit.MILLISECONDS, null).get(connectTimeoutMillis * 2L, TimeUnit.MILLISECONDS);
+                leased.add(connection);
+                if (!asyncManager.isRouteComplete(connection)) {
+                    HttpClientContext context = HttpClientContext.create();
+                    // https 路由在此升级为 TLS 会话，握手由 I/O reactor 异步完成
+                    asyncManager.startRoute(connection, route, context);
+                    asyncManager.routeComplete(connection, route, context);
+                }
+                opened++;
+            }
+        } finally {
+            for (NHttpClientConnection connection : leased) {
+                asyncManager.releaseConnection(connection, null, keepAliveMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        return opened;
+    }
+}
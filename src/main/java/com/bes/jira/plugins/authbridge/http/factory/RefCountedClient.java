@@ -0,0 +1,80 @@
+package com.bes.jira.plugins.authbridge.http.factory;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 引用计数的 HttpClient。缓存本身持有一个引用，每次 {@link HttpClientFactory} 借出时再加一。
+ * Client 被淘汰（retire）后不再借出，等所有进行中的请求 {@link #release()} 后才真正关闭，
+ * 避免在请求执行过程中关闭连接池。
+ */
+public final class RefCountedClient<C extends Closeable> {
+    private final String name;
+    private final C client;
+    private final Runnable closer;
+    // 初始为 1：缓存持有的引用
+    private final AtomicInteger refs = new AtomicInteger(1);
+    private final AtomicBoolean retired = new AtomicBoolean(false);
+    private volatile long lastUsedAt = System.currentTimeMillis();
+
+    RefCountedClient(String name, C client, Runnable closer) {
+        this.name = name;
+        this.client = client;
+        this.closer = closer;
+    }
+
+    public C get() {
+        return client;
+    }
+
+    /**
+     * 归还借出的引用。每次成功借出必须且只能调用一次。
+     */
+    public void release() {
+        if (refs.decrementAndGet() == 0) {
+            closer.run();
+        }
+    }
+
+    /**
+     * 引用计数已归零（Client 已关闭或正在关闭）时返回 false
+     */
+    boolean tryRetain() {
+        for (; ; ) {
+            int current = refs.get();
+            if (current <= 0) {
+                return false;
+            }
+            if (refs.compareAndSet(current, current + 1)) {
+                lastUsedAt = System.currentTimeMillis();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 释放缓存持有的引用，进行中的请求全部归还后关闭
+     */
+    void retire() {
+        if (retired.compareAndSet(false, true)) {
+            release();
+        }
+    }
+
+    String getName() {
+        return name;
+    }
+
+    long getLastUsedAt() {
+        return lastUsedAt;
+    }
+
+    /**
+     * 正在使用该 Client 的请求数
+     */
+    int inFlight() {
+        int count = refs.get() - (retired.get() ? 0 : 1);
+        return Math.max(count, 0);
+    }
+}
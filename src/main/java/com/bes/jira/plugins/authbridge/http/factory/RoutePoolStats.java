@@ -0,0 +1,46 @@
+package com.bes.jira.plugins.authbridge.http.factory;
+
+/**
+ * 单个连接池中某条路由的实时统计，只读，用于管理页面展示。
+ */
+public final class RoutePoolStats {
+    private final String pool;
+    private final String route;
+    private final int leased;
+    private final int available;
+    private final int pending;
+    private final int max;
+
+    RoutePoolStats(String pool, String route, int leased, int available, int pending, int max) {
+        this.pool = pool;
+        this.route = route;
+        this.leased = leased;
+        this.available = available;
+        this.pending = pending;
+        this.max = max;
+    }
+
+    public String getPool() {
+        return pool;
+    }
+
+    public String getRoute() {
+        return route;
+    }
+
+    public int getLeased() {
+        return leased;
+    }
+
+    public int getAvailable() {
+        return available;
+    }
+
+    public int getPending() {
+        return pending;
+    }
+
+    public int getMax() {
+        return max;
+    }
+}
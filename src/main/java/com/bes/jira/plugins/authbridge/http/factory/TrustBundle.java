@@ -0,0 +1,91 @@
+package com.bes.jira.plugins.authbridge.http.factory;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 已解析的 CA 证书包：PEM 中的全部 X.509 证书（包括中间证书）及其 SHA-256 指纹。
+ * 指纹基于证书的 DER 编码计算，PEM 换行、空白或注释不同但证书相同的证书包指纹相同。
+ * <p>
+ * 在配置保存/加载时解析一次，请求路径上只使用已解析的实例。
+ */
+public final class TrustBundle {
+    private final String fingerprint;
+    private final List<X509Certificate> certificates;
+
+    private TrustBundle(String fingerprint, List<X509Certificate> certificates) {
+        this.fingerprint = fingerprint;
+        this.certificates = certificates;
+    }
+
+    /**
+     * @throws CertificateException PEM 无法解析或不包含任何证书
+     */
+    public static TrustBundle parse(String pem) throws CertificateException {
+        CertificateFactory certFactory = CertificateFactory.getInstance("X.509");
+        Collection<? extends Certificate> parsed = certFactory.generateCertificates(
+                new ByteArrayInputStream(pem.getBytes(StandardCharsets.UTF_8)));
+        if (parsed.isEmpty()) {
+            throw new CertificateException("No certificate found in PEM content");
+        }
+
+        List<X509Certificate> certificates = new ArrayList<>(parsed.size());
+        MessageDigest digest = sha256();
+        for (Certificate certificate : parsed) {
+            certificates.add((X509Certificate) certificate);
+            digest.update(certificate.getEncoded());
+        }
+        return new TrustBundle(toHex(digest.digest()), Collections.unmodifiableList(certificates));
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public List<X509Certificate> getCertificates() {
+        return certificates;
+    }
+
+    /**
+     * 页面展示用的摘要：证书数量与指纹前缀
+     */
+    public String describe() {
+        return certificates.size() + " certificate(s), SHA-256 " + fingerprint.substring(0, 16) + "…";
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof TrustBundle && fingerprint.equals(((TrustBundle) o).fingerprint));
+    }
+
+    @Override
+    public int hashCode() {
+        return fingerprint.hashCode();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,182 @@
+package com.bes.jira.plugins.authbridge.match;
+
+import com.bes.jira.plugins.authbridge.model.ClientConfigPair;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 通配回调地址的前缀树。
+ * <p>
+ * 回调地址被拆成 token 序列：协议、倒序的 host label、端口、path 段。
+ * 支持两种通配：
+ * <ul>
+ *     <li>host 最左侧的 {@code *} label，例如 {@code https://*.example.com/cb}，匹配一个或多个子域名；</li>
+ *     <li>path 末尾的 {@code *} 段，例如 {@code https://app.example.com/sso/*}，匹配零个或多个后续段。</li>
+ * </ul>
+ * label 或段中只有一部分为 {@code *}（例如 {@code a*.example.com}、{@code /sso/a*}）不支持，插入时拒绝。
+ * 精确 token 优先于通配，构建后只读，可被多线程并发查询。
+ */
+class CallbackPatternTrie {
+
+    static final String WILDCARD = "*";
+
+    private final Node root = new Node();
+
+    /**
+     * 插入一条通配规则。同一规则重复插入时保留第一条，与原先线性扫描“先到先得”的语义一致。
+     *
+     * @return 规则格式不合法时返回 false
+     */
+    boolean insert(String pattern, ClientConfigPair pair) {
+        Tokens tokens = Tokens.parse(pattern);
+        if (tokens == null) {
+            return false;
+        }
+
+        Node node = root;
+        for (int i = 0; i < tokens.length(); i++) {
+            String token = tokens.get(i);
+            boolean last = i == tokens.length() - 1;
+
+            if (WILDCARD.equals(token)) {
+                if (tokens.isHostLabel(i) && i == tokens.hostEnd - 1) {
+                    // host 通配：直接跳到端口 token
+                    if (node.hostWildcard == null) {
+                        node.hostWildcard = new Node();
+                    }
+                    node = node.hostWildcard;
+                    continue;
+                }
+                if (last && i >= tokens.pathStart()) {
+                    if (node.pathWildcard == null) {
+                        node.pathWildcard = pair;
+                    }
+                    return true;
+                }
+                // 其它位置的 * 不支持
+                return false;
+            }
+            if (token.indexOf('*') >= 0) {
+                // 部分通配不支持，不能当作字面量插入
+                return false;
+            }
+
+            node = node.children.computeIfAbsent(token, k -> new Node());
+        }
+
+        if (node.value == null) {
+            node.value = pair;
+        }
+        return true;
+    }
+
+    /**
+     * 按归一化后的回调地址（protocol://host[:port]/path）查找匹配的配置。
+     */
+    ClientConfigPair match(String normalizedCallback) {
+        Tokens tokens = Tokens.parse(normalizedCallback);
+        if (tokens == null) {
+            return null;
+        }
+        return match(root, tokens, 0);
+    }
+
+    private ClientConfigPair match(Node node, Tokens tokens, int i) {
+        if (i == tokens.length()) {
+            return node.value != null ? node.value : node.pathWildcard;
+        }
+
+        Node exact = node.children.get(tokens.get(i));
+        if (exact != null) {
+            ClientConfigPair found = match(exact, tokens, i + 1);
+            if (found != null) {
+                return found;
+            }
+        }
+
+        // host 通配至少吞掉一个 label，然后从端口 token 继续
+        if (node.hostWildcard != null && tokens.isHostLabel(i)) {
+            ClientConfigPair found = match(node.hostWildcard, tokens, tokens.hostEnd);
+            if (found != null) {
+                return found;
+            }
+        }
+
+        if (node.pathWildcard != null && i >= tokens.pathStart()) {
+            return node.pathWildcard;
+        }
+        return null;
+    }
+
+    private static final class Node {
+        private final Map<String, Node> children = new HashMap<>(4);
+        private Node hostWildcard;
+        private ClientConfigPair pathWildcard;
+        private ClientConfigPair value;
+    }
+
+    /**
+     * 回调地址的 token 序列：[scheme, labelN .. label1, :port, seg1 .. segK]。
+     */
+    private static final class Tokens {
+        private final String[] tokens;
+        // 端口 token 的下标，host label 位于 [1, hostEnd)
+        private final int hostEnd;
+
+        private Tokens(String[] tokens, int hostEnd) {
+            this.tokens = tokens;
+            this.hostEnd = hostEnd;
+        }
+
+        static Tokens parse(String url) {
+            int schemeEnd = url.indexOf("://");
+            if (schemeEnd <= 0) {
+                return null;
+            }
+            int authorityStart = schemeEnd + 3;
+            int pathStart = url.indexOf('/', authorityStart);
+            String authority = pathStart < 0 ? url.substring(authorityStart) : url.substring(authorityStart, pathStart);
+            String path = pathStart < 0 ? "" : url.substring(pathStart + 1);
+
+            int colon = authority.lastIndexOf(':');
+            String host = colon < 0 ? authority : authority.substring(0, colon);
+            String port = colon < 0 ? "" : authority.substring(colon + 1);
+            if (host.isEmpty()) {
+                return null;
+            }
+
+            String[] labels = host.split("\\.", -1);
+            String[] segments = pathStart < 0 ? new String[0] : path.split("/", -1);
+
+            String[] tokens = new String[1 + labels.length + 1 + segments.length];
+            int n = 0;
+            tokens[n++] = url.substring(0, schemeEnd).toLowerCase();
+            for (int i = labels.length - 1; i >= 0; i--) {
+                tokens[n++] = labels[i].toLowerCase();
+            }
+            int hostEnd = n;
+            tokens[n++] = ":" + port;
+            for (String segment : segments) {
+                tokens[n++] = segment;
+            }
+            return new Tokens(tokens, hostEnd);
+        }
+
+        int length() {
+            return tokens.length;
+        }
+
+        String get(int i) {
+            return tokens[i];
+        }
+
+        boolean isHostLabel(int i) {
+            return i >= 1 && i < hostEnd;
+        }
+
+        int pathStart() {
+            return hostEnd + 1;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.bes.jira.plugins.authbridge.match;
+
+import com.bes.jira.plugins.authbridge.model.ClientConfigPair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URL;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * clientId + callback 的预编译匹配索引。
+ * <p>
+ * 在配置加载/保存时一次性构建，之后只读：
+ * <ul>
+ *     <li>精确回调地址：clientId -> 归一化 callback -> 配置 的两级哈希索引，O(1) 命中；</li>
+ *     <li>带 {@code *} 的回调地址：按 clientId 分组的 {@link CallbackPatternTrie}，精确索引未命中时才查询。</li>
+ * </ul>
+ */
+public final class ClientMatcher {
+    private static final Logger log = LoggerFactory.getLogger(ClientMatcher.class);
+
+    private static final Pattern ENCODED_DOT = Pattern.compile("%2e", Pattern.CASE_INSENSITIVE);
+    private static final Pattern ENCODED_SEPARATOR = Pattern.compile("%2f|%5c|\\\\", Pattern.CASE_INSENSITIVE);
+
+    private static final ClientMatcher EMPTY = new ClientMatcher(Collections.emptyMap(), Collections.emptyMap());
+
+    private final Map<String, Map<String, ClientConfigPair>> exactIndex;
+    private final Map<String, CallbackPatternTrie> patternIndex;
+
+    private ClientMatcher(Map<String, Map<String, ClientConfigPair>> exactIndex, Map<String, CallbackPatternTrie> patternIndex) {
+        this.exactIndex = exactIndex;
+        this.patternIndex = patternIndex;
+    }
+
+    public static ClientMatcher compile(List<ClientConfigPair> clientConfigPairs) {
+        if (clientConfigPairs == null || clientConfigPairs.isEmpty()) {
+            return EMPTY;
+        }
+
+        Map<String, Map<String, ClientConfigPair>> exactIndex = new HashMap<>();
+        Map<String, CallbackPatternTrie> patternIndex = new HashMap<>();
+
+        for (ClientConfigPair pair : clientConfigPairs) {
+            index(pair, exactIndex, patternIndex);
+        }
+
+        log.debug("[AuthBridge] Compiled client matcher. exactClients={}, patternClients={}", exactIndex.size(), patternIndex.size());
+        return new ClientMatcher(exactIndex, patternIndex);
+    }
+
+    /**
+     * 替换单个 clientId 的全部配置，返回新的索引；其他 client 的索引条目直接复用，当前实例不变
+     *
+     * @param clientConfigPairs 该 clientId 的新配置，为空表示删除
+     */
+    public ClientMatcher withClient(String clientId, List<ClientConfigPair> clientConfigPairs) {
+        Map<String, Map<String, ClientConfigPair>> exact = new HashMap<>(exactIndex);
+        Map<String, CallbackPatternTrie> patterns = new HashMap<>(patternIndex);
+        exact.remove(clientId);
+        patterns.remove(clientId);
+        for (ClientConfigPair pair : clientConfigPairs) {
+            if (clientId.equals(pair.getClientId())) {
+                index(pair, exact, patterns);
+            }
+        }
+        return exact.isEmpty() && patterns.isEmpty() ? EMPTY : new ClientMatcher(exact, patterns);
+    }
+
+    private static void index(ClientConfigPair pair, Map<String, Map<String, ClientConfigPair>> exactIndex,
+                              Map<String, CallbackPatternTrie> patternIndex) {
+        String clientId = pair.getClientId();
+        String callback = pair.getCallback();
+        if (clientId == null || callback == null) {
+            return;
+        }
+
+        if (callback.indexOf(CallbackPatternTrie.WILDCARD.charAt(0)) >= 0) {
+            CallbackPatternTrie trie = patternIndex.computeIfAbsent(clientId, k -> new CallbackPatternTrie());
+            if (!trie.insert(callback, pair)) {
+                log.warn("[AuthBridge] Ignoring unsupported callback pattern. clientId={}, callback={}", clientId, callback);
+            }
+        } else {
+            // 重复配置保留第一条，与原先线性扫描 break 的语义一致
+            exactIndex.computeIfAbsent(clientId, k -> new HashMap<>()).putIfAbsent(callback, pair);
+        }
+    }
+
+    /**
+     * 回调地址归一化：protocol://host[:port]/path，去掉 query 和 fragment。
+     */
+    public static String normalize(URL url) {
+        String protocol = url.getProtocol();
+        String host = url.getHost();
+        String path = url.getPath();
+        int port = url.getPort();
+
+        StringBuilder sb = new StringBuilder(protocol.length() + host.length() + path.length() + 9);
+        sb.append(protocol).append("://").append(host);
+        if (port > 0) {
+            sb.append(':').append(port);
+        }
+        return sb.append(path).toString();
+    }
+
+    /**
+     * url 从 pathStart 开始的 path 中是否含有 {@code .} / {@code ..} 段，包括百分号编码的形式（{@code %2e}）以及被编码的分隔符
+     * （{@code %2f}、{@code %5c}）和反斜杠拼出的段。下游解析这类路径后可能落到通配规则允许的前缀之外。
+     */
+    static boolean hasDotSegment(String url, int pathStart) {
+        if (url.indexOf('.', pathStart) < 0 && url.indexOf('%', pathStart) < 0 && url.indexOf('\\', pathStart) < 0) {
+            return false;
+        }
+        String path = url.substring(pathStart);
+        String decoded = ENCODED_SEPARATOR.matcher(ENCODED_DOT.matcher(path).replaceAll(".")).replaceAll("/");
+        for (String segment : decoded.split("/", -1)) {
+            if (".".equals(segment) || "..".equals(segment)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param clientId           请求中的 client_id
+     * @param normalizedCallback {@link #normalize(URL)} 之后的回调地址
+     * @return 匹配到的配置，未匹配或回调地址含有点段时返回 null
+     */
+    public ClientConfigPair match(String clientId, String normalizedCallback) {
+        int authorityStart = normalizedCallback.indexOf("://");
+        int pathStart = normalizedCallback.indexOf('/', authorityStart < 0 ? 0 : authorityStart + 3);
+        if (pathStart >= 0 && hasDotSegment(normalizedCallback, pathStart)) {
+            log.debug("[AuthBridge] Rejecting callback with dot segments. clientId={}, callback={}", clientId, normalizedCallback);
+            return null;
+        }
+
+        Map<String, ClientConfigPair> callbacks = exactIndex.get(clientId);
+        if (callbacks != null) {
+            ClientConfigPair pair = callbacks.get(normalizedCallback);
+            if (pair != null) {
+                return pair;
+            }
+        }
+
+        CallbackPatternTrie trie = patternIndex.get(clientId);
+        return trie == null ? null : trie.match(normalizedCallback);
+    }
+}
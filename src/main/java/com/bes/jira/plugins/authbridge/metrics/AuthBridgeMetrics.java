@@ -0,0 +1,94 @@
+package com.bes.jira.plugins.authbridge.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Named;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 按 clientId 汇总的请求指标，每个 client 注册为一个 JMX MBean：
+ * {@code com.bes.jira.plugins.authbridge:type=ClientMetrics,clientId=<clientId>}。
+ * <p>
+ * 只为已配置的 client 建立独立指标；缺少参数或未配置的 client_id 由请求方控制，统一计入 {@link #OTHER_CLIENT}，
+ * 避免无界增长。插件卸载时注销全部 MBean。
+ */
+@Named
+public class AuthBridgeMetrics {
+    private static final Logger log = LoggerFactory.getLogger(AuthBridgeMetrics.class);
+
+    public static final String OTHER_CLIENT = "(other)";
+    private static final String JMX_DOMAIN = "com.bes.jira.plugins.authbridge";
+
+    private final ConcurrentMap<String, ClientMetrics> clients = new ConcurrentHashMap<>();
+    private final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+
+    /**
+     * @param clientId 已匹配到配置的 clientId；为 null 时返回 {@link #OTHER_CLIENT}
+     */
+    public ClientMetrics forClient(String clientId) {
+        String key = clientId != null ? clientId : OTHER_CLIENT;
+        ClientMetrics metrics = clients.get(key);
+        if (metrics != null) {
+            return metrics;
+        }
+        return clients.computeIfAbsent(key, k -> {
+            ClientMetrics created = new ClientMetrics(k);
+            register(created);
+            return created;
+        });
+    }
+
+    /**
+     * @return 全部 client 的指标，按 clientId 排序
+     */
+    public List<ClientMetrics> getAll() {
+        List<ClientMetrics> all = new ArrayList<>(clients.values());
+        all.sort(Comparator.comparing(ClientMetrics::getClientId));
+        return all;
+    }
+
+    private void register(ClientMetrics metrics) {
+        try {
+            ObjectName name = objectName(metrics.getClientId());
+            try {
+                mBeanServer.registerMBean(metrics, name);
+            } catch (InstanceAlreadyExistsException e) {
+                // 插件重新加载且上一次未正常注销
+                mBeanServer.unregisterMBean(name);
+                mBeanServer.registerMBean(metrics, name);
+            }
+        } catch (JMException | RuntimeException e) {
+            log.warn("[AuthBridge] Failed to register metrics MBean for client '{}': {}", metrics.getClientId(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        for (String clientId : clients.keySet()) {
+            try {
+                ObjectName name = objectName(clientId);
+                if (mBeanServer.isRegistered(name)) {
+                    mBeanServer.unregisterMBean(name);
+                }
+            } catch (JMException | RuntimeException e) {
+                log.debug("[AuthBridge] Failed to unregister metrics MBean for client '{}': {}", clientId, e.getMessage());
+            }
+        }
+        clients.clear();
+    }
+
+    private static ObjectName objectName(String clientId) throws JMException {
+        return new ObjectName(JMX_DOMAIN + ":type=ClientMetrics,clientId=" + ObjectName.quote(clientId));
+    }
+}
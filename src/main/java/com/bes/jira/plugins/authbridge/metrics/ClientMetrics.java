@@ -0,0 +1,243 @@
+package com.bes.jira.plugins.authbridge.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个 clientId 的请求计数、回调状态分类以及端到端 / 回调（back-channel）延迟直方图。
+ * 记录路径只有 LongAdder 自增和直方图的原子自增，可在请求线程和 I/O 线程上并发调用。
+ */
+public final class ClientMetrics implements ClientMetricsMBean {
+    private static final RequestOutcome[] OUTCOMES = RequestOutcome.values();
+
+    private final String clientId;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder[] outcomes = newAdders(OUTCOMES.length);
+    // 下标为状态码 / 100；下标 0 为请求失败（连接、超时等），与 1xx 一起计为错误
+    private final LongAdder[] callbackStatus = newAdders(6);
+    private final LongAdder callbackRetries = new LongAdder();
+    private final LongAdder callbackHedges = new LongAdder();
+    private final LatencyHistogram endToEnd = new LatencyHistogram();
+    private final LatencyHistogram backChannel = new LatencyHistogram();
+    // 对冲请求只参考最近的回调延迟，累计的直方图不会随下游的变化衰减
+    private final RecentCallbacks recentCallbacks = new RecentCallbacks();
+
+    ClientMetrics(String clientId) {
+        this.clientId = clientId;
+    }
+
+    /**
+     * 记录一次请求的最终结果；非拒绝的请求同时记录从 startNanos 起的端到端延迟
+     */
+    public void recordRequest(RequestOutcome outcome, long startNanos) {
+        requests.increment();
+        outcomes[outcome.ordinal()].increment();
+        if (!outcome.isRejected()) {
+            endToEnd.record(elapsedMicros(startNanos));
+        }
+    }
+
+    /**
+     * 记录一次实际发出的回调请求
+     *
+     * @param status 回调响应状态码；请求失败时为 0
+     */
+    public void recordCallback(int status, long startNanos) {
+        int statusClass = status / 100;
+        callbackStatus[statusClass > 0 && statusClass < callbackStatus.length ? statusClass : 0].increment();
+        long micros = elapsedMicros(startNanos);
+        backChannel.record(micros);
+        recentCallbacks.record(micros);
+    }
+
+    /**
+     * 记录一次回调重试
+     */
+    public void recordRetry() {
+        callbackRetries.increment();
+    }
+
+    /**
+     * 记录一次对冲请求
+     */
+    public void recordHedge() {
+        callbackHedges.increment();
+        recentCallbacks.recordHedge();
+    }
+
+    @Override
+    public String getClientId() {
+        return clientId;
+    }
+
+    @Override
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    @Override
+    public long getSuccess() {
+        return outcome(RequestOutcome.SUCCESS);
+    }
+
+    @Override
+    public long getCached() {
+        return outcome(RequestOutcome.CACHED);
+    }
+
+    @Override
+    public long getAssertion() {
+        return outcome(RequestOutcome.ASSERTION);
+    }
+
+    @Override
+    public long getFailed() {
+        return outcome(RequestOutcome.FAILED);
+    }
+
+    @Override
+    public long getCircuitOpen() {
+        return outcome(RequestOutcome.CIRCUIT_OPEN);
+    }
+
+    @Override
+    public long getRejectedBadRequest() {
+        return outcome(RequestOutcome.BAD_REQUEST);
+    }
+
+    @Override
+    public long getRejectedUnknownClient() {
+        return outcome(RequestOutcome.UNKNOWN_CLIENT);
+    }
+
+    @Override
+    public long getRejectedUnauthenticated() {
+        return outcome(RequestOutcome.UNAUTHENTICATED);
+    }
+
+    @Override
+    public long getRejectedRateLimited() {
+        return outcome(RequestOutcome.RATE_LIMITED);
+    }
+
+    @Override
+    public long getCallback2xx() {
+        return callbackStatus[2].sum();
+    }
+
+    @Override
+    public long getCallback3xx() {
+        return callbackStatus[3].sum();
+    }
+
+    @Override
+    public long getCallback4xx() {
+        return callbackStatus[4].sum();
+    }
+
+    @Override
+    public long getCallback5xx() {
+        return callbackStatus[5].sum();
+    }
+
+    @Override
+    public long getCallbackErrors() {
+        return callbackStatus[0].sum() + callbackStatus[1].sum();
+    }
+
+    @Override
+    public long getCallbackRetries() {
+        return callbackRetries.sum();
+    }
+
+    @Override
+    public long getCallbackHedges() {
+        return callbackHedges.sum();
+    }
+
+    @Override
+    public double getEndToEndP50Millis() {
+        return toMillis(endToEnd.getPercentileMicros(0.50));
+    }
+
+    @Override
+    public double getEndToEndP95Millis() {
+        return toMillis(endToEnd.getPercentileMicros(0.95));
+    }
+
+    @Override
+    public double getEndToEndP99Millis() {
+        return toMillis(endToEnd.getPercentileMicros(0.99));
+    }
+
+    @Override
+    public double getEndToEndMaxMillis() {
+        return toMillis(endToEnd.getMaxMicros());
+    }
+
+    @Override
+    public double getBackChannelP50Millis() {
+        return toMillis(backChannel.getPercentileMicros(0.50));
+    }
+
+    @Override
+    public double getBackChannelP95Millis() {
+        return toMillis(backChannel.getPercentileMicros(0.95));
+    }
+
+    @Override
+    public double getBackChannelP99Millis() {
+        return toMillis(backChannel.getPercentileMicros(0.99));
+    }
+
+    @Override
+    public double getBackChannelMaxMillis() {
+        return toMillis(backChannel.getMaxMicros());
+    }
+
+    /**
+     * @return 实际发出的回调数（包括重试和对冲请求）
+     */
+    public long getCallbacks() {
+        long count = 0;
+        for (LongAdder adder : callbackStatus) {
+            count += adder.sum();
+        }
+        return count;
+    }
+
+    /**
+     * @return 最近的回调数与对冲请求数、回调延迟，用于计算对冲请求的等待时间
+     */
+    public RecentCallbacks getRecentCallbacks() {
+        return recentCallbacks;
+    }
+
+    /**
+     * 被拒绝的请求数（参数缺失、未配置的 client、未登录）
+     */
+    public long getRejected() {
+        return getRejectedBadRequest() + getRejectedUnknownClient() + getRejectedUnauthenticated() + getRejectedRateLimited();
+    }
+
+    private long outcome(RequestOutcome outcome) {
+        return outcomes[outcome.ordinal()].sum();
+    }
+
+    private static long elapsedMicros(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+    }
+
+    // 保留 0.1ms 精度
+    private static double toMillis(long micros) {
+        return Math.round(micros / 100.0) / 10.0;
+    }
+
+    private static LongAdder[] newAdders(int size) {
+        LongAdder[] adders = new LongAdder[size];
+        for (int i = 0; i < size; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+}
@@ -0,0 +1,58 @@
+package com.bes.jira.plugins.authbridge.metrics;
+
+/**
+ * 单个 client 的 JMX 视图。延迟单位为毫秒，百分位来自 {@link LatencyHistogram}。
+ */
+public interface ClientMetricsMBean {
+    String getClientId();
+
+    long getRequests();
+
+    long getSuccess();
+
+    long getCached();
+
+    long getAssertion();
+
+    long getFailed();
+
+    long getCircuitOpen();
+
+    long getRejectedBadRequest();
+
+    long getRejectedUnknownClient();
+
+    long getRejectedUnauthenticated();
+
+    long getRejectedRateLimited();
+
+    long getCallback2xx();
+
+    long getCallback3xx();
+
+    long getCallback4xx();
+
+    long getCallback5xx();
+
+    long getCallbackErrors();
+
+    long getCallbackRetries();
+
+    long getCallbackHedges();
+
+    double getEndToEndP50Millis();
+
+    double getEndToEndP95Millis();
+
+    double getEndToEndP99Millis();
+
+    double getEndToEndMaxMillis();
+
+    double getBackChannelP50Millis();
+
+    double getBackChannelP95Millis();
+
+    double getBackChannelP99Millis();
+
+    double getBackChannelMaxMillis();
+}
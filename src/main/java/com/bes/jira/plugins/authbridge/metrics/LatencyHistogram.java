@@ -0,0 +1,95 @@
+package com.bes.jira.plugins.authbridge.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * HDR 风格的对数-线性延迟直方图：每个 2 的幂区间再等分为 16 个子桶，百分位的相对误差不超过约 6%。
+ * <p>
+ * 记录只是对固定数组的一次原子自增，无锁、无分配；读取百分位时遍历全部桶，只在 JMX / 配置页面读取时发生。
+ * 单位为微秒，可记录到约 2^41 微秒（约 25 天），更大的值计入最后一个桶。
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_MAGNITUDE = 40;
+    private static final int BUCKETS = (MAX_MAGNITUDE - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public void record(long micros) {
+        long value = Math.max(micros, 0);
+        counts.incrementAndGet(indexOf(value));
+        total.increment();
+        max.accumulate(value);
+    }
+
+    public long getCount() {
+        return total.sum();
+    }
+
+    public long getMaxMicros() {
+        return max.get();
+    }
+
+    /**
+     * @param quantile 0 到 1 之间，例如 0.95
+     * @return 对应百分位所在桶的上界（不超过记录到的最大值）；没有记录时为 0
+     */
+    public long getPercentileMicros(double quantile) {
+        return getPercentileMicros(quantile, this);
+    }
+
+    /**
+     * 合并多个直方图后的百分位
+     *
+     * @see #getPercentileMicros(double)
+     */
+    static long getPercentileMicros(double quantile, LatencyHistogram... histograms) {
+        long count = 0;
+        long maxValue = 0;
+        for (LatencyHistogram histogram : histograms) {
+            count += histogram.total.sum();
+            maxValue = Math.max(maxValue, histogram.max.get());
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            for (LatencyHistogram histogram : histograms) {
+                seen += histogram.counts.get(i);
+            }
+            if (seen >= rank) {
+                return Math.min(upperBound(i), maxValue);
+            }
+        }
+        // 读取期间并发写入导致计数不一致
+        return maxValue;
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        if (magnitude > MAX_MAGNITUDE) {
+            return BUCKETS - 1;
+        }
+        int subBucket = (int) (value >>> (magnitude - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (magnitude - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long lower = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,96 @@
+package com.bes.jira.plugins.authbridge.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 最近一段时间内的回调延迟与对冲请求数，用于计算对冲请求的等待时间和对冲比例。
+ * <p>
+ * 两个时间片交替使用，每隔 {@link #DEFAULT_INTERVAL_SECONDS} 秒轮换一次；读取时合并当前和上一个时间片，
+ * 即只反映最近一到两个时间片的情况，下游的延迟变化在两个时间片内就会体现。
+ * 记录路径与 {@link LatencyHistogram} 相同，只在轮换时（每个时间片一次）分配新的时间片。
+ */
+public final class RecentCallbacks {
+    static final long DEFAULT_INTERVAL_SECONDS = 60L;
+
+    private final long intervalNanos;
+    private volatile Slice current;
+    private volatile Slice previous;
+
+    public RecentCallbacks() {
+        this(TimeUnit.SECONDS.toNanos(DEFAULT_INTERVAL_SECONDS));
+    }
+
+    RecentCallbacks(long intervalNanos) {
+        this.intervalNanos = intervalNanos;
+        this.current = new Slice(System.nanoTime());
+        this.previous = new Slice(current.startNanos - intervalNanos);
+    }
+
+    public void record(long micros) {
+        slice().latency.record(micros);
+    }
+
+    public void recordHedge() {
+        slice().hedges.increment();
+    }
+
+    /**
+     * @return 最近的回调数（包括重试和对冲请求）
+     */
+    public long getCallbacks() {
+        Slice[] slices = slices();
+        return slices[0].latency.getCount() + slices[1].latency.getCount();
+    }
+
+    public long getHedges() {
+        Slice[] slices = slices();
+        return slices[0].hedges.sum() + slices[1].hedges.sum();
+    }
+
+    /**
+     * @return 最近的回调延迟的百分位（微秒）；没有记录时为 0
+     */
+    public long getPercentileMicros(double quantile) {
+        Slice[] slices = slices();
+        return LatencyHistogram.getPercentileMicros(quantile, slices[0].latency, slices[1].latency);
+    }
+
+    private Slice slice() {
+        Slice slice = current;
+        long now = System.nanoTime();
+        if (now - slice.startNanos < intervalNanos) {
+            return slice;
+        }
+        return rotate(now);
+    }
+
+    private synchronized Slice rotate(long now) {
+        Slice slice = current;
+        if (now - slice.startNanos >= intervalNanos) {
+            // 超过两个时间片没有记录时上一个时间片也已过期
+            previous = now - slice.startNanos < 2 * intervalNanos ? slice : new Slice(now - intervalNanos);
+            slice = new Slice(now);
+            current = slice;
+        }
+        return slice;
+    }
+
+    /**
+     * @return 当前和上一个时间片；长时间没有记录时先轮换，避免读到过期的数据
+     */
+    private Slice[] slices() {
+        slice();
+        return new Slice[]{current, previous};
+    }
+
+    private static final class Slice {
+        private final long startNanos;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder hedges = new LongAdder();
+
+        Slice(long startNanos) {
+            this.startNanos = startNanos;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.bes.jira.plugins.authbridge.metrics;
+
+/**
+ * 一次 /authbridge 请求的最终结果
+ */
+public enum RequestOutcome {
+    // 回调成功并重定向
+    SUCCESS,
+    // 命中回调结果缓存
+    CACHED,
+    // 签名断言模式
+    ASSERTION,
+    // 回调失败、超时或无法重定向
+    FAILED,
+    // 熔断打开，快速失败或降级重定向
+    CIRCUIT_OPEN,
+    // 缺少 client_id 或 callback
+    BAD_REQUEST,
+    // client_id + callback 未配置
+    UNKNOWN_CLIENT,
+    // 用户未登录，重定向到登录页
+    UNAUTHENTICATED,
+    // 超过 client 或用户的限流额度，返回 429
+    RATE_LIMITED;
+
+    /**
+     * 被拒绝的请求不计入端到端延迟
+     */
+    boolean isRejected() {
+        return this == BAD_REQUEST || this == UNKNOWN_CLIENT || this == UNAUTHENTICATED || this == RATE_LIMITED;
+    }
+}
@@ -6,10 +6,102 @@ import java.util.ArrayList;
 import java.util.List;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
-public class AuthBridgeSetting {
+public class AuthBridgeSetting implements Cloneable {
+    public static final long DEFAULT_ASYNC_TIMEOUT_MILLIS = 30000L;
+    public static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 5000;
+    public static final int DEFAULT_READ_TIMEOUT_MILLIS = 10000;
+    public static final int DEFAULT_LEASE_TIMEOUT_MILLIS = 2000;
+    public static final int DEFAULT_MAX_CONN_TOTAL = 200;
+    public static final int DEFAULT_MAX_CONN_PER_ROUTE = 20;
+    public static final long DEFAULT_CONNECTION_TTL_MILLIS = 300000L;
+    public static final long DEFAULT_IDLE_CONNECTION_TIMEOUT_MILLIS = 30000L;
+    public static final int DEFAULT_MAX_CALLBACK_RESPONSE_BYTES = 65536;
+    public static final int DEFAULT_CIRCUIT_BREAKER_FAILURE_RATE = 50;
+    public static final int DEFAULT_CIRCUIT_BREAKER_SLOW_CALL_RATE = 100;
+    public static final long DEFAULT_CIRCUIT_BREAKER_SLOW_CALL_MILLIS = 5000L;
+    public static final int DEFAULT_CIRCUIT_BREAKER_WINDOW_SIZE = 20;
+    public static final int DEFAULT_CIRCUIT_BREAKER_MINIMUM_CALLS = 10;
+    public static final long DEFAULT_CIRCUIT_BREAKER_OPEN_MILLIS = 30000L;
+    public static final int DEFAULT_CIRCUIT_BREAKER_HALF_OPEN_CALLS = 3;
+    public static final int DEFAULT_ASSERTION_TTL_SECONDS = 60;
+    public static final int DEFAULT_RESULT_CACHE_MAX_ENTRIES = 10000;
+    public static final int DEFAULT_WARM_UP_CONNECTIONS = 2;
+    public static final int DEFAULT_AUDIT_SAMPLE_PERCENT = 100;
+    public static final int DEFAULT_CLIENT_RATE_LIMIT_PER_MINUTE = 6000;
+    public static final int DEFAULT_CLIENT_RATE_LIMIT_BURST = 200;
+    public static final int DEFAULT_USER_RATE_LIMIT_PER_MINUTE = 30;
+    public static final int DEFAULT_USER_RATE_LIMIT_BURST = 10;
+    public static final int DEFAULT_CALLBACK_MAX_RETRIES = 0;
+    public static final int DEFAULT_RETRY_BACKOFF_MILLIS = 50;
+    public static final int DEFAULT_RETRY_MAX_BACKOFF_MILLIS = 1000;
+    public static final long DEFAULT_CALLBACK_DEADLINE_MILLIS = 15000L;
+    public static final int DEFAULT_HEDGE_MIN_DELAY_MILLIS = 20;
+
     private List<ClientConfigPair> clientConfigPairs = new ArrayList<>();
     private boolean insecureSkipVerify;
     private String trustCaCert;
+    // 异步 Servlet 模式：回调 POST 期间释放容器线程
+    private boolean asyncEnabled;
+    private long asyncTimeoutMillis = DEFAULT_ASYNC_TIMEOUT_MILLIS;
+    // 回调连接超时与连接池默认值，ClientConfigPair 未单独配置时使用
+    private int connectTimeoutMillis = DEFAULT_CONNECT_TIMEOUT_MILLIS;
+    private int readTimeoutMillis = DEFAULT_READ_TIMEOUT_MILLIS;
+    private int leaseTimeoutMillis = DEFAULT_LEASE_TIMEOUT_MILLIS;
+    private int maxConnTotal = DEFAULT_MAX_CONN_TOTAL;
+    private int maxConnPerRoute = DEFAULT_MAX_CONN_PER_ROUTE;
+    // 连接生命周期：连接最长存活时间（0 表示不限制）与空闲回收时间
+    private long connectionTimeToLiveMillis = DEFAULT_CONNECTION_TTL_MILLIS;
+    private long idleConnectionTimeoutMillis = DEFAULT_IDLE_CONNECTION_TIMEOUT_MILLIS;
+    // 回调响应体最多读取的字节数，超出部分不解析
+    private int maxCallbackResponseBytes = DEFAULT_MAX_CALLBACK_RESPONSE_BYTES;
+    // 启动和保存配置后预热回调连接，以及每个回调主机预先建立的连接数
+    private boolean warmUpEnabled;
+    private int warmUpConnections = DEFAULT_WARM_UP_CONNECTIONS;
+    // 回调结果缓存的最大条目数，缓存的 TTL 在 ClientConfigPair 中按 client 配置
+    private int resultCacheMaxEntries = DEFAULT_RESULT_CACHE_MAX_ENTRIES;
+    // 登录审计：成功类请求按百分比采样，失败和拒绝的请求始终记录
+    private boolean auditEnabled = true;
+    private int auditSamplePercent = DEFAULT_AUDIT_SAMPLE_PERCENT;
+    // 限流：按 clientId 和按用户的令牌桶（每分钟补充的令牌数与桶容量），速率为 0 表示该维度不限制
+    private boolean rateLimitEnabled;
+    private int clientRateLimitPerMinute = DEFAULT_CLIENT_RATE_LIMIT_PER_MINUTE;
+    private int clientRateLimitBurst = DEFAULT_CLIENT_RATE_LIMIT_BURST;
+    private int userRateLimitPerMinute = DEFAULT_USER_RATE_LIMIT_PER_MINUTE;
+    private int userRateLimitBurst = DEFAULT_USER_RATE_LIMIT_BURST;
+    // 回调重试（默认关闭）：只重试请求发出前的失败（建立连接失败、DNS 解析失败等）；退避时间按指数增长并随机抖动，
+    // 所有尝试（包括退避）不超过总截止时间。重试次数可以在 ClientConfigPair 中按 client 覆盖
+    private int callbackMaxRetries = DEFAULT_CALLBACK_MAX_RETRIES;
+    private int retryBackoffMillis = DEFAULT_RETRY_BACKOFF_MILLIS;
+    private int retryMaxBackoffMillis = DEFAULT_RETRY_MAX_BACKOFF_MILLIS;
+    private long callbackDeadlineMillis = DEFAULT_CALLBACK_DEADLINE_MILLIS;
+    // 对冲请求：回调超过该 client 回调延迟的 p95（不小于最小延迟）仍未返回时，再发出一个相同的请求，先返回的结果生效
+    private boolean hedgeEnabled;
+    private int hedgeMinDelayMillis = DEFAULT_HEDGE_MIN_DELAY_MILLIS;
+    // 熔断器：按 clientId + callback host 统计，失败率或慢调用比例超过阈值时打开
+    private boolean circuitBreakerEnabled;
+    private int circuitBreakerFailureRate = DEFAULT_CIRCUIT_BREAKER_FAILURE_RATE;
+    private int circuitBreakerSlowCallRate = DEFAULT_CIRCUIT_BREAKER_SLOW_CALL_RATE;
+    private long circuitBreakerSlowCallMillis = DEFAULT_CIRCUIT_BREAKER_SLOW_CALL_MILLIS;
+    private int circuitBreakerWindowSize = DEFAULT_CIRCUIT_BREAKER_WINDOW_SIZE;
+    private int circuitBreakerMinimumCalls = DEFAULT_CIRCUIT_BREAKER_MINIMUM_CALLS;
+    private long circuitBreakerOpenMillis = DEFAULT_CIRCUIT_BREAKER_OPEN_MILLIS;
+    private int circuitBreakerHalfOpenCalls = DEFAULT_CIRCUIT_BREAKER_HALF_OPEN_CALLS;
+    // 熔断打开时，若配置了 redirectUrl 则直接重定向，否则快速失败
+    private boolean circuitBreakerFallbackToRedirect;
+    // 签名断言模式的密钥：HS256 时 assertionSecret 为 Base64URL 编码的主密钥，每个 client 使用由它派生的独立密钥；
+    // RS256 时 assertionSecret 为 PKCS#8 PEM 私钥，assertionPublicKey 为对应的 X.509 PEM 公钥
+    private String assertionAlgorithm;
+    private String assertionKeyId;
+    private String assertionSecret;
+    private String assertionPublicKey;
+    // 轮换前的密钥：新密钥生效（assertionKeyActivatesAt，epoch 毫秒）前继续用于签名，
+    // 生效后仍在 JWKS 中保留一个断言有效期，已签发的断言可以继续验证
+    private String assertionPreviousAlgorithm;
+    private String assertionPreviousKeyId;
+    private String assertionPreviousSecret;
+    private String assertionPreviousPublicKey;
+    private long assertionKeyActivatesAt;
+    private int assertionTtlSeconds = DEFAULT_ASSERTION_TTL_SECONDS;
 
     public AuthBridgeSetting() {
     }
@@ -20,6 +112,19 @@ public class AuthBridgeSetting {
         this.trustCaCert = trustCaCert;
     }
 
+    /**
+     * 浅拷贝全局配置并替换 client 列表，用于在不修改当前快照的前提下生成新配置
+     */
+    public AuthBridgeSetting withClientConfigPairs(List<ClientConfigPair> clientConfigPairs) {
+        try {
+            AuthBridgeSetting copy = (AuthBridgeSetting) super.clone();
+            copy.clientConfigPairs = clientConfigPairs;
+            return copy;
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     public List<ClientConfigPair> getClientConfigPairs() {
         return clientConfigPairs;
     }
@@ -44,11 +149,376 @@ public class AuthBridgeSetting {
         this.trustCaCert = trustCaCert;
     }
 
+    public boolean isAsyncEnabled() {
+        return asyncEnabled;
+    }
+
+    public void setAsyncEnabled(boolean asyncEnabled) {
+        this.asyncEnabled = asyncEnabled;
+    }
+
+    public long getAsyncTimeoutMillis() {
+        return asyncTimeoutMillis;
+    }
+
+    public void setAsyncTimeoutMillis(long asyncTimeoutMillis) {
+        this.asyncTimeoutMillis = asyncTimeoutMillis;
+    }
+
+    public int getConnectTimeoutMillis() {
+        return connectTimeoutMillis;
+    }
+
+    public void setConnectTimeoutMillis(int connectTimeoutMillis) {
+        this.connectTimeoutMillis = connectTimeoutMillis;
+    }
+
+    public int getReadTimeoutMillis() {
+        return readTimeoutMillis;
+    }
+
+    public void setReadTimeoutMillis(int readTimeoutMillis) {
+        this.readTimeoutMillis = readTimeoutMillis;
+    }
+
+    public int getLeaseTimeoutMillis() {
+        return leaseTimeoutMillis;
+    }
+
+    public void setLeaseTimeoutMillis(int leaseTimeoutMillis) {
+        this.leaseTimeoutMillis = leaseTimeoutMillis;
+    }
+
+    public int getMaxConnTotal() {
+        return maxConnTotal;
+    }
+
+    public void setMaxConnTotal(int maxConnTotal) {
+        this.maxConnTotal = maxConnTotal;
+    }
+
+    public int getMaxConnPerRoute() {
+        return maxConnPerRoute;
+    }
+
+    public void setMaxConnPerRoute(int maxConnPerRoute) {
+        this.maxConnPerRoute = maxConnPerRoute;
+    }
+
+    public long getConnectionTimeToLiveMillis() {
+        return connectionTimeToLiveMillis;
+    }
+
+    public void setConnectionTimeToLiveMillis(long connectionTimeToLiveMillis) {
+        this.connectionTimeToLiveMillis = connectionTimeToLiveMillis;
+    }
+
+    public long getIdleConnectionTimeoutMillis() {
+        return idleConnectionTimeoutMillis;
+    }
+
+    public void setIdleConnectionTimeoutMillis(long idleConnectionTimeoutMillis) {
+        this.idleConnectionTimeoutMillis = idleConnectionTimeoutMillis;
+    }
+
+    public int getMaxCallbackResponseBytes() {
+        return maxCallbackResponseBytes;
+    }
+
+    public void setMaxCallbackResponseBytes(int maxCallbackResponseBytes) {
+        this.maxCallbackResponseBytes = maxCallbackResponseBytes;
+    }
+
+    public boolean isWarmUpEnabled() {
+        return warmUpEnabled;
+    }
+
+    public void setWarmUpEnabled(boolean warmUpEnabled) {
+        this.warmUpEnabled = warmUpEnabled;
+    }
+
+    public int getWarmUpConnections() {
+        return warmUpConnections;
+    }
+
+    public void setWarmUpConnections(int warmUpConnections) {
+        this.warmUpConnections = warmUpConnections;
+    }
+
+    public int getResultCacheMaxEntries() {
+        return resultCacheMaxEntries;
+    }
+
+    public void setResultCacheMaxEntries(int resultCacheMaxEntries) {
+        this.resultCacheMaxEntries = resultCacheMaxEntries;
+    }
+
+    public boolean isAuditEnabled() {
+        return auditEnabled;
+    }
+
+    public void setAuditEnabled(boolean auditEnabled) {
+        this.auditEnabled = auditEnabled;
+    }
+
+    public int getAuditSamplePercent() {
+        return auditSamplePercent;
+    }
+
+    public void setAuditSamplePercent(int auditSamplePercent) {
+        this.auditSamplePercent = auditSamplePercent;
+    }
+
+    public boolean isRateLimitEnabled() {
+        return rateLimitEnabled;
+    }
+
+    public void setRateLimitEnabled(boolean rateLimitEnabled) {
+        this.rateLimitEnabled = rateLimitEnabled;
+    }
+
+    public int getClientRateLimitPerMinute() {
+        return clientRateLimitPerMinute;
+    }
+
+    public void setClientRateLimitPerMinute(int clientRateLimitPerMinute) {
+        this.clientRateLimitPerMinute = clientRateLimitPerMinute;
+    }
+
+    public int getClientRateLimitBurst() {
+        return clientRateLimitBurst;
+    }
+
+    public void setClientRateLimitBurst(int clientRateLimitBurst) {
+        this.clientRateLimitBurst = clientRateLimitBurst;
+    }
+
+    public int getUserRateLimitPerMinute() {
+        return userRateLimitPerMinute;
+    }
+
+    public void setUserRateLimitPerMinute(int userRateLimitPerMinute) {
+        this.userRateLimitPerMinute = userRateLimitPerMinute;
+    }
+
+    public int getUserRateLimitBurst() {
+        return userRateLimitBurst;
+    }
+
+    public void setUserRateLimitBurst(int userRateLimitBurst) {
+        this.userRateLimitBurst = userRateLimitBurst;
+    }
+
+    public int getCallbackMaxRetries() {
+        return callbackMaxRetries;
+    }
+
+    public void setCallbackMaxRetries(int callbackMaxRetries) {
+        this.callbackMaxRetries = callbackMaxRetries;
+    }
+
+    public int getRetryBackoffMillis() {
+        return retryBackoffMillis;
+    }
+
+    public void setRetryBackoffMillis(int retryBackoffMillis) {
+        this.retryBackoffMillis = retryBackoffMillis;
+    }
+
+    public int getRetryMaxBackoffMillis() {
+        return retryMaxBackoffMillis;
+    }
+
+    public void setRetryMaxBackoffMillis(int retryMaxBackoffMillis) {
+        this.retryMaxBackoffMillis = retryMaxBackoffMillis;
+    }
+
+    public long getCallbackDeadlineMillis() {
+        return callbackDeadlineMillis;
+    }
+
+    public void setCallbackDeadlineMillis(long callbackDeadlineMillis) {
+        this.callbackDeadlineMillis = callbackDeadlineMillis;
+    }
+
+    public boolean isHedgeEnabled() {
+        return hedgeEnabled;
+    }
+
+    public void setHedgeEnabled(boolean hedgeEnabled) {
+        this.hedgeEnabled = hedgeEnabled;
+    }
+
+    public int getHedgeMinDelayMillis() {
+        return hedgeMinDelayMillis;
+    }
+
+    public void setHedgeMinDelayMillis(int hedgeMinDelayMillis) {
+        this.hedgeMinDelayMillis = hedgeMinDelayMillis;
+    }
+
+    public boolean isCircuitBreakerEnabled() {
+        return circuitBreakerEnabled;
+    }
+
+    public void setCircuitBreakerEnabled(boolean circuitBreakerEnabled) {
+        this.circuitBreakerEnabled = circuitBreakerEnabled;
+    }
+
+    public int getCircuitBreakerFailureRate() {
+        return circuitBreakerFailureRate;
+    }
+
+    public void setCircuitBreakerFailureRate(int circuitBreakerFailureRate) {
+        this.circuitBreakerFailureRate = circuitBreakerFailureRate;
+    }
+
+    public int getCircuitBreakerSlowCallRate() {
+        return circuitBreakerSlowCallRate;
+    }
+
+    public void setCircuitBreakerSlowCallRate(int circuitBreakerSlowCallRate) {
+        this.circuitBreakerSlowCallRate = circuitBreakerSlowCallRate;
+    }
+
+    public long getCircuitBreakerSlowCallMillis() {
+        return circuitBreakerSlowCallMillis;
+    }
+
+    public void setCircuitBreakerSlowCallMillis(long circuitBreakerSlowCallMillis) {
+        this.circuitBreakerSlowCallMillis = circuitBreakerSlowCallMillis;
+    }
+
+    public int getCircuitBreakerWindowSize() {
+        return circuitBreakerWindowSize;
+    }
+
+    public void setCircuitBreakerWindowSize(int circuitBreakerWindowSize) {
+        this.circuitBreakerWindowSize = circuitBreakerWindowSize;
+    }
+
+    public int getCircuitBreakerMinimumCalls() {
+        return circuitBreakerMinimumCalls;
+    }
+
+    public void setCircuitBreakerMinimumCalls(int circuitBreakerMinimumCalls) {
+        this.circuitBreakerMinimumCalls = circuitBreakerMinimumCalls;
+    }
+
+    public long getCircuitBreakerOpenMillis() {
+        return circuitBreakerOpenMillis;
+    }
+
+    public void setCircuitBreakerOpenMillis(long circuitBreakerOpenMillis) {
+        this.circuitBreakerOpenMillis = circuitBreakerOpenMillis;
+    }
+
+    public int getCircuitBreakerHalfOpenCalls() {
+        return circuitBreakerHalfOpenCalls;
+    }
+
+    public void setCircuitBreakerHalfOpenCalls(int circuitBreakerHalfOpenCalls) {
+        this.circuitBreakerHalfOpenCalls = circuitBreakerHalfOpenCalls;
+    }
+
+    public boolean isCircuitBreakerFallbackToRedirect() {
+        return circuitBreakerFallbackToRedirect;
+    }
+
+    public void setCircuitBreakerFallbackToRedirect(boolean circuitBreakerFallbackToRedirect) {
+        this.circuitBreakerFallbackToRedirect = circuitBreakerFallbackToRedirect;
+    }
+
+    public String getAssertionAlgorithm() {
+        return assertionAlgorithm;
+    }
+
+    public void setAssertionAlgorithm(String assertionAlgorithm) {
+        this.assertionAlgorithm = assertionAlgorithm;
+    }
+
+    public String getAssertionKeyId() {
+        return assertionKeyId;
+    }
+
+    public void setAssertionKeyId(String assertionKeyId) {
+        this.assertionKeyId = assertionKeyId;
+    }
+
+    public String getAssertionSecret() {
+        return assertionSecret;
+    }
+
+    public void setAssertionSecret(String assertionSecret) {
+        this.assertionSecret = assertionSecret;
+    }
+
+    public String getAssertionPublicKey() {
+        return assertionPublicKey;
+    }
+
+    public void setAssertionPublicKey(String assertionPublicKey) {
+        this.assertionPublicKey = assertionPublicKey;
+    }
+
+    public int getAssertionTtlSeconds() {
+        return assertionTtlSeconds;
+    }
+
+    public void setAssertionTtlSeconds(int assertionTtlSeconds) {
+        this.assertionTtlSeconds = assertionTtlSeconds;
+    }
+
+    public String getAssertionPreviousAlgorithm() {
+        return assertionPreviousAlgorithm;
+    }
+
+    public void setAssertionPreviousAlgorithm(String assertionPreviousAlgorithm) {
+        this.assertionPreviousAlgorithm = assertionPreviousAlgorithm;
+    }
+
+    public String getAssertionPreviousKeyId() {
+        return assertionPreviousKeyId;
+    }
+
+    public void setAssertionPreviousKeyId(String assertionPreviousKeyId) {
+        this.assertionPreviousKeyId = assertionPreviousKeyId;
+    }
+
+    public String getAssertionPreviousSecret() {
+        return assertionPreviousSecret;
+    }
+
+    public void setAssertionPreviousSecret(String assertionPreviousSecret) {
+        this.assertionPreviousSecret = assertionPreviousSecret;
+    }
+
+    public String getAssertionPreviousPublicKey() {
+        return assertionPreviousPublicKey;
+    }
+
+    public void setAssertionPreviousPublicKey(String assertionPreviousPublicKey) {
+        this.assertionPreviousPublicKey = assertionPreviousPublicKey;
+    }
+
+    public long getAssertionKeyActivatesAt() {
+        return assertionKeyActivatesAt;
+    }
+
+    public void setAssertionKeyActivatesAt(long assertionKeyActivatesAt) {
+        this.assertionKeyActivatesAt = assertionKeyActivatesAt;
+    }
+
     @Override
     public String toString() {
         return "AuthBridgeSetting{" +
                 ", insecureSkipVerify=" + insecureSkipVerify +
                 ", trustCaCert='" + trustCaCert + '\'' +
+                ", asyncEnabled=" + asyncEnabled +
+                ", asyncTimeoutMillis=" + asyncTimeoutMillis +
+                ", circuitBreakerEnabled=" + circuitBreakerEnabled +
+                ", assertionAlgorithm=" + assertionAlgorithm +
+                ", assertionKeyId=" + assertionKeyId +
                 '}';
     }
 }
@@ -2,11 +2,51 @@ package com.bes.jira.plugins.authbridge.model;
 
 import org.codehaus.jackson.annotate.JsonIgnoreProperties;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class ClientConfigPair {
+    // callback：服务端 POST cookie 到回调后重定向（默认）；assertion：签发短期签名断言并附加到重定向地址，不发起回调请求
+    public static final String MODE_CALLBACK = "callback";
+    public static final String MODE_ASSERTION = "assertion";
+    // 回调使用的 HTTP 协议：http1（默认）；http2 通过 ALPN 协商 h2 并在同一连接上复用多个回调请求，下游不支持时自动使用 HTTP/1.1
+    public static final String PROTOCOL_HTTP1 = "http1";
+    public static final String PROTOCOL_HTTP2 = "http2";
+    // 同时通知多个回调地址时的结果判定：all 全部成功才算成功；first 任一成功即成功；
+    // primary（默认）以主回调（callback）的结果为准，其余地址尽力通知。重定向地址总是取自主回调
+    public static final String FAN_OUT_ALL = "all";
+    public static final String FAN_OUT_FIRST_SUCCESS = "first";
+    public static final String FAN_OUT_PRIMARY = "primary";
+    // 未配置 cookieNames 时转发给回调的 cookie：会话和 Seraph 登录相关 cookie。以 * 结尾表示前缀匹配
+    public static final List<String> DEFAULT_COOKIE_NAMES = Collections.unmodifiableList(Arrays.asList("JSESSIONID", "seraph.*"));
+
     private String callback;
     private String clientId;
     private String redirectUrl;
+    // 为空时为 MODE_CALLBACK
+    private String mode;
+    // 为空时为 PROTOCOL_HTTP1
+    private String protocol;
+    // 以下为可选的单独配置，为空时使用 AuthBridgeSetting 中的全局默认值
+    private Integer connectTimeoutMillis;
+    private Integer readTimeoutMillis;
+    private Integer leaseTimeoutMillis;
+    private Integer maxConnPerRoute;
+    // 回调失败后的最大重试次数，0 表示不重试
+    private Integer maxRetries;
+    // 回调结果缓存时间（秒），为空时不缓存
+    private Integer resultCacheTtlSeconds;
+    // 单独的 TLS 信任配置，为空时使用全局的 insecureSkipVerify / trustCaCert
+    private Boolean insecureSkipVerify;
+    private String trustCaCert;
+    // 允许转发给回调的 cookie 名称，为空时使用 DEFAULT_COOKIE_NAMES
+    private List<String> cookieNames;
+    // 与主回调并行通知的其他回调地址（完整 URL），为空时只调用主回调
+    private List<String> fanOutCallbacks;
+    // 为空时为 FAN_OUT_PRIMARY
+    private String fanOutPolicy;
 
     public ClientConfigPair() {}
 
@@ -39,4 +79,108 @@ public class ClientConfigPair {
     public void setRedirectUrl(String redirectUrl) {
         this.redirectUrl = redirectUrl;
     }
+
+    public Integer getConnectTimeoutMillis() {
+        return connectTimeoutMillis;
+    }
+
+    public void setConnectTimeoutMillis(Integer connectTimeoutMillis) {
+        this.connectTimeoutMillis = connectTimeoutMillis;
+    }
+
+    public Integer getReadTimeoutMillis() {
+        return readTimeoutMillis;
+    }
+
+    public void setReadTimeoutMillis(Integer readTimeoutMillis) {
+        this.readTimeoutMillis = readTimeoutMillis;
+    }
+
+    public Integer getLeaseTimeoutMillis() {
+        return leaseTimeoutMillis;
+    }
+
+    public void setLeaseTimeoutMillis(Integer leaseTimeoutMillis) {
+        this.leaseTimeoutMillis = leaseTimeoutMillis;
+    }
+
+    public Integer getMaxConnPerRoute() {
+        return maxConnPerRoute;
+    }
+
+    public void setMaxConnPerRoute(Integer maxConnPerRoute) {
+        this.maxConnPerRoute = maxConnPerRoute;
+    }
+
+    public Integer getResultCacheTtlSeconds() {
+        return resultCacheTtlSeconds;
+    }
+
+    public void setResultCacheTtlSeconds(Integer resultCacheTtlSeconds) {
+        this.resultCacheTtlSeconds = resultCacheTtlSeconds;
+    }
+
+    public Boolean getInsecureSkipVerify() {
+        return insecureSkipVerify;
+    }
+
+    public void setInsecureSkipVerify(Boolean insecureSkipVerify) {
+        this.insecureSkipVerify = insecureSkipVerify;
+    }
+
+    public String getTrustCaCert() {
+        return trustCaCert;
+    }
+
+    public void setTrustCaCert(String trustCaCert) {
+        this.trustCaCert = trustCaCert;
+    }
+
+    public List<String> getCookieNames() {
+        return cookieNames;
+    }
+
+    public void setCookieNames(List<String> cookieNames) {
+        this.cookieNames = cookieNames;
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    public void setMode(String mode) {
+        this.mode = mode;
+    }
+
+    public String getProtocol() {
+        return protocol;
+    }
+
+    public void setProtocol(String protocol) {
+        this.protocol = protocol;
+    }
+
+    public Integer getMaxRetries() {
+        return maxRetries;
+    }
+
+    public void setMaxRetries(Integer maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    public List<String> getFanOutCallbacks() {
+        return fanOutCallbacks;
+    }
+
+    public void setFanOutCallbacks(List<String> fanOutCallbacks) {
+        this.fanOutCallbacks = fanOutCallbacks;
+    }
+
+    public String getFanOutPolicy() {
+        return fanOutPolicy;
+    }
+
+    public void setFanOutPolicy(String fanOutPolicy) {
+        this.fanOutPolicy = fanOutPolicy;
+    }
 }
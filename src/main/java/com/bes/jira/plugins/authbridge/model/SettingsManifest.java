@@ -0,0 +1,40 @@
+package com.bes.jira.plugins.authbridge.model;
+
+import org.codehaus.jackson.annotate.JsonIgnoreProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 分片存储的清单：存储格式版本与全部 clientId（按配置顺序），每个 clientId 的配置单独保存
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class SettingsManifest {
+    public static final int CURRENT_SCHEMA_VERSION = 2;
+
+    private int schemaVersion = CURRENT_SCHEMA_VERSION;
+    private List<String> clientIds = new ArrayList<>();
+
+    public SettingsManifest() {
+    }
+
+    public SettingsManifest(List<String> clientIds) {
+        this.clientIds = clientIds;
+    }
+
+    public int getSchemaVersion() {
+        return schemaVersion;
+    }
+
+    public void setSchemaVersion(int schemaVersion) {
+        this.schemaVersion = schemaVersion;
+    }
+
+    public List<String> getClientIds() {
+        return clientIds;
+    }
+
+    public void setClientIds(List<String> clientIds) {
+        this.clientIds = clientIds;
+    }
+}
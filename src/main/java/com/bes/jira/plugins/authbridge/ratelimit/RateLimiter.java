@@ -0,0 +1,149 @@
+package com.bes.jira.plugins.authbridge.ratelimit;
+
+import com.bes.jira.plugins.authbridge.model.AuthBridgeSetting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Named;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按 clientId 和按用户的令牌桶限流，在发起回调之前判断，超限的请求返回 429。
+ * <p>
+ * 令牌桶按 key 的哈希分布到固定数量的分段中，每个分段是一个 ConcurrentHashMap，取令牌本身只有一次 CAS。
+ * 分段条目数超过上限时先清理已补满（空闲）的桶（每个分段每 {@link #EVICT_INTERVAL_MILLIS} 毫秒最多扫描一次）；
+ * 仍然超限时不再为新的 key 建桶，直接放行，保证内存有界。此时的告警每 {@link #WARN_INTERVAL_SECONDS} 秒最多记录一次，并带上期间未限流的请求数。
+ * 速率和容量在每次调用时从配置读取，保存配置后立即生效。
+ */
+@Named
+public class RateLimiter {
+    private static final Logger log = LoggerFactory.getLogger(RateLimiter.class);
+
+    private static final int STRIPES = 16;
+    // 客户端和用户的桶合计上限
+    private static final int MAX_BUCKETS = 100000;
+    private static final int MAX_BUCKETS_PER_STRIPE = MAX_BUCKETS / STRIPES;
+    private static final long NANOS_PER_MINUTE = TimeUnit.MINUTES.toNanos(1);
+    static final long EVICT_INTERVAL_MILLIS = 1000L;
+    static final long WARN_INTERVAL_SECONDS = 60L;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final long evictIntervalNanos;
+    private final long warnIntervalNanos = TimeUnit.SECONDS.toNanos(WARN_INTERVAL_SECONDS);
+    // 分段已满时放行的请求数，随下一次告警输出后清零
+    private final LongAdder unlimited = new LongAdder();
+    private final AtomicLong nextWarnNanos;
+
+    public RateLimiter() {
+        this(TimeUnit.MILLISECONDS.toNanos(EVICT_INTERVAL_MILLIS));
+    }
+
+    RateLimiter(long evictIntervalNanos) {
+        this.evictIntervalNanos = evictIntervalNanos;
+        long now = System.nanoTime();
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(now);
+        }
+        this.nextWarnNanos = new AtomicLong(now);
+    }
+
+    /**
+     * 依次检查 client 和用户的限额
+     *
+     * @return 0 表示放行；否则为建议的 Retry-After 秒数
+     */
+    public long tryAcquire(AuthBridgeSetting setting, String clientId, String username) {
+        if (!setting.isRateLimitEnabled()) {
+            return 0L;
+        }
+        long now = System.nanoTime();
+        long waitNanos = tryAcquire("c:" + clientId, now, setting.getClientRateLimitPerMinute(), setting.getClientRateLimitBurst());
+        if (waitNanos == 0) {
+            waitNanos = tryAcquire("u:" + username, now, setting.getUserRateLimitPerMinute(), setting.getUserRateLimitBurst());
+        }
+        return waitNanos == 0 ? 0L : Math.max(1L, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    /**
+     * @param perMinute 每分钟补充的令牌数，不大于 0 表示不限制
+     */
+    private long tryAcquire(String key, long now, int perMinute, int burst) {
+        if (perMinute <= 0) {
+            return 0L;
+        }
+        TokenBucket bucket = stripes[(key.hashCode() & 0x7fffffff) % STRIPES].get(key, now, evictIntervalNanos);
+        if (bucket == null) {
+            warnFull(now);
+            return 0L;
+        }
+        return bucket.tryAcquire(now, NANOS_PER_MINUTE / perMinute, Math.max(1, burst));
+    }
+
+    private void warnFull(long now) {
+        unlimited.increment();
+        long next = nextWarnNanos.get();
+        if (now - next >= 0 && nextWarnNanos.compareAndSet(next, now + warnIntervalNanos)) {
+            log.warn("[AuthBridge] Rate limiter is full ({} buckets). Not limiting {} requests for new keys since the last warning.",
+                    MAX_BUCKETS, unlimited.sumThenReset());
+        }
+    }
+
+    /**
+     * @return 上一次告警之后因分段已满而未限流的请求数
+     */
+    long getUnlimitedCount() {
+        return unlimited.sum();
+    }
+
+    public int getBucketCount() {
+        int count = 0;
+        for (Stripe stripe : stripes) {
+            count += stripe.buckets.size();
+        }
+        return count;
+    }
+
+    private static final class Stripe {
+        private final ConcurrentMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+        // 下一次允许清理的时间，避免分段已满时每个新 key 都扫描整个分段
+        private final AtomicLong nextEvictNanos;
+
+        Stripe(long now) {
+            this.nextEvictNanos = new AtomicLong(now);
+        }
+
+        /**
+         * @return 对应的桶；分段已满且没有可清理的空闲桶时返回 null
+         */
+        TokenBucket get(String key, long now, long evictIntervalNanos) {
+            TokenBucket bucket = buckets.get(key);
+            if (bucket != null) {
+                return bucket;
+            }
+            if (buckets.size() >= MAX_BUCKETS_PER_STRIPE) {
+                long next = nextEvictNanos.get();
+                if (now - next >= 0 && nextEvictNanos.compareAndSet(next, now + evictIntervalNanos)) {
+                    evictIdle(now);
+                }
+                if (buckets.size() >= MAX_BUCKETS_PER_STRIPE) {
+                    return null;
+                }
+            }
+            return buckets.computeIfAbsent(key, k -> new TokenBucket(now));
+        }
+
+        private void evictIdle(long now) {
+            Iterator<TokenBucket> iterator = buckets.values().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().isIdle(now)) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+}
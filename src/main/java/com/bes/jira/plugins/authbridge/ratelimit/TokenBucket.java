@@ -0,0 +1,44 @@
+package com.bes.jira.plugins.authbridge.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 无锁令牌桶，以 GCRA（虚拟调度）形式实现：只保存一个"理论到达时间" TAT，单次 CAS 完成取令牌。
+ * <p>
+ * 每个令牌的间隔为 interval，桶容量为 burst：当 TAT - now 不超过 interval * burst 时允许请求并将 TAT 推后一个间隔，
+ * 等价于按固定速率补充、容量为 burst 的令牌桶。TAT 不晚于当前时间时桶已满，可以直接丢弃。
+ */
+final class TokenBucket {
+    private final AtomicLong theoreticalArrival;
+
+    TokenBucket(long nowNanos) {
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * @param intervalNanos 补充一个令牌的间隔
+     * @param burst         桶容量
+     * @return 0 表示已取得令牌；否则为需要等待的纳秒数
+     */
+    long tryAcquire(long nowNanos, long intervalNanos, int burst) {
+        long capacityNanos = intervalNanos * burst;
+        while (true) {
+            long tat = theoreticalArrival.get();
+            long next = Math.max(tat, nowNanos) + intervalNanos;
+            long waitNanos = next - nowNanos - capacityNanos;
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            if (theoreticalArrival.compareAndSet(tat, next)) {
+                return 0L;
+            }
+        }
+    }
+
+    /**
+     * @return 桶已补满，丢弃后重新创建不影响限流结果
+     */
+    boolean isIdle(long nowNanos) {
+        return theoreticalArrival.get() - nowNanos <= 0;
+    }
+}
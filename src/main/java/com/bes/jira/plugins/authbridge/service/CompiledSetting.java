@@ -0,0 +1,138 @@
+package com.bes.jira.plugins.authbridge.service;
+
+import com.bes.jira.plugins.authbridge.assertion.AssertionSigner;
+import com.bes.jira.plugins.authbridge.http.factory.TrustBundle;
+import com.bes.jira.plugins.authbridge.match.ClientMatcher;
+import com.bes.jira.plugins.authbridge.model.AuthBridgeSetting;
+import com.bes.jira.plugins.authbridge.model.ClientConfigPair;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.security.cert.CertificateException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 配置的不可变编译快照：原始配置 + 预编译的匹配索引 + 已解析的断言签名密钥和 CA 证书包。
+ * 配置加载/保存时整体构建并原子替换，请求路径上只读；单个 client 变更时通过 {@link #withClient} 生成新快照，
+ * 只重建该 client 的索引和证书，其余部分与旧快照共享。
+ */
+public final class CompiledSetting {
+    private static final Logger log = LoggerFactory.getLogger(CompiledSetting.class);
+
+    private final AuthBridgeSetting setting;
+    private final ClientMatcher matcher;
+    private final AssertionSigner assertionSigner;
+    private final TrustBundle globalTrust;
+    // 单独配置了 CA 证书的 client，按 ClientConfigPair 实例查找
+    private final Map<ClientConfigPair, TrustBundle> clientTrust;
+
+    private CompiledSetting(AuthBridgeSetting setting, ClientMatcher matcher, AssertionSigner assertionSigner,
+                            TrustBundle globalTrust, Map<ClientConfigPair, TrustBundle> clientTrust) {
+        this.setting = setting;
+        this.matcher = matcher;
+        this.assertionSigner = assertionSigner;
+        this.globalTrust = globalTrust;
+        this.clientTrust = clientTrust;
+    }
+
+    static CompiledSetting compile(AuthBridgeSetting setting) {
+        // 相同内容的 PEM 只解析一次
+        Map<String, TrustBundle> parsed = new HashMap<>();
+        TrustBundle globalTrust = parseTrust(setting.getTrustCaCert(), parsed);
+        Map<ClientConfigPair, TrustBundle> clientTrust = new IdentityHashMap<>();
+        for (ClientConfigPair pair : setting.getClientConfigPairs()) {
+            TrustBundle bundle = parseTrust(pair.getTrustCaCert(), parsed);
+            if (bundle != null) {
+                clientTrust.put(pair, bundle);
+            }
+        }
+        return new CompiledSetting(setting, ClientMatcher.compile(setting.getClientConfigPairs()), AssertionSigner.create(setting),
+                globalTrust, clientTrust);
+    }
+
+    /**
+     * 替换单个 clientId 的全部配置（写时复制），当前快照不变
+     *
+     * @param clientConfigPairs 该 clientId 的新配置，为空表示删除；已有该 clientId 时替换到原位置，否则追加到末尾
+     */
+    CompiledSetting withClient(String clientId, List<ClientConfigPair> clientConfigPairs) {
+        List<ClientConfigPair> current = setting.getClientConfigPairs();
+        List<ClientConfigPair> merged = new ArrayList<>(current.size() + clientConfigPairs.size());
+        boolean replaced = false;
+        for (ClientConfigPair pair : current) {
+            if (!clientId.equals(pair.getClientId())) {
+                merged.add(pair);
+            } else if (!replaced) {
+                merged.addAll(clientConfigPairs);
+                replaced = true;
+            }
+        }
+        if (!replaced) {
+            merged.addAll(clientConfigPairs);
+        }
+
+        Map<ClientConfigPair, TrustBundle> trust = new IdentityHashMap<>(clientTrust);
+        trust.keySet().removeIf(pair -> clientId.equals(pair.getClientId()));
+        Map<String, TrustBundle> parsed = new HashMap<>();
+        for (ClientConfigPair pair : clientConfigPairs) {
+            TrustBundle bundle = parseTrust(pair.getTrustCaCert(), parsed);
+            if (bundle != null) {
+                trust.put(pair, bundle);
+            }
+        }
+        return new CompiledSetting(setting.withClientConfigPairs(merged), matcher.withClient(clientId, clientConfigPairs),
+                assertionSigner, globalTrust, trust);
+    }
+
+    private static TrustBundle parseTrust(String pem, Map<String, TrustBundle> parsed) {
+        if (StringUtils.isBlank(pem)) {
+            return null;
+        }
+        TrustBundle bundle = parsed.get(pem);
+        if (bundle == null) {
+            try {
+                bundle = TrustBundle.parse(pem);
+                parsed.put(pem, bundle);
+            } catch (CertificateException e) {
+                // 保存时已校验，这里只会在持久化内容损坏时出现；回退到系统默认信任库
+                log.error("[AuthBridge] Failed to parse trusted CA certificate. Falling back to system trust store.", e);
+            }
+        }
+        return bundle;
+    }
+
+    public AuthBridgeSetting getSetting() {
+        return setting;
+    }
+
+    public ClientMatcher getMatcher() {
+        return matcher;
+    }
+
+    /**
+     * @return 断言签名器；未配置密钥时返回 null
+     */
+    public AssertionSigner getAssertionSigner() {
+        return assertionSigner;
+    }
+
+    /**
+     * @return client 回调使用的 CA 证书包：client 单独配置的优先，其次为全局配置；都未配置时返回 null
+     */
+    public TrustBundle getTrustBundle(ClientConfigPair pair) {
+        TrustBundle bundle = clientTrust.get(pair);
+        return bundle != null ? bundle : globalTrust;
+    }
+
+    /**
+     * @return client 回调是否跳过 TLS 验证：client 单独配置的优先
+     */
+    public boolean isInsecureSkipVerify(ClientConfigPair pair) {
+        return pair.getInsecureSkipVerify() != null ? pair.getInsecureSkipVerify() : setting.isInsecureSkipVerify();
+    }
+}
@@ -0,0 +1,127 @@
+package com.bes.jira.plugins.authbridge.service;
+
+import com.bes.jira.plugins.authbridge.http.factory.HttpClientFactory;
+import com.bes.jira.plugins.authbridge.http.factory.TrustBundle;
+import com.bes.jira.plugins.authbridge.model.AuthBridgeSetting;
+import com.bes.jira.plugins.authbridge.model.ClientConfigPair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 插件启动和配置保存后在后台预热回调连接：构建所需的 HttpClient，并对每个回调主机预先建立 keep-alive 连接
+ * （DNS 解析、TCP 连接和 TLS 握手），避免首个登录用户承担这些开销。
+ * <p>
+ * 预热失败不影响登录流程，结果在配置页面展示。通配回调、签名断言模式和 HTTP/2 的 client 不预热。
+ */
+@Named
+public class ConnectionWarmer {
+    private static final Logger log = LoggerFactory.getLogger(ConnectionWarmer.class);
+
+    private final HttpClientFactory httpClientFactory;
+    // 单线程执行，队列中最多保留一次待执行的预热（更早的配置已过时）
+    private final ExecutorService executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(1), r -> {
+        Thread thread = new Thread(r, "authbridge-warmup");
+        thread.setDaemon(true);
+        return thread;
+    }, new ThreadPoolExecutor.DiscardOldestPolicy());
+
+    private volatile List<WarmUpStatus> lastResults = Collections.emptyList();
+    private volatile long lastRunAt;
+
+    @Inject
+    public ConnectionWarmer(HttpClientFactory httpClientFactory) {
+        this.httpClientFactory = httpClientFactory;
+    }
+
+    /**
+     * 在后台线程上预热；未启用预热时直接返回。
+     */
+    public void warmUpAsync(CompiledSetting compiledSetting) {
+        if (!compiledSetting.getSetting().isWarmUpEnabled()) {
+            return;
+        }
+        executor.execute(() -> warmUp(compiledSetting));
+    }
+
+    private void warmUp(CompiledSetting compiledSetting) {
+        AuthBridgeSetting setting = compiledSetting.getSetting();
+        httpClientFactory.applyPoolSettings(setting);
+
+        List<WarmUpStatus> results = new ArrayList<>();
+        Set<String> warmed = new HashSet<>();
+        for (ClientConfigPair pair : setting.getClientConfigPairs()) {
+            if (ClientConfigPair.MODE_ASSERTION.equals(pair.getMode()) || ClientConfigPair.PROTOCOL_HTTP2.equals(pair.getProtocol())
+                    || pair.getCallback() == null || pair.getCallback().indexOf('*') >= 0) {
+                continue;
+            }
+
+            boolean insecure = compiledSetting.isInsecureSkipVerify(pair);
+            TrustBundle trustBundle = compiledSetting.getTrustBundle(pair);
+            String target = origin(pair.getCallback());
+            String pool = (insecure ? "insecure" : trustBundle != null ? "custom" : "standard") + (setting.isAsyncEnabled() ? "-async" : "");
+            // 同一主机、同一信任配置只预热一次
+            if (!warmed.add(target + '\n' + insecure + '\n' + (trustBundle != null ? trustBundle.getFingerprint() : ""))) {
+                continue;
+            }
+
+            long start = System.currentTimeMillis();
+            try {
+                int opened = httpClientFactory.warmUp(setting.isAsyncEnabled(), insecure, trustBundle, pair.getCallback(),
+                        setting.getWarmUpConnections());
+                results.add(new WarmUpStatus(target, pool, opened, System.currentTimeMillis() - start, null));
+                log.info("[AuthBridge] Warmed up {} connections to {} ({}).", opened, target, pool);
+            } catch (Exception e) {
+                String error = e.getClass().getSimpleName() + ": " + e.getMessage();
+                results.add(new WarmUpStatus(target, pool, 0, System.currentTimeMillis() - start, error));
+                log.warn("[AuthBridge] Failed to warm up connections to {} ({}): {}", target, pool, error);
+            }
+        }
+
+        lastResults = Collections.unmodifiableList(results);
+        lastRunAt = System.currentTimeMillis();
+    }
+
+    /**
+     * @return 最近一次预热的结果
+     */
+    public List<WarmUpStatus> getLastResults() {
+        return lastResults;
+    }
+
+    /**
+     * @return 最近一次预热完成的时间，从未执行时为 0
+     */
+    public long getLastRunAt() {
+        return lastRunAt;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private static String origin(String callback) {
+        try {
+            URL url = new URL(callback);
+            return url.getProtocol() + "://" + url.getHost() + (url.getPort() > 0 ? ":" + url.getPort() : "");
+        } catch (MalformedURLException e) {
+            return callback;
+        }
+    }
+}
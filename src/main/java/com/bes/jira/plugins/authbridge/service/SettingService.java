@@ -1,54 +1,146 @@
 package com.bes.jira.plugins.authbridge.service;
 
+import com.atlassian.beehive.ClusterLock;
+import com.atlassian.beehive.ClusterLockService;
+import com.atlassian.jira.cluster.ClusterMessageConsumer;
+import com.atlassian.jira.cluster.ClusterMessagingService;
 import com.atlassian.plugin.spring.scanner.annotation.imports.ComponentImport;
 import com.atlassian.sal.api.pluginsettings.PluginSettings;
 import com.atlassian.sal.api.pluginsettings.PluginSettingsFactory;
+import com.bes.jira.plugins.authbridge.assertion.AssertionKeys;
 import com.bes.jira.plugins.authbridge.model.AuthBridgeSetting;
+import com.bes.jira.plugins.authbridge.model.ClientConfigPair;
 import org.codehaus.jackson.map.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 import javax.inject.Named;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
 
+/**
+ * 配置的读取与保存。请求路径只读取内存中的编译快照。
+ * <p>
+ * Data Center 集群中各节点各自缓存快照：保存配置时在 JSON 之外写入一个版本戳，并通过集群消息通知其他节点；
+ * 另外每隔 {@value #VERSION_POLL_INTERVAL_SECONDS} 秒读取一次版本戳作为兜底（消息丢失或节点刚加入时）。
+ * 版本戳与本地不一致时重新加载配置并替换快照。单节点部署下集群消息为空操作，轮询只读取一个短字符串。
+ * <p>
+ * 所有保存操作都持有集群锁，并在锁内先加载其他节点已保存的最新配置，再在其基础上修改，
+ * 避免以本节点过期的快照覆盖其他节点的改动。
+ * <p>
+ * 每个 clientId 的配置单独存储（见 {@link SettingStore}）：保存完整配置时只写入变化的部分；
+ * {@link #putClient} / {@link #removeClient} 只写入单个 client，并以写时复制的方式修补内存快照。
+ */
 @Named
-public class SettingService {
+public class SettingService implements ClusterMessageConsumer {
 
     private static final Logger log = LoggerFactory.getLogger(SettingService.class);
 
-    // 使用 AtomicReference 存储当前的配置对象快照。
-    private final AtomicReference<AuthBridgeSetting> settingCache;
+    // 集群消息频道名最长 20 个字符
+    static final String CLUSTER_CHANNEL = "AuthBridgeSettings";
+    private static final long VERSION_POLL_INTERVAL_SECONDS = 5L;
+    private static final String LOCK_NAME = "com.bes.jira.plugins.authbridge.settings.lock";
+    private static final long LOCK_TIMEOUT_SECONDS = 30L;
+
+    // 使用 AtomicReference 存储当前配置的编译快照（配置 + 匹配索引）。
+    private final AtomicReference<CompiledSetting> settingCache;
     private final ObjectMapper mapper = new ObjectMapper();
 
     private final PluginSettings pluginSettings;
+    private final SettingStore store;
+    private final ConnectionWarmer connectionWarmer;
+    private final ClusterMessagingService clusterMessagingService;
+    private final ClusterLockService clusterLockService;
     // 插件存储的唯一 key，用于隔离配置
     private final String pluginKey;
+    // 配置版本戳的 key，每次保存时更新
+    private final String versionKey;
+    // 当前快照对应的版本戳；旧版本保存的配置没有版本戳，为 null
+    private volatile String loadedVersion;
+    private final ScheduledExecutorService versionPoller;
 
     @Inject
-    public SettingService(@ComponentImport PluginSettingsFactory pluginSettingsFactory) {
+    public SettingService(@ComponentImport PluginSettingsFactory pluginSettingsFactory, ConnectionWarmer connectionWarmer,
+                          @ComponentImport ClusterMessagingService clusterMessagingService,
+                          @ComponentImport ClusterLockService clusterLockService) {
         this.pluginSettings = pluginSettingsFactory.createGlobalSettings();
+        this.connectionWarmer = connectionWarmer;
+        this.clusterMessagingService = clusterMessagingService;
+        this.clusterLockService = clusterLockService;
         this.pluginKey = "com.bes.jira.plugins.authbridge.settings";
+        this.versionKey = pluginKey + ".version";
+        this.store = new SettingStore(pluginSettings, mapper, pluginKey);
 
         // INFO: 记录服务启动，准备加载配置
         log.info("Initializing SettingService. Loading configuration from persistence.");
 
-        // 插件启动时，从持久化存储加载初始配置并初始化 AtomicReference
+        // 插件启动时，从持久化存储加载初始配置并初始化 AtomicReference（先读版本戳，再读配置）
+        this.loadedVersion = readVersion();
         AuthBridgeSetting initialSetting = loadSettingFromPersistence();
-        this.settingCache = new AtomicReference<>(initialSetting);
+        this.settingCache = new AtomicReference<>(CompiledSetting.compile(initialSetting));
 
         // INFO: 记录初始配置加载完成的摘要
-        log.info("Initial settings loaded.");
+        log.info("Initial settings loaded. version={}", loadedVersion);
+
+        // 后台预热回调连接（未启用时不执行）
+        connectionWarmer.warmUpAsync(settingCache.get());
+
+        // 其他节点保存配置时的通知，以及定期检查版本戳
+        this.versionPoller = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "authbridge-settings-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        versionPoller.scheduleWithFixedDelay(this::reloadIfChanged, VERSION_POLL_INTERVAL_SECONDS, VERSION_POLL_INTERVAL_SECONDS,
+                TimeUnit.SECONDS);
+        clusterMessagingService.registerListener(CLUSTER_CHANNEL, this);
+    }
+
+    /**
+     * 在最新配置的基础上修改并保存
+     *
+     * @param change 参数为持有集群锁后加载的最新配置（不可修改），返回修改后的完整配置
+     */
+    public void updateSetting(UnaryOperator<AuthBridgeSetting> change) throws IOException {
+        withSettingsLock(() -> save(change.apply(getSetting())));
     }
 
-    public void updateSetting(AuthBridgeSetting authBridgeSetting) throws IOException {
-        // 1. 将新值持久化到存储中
-        persistSetting(authBridgeSetting);
+    /**
+     * 保存完整配置，调用前须持有集群锁且快照为最新
+     */
+    private void save(AuthBridgeSetting authBridgeSetting) throws IOException {
+        // 1. 将新值持久化到存储中（只写入变化的部分），之后写入新的版本戳，其他节点看到新版本时一定能读到新配置。
+        store.save(getSetting(), authBridgeSetting);
+        String version = newVersion();
+        pluginSettings.put(versionKey, version);
 
-        // 2. 原子性地替换缓存中的引用。
-        settingCache.set(authBridgeSetting);
+        // 2. 编译匹配索引后，原子性地替换缓存中的引用。
+        CompiledSetting compiledSetting = CompiledSetting.compile(authBridgeSetting);
+        settingCache.set(compiledSetting);
+        loadedVersion = version;
+
+        // 3. 通知集群中的其他节点重新加载
+        sendClusterMessage(version);
+
+        // 4. 后台按新配置预热回调连接
+        connectionWarmer.warmUpAsync(compiledSetting);
 
         // INFO: 记录关键操作成功。注意：必须脱敏 clientSecret 和 trustCaCert。
         log.info("Settings updated and cache replaced successfully. Details: Skip Verify={}, Has Custom CA={}",
@@ -57,34 +149,357 @@ public class SettingService {
         );
     }
 
+    /**
+     * 生成新的断言签名密钥并保存，其余配置保持不变。
+     * 新的 RS256 密钥在 JWKS 中发布满一个缓存周期后才用于签名，此前继续使用旧密钥；旧公钥在新密钥生效后再发布一个断言有效期。
+     * 旧密钥仍在使用或仍在发布时拒绝再次轮换。
+     */
+    public void rotateAssertionKey(String algorithm) throws IOException, GeneralSecurityException {
+        if (!AssertionKeys.isSupported(algorithm)) {
+            throw new IllegalArgumentException("Unsupported assertion algorithm: " + algorithm);
+        }
+
+        // 生成 RSA 密钥较慢，在获取锁之前完成
+        String secret;
+        String publicKey;
+        if (AssertionKeys.ALG_HS256.equals(algorithm)) {
+            secret = AssertionKeys.generateHmacSecret();
+            publicKey = null;
+        } else {
+            KeyPair keyPair = AssertionKeys.generateRsaKeyPair();
+            secret = AssertionKeys.toPem(keyPair.getPrivate());
+            publicKey = AssertionKeys.toPem(keyPair.getPublic());
+        }
+        String keyId = AssertionKeys.newKeyId();
+
+        withSettingsLock(() -> {
+            AuthBridgeSetting current = getSetting();
+            long now = System.currentTimeMillis();
+            long previousPublishedUntil = current.getAssertionKeyActivatesAt() + TimeUnit.SECONDS.toMillis(current.getAssertionTtlSeconds());
+            if (current.getAssertionPreviousSecret() != null && now < previousPublishedUntil) {
+                // 再次轮换会丢弃仍在使用或仍可能被验证的旧密钥
+                throw new IllegalStateException("The previous assertion key is still in use. Try again in "
+                        + TimeUnit.MILLISECONDS.toSeconds(previousPublishedUntil - now + 999) + " seconds.");
+            }
+
+            // 复制当前配置，避免修改请求路径上正在使用的快照
+            AuthBridgeSetting setting = current.withClientConfigPairs(current.getClientConfigPairs());
+            if (current.getAssertionSecret() != null) {
+                setting.setAssertionPreviousAlgorithm(current.getAssertionAlgorithm());
+                setting.setAssertionPreviousKeyId(current.getAssertionKeyId());
+                setting.setAssertionPreviousSecret(current.getAssertionSecret());
+                setting.setAssertionPreviousPublicKey(current.getAssertionPublicKey());
+            }
+            // 下游按 JWKS 的缓存时间刷新公钥，新的 RS256 密钥发布满一个缓存周期后才用于签名；
+            // HS256 的 client 密钥需要另行分发，立即生效
+            setting.setAssertionKeyActivatesAt(AssertionKeys.ALG_RS256.equals(algorithm) && current.getAssertionSecret() != null
+                    ? now + TimeUnit.SECONDS.toMillis(AssertionKeys.JWKS_MAX_AGE_SECONDS) : now);
+            setting.setAssertionAlgorithm(algorithm);
+            setting.setAssertionKeyId(keyId);
+            setting.setAssertionSecret(secret);
+            setting.setAssertionPublicKey(publicKey);
+            save(setting);
+        });
+        log.info("Assertion signing key rotated. alg={}, kid={}", algorithm, keyId);
+    }
+
     public AuthBridgeSetting getSetting() {
+        return settingCache.get().getSetting();
+    }
+
+    public CompiledSetting getCompiledSetting() {
         return settingCache.get();
     }
 
+    /**
+     * 新增或替换单个 clientId 的全部配置，其他 client 和全局配置不变
+     *
+     * @param pairs 该 clientId 的配置，clientId 必须一致；为空时等同于 {@link #removeClient}
+     */
+    public void putClient(String clientId, List<ClientConfigPair> pairs) throws IOException {
+        for (ClientConfigPair pair : pairs) {
+            if (!clientId.equals(pair.getClientId())) {
+                throw new IllegalArgumentException("Client config for '" + pair.getClientId() + "' passed to putClient('" + clientId + "')");
+            }
+        }
+        withSettingsLock(() -> patchClient(clientId, new ArrayList<>(pairs)));
+    }
+
+    /**
+     * 删除单个 clientId 的全部配置
+     */
+    public void removeClient(String clientId) throws IOException {
+        withSettingsLock(() -> patchClient(clientId, Collections.emptyList()));
+    }
+
+    /**
+     * 新增或修改单条配置（配置页面的行级编辑），只写入涉及的 clientId
+     *
+     * @param originalClientId 被修改配置原来的 clientId；为 null 时新增
+     * @param originalCallback 被修改配置原来的 callback
+     * @throws IllegalArgumentException 被修改的配置已不存在，或与其他配置的 clientId 和 callback 重复
+     */
+    public void saveClientConfigPair(String originalClientId, String originalCallback, ClientConfigPair updated) throws IOException {
+        withSettingsLock(() -> {
+            List<ClientConfigPair> pairs = getSetting().getClientConfigPairs();
+            ClientConfigPair original = null;
+            if (originalClientId != null) {
+                original = findPair(pairs, originalClientId, originalCallback);
+                if (original == null) {
+                    throw new IllegalArgumentException("Client config " + originalClientId + " -> " + originalCallback
+                            + " no longer exists. It may have been changed by another administrator.");
+                }
+            }
+            ClientConfigPair duplicate = findPair(pairs, updated.getClientId(), updated.getCallback());
+            if (duplicate != null && duplicate != original) {
+                throw new IllegalArgumentException("Client config " + updated.getClientId() + " -> " + updated.getCallback() + " already exists.");
+            }
+
+            // clientId 变化时先从原 client 中移除
+            if (original != null && !original.getClientId().equals(updated.getClientId())) {
+                patchClient(original.getClientId(), pairsOf(pairs, original.getClientId(), original, null));
+                original = null;
+            }
+            patchClient(updated.getClientId(), pairsOf(pairs, updated.getClientId(), original, updated));
+        });
+    }
+
+    /**
+     * 删除单条配置，同一 clientId 的其他配置不变；配置不存在时不做任何操作
+     */
+    public void removeClientConfigPair(String clientId, String callback) throws IOException {
+        withSettingsLock(() -> {
+            List<ClientConfigPair> pairs = getSetting().getClientConfigPairs();
+            ClientConfigPair pair = findPair(pairs, clientId, callback);
+            if (pair != null) {
+                patchClient(clientId, pairsOf(pairs, clientId, pair, null));
+            }
+        });
+    }
+
+    private static ClientConfigPair findPair(List<ClientConfigPair> pairs, String clientId, String callback) {
+        for (ClientConfigPair pair : pairs) {
+            if (Objects.equals(pair.getClientId(), clientId) && Objects.equals(pair.getCallback(), callback)) {
+                return pair;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * clientId 的全部配置，replaced 替换为 replacement（为 null 时删除）；replaced 为 null 时 replacement 追加在末尾
+     */
+    private static List<ClientConfigPair> pairsOf(List<ClientConfigPair> pairs, String clientId, ClientConfigPair replaced,
+                                                  ClientConfigPair replacement) {
+        List<ClientConfigPair> result = new ArrayList<>();
+        for (ClientConfigPair pair : pairs) {
+            if (pair == replaced) {
+                if (replacement != null) {
+                    result.add(replacement);
+                }
+            } else if (clientId.equals(pair.getClientId())) {
+                result.add(pair);
+            }
+        }
+        if (replaced == null && replacement != null) {
+            result.add(replacement);
+        }
+        return result;
+    }
+
+    /**
+     * 批量导入 client 配置，一次保存、一次替换缓存，全局配置不变
+     *
+     * @param merge true 时只替换导入中出现的 clientId 的配置（保持原有位置），新的 clientId 追加在末尾，其余 client 不变；
+     *              false 时以导入内容替换全部 client 配置
+     */
+    public void replaceClients(List<ClientConfigPair> pairs, boolean merge) throws IOException {
+        withSettingsLock(() -> {
+            List<ClientConfigPair> updated = pairs;
+            if (merge) {
+                Map<String, List<ClientConfigPair>> imported = SettingStore.groupByClient(pairs);
+                Set<String> importedIds = new HashSet<>(imported.keySet());
+                updated = new ArrayList<>();
+                for (ClientConfigPair pair : getSetting().getClientConfigPairs()) {
+                    List<ClientConfigPair> replacement = imported.remove(pair.getClientId());
+                    if (replacement != null) {
+                        updated.addAll(replacement);
+                    } else if (!importedIds.contains(pair.getClientId())) {
+                        updated.add(pair);
+                    }
+                }
+                for (List<ClientConfigPair> added : imported.values()) {
+                    updated.addAll(added);
+                }
+            }
+            save(getSetting().withClientConfigPairs(updated));
+        });
+        log.info("Client settings imported. pairs={}, merge={}", pairs.size(), merge);
+    }
+
+    /**
+     * 替换单个 clientId 的全部配置，调用前须持有集群锁且快照为最新
+     */
+    private void patchClient(String clientId, List<ClientConfigPair> pairs) throws IOException {
+        CompiledSetting compiledSetting = settingCache.get().withClient(clientId, pairs);
+        if (!store.isSharded()) {
+            // 旧格式需要整体转换
+            save(compiledSetting.getSetting());
+            return;
+        }
+
+        if (pairs.isEmpty()) {
+            store.removeClient(clientId);
+        } else {
+            store.putClient(clientId, pairs);
+        }
+        String version = newVersion();
+        pluginSettings.put(versionKey, version);
+        settingCache.set(compiledSetting);
+        loadedVersion = version;
+
+        sendClusterMessage(version);
+        connectionWarmer.warmUpAsync(compiledSetting);
+        log.info("Client settings {}. clientId={}, pairs={}", pairs.isEmpty() ? "removed" : "saved", clientId, pairs.size());
+    }
+
+    private interface SettingsChange {
+        void apply() throws IOException;
+    }
+
+    /**
+     * 持有集群锁执行保存：先加载其他节点已保存的配置，使 change 在最新快照的基础上修改
+     *
+     * @throws IOException 等待锁超时，或最新配置无法加载
+     */
+    private void withSettingsLock(SettingsChange change) throws IOException {
+        ClusterLock lock = clusterLockService.getLockForName(LOCK_NAME);
+        try {
+            if (!lock.tryLock(LOCK_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                throw new IOException("Timed out waiting for the settings lock. Another node may be saving settings.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the settings lock");
+        }
+        try {
+            // 本节点内与轮询线程的重新加载互斥
+            synchronized (this) {
+                reload();
+                change.apply();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
     public void removeSetting() {
-        pluginSettings.remove(pluginKey);
+        store.removeAll();
+        pluginSettings.remove(versionKey);
         log.info("Plugin settings removed for key: {}", pluginKey);
     }
 
-    // --- 内部辅助方法 (持久化和加载) ---
-    private AuthBridgeSetting loadSettingFromPersistence() {
-        // 从 PluginSettings 或其他存储中读取当前值
-        Object settingStr = pluginSettings.get(pluginKey);
+    /**
+     * @return 当前快照对应的版本戳；配置从未通过本版本插件保存过时为 null
+     */
+    public String getLoadedVersion() {
+        return loadedVersion;
+    }
 
-        if (settingStr == null) {
-            log.info("AuthBridgeSetting persistence is empty, initializing default configuration.");
-            return createDefaultSetting();
+    /**
+     * 其他节点保存配置后的通知，在消息线程上只提交重新加载任务
+     */
+    @Override
+    public void receive(String channel, String message, String senderId) {
+        if (CLUSTER_CHANNEL.equals(channel) && !Objects.equals(message, loadedVersion)) {
+            log.debug("Settings change notified by node {}. version={}", senderId, message);
+            try {
+                versionPoller.execute(this::reloadIfChanged);
+            } catch (RuntimeException e) {
+                // 插件卸载中
+                log.debug("Ignoring settings change notification: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 版本戳与当前快照不一致时重新加载配置（其他节点保存了配置）
+     */
+    private void reloadIfChanged() {
+        try {
+            if (Objects.equals(readVersion(), loadedVersion)) {
+                return;
+            }
+            synchronized (this) {
+                reload();
+            }
+        } catch (IOException | RuntimeException e) {
+            // 异常会终止周期任务，这里只记录；保留当前快照，下一次轮询时重试
+            log.warn("Failed to reload settings: {}", e.getMessage(), e);
         }
+    }
 
-        // DEBUG: 记录读取到的原始配置字符串（不包含敏感信息，因为持久化时已经转换为字符串，但仍然是配置的完整快照）
-        log.debug("AuthBridgeSetting raw persistence string loaded: {}", settingStr);
+    /**
+     * 版本戳与当前快照不一致时重新加载配置，调用前须持有对象锁
+     *
+     * @throws IOException 配置无法解析，当前快照不变
+     */
+    private void reload() throws IOException {
+        String version = readVersion();
+        if (Objects.equals(version, loadedVersion)) {
+            return;
+        }
+        AuthBridgeSetting loaded = store.load();
+        CompiledSetting compiledSetting = CompiledSetting.compile(loaded != null ? loaded : createDefaultSetting());
+        settingCache.set(compiledSetting);
+        loadedVersion = version;
+        log.info("Settings changed on another node. Reloaded version={}", version);
+        connectionWarmer.warmUpAsync(compiledSetting);
+    }
 
+    private void sendClusterMessage(String version) {
         try {
-            AuthBridgeSetting loadedSetting = mapper.readValue((String) settingStr, AuthBridgeSetting.class);
+            clusterMessagingService.sendRemote(CLUSTER_CHANNEL, version);
+        } catch (RuntimeException e) {
+            // 其他节点仍会在下一次轮询时发现新版本
+            log.warn("Failed to notify cluster of settings change: {}", e.getMessage());
+        }
+    }
+
+    private String readVersion() {
+        Object version = pluginSettings.get(versionKey);
+        return version instanceof String ? (String) version : null;
+    }
+
+    /**
+     * 保存时间 + 随机后缀，集群消息内容最长 200 个字符
+     */
+    private static String newVersion() {
+        return System.currentTimeMillis() + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    /**
+     * 插件卸载时停止轮询并注销集群消息监听
+     */
+    @PreDestroy
+    public void destroy() {
+        clusterMessagingService.unregisterListener(CLUSTER_CHANNEL, this);
+        versionPoller.shutdownNow();
+    }
+
+    // --- 内部辅助方法 (持久化和加载) ---
+    private AuthBridgeSetting loadSettingFromPersistence() {
+        try {
+            AuthBridgeSetting loadedSetting = store.load();
+            if (loadedSetting == null) {
+                log.info("AuthBridgeSetting persistence is empty, initializing default configuration.");
+                return createDefaultSetting();
+            }
             // DEBUG: 记录加载成功的配置摘要（脱敏）
-            log.debug("Successfully parsed settings: Skip Verify={}, Has Custom CA={}",
+            log.debug("Successfully parsed settings: Skip Verify={}, Has Custom CA={}, clients={}",
                     loadedSetting.isInsecureSkipVerify(),
-                    (loadedSetting.getTrustCaCert() != null && !loadedSetting.getTrustCaCert().isEmpty()));
+                    (loadedSetting.getTrustCaCert() != null && !loadedSetting.getTrustCaCert().isEmpty()),
+                    loadedSetting.getClientConfigPairs().size());
 
             return loadedSetting;
 
@@ -99,14 +514,4 @@ public class SettingService {
     private AuthBridgeSetting createDefaultSetting() {
         return new AuthBridgeSetting(new ArrayList<>(), true, "");
     }
-
-    private void persistSetting(AuthBridgeSetting authBridgeSetting) throws IOException {
-        // 将新值写入 PluginSettings
-        String o2cStr = mapper.writeValueAsString(authBridgeSetting);
-
-        // DEBUG: 记录即将持久化的字符串
-        log.debug("Persisting new settings to storage: {}", o2cStr);
-
-        pluginSettings.put(pluginKey, o2cStr);
-    }
 }
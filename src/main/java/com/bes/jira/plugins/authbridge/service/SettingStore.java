@@ -0,0 +1,241 @@
+package com.bes.jira.plugins.authbridge.service;
+
+import com.atlassian.sal.api.pluginsettings.PluginSettings;
+import com.bes.jira.plugins.authbridge.model.AuthBridgeSetting;
+import com.bes.jira.plugins.authbridge.model.ClientConfigPair;
+import com.bes.jira.plugins.authbridge.model.SettingsManifest;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 配置在 PluginSettings 中的分片存储（格式版本 {@value SettingsManifest#CURRENT_SCHEMA_VERSION}）：
+ * <ul>
+ *     <li>{@code <key>}：全局配置 JSON，不含 client 列表；</li>
+ *     <li>{@code <key>.manifest}：{@link SettingsManifest}，格式版本和按顺序排列的 clientId；</li>
+ *     <li>{@code <key>.client.<hash>}：单个 clientId 的全部 {@link ClientConfigPair}，hash 为 clientId 的 SHA-256 前缀，
+ *     保证 key 长度不超过 PluginSettings 的限制。</li>
+ * </ul>
+ * 没有 manifest 时为旧格式：{@code <key>} 中保存包含全部 client 的完整配置，下一次保存时转换为分片格式。
+ * 写入顺序为 client 记录、manifest、全局配置，中途失败时不会出现 manifest 指向缺失记录的情况。
+ */
+final class SettingStore {
+    private static final Logger log = LoggerFactory.getLogger(SettingStore.class);
+
+    private final PluginSettings pluginSettings;
+    private final ObjectMapper mapper;
+    private final String pluginKey;
+    private final String manifestKey;
+    private final String clientKeyPrefix;
+
+    SettingStore(PluginSettings pluginSettings, ObjectMapper mapper, String pluginKey) {
+        this.pluginSettings = pluginSettings;
+        this.mapper = mapper;
+        this.pluginKey = pluginKey;
+        this.manifestKey = pluginKey + ".manifest";
+        this.clientKeyPrefix = pluginKey + ".client.";
+    }
+
+    /**
+     * @return 持久化的配置；从未保存过时返回 null
+     * @throws IOException 全局配置或 manifest 无法解析
+     */
+    AuthBridgeSetting load() throws IOException {
+        Object settingStr = pluginSettings.get(pluginKey);
+        SettingsManifest manifest = readManifest();
+        if (settingStr == null && manifest == null) {
+            return null;
+        }
+
+        // 原始配置中包含断言签名密钥，只记录长度
+        log.debug("AuthBridgeSetting raw persistence string loaded. length={}", settingStr != null ? ((String) settingStr).length() : 0);
+        AuthBridgeSetting setting = settingStr != null ? mapper.readValue((String) settingStr, AuthBridgeSetting.class) : new AuthBridgeSetting();
+        if (manifest == null) {
+            log.debug("Loaded settings in legacy single-value format. clients={}", setting.getClientConfigPairs().size());
+            return setting;
+        }
+
+        if (manifest.getSchemaVersion() > SettingsManifest.CURRENT_SCHEMA_VERSION) {
+            log.warn("Settings were saved with a newer schema version {}. Unknown fields are ignored.", manifest.getSchemaVersion());
+        }
+        // 全局配置中的 client 列表以分片记录为准（转换格式时可能残留旧格式的完整列表）
+        List<ClientConfigPair> pairs = new ArrayList<>();
+        for (String clientId : manifest.getClientIds()) {
+            pairs.addAll(readClient(clientId));
+        }
+        log.debug("Loaded sharded settings. schemaVersion={}, clients={}, pairs={}", manifest.getSchemaVersion(),
+                manifest.getClientIds().size(), pairs.size());
+        return setting.withClientConfigPairs(pairs);
+    }
+
+    /**
+     * 保存完整配置，只写入与 previous 不同的部分
+     *
+     * @param previous 存储中当前内容对应的配置；为 null 时全部重写
+     */
+    void save(AuthBridgeSetting previous, AuthBridgeSetting updated) throws IOException {
+        SettingsManifest manifest = readManifest();
+        boolean incremental = previous != null && manifest != null;
+        Map<String, List<ClientConfigPair>> clients = groupByClient(updated.getClientConfigPairs());
+        Map<String, List<ClientConfigPair>> previousClients = incremental
+                ? groupByClient(previous.getClientConfigPairs()) : Collections.emptyMap();
+
+        // 1. 新增或变化的 client 记录
+        int written = 0;
+        for (Map.Entry<String, List<ClientConfigPair>> entry : clients.entrySet()) {
+            String json = mapper.writeValueAsString(entry.getValue());
+            List<ClientConfigPair> old = previousClients.get(entry.getKey());
+            if (old == null || !json.equals(mapper.writeValueAsString(old))) {
+                pluginSettings.put(clientKey(entry.getKey()), json);
+                written++;
+            }
+        }
+
+        // 2. clientId 列表变化时更新 manifest，之后删除不再引用的记录
+        List<String> clientIds = new ArrayList<>(clients.keySet());
+        if (manifest == null || manifest.getSchemaVersion() != SettingsManifest.CURRENT_SCHEMA_VERSION
+                || !clientIds.equals(manifest.getClientIds())) {
+            writeManifest(clientIds);
+        }
+        int removed = 0;
+        if (manifest != null) {
+            for (String clientId : manifest.getClientIds()) {
+                if (!clients.containsKey(clientId)) {
+                    pluginSettings.remove(clientKey(clientId));
+                    removed++;
+                }
+            }
+        }
+
+        // 3. 全局配置
+        String globals = globalsJson(updated);
+        boolean globalsChanged = !incremental || !globals.equals(globalsJson(previous));
+        if (globalsChanged) {
+            // 全局配置中包含断言签名密钥，只记录长度
+            log.debug("Persisting new settings to storage. length={}", globals.length());
+            pluginSettings.put(pluginKey, globals);
+        }
+        log.debug("Saved settings. clientsWritten={}, clientsRemoved={}, globalsWritten={}, incremental={}",
+                written, removed, globalsChanged, incremental);
+    }
+
+    /**
+     * 写入单个 clientId 的配置，必要时把 clientId 追加到 manifest。调用前存储须为分片格式
+     */
+    void putClient(String clientId, List<ClientConfigPair> pairs) throws IOException {
+        pluginSettings.put(clientKey(clientId), mapper.writeValueAsString(pairs));
+        SettingsManifest manifest = readManifest();
+        List<String> clientIds = manifest != null ? new ArrayList<>(manifest.getClientIds()) : new ArrayList<>();
+        if (!clientIds.contains(clientId)) {
+            clientIds.add(clientId);
+            writeManifest(clientIds);
+        }
+    }
+
+    /**
+     * 删除单个 clientId 的配置：先从 manifest 中移除，再删除记录
+     */
+    void removeClient(String clientId) throws IOException {
+        SettingsManifest manifest = readManifest();
+        if (manifest != null && manifest.getClientIds().contains(clientId)) {
+            List<String> clientIds = new ArrayList<>(manifest.getClientIds());
+            clientIds.remove(clientId);
+            writeManifest(clientIds);
+        }
+        pluginSettings.remove(clientKey(clientId));
+    }
+
+    /**
+     * @return 存储是否已是分片格式
+     */
+    boolean isSharded() throws IOException {
+        return readManifest() != null;
+    }
+
+    void removeAll() {
+        try {
+            SettingsManifest manifest = readManifest();
+            if (manifest != null) {
+                for (String clientId : manifest.getClientIds()) {
+                    pluginSettings.remove(clientKey(clientId));
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to read settings manifest while removing settings: {}", e.getMessage());
+        }
+        pluginSettings.remove(manifestKey);
+        pluginSettings.remove(pluginKey);
+    }
+
+    private SettingsManifest readManifest() throws IOException {
+        Object manifest = pluginSettings.get(manifestKey);
+        return manifest instanceof String ? mapper.readValue((String) manifest, SettingsManifest.class) : null;
+    }
+
+    private void writeManifest(List<String> clientIds) throws IOException {
+        pluginSettings.put(manifestKey, mapper.writeValueAsString(new SettingsManifest(clientIds)));
+    }
+
+    /**
+     * 单个 client 记录损坏时跳过该 client，不影响其他 client
+     */
+    private List<ClientConfigPair> readClient(String clientId) {
+        Object json = pluginSettings.get(clientKey(clientId));
+        if (!(json instanceof String)) {
+            log.error("Settings for client '{}' are listed in the manifest but missing from storage.", clientId);
+            return Collections.emptyList();
+        }
+        try {
+            List<ClientConfigPair> pairs = Arrays.asList(mapper.readValue((String) json, ClientConfigPair[].class));
+            for (ClientConfigPair pair : pairs) {
+                if (!clientId.equals(pair.getClientId())) {
+                    log.error("Stored settings for client '{}' contain client '{}'. Skipping client.", clientId, pair.getClientId());
+                    return Collections.emptyList();
+                }
+            }
+            return pairs;
+        } catch (IOException e) {
+            log.error("Failed to parse settings for client '{}'. Skipping client.", clientId, e);
+            return Collections.emptyList();
+        }
+    }
+
+    private String globalsJson(AuthBridgeSetting setting) throws IOException {
+        return mapper.writeValueAsString(setting.withClientConfigPairs(Collections.emptyList()));
+    }
+
+    /**
+     * 按 clientId 分组，保持首次出现的顺序和组内顺序；没有 clientId 的配置无法匹配，不保存
+     */
+    static Map<String, List<ClientConfigPair>> groupByClient(List<ClientConfigPair> pairs) {
+        Map<String, List<ClientConfigPair>> clients = new LinkedHashMap<>();
+        for (ClientConfigPair pair : pairs) {
+            if (pair.getClientId() == null) {
+                continue;
+            }
+            clients.computeIfAbsent(pair.getClientId(), k -> new ArrayList<>()).add(pair);
+        }
+        return clients;
+    }
+
+    private String clientKey(String clientId) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(clientId.getBytes(StandardCharsets.UTF_8));
+            return clientKeyPrefix + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 12));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.bes.jira.plugins.authbridge.service;
+
+/**
+ * 单个回调主机的预热结果，用于在配置页面展示。只读。
+ */
+public class WarmUpStatus {
+    private final String target;
+    private final String pool;
+    private final int opened;
+    private final long costMillis;
+    private final String error;
+
+    WarmUpStatus(String target, String pool, int opened, long costMillis, String error) {
+        this.target = target;
+        this.pool = pool;
+        this.opened = opened;
+        this.costMillis = costMillis;
+        this.error = error;
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    public String getPool() {
+        return pool;
+    }
+
+    public int getOpened() {
+        return opened;
+    }
+
+    public long getCostMillis() {
+        return costMillis;
+    }
+
+    /**
+     * @return 失败原因；成功时为 null
+     */
+    public String getError() {
+        return error;
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
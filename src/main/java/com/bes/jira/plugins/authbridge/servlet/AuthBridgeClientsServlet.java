@@ -0,0 +1,173 @@
+package com.bes.jira.plugins.authbridge.servlet;
+
+import com.atlassian.plugin.spring.scanner.annotation.imports.ComponentImport;
+import com.atlassian.sal.api.user.UserManager;
+import com.atlassian.sal.api.user.UserProfile;
+import com.bes.jira.plugins.authbridge.model.ClientConfigPair;
+import com.bes.jira.plugins.authbridge.service.SettingService;
+import com.bes.jira.plugins.authbridge.transfer.ClientConfigCsv;
+import com.bes.jira.plugins.authbridge.transfer.ClientConfigImport;
+import com.bes.jira.plugins.authbridge.transfer.ImportReport;
+import org.apache.http.HttpStatus;
+import org.apache.http.entity.ContentType;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * client 配置的批量导出与导入，仅系统管理员可用。
+ * <ul>
+ *     <li>GET {@code ?format=jsonl|csv}：按当前快照逐条写出全部 client 配置；</li>
+ *     <li>POST {@code ?format=jsonl|csv&mode=merge|replace&dryRun=true|false}：逐条读取并校验请求体，
+ *     全部有效时一次性保存，否则返回 400 和逐行的错误列表，配置不变。dryRun 时只校验。</li>
+ * </ul>
+ * POST 请求须带 {@code X-Atlassian-Token: no-check} 请求头，防止跨站提交。
+ * http://localhost:2990/jira/plugins/servlet/authbridge/clients
+ */
+@Named
+public class AuthBridgeClientsServlet extends HttpServlet {
+    private static final Logger log = LoggerFactory.getLogger(AuthBridgeClientsServlet.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final String MODE_MERGE = "merge";
+    private static final String MODE_REPLACE = "replace";
+
+    private final UserManager userManager;
+    private final SettingService settingService;
+
+    @Inject
+    public AuthBridgeClientsServlet(@ComponentImport UserManager userManager, SettingService settingService) {
+        this.userManager = userManager;
+        this.settingService = settingService;
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        if (!checkSystemAdmin(req, resp)) {
+            return;
+        }
+        String format = formatParam(req);
+        if (format == null) {
+            sendError(resp, HttpStatus.SC_BAD_REQUEST, "format must be " + ClientConfigImport.FORMAT_JSONL + " or " + ClientConfigImport.FORMAT_CSV);
+            return;
+        }
+
+        List<ClientConfigPair> pairs = settingService.getSetting().getClientConfigPairs();
+        boolean csv = ClientConfigImport.FORMAT_CSV.equals(format);
+        resp.setContentType((csv ? "text/csv" : "application/x-ndjson") + "; charset=UTF-8");
+        resp.setHeader("Content-Disposition", "attachment; filename=\"authbridge-clients." + format + "\"");
+        resp.setHeader("Cache-Control", "no-store");
+        Writer writer = new BufferedWriter(new OutputStreamWriter(resp.getOutputStream(), StandardCharsets.UTF_8));
+        if (csv) {
+            ClientConfigCsv.writeHeader(writer);
+        }
+        for (ClientConfigPair pair : pairs) {
+            if (csv) {
+                ClientConfigCsv.writeRecord(writer, pair);
+            } else {
+                writer.write(objectMapper.writeValueAsString(pair));
+                writer.write('\n');
+            }
+        }
+        writer.flush();
+        log.debug("[AuthBridge] Exported client settings. format={}, pairs={}", format, pairs.size());
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        if (!checkSystemAdmin(req, resp)) {
+            return;
+        }
+        if (!"no-check".equals(req.getHeader("X-Atlassian-Token"))) {
+            sendError(resp, HttpStatus.SC_FORBIDDEN, "XSRF check failed. Send the header X-Atlassian-Token: no-check.");
+            return;
+        }
+        String format = formatParam(req);
+        if (format == null) {
+            sendError(resp, HttpStatus.SC_BAD_REQUEST, "format must be " + ClientConfigImport.FORMAT_JSONL + " or " + ClientConfigImport.FORMAT_CSV);
+            return;
+        }
+        String mode = req.getParameter("mode") != null ? req.getParameter("mode") : MODE_MERGE;
+        if (!MODE_MERGE.equals(mode) && !MODE_REPLACE.equals(mode)) {
+            sendError(resp, HttpStatus.SC_BAD_REQUEST, "mode must be " + MODE_MERGE + " or " + MODE_REPLACE);
+            return;
+        }
+        boolean dryRun = Boolean.parseBoolean(req.getParameter("dryRun"));
+        // 未声明长度（chunked）的请求体由 ClientConfigImport 在读取时限制
+        if (req.getContentLengthLong() > ClientConfigImport.MAX_IMPORT_BYTES) {
+            sendError(resp, HttpStatus.SC_REQUEST_TOO_LONG,
+                    "Request body too large. At most " + ClientConfigImport.MAX_IMPORT_BYTES + " bytes can be imported at once.");
+            return;
+        }
+
+        ClientConfigImport clientImport = new ClientConfigImport(format);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(req.getInputStream(), StandardCharsets.UTF_8))) {
+            clientImport.read(reader);
+        }
+        ImportReport report = clientImport.getReport();
+        report.setMode(mode);
+        report.setDryRun(dryRun);
+
+        if (clientImport.hasErrors()) {
+            log.debug("[AuthBridge] Client settings import rejected. format={}, errors={}", format, report.getErrorCount());
+            sendJson(resp, HttpStatus.SC_BAD_REQUEST, report);
+            return;
+        }
+        if (!dryRun) {
+            settingService.replaceClients(clientImport.getPairs(), MODE_MERGE.equals(mode));
+            report.setApplied(true);
+            log.info("[AuthBridge] Client settings imported by {}. format={}, mode={}, records={}, clients={}",
+                    userManager.getRemoteUser(req).getUsername(), format, mode, report.getRecords(), report.getClients());
+        }
+        sendJson(resp, HttpStatus.SC_OK, report);
+    }
+
+    /**
+     * 未登录返回 401，非系统管理员返回 403
+     */
+    private boolean checkSystemAdmin(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        UserProfile remoteUser = userManager.getRemoteUser(req);
+        if (remoteUser == null) {
+            sendError(resp, HttpStatus.SC_UNAUTHORIZED, "Authentication required");
+            return false;
+        }
+        if (!userManager.isSystemAdmin(remoteUser.getUserKey())) {
+            sendError(resp, HttpStatus.SC_FORBIDDEN, "System administrator permission required");
+            return false;
+        }
+        return true;
+    }
+
+    private static String formatParam(HttpServletRequest req) {
+        String format = req.getParameter("format");
+        if (format == null) {
+            return ClientConfigImport.FORMAT_JSONL;
+        }
+        return ClientConfigImport.FORMAT_JSONL.equals(format) || ClientConfigImport.FORMAT_CSV.equals(format) ? format : null;
+    }
+
+    private static void sendError(HttpServletResponse resp, int status, String message) throws IOException {
+        sendJson(resp, status, Collections.singletonMap("message", message));
+    }
+
+    private static void sendJson(HttpServletResponse resp, int status, Object body) throws IOException {
+        resp.setStatus(status);
+        resp.setContentType(ContentType.APPLICATION_JSON.toString());
+        resp.setHeader("Cache-Control", "no-store");
+        objectMapper.writeValue(resp.getOutputStream(), body);
+    }
+}
@@ -0,0 +1,75 @@
+package com.bes.jira.plugins.authbridge.servlet;
+
+import com.bes.jira.plugins.authbridge.assertion.AssertionKeys;
+import com.bes.jira.plugins.authbridge.assertion.AssertionSigner;
+import com.bes.jira.plugins.authbridge.service.SettingService;
+import org.apache.http.entity.ContentType;
+import org.codehaus.jackson.map.ObjectMapper;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.security.interfaces.RSAPublicKey;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 以 JWKS 格式发布断言验证公钥，下游可缓存后在本地验证 RS256 断言。
+ * 轮换期间同时发布新旧两个公钥，按 kid 选择。HS256 的 client 密钥不在此发布。
+ * http://localhost:2990/jira/plugins/servlet/authbridge/keys
+ */
+@Named
+public class AuthBridgeKeysServlet extends HttpServlet {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final SettingService settingService;
+
+    @Inject
+    public AuthBridgeKeysServlet(SettingService settingService) {
+        this.settingService = settingService;
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        AssertionSigner signer = settingService.getCompiledSetting().getAssertionSigner();
+
+        List<Map<String, Object>> keys = new ArrayList<>();
+        Map<String, RSAPublicKey> publicKeys = signer != null ? signer.getPublicKeys() : Collections.emptyMap();
+        for (Map.Entry<String, RSAPublicKey> entry : publicKeys.entrySet()) {
+            RSAPublicKey publicKey = entry.getValue();
+            Map<String, Object> jwk = new LinkedHashMap<>();
+            jwk.put("kty", "RSA");
+            jwk.put("use", "sig");
+            jwk.put("alg", AssertionKeys.ALG_RS256);
+            if (entry.getKey() != null) {
+                jwk.put("kid", entry.getKey());
+            }
+            jwk.put("n", base64UrlUnsigned(publicKey.getModulus()));
+            jwk.put("e", base64UrlUnsigned(publicKey.getPublicExponent()));
+            keys.add(jwk);
+        }
+
+        resp.setContentType(ContentType.APPLICATION_JSON.toString());
+        resp.setHeader("Cache-Control", "public, max-age=" + AssertionKeys.JWKS_MAX_AGE_SECONDS);
+        objectMapper.writeValue(resp.getOutputStream(), Collections.singletonMap("keys", keys));
+    }
+
+    /**
+     * JWK 要求大整数为无符号大端字节序，去掉 BigInteger 的符号字节
+     */
+    private static String base64UrlUnsigned(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        int offset = bytes.length > 1 && bytes[0] == 0 ? 1 : 0;
+        byte[] unsigned = new byte[bytes.length - offset];
+        System.arraycopy(bytes, offset, unsigned, 0, unsigned.length);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(unsigned);
+    }
+}
@@ -4,51 +4,95 @@ import com.atlassian.jira.util.UrlBuilder;
 import com.atlassian.plugin.spring.scanner.annotation.imports.ComponentImport;
 import com.atlassian.sal.api.user.UserManager;
 import com.atlassian.sal.api.user.UserProfile;
-import com.bes.jira.plugins.authbridge.http.factory.HttpClientFactory;
-import com.bes.jira.plugins.authbridge.model.CallbackResponse;
+import com.bes.jira.plugins.authbridge.assertion.AssertionSigner;
+import com.bes.jira.plugins.authbridge.audit.AuditTrail;
+import com.bes.jira.plugins.authbridge.callback.CallNotPermittedException;
+import com.bes.jira.plugins.authbridge.callback.CallbackFanOut;
+import com.bes.jira.plugins.authbridge.callback.CallbackInvoker;
+import com.bes.jira.plugins.authbridge.callback.CallbackResult;
+import com.bes.jira.plugins.authbridge.callback.CallbackResultCache;
+import com.bes.jira.plugins.authbridge.callback.CallbackRetryExecutor;
+import com.bes.jira.plugins.authbridge.callback.CircuitBreaker;
+import com.bes.jira.plugins.authbridge.callback.CircuitBreakerRegistry;
+import com.bes.jira.plugins.authbridge.callback.RetryPolicy;
+import com.bes.jira.plugins.authbridge.callback.SingleFlight;
+import com.bes.jira.plugins.authbridge.match.ClientMatcher;
+import com.bes.jira.plugins.authbridge.metrics.AuthBridgeMetrics;
+import com.bes.jira.plugins.authbridge.metrics.ClientMetrics;
+import com.bes.jira.plugins.authbridge.metrics.RequestOutcome;
+import com.bes.jira.plugins.authbridge.model.AuthBridgeSetting;
 import com.bes.jira.plugins.authbridge.model.ClientConfigPair;
+import com.bes.jira.plugins.authbridge.ratelimit.RateLimiter;
+import com.bes.jira.plugins.authbridge.service.CompiledSetting;
 import com.bes.jira.plugins.authbridge.service.SettingService;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.HttpException;
 import org.apache.http.HttpStatus;
 import org.apache.http.client.RedirectException;
-import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.entity.ContentType;
-import org.apache.http.entity.StringEntity;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.util.EntityUtils;
-import org.codehaus.jackson.map.ObjectMapper;
-import org.codehaus.jackson.node.ObjectNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.helpers.MessageFormatter;
 
 import javax.inject.Inject;
 import javax.inject.Named;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.ServletException;
-import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
 import java.net.URL;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
 @Named
 public class AuthBridgeServlet extends HttpServlet {
     private static final Logger log = LoggerFactory.getLogger(AuthBridgeServlet.class);
-    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final String ASSERTION_PARAM = "assertion";
+    // httpcore 4.4 的 HttpStatus 中没有 429
+    private static final int SC_TOO_MANY_REQUESTS = 429;
     private final UserManager userManager;
-    private final HttpClientFactory httpClientFactory;
+    private final CallbackInvoker callbackInvoker;
     private final SettingService settingService;
+    private final CircuitBreakerRegistry circuitBreakers;
+    private final CallbackResultCache resultCache;
+    private final AuthBridgeMetrics metrics;
+    private final AuditTrail auditTrail;
+    private final RateLimiter rateLimiter;
+    private final CallbackRetryExecutor retryExecutor;
+    private final SingleFlight<FlightKey, CallbackResult> inFlight = new SingleFlight<>();
 
     @Inject
-    public AuthBridgeServlet(@ComponentImport UserManager userManager, HttpClientFactory httpClientFactory, SettingService settingService) {
-        this.httpClientFactory = httpClientFactory;
+    public AuthBridgeServlet(@ComponentImport UserManager userManager, CallbackInvoker callbackInvoker, SettingService settingService,
+                             CircuitBreakerRegistry circuitBreakers, CallbackResultCache resultCache, AuthBridgeMetrics metrics,
+                             AuditTrail auditTrail, RateLimiter rateLimiter, CallbackRetryExecutor retryExecutor) {
+        this.callbackInvoker = callbackInvoker;
+        this.metrics = metrics;
+        this.auditTrail = auditTrail;
+        this.rateLimiter = rateLimiter;
+        this.retryExecutor = retryExecutor;
         this.settingService = settingService;
+        this.circuitBreakers = circuitBreakers;
+        this.resultCache = resultCache;
         this.userManager = userManager;
     }
 
@@ -59,6 +103,7 @@ public class AuthBridgeServlet extends HttpServlet {
     @Override
     protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
         long start = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
 
         String clientId = req.getParameter("client_id");
         String callback = req.getParameter("callback");
@@ -66,10 +111,13 @@ public class AuthBridgeServlet extends HttpServlet {
         log.debug("[AuthBridge] Received params: client_id='{}', callback='{}'", clientId, callback);
 
         resp.setContentType(ContentType.APPLICATION_JSON.toString());
+        CompiledSetting compiledSetting = settingService.getCompiledSetting();
+        AuthBridgeSetting setting = compiledSetting.getSetting();
 
         // 参数校验
         if (StringUtils.isBlank(clientId) || StringUtils.isBlank(callback)) {
             log.warn("[AuthBridge] Missing required param. client_id='{}', callback='{}'", clientId, callback);
+            complete(setting, metrics.forClient(null), RequestOutcome.BAD_REQUEST, clientId, null, null, startNanos);
             resp.setStatus(HttpStatus.SC_BAD_REQUEST);
             resp.getWriter().write("client_id or callback is blank");
             return;
@@ -77,27 +125,23 @@ public class AuthBridgeServlet extends HttpServlet {
 
         // 解析 callback URL
         URL url = UrlBuilder.createURL(callback);
-        String matchCallbackUrl = url.getProtocol() + "://" + url.getHost() + (url.getPort() > 0 ? ":" + url.getPort() : "") + url.getPath();
+        String matchCallbackUrl = ClientMatcher.normalize(url);
 
-        log.info("[AuthBridge] Normalized callback URL: {}", matchCallbackUrl);
+        log.debug("[AuthBridge] Normalized callback URL: {}", matchCallbackUrl);
 
-        // 检查 clientId + callback 是否被允许
-        ClientConfigPair allowClientConfigPair = null;
-        for (ClientConfigPair config : settingService.getSetting().getClientConfigPairs()) {
-            log.debug("[AuthBridge] Checking allowed pair: clientId={}, callback={}", config.getClientId(), config.getCallback());
-            if (config.getClientId().equals(clientId) && config.getCallback().equals(matchCallbackUrl)) {
-                allowClientConfigPair = config;
-                break;
-            }
-        }
+        // 检查 clientId + callback 是否被允许（预编译索引，单次查找）
+        ClientConfigPair allowClientConfigPair = compiledSetting.getMatcher().match(clientId, matchCallbackUrl);
 
         if (allowClientConfigPair == null) {
             log.warn("[AuthBridge] Reject request. No matching client config. clientId='{}', callback='{}'", clientId, matchCallbackUrl);
+            complete(setting, metrics.forClient(null), RequestOutcome.UNKNOWN_CLIENT, clientId, null, null, startNanos);
             resp.setStatus(HttpStatus.SC_UNAUTHORIZED);
             resp.getWriter().write(MessageFormatter.format("client_id:{} callback:{} is not allowed", clientId, callback).getMessage());
             return;
         }
 
+        ClientMetrics clientMetrics = metrics.forClient(allowClientConfigPair.getClientId());
+
         // 用户校验
         UserProfile remoteUser = userManager.getRemoteUser(req);
         if (remoteUser == null) {
@@ -107,87 +151,452 @@ public class AuthBridgeServlet extends HttpServlet {
             if (queryString != null) {
                 requestUrl += "?" + queryString;
             }
-            log.info("[AuthBridge] User not logged in. Redirecting to login page. os_destination={}", requestUrl);
+            log.debug("[AuthBridge] User not logged in. Redirecting to login page. os_destination={}", requestUrl);
             String redirectUrl = req.getContextPath() + "/login.jsp?os_destination=" + URLEncoder.encode(requestUrl, StandardCharsets.UTF_8.toString());
+            complete(setting, clientMetrics, RequestOutcome.UNAUTHENTICATED, clientId, null, null, startNanos);
             resp.sendRedirect(redirectUrl);
             return;
         }
 
-        log.info("[AuthBridge] Authenticated user: {}", remoteUser.getUsername());
+        log.debug("[AuthBridge] Authenticated user: {}", remoteUser.getUsername());
 
-        // 提取 Cookies（不打印敏感）
-        ObjectNode cookiesAsJson = extractCookiesAsJson(req);
-        log.debug("[AuthBridge] Extracted cookies JSON: {}", cookiesAsJson);
+        // 限流：在签发断言、读取缓存和发起回调之前判断，超限直接返回 429
+        long retryAfterSeconds = rateLimiter.tryAcquire(setting, allowClientConfigPair.getClientId(), remoteUser.getUsername());
+        if (retryAfterSeconds > 0) {
+            log.debug("[AuthBridge] Rate limit exceeded. clientId={}, user={}, retryAfter={}s", clientId, remoteUser.getUsername(), retryAfterSeconds);
+            complete(setting, clientMetrics, RequestOutcome.RATE_LIMITED, clientId, remoteUser.getUsername(), null, startNanos);
+            resp.setStatus(SC_TOO_MANY_REQUESTS);
+            resp.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
+            resp.getWriter().write("rate limit exceeded, retry after " + retryAfterSeconds + "s");
+            return;
+        }
 
-        // 内部回调 POST
-        StringEntity entity = new StringEntity(cookiesAsJson.toString(), ContentType.APPLICATION_JSON);
-        HttpPost post = new HttpPost(callback);
+        // 断言模式：本地签发断言后直接重定向，不发起回调请求
+        if (ClientConfigPair.MODE_ASSERTION.equals(allowClientConfigPair.getMode())) {
+            boolean signed = redirectWithAssertion(compiledSetting.getAssertionSigner(), allowClientConfigPair, remoteUser.getUsername(),
+                    clientId, callback, resp);
+            complete(setting, clientMetrics, signed ? RequestOutcome.ASSERTION : RequestOutcome.FAILED, clientId, remoteUser.getUsername(),
+                    null, startNanos);
+            log.debug("[AuthBridge] Completed (assertion). cost={}ms", (System.currentTimeMillis() - start));
+            return;
+        }
 
-        log.info("[AuthBridge] Forwarding cookies to callback via POST. callback={}", callback);
+        // 回调结果缓存：同一会话、client 和 callback 在 TTL 内直接复用上次的成功结果
+        Integer cacheTtlSeconds = allowClientConfigPair.getResultCacheTtlSeconds();
+        HttpSession session = cacheTtlSeconds != null ? req.getSession(false) : null;
+        String sessionHash = session != null ? CallbackResultCache.hashSessionId(session.getId()) : null;
+        if (sessionHash != null) {
+            CallbackResult cached = resultCache.get(setting, sessionHash, clientId, callback, remoteUser.getUsername());
+            if (cached != null) {
+                log.debug("[AuthBridge] Using cached callback result. clientId={}", clientId);
+                RequestOutcome outcome = RequestOutcome.FAILED;
+                try {
+                    applyCallbackResult(cached, allowClientConfigPair, clientId, resp);
+                    outcome = RequestOutcome.CACHED;
+                } catch (HttpException e) {
+                    throw new RuntimeException(e);
+                } finally {
+                    complete(setting, clientMetrics, outcome, clientId, remoteUser.getUsername(), cached, startNanos);
+                }
+                log.debug("[AuthBridge] Completed (cached). cost={}ms", (System.currentTimeMillis() - start));
+                return;
+            }
+        }
 
-        post.setEntity(entity);
+        // 只转发 allowlist 中的 cookie（不打印敏感内容）
+        byte[] payload = CookiePayloadWriter.write(req.getCookies(), allowClientConfigPair.getCookieNames());
+        log.debug("[AuthBridge] Built callback payload. size={} bytes", payload.length);
 
+        log.debug("[AuthBridge] Forwarding cookies to callback via POST. callback={}", callback);
 
-        CloseableHttpClient httpClient = httpClientFactory.createClient(settingService.getSetting().isInsecureSkipVerify(), settingService.getSetting().getTrustCaCert());
+        // 相同用户、client、callback 且 payload 相同的并发请求合并为一次回调 POST
+        FlightKey flightKey = new FlightKey(remoteUser.getUsername(), clientId, callback, payload);
 
-        try (CloseableHttpResponse response = httpClient.execute(post)) {
-            int status = response.getStatusLine().getStatusCode();
-            log.info("[AuthBridge] Callback response status: {}", status);
+        // 异步模式：回调 POST 期间释放容器线程
+        boolean async = setting.isAsyncEnabled() && req.isAsyncSupported();
+        if (setting.isAsyncEnabled() && !async) {
+            log.debug("[AuthBridge] Async mode enabled but request does not support async. Falling back to blocking mode.");
+        }
 
-            String redirectUri = allowClientConfigPair.getRedirectUrl();
+        Supplier<CompletableFuture<CallbackResult>> call;
+        List<String> fanOutCallbacks = allowClientConfigPair.getFanOutCallbacks();
+        if (fanOutCallbacks == null || fanOutCallbacks.isEmpty()) {
+            call = callbackCall(compiledSetting, setting, allowClientConfigPair, clientId, callback, url.getHost(), payload, async,
+                    clientMetrics, startNanos);
+        } else {
+            log.debug("[AuthBridge] Fanning out callback. endpoints={}, policy={}", fanOutCallbacks.size() + 1,
+                    allowClientConfigPair.getFanOutPolicy());
+            call = () -> fanOut(compiledSetting, setting, allowClientConfigPair, clientId, callback, url.getHost(), payload,
+                    clientMetrics, startNanos);
+        }
 
-            if (status == HttpStatus.SC_OK) {
-                if (response.getEntity() != null) {
-                    String responseBody = EntityUtils.toString(response.getEntity());
-                    log.debug("[AuthBridge] Callback response body: {}", responseBody);
+        CompletableFuture<CallbackResult> future = inFlight.execute(flightKey, call);
+        if (sessionHash != null) {
+            String username = remoteUser.getUsername();
+            long ttlMillis = cacheTtlSeconds * 1000L;
+            future.thenAccept(result -> resultCache.put(setting, sessionHash, clientId, callback, username, result, ttlMillis));
+        }
+        if (async) {
+            forwardAsync(req, resp, future, setting, allowClientConfigPair, clientId, remoteUser.getUsername(), start, clientMetrics,
+                    startNanos);
+            return;
+        }
 
-                    try {
-                        CallbackResponse callbackResponse = objectMapper.readValue(responseBody, CallbackResponse.class);
+        RequestOutcome outcome = RequestOutcome.FAILED;
+        CallbackResult result = null;
+        try {
+            result = awaitResult(future);
+            applyCallbackResult(result, allowClientConfigPair, clientId, resp);
+            outcome = RequestOutcome.SUCCESS;
+        } catch (CallNotPermittedException e) {
+            rejectOpenCircuit(e, setting, allowClientConfigPair, resp);
+            outcome = RequestOutcome.CIRCUIT_OPEN;
+        } catch (IOException | HttpException e) {
+            log.error("[AuthBridge] Callback request failed: {}", e.getMessage(), e);
+            throw new RuntimeException(e);
+        } finally {
+            complete(setting, clientMetrics, outcome, clientId, remoteUser.getUsername(), result, startNanos);
+        }
 
-                        if (StringUtils.isNotBlank(callbackResponse.getRedirectUrl())) {
-                            redirectUri = callbackResponse.getRedirectUrl();
-                            log.info("[AuthBridge] Redirect URI overridden by callback: {}", redirectUri);
-                        }
-                    } catch (Exception e) {
-                        log.warn("[AuthBridge] Failed to parse callback response JSON. Using default redirectUrl. body={}", responseBody);
-                    }
+        log.debug("[AuthBridge] Completed. cost={}ms", (System.currentTimeMillis() - start));
+    }
+
+    /**
+     * 记录请求的最终结果：客户端指标与审计事件
+     *
+     * @param result 回调结果，未发出回调或回调失败时为 null
+     */
+    private void complete(AuthBridgeSetting setting, ClientMetrics clientMetrics, RequestOutcome outcome, String clientId, String username,
+                          CallbackResult result, long startNanos) {
+        clientMetrics.recordRequest(outcome, startNanos);
+        auditTrail.record(setting, outcome, clientId, username, result != null ? result.getStatus() : 0, startNanos);
+    }
+
+    /**
+     * 构造对单个回调地址的调用：回调指标、重试与对冲、熔断器。
+     *
+     * @param async 是否以非阻塞方式发出（异步模式或并行通知多个地址）
+     */
+    private Supplier<CompletableFuture<CallbackResult>> callbackCall(CompiledSetting compiledSetting, AuthBridgeSetting setting,
+                                                                    ClientConfigPair pair, String clientId, String endpoint, String host,
+                                                                    byte[] payload, boolean async, ClientMetrics clientMetrics,
+                                                                    long startNanos) {
+        Supplier<CompletableFuture<CallbackResult>> call;
+        boolean http2 = ClientConfigPair.PROTOCOL_HTTP2.equals(pair.getProtocol());
+        if (http2) {
+            // HTTP/2：并发回调在同一连接上多路复用，同步模式下等待返回的 future
+            call = () -> callbackInvoker.executeHttp2(compiledSetting, pair, endpoint, payload);
+        } else {
+            // 内部回调 POST，重试和对冲时每次尝试使用新的请求对象
+            call = () -> {
+                HttpPost post = new HttpPost(endpoint);
+                post.setEntity(new ByteArrayEntity(payload, ContentType.APPLICATION_JSON));
+                return async
+                        ? callbackInvoker.executeAsync(compiledSetting, pair, post)
+                        : executeBlocking(compiledSetting, pair, post);
+            };
+        }
+
+        // 只统计实际发出的回调（对冲请求中被取消的一方不计入）；返回原 future，取消仍能传递到底层请求
+        Supplier<CompletableFuture<CallbackResult>> unmeasured = call;
+        call = () -> {
+            long callStartNanos = System.nanoTime();
+            CompletableFuture<CallbackResult> callFuture = unmeasured.get();
+            callFuture.whenComplete((result, error) -> {
+                if (!callFuture.isCancelled()) {
+                    clientMetrics.recordCallback(result != null ? result.getStatus() : 0, callStartNanos);
+                }
+            });
+            return callFuture;
+        };
+
+        // 重试与对冲：每次尝试分别计入回调指标，熔断器只看到最终结果
+        Supplier<CompletableFuture<CallbackResult>> attempt = call;
+        boolean blocking = !async && !http2;
+        call = () -> retryExecutor.execute(RetryPolicy.of(setting, pair, clientMetrics, startNanos), clientMetrics, attempt, blocking);
+
+        // 熔断器打开时直接拒绝，不占用连接池
+        CircuitBreaker circuitBreaker = circuitBreakers.get(setting, clientId, host);
+        if (circuitBreaker != null) {
+            Supplier<CompletableFuture<CallbackResult>> unguarded = call;
+            call = () -> circuitBreaker.execute(unguarded);
+        }
+        return call;
+    }
+
+    /**
+     * 并行通知主回调和配置的其他回调地址，按 client 的 fanOutPolicy 合并结果。
+     * 全部地址以非阻塞方式发出（同步模式下由当前线程等待合并结果），共享回调截止时间，到期仍未完成的回调被取消。
+     */
+    private CompletableFuture<CallbackResult> fanOut(CompiledSetting compiledSetting, AuthBridgeSetting setting, ClientConfigPair pair,
+                                                     String clientId, String callback, String host, byte[] payload,
+                                                     ClientMetrics clientMetrics, long startNanos) {
+        long deadlineNanos = startNanos + TimeUnit.MILLISECONDS.toNanos(setting.getCallbackDeadlineMillis());
+        Map<String, CompletableFuture<CallbackResult>> secondaries = new LinkedHashMap<>();
+        for (String endpoint : pair.getFanOutCallbacks()) {
+            if (secondaries.containsKey(endpoint)) {
+                continue;
+            }
+            CompletableFuture<CallbackResult> future = invoke(callbackCall(compiledSetting, setting, pair, clientId, endpoint,
+                    URI.create(endpoint).getHost(), payload, true, clientMetrics, startNanos));
+            retryExecutor.cancelAt(future, deadlineNanos);
+            secondaries.put(endpoint, future);
+        }
+        CompletableFuture<CallbackResult> primary = invoke(callbackCall(compiledSetting, setting, pair, clientId, callback, host, payload,
+                true, clientMetrics, startNanos));
+        retryExecutor.cancelAt(primary, deadlineNanos);
+        return CallbackFanOut.combine(pair.getFanOutPolicy(), callback, primary, secondaries);
+    }
+
+    /**
+     * 发起调用，同步抛出的异常转为失败的 future，不影响其他地址
+     */
+    private static CompletableFuture<CallbackResult> invoke(Supplier<CompletableFuture<CallbackResult>> call) {
+        try {
+            return call.get();
+        } catch (RuntimeException e) {
+            CompletableFuture<CallbackResult> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+
+    /**
+     * 在当前线程上执行回调 POST（同步模式下由 single-flight 的首个调用者执行）。
+     */
+    private CompletableFuture<CallbackResult> executeBlocking(CompiledSetting compiledSetting, ClientConfigPair pair, HttpPost post) {
+        CompletableFuture<CallbackResult> future = new CompletableFuture<>();
+        try {
+            future.complete(callbackInvoker.execute(compiledSetting, pair, post));
+        } catch (IOException | RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private CallbackResult awaitResult(CompletableFuture<CallbackResult> future) throws IOException, HttpException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for callback response");
+        } catch (ExecutionException e) {
+            Throwable cause = unwrap(e);
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof HttpException) {
+                throw (HttpException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException) && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    /**
+     * 异步执行回调 POST。容器线程在 startAsync 后立即返回，回调完成后在 HttpAsyncClient 的 I/O 线程上完成重定向。
+     * 失败和超时统一返回 500，与同步模式抛出异常时的结果一致。
+     */
+    private void forwardAsync(HttpServletRequest req, HttpServletResponse resp, CompletableFuture<CallbackResult> future,
+                              AuthBridgeSetting setting, ClientConfigPair allowClientConfigPair, String clientId, String username,
+                              long start, ClientMetrics clientMetrics, long startNanos) {
+        AsyncContext asyncContext = req.startAsync(req, resp);
+        asyncContext.setTimeout(setting.getAsyncTimeoutMillis());
+
+        // 回调完成与 AsyncContext 超时只能有一方写响应
+        AtomicBoolean finished = new AtomicBoolean(false);
+
+        asyncContext.addListener(new AsyncListener() {
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                if (finished.compareAndSet(false, true)) {
+                    future.cancel(true);
+                    complete(setting, clientMetrics, RequestOutcome.FAILED, clientId, username, null, startNanos);
+                    failAsync(asyncContext, resp, new HttpException(MessageFormatter.format(
+                            "[AuthBridge] Callback timed out after {}ms", setting.getAsyncTimeoutMillis()).getMessage()));
                 }
+            }
 
-                log.info("[AuthBridge] Redirecting user to final redirectUri={}", redirectUri);
-                if (StringUtils.isBlank(redirectUri)) {
+            @Override
+            public void onError(AsyncEvent event) {
+                if (finished.compareAndSet(false, true)) {
+                    complete(setting, clientMetrics, RequestOutcome.FAILED, clientId, username, null, startNanos);
+                }
+                future.cancel(true);
+            }
 
-                    log.warn("[AuthBridge] redirectUri is empty. Using Jira system error page.");
+            @Override
+            public void onComplete(AsyncEvent event) {
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
 
-                    String message = "The Auth callback did not return redirectUri for client_id="
-                            + clientId + ". and not config redirectUrl";
-                    throw new RedirectException(message);
+        future.whenComplete((result, error) -> {
+            if (!finished.compareAndSet(false, true)) {
+                return;
+            }
+            RequestOutcome outcome = RequestOutcome.FAILED;
+            try {
+                if (error != null) {
+                    Throwable cause = unwrap(error);
+                    if (!(cause instanceof CallNotPermittedException)) {
+                        failAsync(asyncContext, resp, cause);
+                        return;
+                    }
+                    rejectOpenCircuit((CallNotPermittedException) cause, setting, allowClientConfigPair, resp);
+                    outcome = RequestOutcome.CIRCUIT_OPEN;
                 } else {
-                    resp.sendRedirect(redirectUri);
+                    applyCallbackResult(result, allowClientConfigPair, clientId, resp);
+                    outcome = RequestOutcome.SUCCESS;
                 }
-            } else {
-                String errorBody = response.getEntity() != null ? EntityUtils.toString(response.getEntity()) : "<empty>";
-                throw new HttpException(MessageFormatter.format("[AuthBridge] Callback returned error. status={}, body={}", status, errorBody).getMessage());
+                asyncContext.complete();
+                log.debug("[AuthBridge] Completed (async). cost={}ms", (System.currentTimeMillis() - start));
+            } catch (IOException | HttpException e) {
+                failAsync(asyncContext, resp, e);
+            } finally {
+                complete(setting, clientMetrics, outcome, clientId, username, result, startNanos);
             }
-        } catch (IOException | HttpException e) {
-            log.error("[AuthBridge] Callback request failed: {}", e.getMessage(), e);
-            throw new RuntimeException(e);
+        });
+    }
+
+    private void failAsync(AsyncContext asyncContext, HttpServletResponse resp, Throwable e) {
+        log.error("[AuthBridge] Callback request failed: {}", e.getMessage(), e);
+        try {
+            if (!resp.isCommitted()) {
+                resp.sendError(HttpStatus.SC_INTERNAL_SERVER_ERROR, e.getMessage());
+            }
+        } catch (IOException ioe) {
+            log.warn("[AuthBridge] Failed to write async error response.", ioe);
+        } finally {
+            asyncContext.complete();
         }
+    }
 
-        log.info("[AuthBridge] Completed. cost={}ms", (System.currentTimeMillis() - start));
+    /**
+     * 熔断打开时的处理：允许降级且配置了 redirectUrl 时直接重定向，否则返回 503 快速失败。
+     */
+    private void rejectOpenCircuit(CallNotPermittedException e, AuthBridgeSetting setting, ClientConfigPair allowClientConfigPair,
+                                   HttpServletResponse resp) throws IOException {
+        if (setting.isCircuitBreakerFallbackToRedirect() && StringUtils.isNotBlank(allowClientConfigPair.getRedirectUrl())) {
+            log.warn("[AuthBridge] {}. Falling back to configured redirectUrl={}", e.getMessage(), allowClientConfigPair.getRedirectUrl());
+            resp.sendRedirect(allowClientConfigPair.getRedirectUrl());
+            return;
+        }
+        log.warn("[AuthBridge] {}. Rejecting request.", e.getMessage());
+        resp.setStatus(HttpStatus.SC_SERVICE_UNAVAILABLE);
+        resp.getWriter().write(e.getMessage());
     }
 
     /**
-     * 将 REST 的辅助方法 extractCookiesAsJson 迁移到 Servlet 中
+     * 根据回调结果重定向用户：回调返回的 redirectUrl 优先，其次为配置的 redirectUrl。
      */
-    private ObjectNode extractCookiesAsJson(HttpServletRequest request) {
-        ObjectNode json = objectMapper.createObjectNode();
+    private void applyCallbackResult(CallbackResult result, ClientConfigPair allowClientConfigPair, String clientId,
+                                     HttpServletResponse resp) throws IOException, HttpException {
+        if (!result.isSuccess()) {
+            throw new HttpException(MessageFormatter.format("[AuthBridge] Callback returned error. status={}, body={}",
+                    result.getStatus(), result.getErrorBody()).getMessage());
+        }
+
+        String redirectUri = allowClientConfigPair.getRedirectUrl();
+        if (StringUtils.isNotBlank(result.getRedirectUrl())) {
+            redirectUri = result.getRedirectUrl();
+            log.debug("[AuthBridge] Redirect URI overridden by callback: {}", redirectUri);
+        }
+
+        log.debug("[AuthBridge] Redirecting user to final redirectUri={}", redirectUri);
+        if (StringUtils.isBlank(redirectUri)) {
+
+            log.warn("[AuthBridge] redirectUri is empty. Using Jira system error page.");
+
+            String message = "The Auth callback did not return redirectUri for client_id="
+                    + clientId + ". and not config redirectUrl";
+            throw new RedirectException(message);
+        }
+        resp.sendRedirect(redirectUri);
+    }
+
+    /**
+     * 断言模式：重定向到配置的 redirectUrl（未配置时为 callback），并附加 assertion 参数。
+     *
+     * @return 未配置有效签名密钥时返回 false（已写出 500 响应）
+     */
+    private boolean redirectWithAssertion(AssertionSigner signer, ClientConfigPair allowClientConfigPair, String username, String clientId,
+                                       String callback, HttpServletResponse resp) throws IOException {
+        if (signer == null) {
+            log.error("[AuthBridge] Client '{}' uses assertion mode but no valid assertion signing key is configured.", clientId);
+            resp.setStatus(HttpStatus.SC_INTERNAL_SERVER_ERROR);
+            resp.getWriter().write("assertion signing key is not configured");
+            return false;
+        }
+
+        String target = StringUtils.isNotBlank(allowClientConfigPair.getRedirectUrl()) ? allowClientConfigPair.getRedirectUrl() : callback;
+        String redirectUri = appendQueryParam(target, ASSERTION_PARAM, signer.sign(username, clientId));
 
-        Cookie[] cookies = request.getCookies();
-        String cookieStr = (cookies == null) ? "" : Arrays.stream(cookies).map(c -> c.getName() + "=" + c.getValue()).reduce((c1, c2) -> c1 + "; " + c2).orElse("");
+        log.debug("[AuthBridge] Redirecting user with signed assertion. kid={}, target={}", signer.getKeyId(), target);
+        resp.sendRedirect(redirectUri);
+        return true;
+    }
 
-        log.debug("Combined cookie string: {}", cookieStr);
-        json.put("cookie", cookieStr);
+    /**
+     * 在 fragment 之前追加查询参数；value 需已是 URL 安全字符
+     */
+    private static String appendQueryParam(String url, String name, String value) {
+        int fragment = url.indexOf('#');
+        String base = fragment >= 0 ? url.substring(0, fragment) : url;
+        String suffix = fragment >= 0 ? url.substring(fragment) : "";
+        char separator = base.indexOf('?') >= 0 ? '&' : '?';
+        return base + separator + name + '=' + value + suffix;
+    }
 
-        return json;
+    /**
+     * single-flight 的合并键：用户、client、callback 与请求体完全相同的请求才合并
+     */
+    private static final class FlightKey {
+        private final String username;
+        private final String clientId;
+        private final String callback;
+        private final byte[] payload;
+        private final int hash;
+
+        FlightKey(String username, String clientId, String callback, byte[] payload) {
+            this.username = username;
+            this.clientId = clientId;
+            this.callback = callback;
+            this.payload = payload;
+            this.hash = 31 * Objects.hash(username, clientId, callback) + Arrays.hashCode(payload);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof FlightKey)) {
+                return false;
+            }
+            FlightKey other = (FlightKey) o;
+            return hash == other.hash
+                    && Objects.equals(username, other.username)
+                    && Objects.equals(clientId, other.clientId)
+                    && Objects.equals(callback, other.callback)
+                    && Arrays.equals(payload, other.payload);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
     }
-}
\ No newline at end of file
+}
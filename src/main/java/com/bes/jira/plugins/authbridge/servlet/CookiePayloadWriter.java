@@ -0,0 +1,163 @@
+package com.bes.jira.plugins.authbridge.servlet;
+
+import com.bes.jira.plugins.authbridge.model.ClientConfigPair;
+
+import javax.servlet.http.Cookie;
+import java.util.List;
+
+/**
+ * 生成回调 POST 的请求体 {@code {"cookie":"name=value; name=value"}}。
+ * <p>
+ * 只写入 allowlist 中的 cookie。先计算转义后的 UTF-8 长度，再直接写入大小正好的 byte[]，
+ * 不产生中间字符串和 JSON 树，也不持有跨请求的缓冲区（避免 ThreadLocal 在插件卸载后引用插件的类加载器）。
+ */
+final class CookiePayloadWriter {
+    private static final byte[] PREFIX = {'{', '"', 'c', 'o', 'o', 'k', 'i', 'e', '"', ':', '"'};
+    private static final byte[] SUFFIX = {'"', '}'};
+    private static final byte[] SEPARATOR = {';', ' '};
+    private static final byte[] HEX = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
+
+    private CookiePayloadWriter() {
+    }
+
+    /**
+     * @param allowedNames 允许转发的 cookie 名称，以 * 结尾表示前缀匹配；为空时使用 {@link ClientConfigPair#DEFAULT_COOKIE_NAMES}
+     */
+    static byte[] write(Cookie[] cookies, List<String> allowedNames) {
+        List<String> allowed = allowedNames == null || allowedNames.isEmpty() ? ClientConfigPair.DEFAULT_COOKIE_NAMES : allowedNames;
+
+        // 第一遍：计算长度，并记下允许转发的 cookie，第二遍不再重复匹配
+        int length = PREFIX.length + SUFFIX.length;
+        int count = 0;
+        boolean[] forwarded = cookies == null ? null : new boolean[cookies.length];
+        if (cookies != null) {
+            for (int i = 0; i < cookies.length; i++) {
+                Cookie cookie = cookies[i];
+                if (!isAllowed(cookie.getName(), allowed)) {
+                    continue;
+                }
+                if (count > 0) {
+                    length += SEPARATOR.length;
+                }
+                length += escapedLength(cookie.getName()) + 1 + escapedLength(cookie.getValue());
+                forwarded[i] = true;
+                count++;
+            }
+        }
+
+        // 第二遍：写入
+        byte[] out = new byte[length];
+        int pos = put(out, 0, PREFIX);
+        if (count > 0) {
+            boolean first = true;
+            for (int i = 0; i < cookies.length; i++) {
+                if (!forwarded[i]) {
+                    continue;
+                }
+                if (!first) {
+                    pos = put(out, pos, SEPARATOR);
+                }
+                pos = writeEscaped(out, pos, cookies[i].getName());
+                out[pos++] = '=';
+                pos = writeEscaped(out, pos, cookies[i].getValue());
+                first = false;
+            }
+        }
+        put(out, pos, SUFFIX);
+        return out;
+    }
+
+    private static boolean isAllowed(String name, List<String> allowed) {
+        if (name == null) {
+            return false;
+        }
+        for (int i = 0; i < allowed.size(); i++) {
+            String pattern = allowed.get(i);
+            if (pattern.endsWith("*")
+                    ? name.regionMatches(0, pattern, 0, pattern.length() - 1)
+                    : pattern.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int put(byte[] out, int pos, byte[] bytes) {
+        System.arraycopy(bytes, 0, out, pos, bytes.length);
+        return pos + bytes.length;
+    }
+
+    /**
+     * @return {@link #writeEscaped} 写入的字节数
+     */
+    private static int escapedLength(String value) {
+        if (value == null) {
+            return 0;
+        }
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                length += 2;
+            } else if (c < 0x20) {
+                length += 6;
+            } else if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                i++;
+                length += 4;
+            } else if (Character.isSurrogate(c)) {
+                length += 1;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * 按 JSON 字符串规则转义并以 UTF-8 写入
+     *
+     * @return 写入后的位置
+     */
+    private static int writeEscaped(byte[] out, int pos, String value) {
+        if (value == null) {
+            return pos;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out[pos++] = '\\';
+                out[pos++] = (byte) c;
+            } else if (c < 0x20) {
+                out[pos++] = '\\';
+                out[pos++] = 'u';
+                out[pos++] = '0';
+                out[pos++] = '0';
+                out[pos++] = HEX[c >> 4];
+                out[pos++] = HEX[c & 0xF];
+            } else if (c < 0x80) {
+                out[pos++] = (byte) c;
+            } else if (c < 0x800) {
+                out[pos++] = (byte) (0xC0 | (c >> 6));
+                out[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, value.charAt(++i));
+                out[pos++] = (byte) (0xF0 | (cp >> 18));
+                out[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                out[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                out[pos++] = (byte) (0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // 不成对的代理字符，与 String.getBytes(UTF_8) 一致替换为 '?'
+                out[pos++] = '?';
+            } else {
+                out[pos++] = (byte) (0xE0 | (c >> 12));
+                out[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                out[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return pos;
+    }
+}
@@ -0,0 +1,279 @@
+package com.bes.jira.plugins.authbridge.transfer;
+
+import com.bes.jira.plugins.authbridge.model.ClientConfigPair;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * client 配置的 CSV 格式（RFC 4180）：首行为列名，列的顺序任意、可以只包含部分列，clientId 和 callback 必填。
+ * 带引号的字段可以跨行（例如 PEM 证书）；cookieNames 以分号分隔，fanOutCallbacks 以空白分隔（URL 中可能含有分号）。
+ */
+public final class ClientConfigCsv {
+    public static final List<String> COLUMNS = Collections.unmodifiableList(Arrays.asList(
+            "clientId", "callback", "redirectUrl", "mode", "protocol", "connectTimeoutMillis", "readTimeoutMillis",
+            "leaseTimeoutMillis", "maxConnPerRoute", "resultCacheTtlSeconds", "insecureSkipVerify", "cookieNames", "trustCaCert",
+            "maxRetries", "fanOutCallbacks", "fanOutPolicy"));
+
+    private ClientConfigCsv() {
+    }
+
+    public static void writeHeader(Writer writer) throws IOException {
+        writeRow(writer, COLUMNS);
+    }
+
+    public static void writeRecord(Writer writer, ClientConfigPair pair) throws IOException {
+        writeRow(writer, Arrays.asList(
+                pair.getClientId(), pair.getCallback(), pair.getRedirectUrl(), pair.getMode(), pair.getProtocol(),
+                toString(pair.getConnectTimeoutMillis()), toString(pair.getReadTimeoutMillis()), toString(pair.getLeaseTimeoutMillis()),
+                toString(pair.getMaxConnPerRoute()), toString(pair.getResultCacheTtlSeconds()), toString(pair.getInsecureSkipVerify()),
+                pair.getCookieNames() != null ? String.join(";", pair.getCookieNames()) : null, pair.getTrustCaCert(),
+                toString(pair.getMaxRetries()),
+                pair.getFanOutCallbacks() != null ? String.join(" ", pair.getFanOutCallbacks()) : null, pair.getFanOutPolicy()));
+    }
+
+    private static void writeRow(Writer writer, List<String> fields) throws IOException {
+        for (int i = 0; i < fields.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            String field = fields.get(i);
+            if (field == null) {
+                continue;
+            }
+            if (field.indexOf(',') >= 0 || field.indexOf('"') >= 0 || field.indexOf('\n') >= 0 || field.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(field.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(field);
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    private static String toString(Object value) {
+        return value != null ? value.toString() : null;
+    }
+
+    /**
+     * 按列名把一行转换为配置
+     *
+     * @throws IllegalArgumentException 字段格式错误
+     */
+    static ClientConfigPair toPair(Map<String, Integer> header, List<String> fields) {
+        ClientConfigPair pair = new ClientConfigPair(field(header, fields, "callback"), field(header, fields, "clientId"),
+                field(header, fields, "redirectUrl"));
+        pair.setMode(field(header, fields, "mode"));
+        pair.setProtocol(field(header, fields, "protocol"));
+        pair.setConnectTimeoutMillis(intField(header, fields, "connectTimeoutMillis"));
+        pair.setReadTimeoutMillis(intField(header, fields, "readTimeoutMillis"));
+        pair.setLeaseTimeoutMillis(intField(header, fields, "leaseTimeoutMillis"));
+        pair.setMaxConnPerRoute(intField(header, fields, "maxConnPerRoute"));
+        pair.setResultCacheTtlSeconds(intField(header, fields, "resultCacheTtlSeconds"));
+        String insecure = field(header, fields, "insecureSkipVerify");
+        if (insecure != null) {
+            if (!"true".equalsIgnoreCase(insecure) && !"false".equalsIgnoreCase(insecure)) {
+                throw new IllegalArgumentException("insecureSkipVerify must be true or false: " + insecure);
+            }
+            pair.setInsecureSkipVerify(Boolean.valueOf(insecure));
+        }
+        String cookieNames = field(header, fields, "cookieNames");
+        if (cookieNames != null) {
+            List<String> names = new ArrayList<>();
+            for (String name : cookieNames.split(";")) {
+                if (!name.trim().isEmpty()) {
+                    names.add(name.trim());
+                }
+            }
+            pair.setCookieNames(names);
+        }
+        pair.setTrustCaCert(field(header, fields, "trustCaCert"));
+        pair.setMaxRetries(intField(header, fields, "maxRetries"));
+        String fanOutCallbacks = field(header, fields, "fanOutCallbacks");
+        if (fanOutCallbacks != null) {
+            pair.setFanOutCallbacks(new ArrayList<>(Arrays.asList(fanOutCallbacks.trim().split("\\s+"))));
+        }
+        pair.setFanOutPolicy(field(header, fields, "fanOutPolicy"));
+        return pair;
+    }
+
+    /**
+     * @throws IllegalArgumentException 未知列名或缺少必填列
+     */
+    static Map<String, Integer> parseHeader(List<String> fields) {
+        Map<String, Integer> header = new HashMap<>();
+        for (int i = 0; i < fields.size(); i++) {
+            String name = fields.get(i).trim();
+            // 去掉 UTF-8 BOM
+            if (i == 0 && !name.isEmpty() && name.charAt(0) == '\uFEFF') {
+                name = name.substring(1);
+            }
+            if (!COLUMNS.contains(name)) {
+                throw new IllegalArgumentException("Unknown column: " + name);
+            }
+            header.put(name, i);
+        }
+        if (!header.containsKey("clientId") || !header.containsKey("callback")) {
+            throw new IllegalArgumentException("Header must contain clientId and callback columns");
+        }
+        return header;
+    }
+
+    private static String field(Map<String, Integer> header, List<String> fields, String name) {
+        Integer index = header.get(name);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static Integer intField(Map<String, Integer> header, List<String> fields, String name) {
+        String value = field(header, fields, name);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " is not a number: " + value);
+        }
+    }
+
+    /**
+     * 逐条读取 CSV 记录，不缓存整个文档
+     */
+    static final class RecordReader {
+        private final Reader reader;
+        private final int maxRecordChars;
+        private int line = 1;
+        private int recordLine;
+        private int pending = -2;
+        private int recordChars;
+
+        RecordReader(Reader reader) {
+            this(reader, Integer.MAX_VALUE);
+        }
+
+        /**
+         * @param maxRecordChars 单条记录的字符数上限（分隔符也计入），超过时按引号规则读完该记录但不再保留内容，见 {@link #isTooLong()}
+         */
+        RecordReader(Reader reader, int maxRecordChars) {
+            this.reader = reader;
+            this.maxRecordChars = maxRecordChars;
+        }
+
+        /**
+         * @return 下一条记录的字段；文档结束时返回 null
+         * @throws IllegalArgumentException 引号未闭合
+         */
+        List<String> next() throws IOException {
+            int c = read();
+            while (c == '\r' || c == '\n') {
+                c = read();
+            }
+            if (c == -1) {
+                return null;
+            }
+            recordLine = line;
+            recordChars = 0;
+
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            // 当前字段已读的字符数；记录超长后不再保留内容，引号的判断以此为准
+            int fieldChars = 0;
+            boolean quoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c == -1) {
+                        throw new IllegalArgumentException("Unterminated quoted field");
+                    }
+                    if (c == '"') {
+                        int next = read();
+                        if (next == '"') {
+                            append(field, '"');
+                            fieldChars++;
+                        } else {
+                            quoted = false;
+                            c = next;
+                            continue;
+                        }
+                    } else {
+                        append(field, c);
+                        fieldChars++;
+                    }
+                } else if (c == '"' && fieldChars == 0) {
+                    quoted = true;
+                } else if (c == ',') {
+                    recordChars++;
+                    addField(fields, field);
+                    fieldChars = 0;
+                } else if (c == '\r' || c == '\n' || c == -1) {
+                    addField(fields, field);
+                    return fields;
+                } else {
+                    append(field, c);
+                    fieldChars++;
+                }
+                c = read();
+            }
+        }
+
+        private void append(StringBuilder field, int c) {
+            if (++recordChars <= maxRecordChars) {
+                field.append((char) c);
+            }
+        }
+
+        private void addField(List<String> fields, StringBuilder field) {
+            if (recordChars <= maxRecordChars) {
+                fields.add(field.toString());
+            }
+            field.setLength(0);
+        }
+
+        /**
+         * @return 最近一条记录超过字符数上限，其字段内容不完整
+         */
+        boolean isTooLong() {
+            return recordChars > maxRecordChars;
+        }
+
+        /**
+         * @return 最近一条记录起始的行号（从 1 开始）
+         */
+        int getRecordLine() {
+            return recordLine;
+        }
+
+        private int read() throws IOException {
+            int c;
+            if (pending != -2) {
+                c = pending;
+                pending = -2;
+            } else {
+                c = reader.read();
+            }
+            if (c == '\n') {
+                line++;
+            } else if (c == '\r') {
+                // \r\n 只计一行
+                int next = reader.read();
+                if (next != '\n') {
+                    pending = next;
+                }
+                line++;
+                return '\n';
+            }
+            return c;
+        }
+    }
+}
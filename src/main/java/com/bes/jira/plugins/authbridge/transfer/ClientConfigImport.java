@@ -0,0 +1,253 @@
+package com.bes.jira.plugins.authbridge.transfer;
+
+import com.bes.jira.plugins.authbridge.model.ClientConfigPair;
+import org.codehaus.jackson.map.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 逐条读取并校验导入的 client 配置，不缓存原始文档。
+ * 所有记录读完后才决定是否应用：只要有一条记录出错，整个导入都不生效。
+ * 单条记录最多保留 {@link #MAX_RECORD_CHARS} 个字符，超长的记录跳过并报错；整个文档超过 {@link #MAX_IMPORT_BYTES} 时停止读取。
+ */
+public final class ClientConfigImport {
+    public static final String FORMAT_JSONL = "jsonl";
+    public static final String FORMAT_CSV = "csv";
+    // 单次导入的记录数上限，超过时停止读取
+    public static final int MAX_RECORDS = 50000;
+    public static final int MAX_REPORTED_ERRORS = 200;
+    // 单条记录（JSON Lines 的一行、CSV 的一条记录）的字符数上限，足够容纳较长的证书链
+    public static final int MAX_RECORD_CHARS = 256 * 1024;
+    // 导入文档的大小上限；UTF-8 下字符数不超过字节数，读取时按字符数检查
+    public static final long MAX_IMPORT_BYTES = 64L * 1024 * 1024;
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final String format;
+    private final ImportReport report = new ImportReport();
+    private final List<ClientConfigPair> pairs = new ArrayList<>();
+    private final Set<String> clientIds = new LinkedHashSet<>();
+    private final Set<String> seen = new HashSet<>();
+    // 正在读取的记录所在行，文档过大时报告在该行
+    private int line;
+
+    public ClientConfigImport(String format) {
+        if (!FORMAT_JSONL.equals(format) && !FORMAT_CSV.equals(format)) {
+            throw new IllegalArgumentException("Unsupported format: " + format);
+        }
+        this.format = format;
+        report.setFormat(format);
+    }
+
+    public void read(Reader reader) throws IOException {
+        Reader bounded = new BoundedReader(reader, MAX_IMPORT_BYTES);
+        try {
+            if (FORMAT_CSV.equals(format)) {
+                readCsv(bounded);
+            } else {
+                readJsonLines(bounded);
+            }
+        } catch (ImportTooLargeException e) {
+            report.addError(line, null, e.getMessage());
+        }
+        report.setRecords(pairs.size());
+        report.setClients(clientIds.size());
+    }
+
+    private void readJsonLines(Reader reader) throws IOException {
+        Reader in = new BufferedReader(reader);
+        StringBuilder text = new StringBuilder();
+        int c = in.read();
+        while (c != -1) {
+            line++;
+            // 与 BufferedReader.readLine 相同，以 \n、\r 或 \r\n 分行；超长部分读取后丢弃
+            text.setLength(0);
+            boolean tooLong = false;
+            while (c != -1 && c != '\n' && c != '\r') {
+                if (text.length() < MAX_RECORD_CHARS) {
+                    text.append((char) c);
+                } else {
+                    tooLong = true;
+                }
+                c = in.read();
+            }
+            if (c == '\r') {
+                c = in.read();
+            }
+            if (c == '\n') {
+                c = in.read();
+            }
+
+            if (!tooLong && text.toString().trim().isEmpty()) {
+                continue;
+            }
+            if (isFull(line)) {
+                return;
+            }
+            if (tooLong) {
+                report.addError(line, null, "Line too long. At most " + MAX_RECORD_CHARS + " characters are allowed per line.");
+                continue;
+            }
+            ClientConfigPair pair;
+            try {
+                pair = objectMapper.readValue(text.toString(), ClientConfigPair.class);
+            } catch (IOException e) {
+                report.addError(line, null, "Invalid JSON: " + firstLine(e.getMessage()));
+                continue;
+            }
+            accept(line, pair);
+        }
+    }
+
+    private void readCsv(Reader reader) throws IOException {
+        ClientConfigCsv.RecordReader records = new ClientConfigCsv.RecordReader(reader, MAX_RECORD_CHARS);
+        Map<String, Integer> header;
+        line = 1;
+        try {
+            List<String> fields = records.next();
+            if (fields == null) {
+                return;
+            }
+            if (records.isTooLong()) {
+                report.addError(1, null, recordTooLong());
+                return;
+            }
+            header = ClientConfigCsv.parseHeader(fields);
+        } catch (IllegalArgumentException e) {
+            report.addError(1, null, e.getMessage());
+            return;
+        }
+
+        while (true) {
+            List<String> fields;
+            try {
+                fields = records.next();
+            } catch (IllegalArgumentException e) {
+                // 引号未闭合时之后的内容都无法划分记录
+                report.addError(records.getRecordLine(), null, e.getMessage());
+                return;
+            }
+            if (fields == null) {
+                return;
+            }
+            line = records.getRecordLine();
+            if (isFull(line)) {
+                return;
+            }
+            if (records.isTooLong()) {
+                report.addError(line, null, recordTooLong());
+                continue;
+            }
+            ClientConfigPair pair;
+            try {
+                pair = ClientConfigCsv.toPair(header, fields);
+            } catch (IllegalArgumentException e) {
+                report.addError(records.getRecordLine(), null, e.getMessage());
+                continue;
+            }
+            accept(records.getRecordLine(), pair);
+        }
+    }
+
+    private boolean isFull(int line) {
+        if (pairs.size() + report.getErrorCount() < MAX_RECORDS) {
+            return false;
+        }
+        report.addError(line, null, "Too many records. At most " + MAX_RECORDS + " records can be imported at once.");
+        return true;
+    }
+
+    private void accept(int line, ClientConfigPair pair) {
+        ClientConfigValidator.normalize(pair);
+        String error = ClientConfigValidator.validate(pair);
+        if (error == null && !seen.add(pair.getClientId() + '\n' + pair.getCallback())) {
+            error = "Duplicate clientId and callback";
+        }
+        if (error != null) {
+            report.addError(line, pair.getClientId(), error);
+            return;
+        }
+        pairs.add(pair);
+        clientIds.add(pair.getClientId());
+    }
+
+    private static String recordTooLong() {
+        return "Record too long. At most " + MAX_RECORD_CHARS + " characters are allowed per record.";
+    }
+
+    private static String firstLine(String message) {
+        if (message == null) {
+            return "";
+        }
+        int end = message.indexOf('\n');
+        return end >= 0 ? message.substring(0, end) : message;
+    }
+
+    public boolean hasErrors() {
+        return report.getErrorCount() > 0;
+    }
+
+    /**
+     * @return 校验通过的配置，按导入顺序排列
+     */
+    public List<ClientConfigPair> getPairs() {
+        return pairs;
+    }
+
+    public ImportReport getReport() {
+        return report;
+    }
+
+    /**
+     * 最多读取 maxChars 个字符，超过时抛出 {@link ImportTooLargeException}
+     */
+    private static final class BoundedReader extends FilterReader {
+        private final long maxChars;
+        private long count;
+
+        BoundedReader(Reader in, long maxChars) {
+            super(in);
+            this.maxChars = maxChars;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int c = super.read();
+            if (c >= 0) {
+                checkLimit(1);
+            }
+            return c;
+        }
+
+        @Override
+        public int read(char[] buffer, int off, int len) throws IOException {
+            int n = super.read(buffer, off, len);
+            if (n > 0) {
+                checkLimit(n);
+            }
+            return n;
+        }
+
+        private void checkLimit(int n) throws ImportTooLargeException {
+            count += n;
+            if (count > maxChars) {
+                throw new ImportTooLargeException("Import too large. At most " + MAX_IMPORT_BYTES + " bytes can be imported at once.");
+            }
+        }
+    }
+
+    private static final class ImportTooLargeException extends IOException {
+        ImportTooLargeException(String message) {
+            super(message);
+        }
+    }
+}
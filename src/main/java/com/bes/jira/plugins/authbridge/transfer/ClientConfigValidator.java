@@ -0,0 +1,142 @@
+package com.bes.jira.plugins.authbridge.transfer;
+
+import com.bes.jira.plugins.authbridge.http.factory.TrustBundle;
+import com.bes.jira.plugins.authbridge.model.ClientConfigPair;
+import org.apache.commons.lang3.StringUtils;
+
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.security.cert.CertificateException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 单条 client 配置的校验，规则与配置页面一致：clientId、callback 必填，数值必须为正数，mode / protocol 为已知取值，
+ * CA 证书可以解析。另外要求 callback、redirectUrl 和 fanOutCallbacks 为 http(s) 地址。
+ */
+public final class ClientConfigValidator {
+    private ClientConfigValidator() {
+    }
+
+    /**
+     * 去掉首尾空白，空字符串视为未配置
+     */
+    public static void normalize(ClientConfigPair pair) {
+        pair.setClientId(StringUtils.trimToNull(pair.getClientId()));
+        pair.setCallback(StringUtils.trimToNull(pair.getCallback()));
+        pair.setRedirectUrl(StringUtils.trimToEmpty(pair.getRedirectUrl()));
+        pair.setMode(StringUtils.trimToNull(pair.getMode()));
+        pair.setProtocol(StringUtils.trimToNull(pair.getProtocol()));
+        pair.setTrustCaCert(StringUtils.trimToNull(pair.getTrustCaCert()));
+        pair.setFanOutPolicy(StringUtils.trimToNull(pair.getFanOutPolicy()));
+        if (pair.getFanOutCallbacks() != null) {
+            List<String> fanOutCallbacks = new ArrayList<>();
+            for (String endpoint : pair.getFanOutCallbacks()) {
+                if (StringUtils.isNotBlank(endpoint)) {
+                    fanOutCallbacks.add(endpoint.trim());
+                }
+            }
+            pair.setFanOutCallbacks(fanOutCallbacks.isEmpty() ? null : fanOutCallbacks);
+        }
+    }
+
+    /**
+     * @return 错误描述；配置有效时返回 null
+     */
+    public static String validate(ClientConfigPair pair) {
+        if (StringUtils.isBlank(pair.getClientId())) {
+            return "clientId is required";
+        }
+        if (StringUtils.isBlank(pair.getCallback())) {
+            return "callback is required";
+        }
+        if (!isHttpUrl(pair.getCallback())) {
+            return "callback is not an http(s) URL: " + pair.getCallback();
+        }
+        if (StringUtils.isNotBlank(pair.getRedirectUrl()) && !isHttpUrl(pair.getRedirectUrl())) {
+            return "redirectUrl is not an http(s) URL: " + pair.getRedirectUrl();
+        }
+        if (pair.getMode() != null && !Arrays.asList(ClientConfigPair.MODE_CALLBACK, ClientConfigPair.MODE_ASSERTION).contains(pair.getMode())) {
+            return "mode must be " + ClientConfigPair.MODE_CALLBACK + " or " + ClientConfigPair.MODE_ASSERTION + ": " + pair.getMode();
+        }
+        if (pair.getProtocol() != null
+                && !Arrays.asList(ClientConfigPair.PROTOCOL_HTTP1, ClientConfigPair.PROTOCOL_HTTP2).contains(pair.getProtocol())) {
+            return "protocol must be " + ClientConfigPair.PROTOCOL_HTTP1 + " or " + ClientConfigPair.PROTOCOL_HTTP2 + ": " + pair.getProtocol();
+        }
+        if (pair.getFanOutCallbacks() != null) {
+            for (String endpoint : pair.getFanOutCallbacks()) {
+                if (!isHttpUrl(endpoint) || !hasHost(endpoint)) {
+                    return "fanOutCallbacks contains an invalid http(s) URL: " + endpoint;
+                }
+            }
+        }
+        List<String> fanOutPolicies = Arrays.asList(ClientConfigPair.FAN_OUT_ALL, ClientConfigPair.FAN_OUT_FIRST_SUCCESS,
+                ClientConfigPair.FAN_OUT_PRIMARY);
+        if (pair.getFanOutPolicy() != null && !fanOutPolicies.contains(pair.getFanOutPolicy())) {
+            return "fanOutPolicy must be one of " + String.join(", ", fanOutPolicies) + ": " + pair.getFanOutPolicy();
+        }
+        // 主回调失败而其他地址成功时没有主回调返回的 redirectUrl
+        if (pair.getFanOutCallbacks() != null && ClientConfigPair.FAN_OUT_FIRST_SUCCESS.equals(pair.getFanOutPolicy())
+                && StringUtils.isBlank(pair.getRedirectUrl())) {
+            return "redirectUrl is required when fanOutPolicy is " + ClientConfigPair.FAN_OUT_FIRST_SUCCESS;
+        }
+        String invalid = firstNonPositive(pair);
+        if (invalid != null) {
+            return invalid + " must be positive";
+        }
+        if (pair.getMaxRetries() != null && pair.getMaxRetries() < 0) {
+            return "maxRetries must not be negative";
+        }
+        if (pair.getTrustCaCert() != null) {
+            try {
+                TrustBundle.parse(pair.getTrustCaCert());
+            } catch (CertificateException | RuntimeException e) {
+                return "Invalid CA certificate: " + e.getMessage();
+            }
+        }
+        return null;
+    }
+
+    private static String firstNonPositive(ClientConfigPair pair) {
+        if (isNonPositive(pair.getConnectTimeoutMillis())) {
+            return "connectTimeoutMillis";
+        }
+        if (isNonPositive(pair.getReadTimeoutMillis())) {
+            return "readTimeoutMillis";
+        }
+        if (isNonPositive(pair.getLeaseTimeoutMillis())) {
+            return "leaseTimeoutMillis";
+        }
+        if (isNonPositive(pair.getMaxConnPerRoute())) {
+            return "maxConnPerRoute";
+        }
+        if (isNonPositive(pair.getResultCacheTtlSeconds())) {
+            return "resultCacheTtlSeconds";
+        }
+        return null;
+    }
+
+    private static boolean isNonPositive(Integer value) {
+        return value != null && value <= 0;
+    }
+
+    private static boolean hasHost(String value) {
+        try {
+            return new URI(value).getHost() != null;
+        } catch (URISyntaxException e) {
+            return false;
+        }
+    }
+
+    private static boolean isHttpUrl(String value) {
+        try {
+            String protocol = new URL(value).getProtocol();
+            return "http".equals(protocol) || "https".equals(protocol);
+        } catch (MalformedURLException e) {
+            return false;
+        }
+    }
+}
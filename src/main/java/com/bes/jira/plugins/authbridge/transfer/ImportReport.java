@@ -0,0 +1,109 @@
+package com.bes.jira.plugins.authbridge.transfer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量导入的结果，作为导入接口的响应体。errors 最多包含 {@value ClientConfigImport#MAX_REPORTED_ERRORS} 条，
+ * errorCount 为全部错误数。
+ */
+public class ImportReport {
+    private String format;
+    private String mode;
+    private boolean dryRun;
+    private boolean applied;
+    private int records;
+    private int clients;
+    private int errorCount;
+    private final List<ImportError> errors = new ArrayList<>();
+
+    public String getFormat() {
+        return format;
+    }
+
+    public void setFormat(String format) {
+        this.format = format;
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    public void setMode(String mode) {
+        this.mode = mode;
+    }
+
+    public boolean isDryRun() {
+        return dryRun;
+    }
+
+    public void setDryRun(boolean dryRun) {
+        this.dryRun = dryRun;
+    }
+
+    public boolean isApplied() {
+        return applied;
+    }
+
+    public void setApplied(boolean applied) {
+        this.applied = applied;
+    }
+
+    public int getRecords() {
+        return records;
+    }
+
+    public void setRecords(int records) {
+        this.records = records;
+    }
+
+    public int getClients() {
+        return clients;
+    }
+
+    public void setClients(int clients) {
+        this.clients = clients;
+    }
+
+    public int getErrorCount() {
+        return errorCount;
+    }
+
+    public List<ImportError> getErrors() {
+        return errors;
+    }
+
+    void addError(int line, String clientId, String message) {
+        errorCount++;
+        if (errors.size() < ClientConfigImport.MAX_REPORTED_ERRORS) {
+            errors.add(new ImportError(line, clientId, message));
+        }
+    }
+
+    public static class ImportError {
+        private final int line;
+        private final String clientId;
+        private final String message;
+
+        ImportError(int line, String clientId, String message) {
+            this.line = line;
+            this.clientId = clientId;
+            this.message = message;
+        }
+
+        /**
+         * @return 记录起始的行号（从 1 开始）；与具体记录无关的错误为 0
+         */
+        public int getLine() {
+            return line;
+        }
+
+        public String getClientId() {
+            return clientId;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
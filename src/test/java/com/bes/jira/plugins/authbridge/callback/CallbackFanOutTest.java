@@ -0,0 +1,153 @@
+package com.bes.jira.plugins.authbridge.callback;
+
+import com.bes.jira.plugins.authbridge.model.ClientConfigPair;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CallbackFanOutTest {
+
+    private static final String PRIMARY = "https://primary.example.com/cb";
+    private static final String SECONDARY = "https://secondary.example.com/cb";
+
+    private final CompletableFuture<CallbackResult> primary = new CompletableFuture<>();
+    private final CompletableFuture<CallbackResult> secondary = new CompletableFuture<>();
+
+    private CompletableFuture<CallbackResult> combine(String policy) {
+        Map<String, CompletableFuture<CallbackResult>> secondaries = new LinkedHashMap<>();
+        secondaries.put(SECONDARY, secondary);
+        return CallbackFanOut.combine(policy, PRIMARY, primary, secondaries);
+    }
+
+    private static Throwable cause(CompletableFuture<?> future) throws InterruptedException {
+        try {
+            future.get();
+        } catch (ExecutionException e) {
+            return e.getCause();
+        }
+        fail("expected failure");
+        return null;
+    }
+
+    @Test
+    public void primaryPolicyIgnoresSecondaryFailures() throws Exception {
+        CompletableFuture<CallbackResult> result = combine(null);
+
+        secondary.completeExceptionally(new IOException("down"));
+        assertFalse(result.isDone());
+
+        primary.complete(CallbackResult.success("https://primary.example.com/home"));
+        assertEquals("https://primary.example.com/home", result.get().getRedirectUrl());
+    }
+
+    @Test
+    public void primaryPolicyReturnsPrimaryFailure() throws Exception {
+        CompletableFuture<CallbackResult> result = combine(ClientConfigPair.FAN_OUT_PRIMARY);
+
+        secondary.complete(CallbackResult.success(null));
+        primary.complete(CallbackResult.error(500, "boom"));
+        assertEquals(500, result.get().getStatus());
+    }
+
+    @Test
+    public void allPolicyReturnsPrimaryResultWhenEverySucceeds() throws Exception {
+        CompletableFuture<CallbackResult> result = combine(ClientConfigPair.FAN_OUT_ALL);
+
+        primary.complete(CallbackResult.success("https://primary.example.com/home"));
+        assertFalse(result.isDone());
+
+        secondary.complete(CallbackResult.success("https://secondary.example.com/home"));
+        assertEquals("https://primary.example.com/home", result.get().getRedirectUrl());
+    }
+
+    @Test
+    public void allPolicyFailsFastAndCancelsTheRest() throws Exception {
+        CompletableFuture<CallbackResult> result = combine(ClientConfigPair.FAN_OUT_ALL);
+
+        secondary.complete(CallbackResult.error(502, "bad gateway"));
+        assertEquals(502, result.get().getStatus());
+        assertTrue(primary.isCancelled());
+    }
+
+    @Test
+    public void allPolicyReportsDeadlineAsTimeout() throws Exception {
+        CompletableFuture<CallbackResult> result = combine(ClientConfigPair.FAN_OUT_ALL);
+
+        // 截止时间到达时调用方取消未完成的回调
+        secondary.cancel(true);
+        assertTrue(cause(result) instanceof SocketTimeoutException);
+        assertTrue(primary.isCancelled());
+    }
+
+    @Test
+    public void firstSuccessUsesPrimaryResult() throws Exception {
+        CompletableFuture<CallbackResult> result = combine(ClientConfigPair.FAN_OUT_FIRST_SUCCESS);
+
+        primary.complete(CallbackResult.success("https://primary.example.com/home"));
+        assertEquals("https://primary.example.com/home", result.get().getRedirectUrl());
+        assertFalse(secondary.isCancelled());
+    }
+
+    @Test
+    public void firstSuccessWaitsForPrimaryAfterSecondarySucceeds() throws Exception {
+        CompletableFuture<CallbackResult> result = combine(ClientConfigPair.FAN_OUT_FIRST_SUCCESS);
+
+        secondary.complete(CallbackResult.success("https://secondary.example.com/home"));
+        assertFalse(result.isDone());
+
+        primary.complete(CallbackResult.success("https://primary.example.com/home"));
+        assertEquals("https://primary.example.com/home", result.get().getRedirectUrl());
+    }
+
+    @Test
+    public void firstSuccessFallsBackWhenPrimaryFails() throws Exception {
+        CompletableFuture<CallbackResult> result = combine(ClientConfigPair.FAN_OUT_FIRST_SUCCESS);
+
+        secondary.complete(CallbackResult.success("https://secondary.example.com/home"));
+        primary.cancel(true);
+        assertTrue(result.get().isSuccess());
+        // 使用配置的 redirectUrl
+        assertNull(result.get().getRedirectUrl());
+    }
+
+    @Test
+    public void firstSuccessWaitsForSecondaryAfterPrimaryFails() throws Exception {
+        CompletableFuture<CallbackResult> result = combine(ClientConfigPair.FAN_OUT_FIRST_SUCCESS);
+
+        primary.complete(CallbackResult.error(500, "boom"));
+        assertFalse(result.isDone());
+
+        secondary.complete(CallbackResult.success(null));
+        assertTrue(result.get().isSuccess());
+        assertNull(result.get().getRedirectUrl());
+    }
+
+    @Test
+    public void firstSuccessReturnsPrimaryResultWhenAllFail() throws Exception {
+        CompletableFuture<CallbackResult> result = combine(ClientConfigPair.FAN_OUT_FIRST_SUCCESS);
+
+        primary.complete(CallbackResult.error(500, "boom"));
+        secondary.completeExceptionally(new IOException("down"));
+        assertEquals(500, result.get().getStatus());
+    }
+
+    @Test
+    public void cancellingResultCancelsEveryCallback() {
+        CompletableFuture<CallbackResult> result = combine(ClientConfigPair.FAN_OUT_FIRST_SUCCESS);
+
+        result.cancel(true);
+        assertTrue(primary.isCancelled());
+        assertTrue(secondary.isCancelled());
+    }
+}
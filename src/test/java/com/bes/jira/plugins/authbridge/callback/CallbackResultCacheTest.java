@@ -0,0 +1,112 @@
+package com.bes.jira.plugins.authbridge.callback;
+
+import com.bes.jira.plugins.authbridge.model.AuthBridgeSetting;
+import com.bes.jira.plugins.authbridge.model.ClientConfigPair;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CallbackResultCacheTest {
+
+    private static final long TTL = 60000L;
+
+    private final CallbackResultCache cache = new CallbackResultCache(null);
+
+    private static ClientConfigPair pair(String clientId, String redirectUrl) {
+        return new ClientConfigPair("https://" + clientId + ".example.com/cb", clientId, redirectUrl);
+    }
+
+    private static AuthBridgeSetting setting(ClientConfigPair... pairs) {
+        return new AuthBridgeSetting(new ArrayList<>(Arrays.asList(pairs)), false, null);
+    }
+
+    private CallbackResult get(AuthBridgeSetting setting, String session, String clientId) {
+        return cache.get(setting, session, clientId, "https://" + clientId + ".example.com/cb", "alice");
+    }
+
+    private void put(AuthBridgeSetting setting, String session, String clientId) {
+        cache.put(setting, session, clientId, "https://" + clientId + ".example.com/cb", "alice",
+                CallbackResult.success("https://" + clientId + ".example.com/home"), TTL);
+    }
+
+    @Test
+    public void cachesSuccessForSameUser() {
+        AuthBridgeSetting setting = setting(pair("a", "https://a.example.com/"));
+        assertNull(get(setting, "s1", "a"));
+
+        put(setting, "s1", "a");
+        assertEquals("https://a.example.com/home", get(setting, "s1", "a").getRedirectUrl());
+        assertNull(cache.get(setting, "s1", "a", "https://a.example.com/cb", "bob"));
+        // 用户不匹配的条目被移除
+        assertNull(get(setting, "s1", "a"));
+    }
+
+    @Test
+    public void doesNotCacheErrorsOrStaleSettings() {
+        AuthBridgeSetting setting = setting(pair("a", "https://a.example.com/"));
+        get(setting, "s1", "a");
+
+        cache.put(setting, "s1", "a", "https://a.example.com/cb", "alice", CallbackResult.error(500, "boom"), TTL);
+        put(setting(pair("a", "https://a.example.com/")), "s2", "a");
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void keepsEntriesOfUnchangedClients() {
+        ClientConfigPair a = pair("a", "https://a.example.com/");
+        AuthBridgeSetting first = setting(a, pair("b", "https://b.example.com/"));
+        get(first, "s1", "a");
+        put(first, "s1", "a");
+        put(first, "s1", "b");
+
+        // b 修改，a 为重新解析出的等值对象
+        AuthBridgeSetting second = setting(pair("a", "https://a.example.com/"), pair("b", "https://b.example.com/changed"));
+        assertNotNull(get(second, "s1", "a"));
+        assertNull(get(second, "s1", "b"));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void invalidatesRemovedClients() {
+        AuthBridgeSetting first = setting(pair("a", "https://a.example.com/"), pair("b", "https://b.example.com/"));
+        get(first, "s1", "a");
+        put(first, "s1", "a");
+        put(first, "s1", "b");
+
+        AuthBridgeSetting second = first.withClientConfigPairs(Collections.singletonList(first.getClientConfigPairs().get(0)));
+        assertNotNull(get(second, "s1", "a"));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void globalChangeClearsEverything() {
+        AuthBridgeSetting first = setting(pair("a", "https://a.example.com/"));
+        get(first, "s1", "a");
+        put(first, "s1", "a");
+
+        AuthBridgeSetting second = first.withClientConfigPairs(first.getClientConfigPairs());
+        second.setInsecureSkipVerify(true);
+        assertNull(get(second, "s1", "a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedPerStripe() {
+        AuthBridgeSetting setting = setting(pair("a", "https://a.example.com/"));
+        setting.setResultCacheMaxEntries(32);
+        get(setting, "s0", "a");
+
+        for (int i = 0; i < 1000; i++) {
+            put(setting, "s" + i, "a");
+        }
+        assertTrue(cache.size() <= 32);
+        assertNotNull(get(setting, "s999", "a"));
+    }
+}
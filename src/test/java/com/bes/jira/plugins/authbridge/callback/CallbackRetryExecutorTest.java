@@ -0,0 +1,155 @@
+package com.bes.jira.plugins.authbridge.callback;
+
+import com.bes.jira.plugins.authbridge.metrics.AuthBridgeMetrics;
+import com.bes.jira.plugins.authbridge.metrics.ClientMetrics;
+import org.junit.After;
+import org.junit.Test;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CallbackRetryExecutorTest {
+
+    private final CallbackRetryExecutor executor = new CallbackRetryExecutor();
+    private final AuthBridgeMetrics allMetrics = new AuthBridgeMetrics();
+    private final ClientMetrics metrics = allMetrics.forClient("test");
+    // 每次尝试返回的 future，按发起顺序
+    private final List<CompletableFuture<String>> attempts = new ArrayList<>();
+
+    @After
+    public void tearDown() {
+        executor.destroy();
+        allMetrics.destroy();
+    }
+
+    private static RetryPolicy policy(int maxRetries, long deadlineMillis, long hedgeDelayMillis) {
+        return new RetryPolicy(maxRetries, TimeUnit.MILLISECONDS.toNanos(1), TimeUnit.MILLISECONDS.toNanos(1),
+                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMillis), TimeUnit.MILLISECONDS.toNanos(hedgeDelayMillis));
+    }
+
+    /**
+     * 依次返回 results 中的 future，用完后返回永不完成的 future
+     */
+    @SafeVarargs
+    private final Supplier<CompletableFuture<String>> attempt(CompletableFuture<String>... results) {
+        return () -> {
+            synchronized (attempts) {
+                CompletableFuture<String> future = attempts.size() < results.length ? results[attempts.size()] : new CompletableFuture<>();
+                attempts.add(future);
+                return future;
+            }
+        };
+    }
+
+    private int attemptCount() {
+        synchronized (attempts) {
+            return attempts.size();
+        }
+    }
+
+    private static CompletableFuture<String> failed(Throwable error) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        future.completeExceptionally(error);
+        return future;
+    }
+
+    private static Throwable cause(CompletableFuture<?> future) throws Exception {
+        try {
+            future.get(5, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            return e.getCause();
+        }
+        fail("expected failure");
+        return null;
+    }
+
+    @Test
+    public void retriesRetryableFailure() throws Exception {
+        CompletableFuture<String> result = executor.execute(policy(2, 10000, 0), metrics,
+                attempt(failed(new ConnectException("refused")), CompletableFuture.completedFuture("ok")), false);
+
+        assertEquals("ok", result.get(5, TimeUnit.SECONDS));
+        assertEquals(2, attemptCount());
+        assertEquals(1, metrics.getCallbackRetries());
+    }
+
+    @Test
+    public void doesNotRetryFailuresAfterTheRequestWasSent() throws Exception {
+        CompletableFuture<String> result = executor.execute(policy(2, 10000, 0), metrics,
+                attempt(failed(new SocketTimeoutException("read timed out"))), false);
+
+        assertTrue(cause(result) instanceof SocketTimeoutException);
+        assertEquals(1, attemptCount());
+    }
+
+    @Test
+    public void stopsAfterMaxRetries() throws Exception {
+        CompletableFuture<String> result = executor.execute(policy(1, 10000, 0), metrics,
+                attempt(failed(new ConnectException("1")), failed(new ConnectException("2")), failed(new ConnectException("3"))), false);
+
+        assertEquals("2", cause(result).getMessage());
+        assertEquals(2, attemptCount());
+    }
+
+    @Test
+    public void deadlineStopsRetries() throws Exception {
+        CompletableFuture<String> result = executor.execute(policy(3, 0, 0), metrics,
+                attempt(failed(new ConnectException("refused")), CompletableFuture.completedFuture("ok")), false);
+
+        assertTrue(cause(result) instanceof ConnectException);
+        assertEquals(1, attemptCount());
+        assertEquals(0, metrics.getCallbackRetries());
+    }
+
+    @Test
+    public void hedgesSlowAttemptAndCancelsTheLoser() throws Exception {
+        CompletableFuture<String> slow = new CompletableFuture<>();
+        CompletableFuture<String> result = executor.execute(policy(0, 10000, 20), metrics,
+                attempt(slow, CompletableFuture.completedFuture("hedged")), false);
+
+        assertEquals("hedged", result.get(5, TimeUnit.SECONDS));
+        assertEquals(2, attemptCount());
+        assertTrue(slow.isCancelled());
+        assertEquals(1, metrics.getCallbackHedges());
+    }
+
+    @Test
+    public void hedgeOnlyOnce() throws Exception {
+        CompletableFuture<String> result = executor.execute(policy(0, 10000, 10), metrics, attempt(), false);
+
+        Thread.sleep(100);
+        assertEquals(2, attemptCount());
+        result.cancel(true);
+    }
+
+    @Test
+    public void cancellingResultCancelsAttemptsAndPendingHedge() throws Exception {
+        CompletableFuture<String> first = new CompletableFuture<>();
+        CompletableFuture<String> result = executor.execute(policy(0, 10000, 50), metrics, attempt(first), false);
+
+        result.cancel(true);
+        assertTrue(first.isCancelled());
+        Thread.sleep(100);
+        assertEquals(1, attemptCount());
+    }
+
+    @Test
+    public void blockingRetriesOnCallingThread() throws Exception {
+        CompletableFuture<String> result = executor.execute(policy(2, 10000, 0), metrics,
+                attempt(failed(new ConnectException("refused")), CompletableFuture.completedFuture("ok")), true);
+
+        assertTrue(result.isDone());
+        assertEquals("ok", result.get());
+        assertEquals(2, attemptCount());
+    }
+}
@@ -0,0 +1,58 @@
+package com.bes.jira.plugins.authbridge.callback;
+
+import com.bes.jira.plugins.authbridge.model.AuthBridgeSetting;
+import org.junit.Test;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class CircuitBreakerRegistryTest {
+
+    private final CircuitBreakerRegistry registry = new CircuitBreakerRegistry();
+
+    private static AuthBridgeSetting setting() {
+        AuthBridgeSetting setting = new AuthBridgeSetting();
+        setting.setCircuitBreakerEnabled(true);
+        return setting;
+    }
+
+    @Test
+    public void returnsNullWhenDisabled() {
+        AuthBridgeSetting setting = setting();
+        setting.setCircuitBreakerEnabled(false);
+
+        assertNull(registry.get(setting, "app", "app.example.com"));
+    }
+
+    @Test
+    public void keepsBreakersPerClientAndHost() {
+        AuthBridgeSetting setting = setting();
+        CircuitBreaker breaker = registry.get(setting, "app", "app.example.com");
+
+        assertSame(breaker, registry.get(setting, "app", "app.example.com"));
+        assertNotSame(breaker, registry.get(setting, "app", "other.example.com"));
+        assertNotSame(breaker, registry.get(setting, "other", "app.example.com"));
+    }
+
+    @Test
+    public void keepsBreakersWhenOtherSettingsChange() {
+        AuthBridgeSetting setting = setting();
+        CircuitBreaker breaker = registry.get(setting, "app", "app.example.com");
+
+        // 新的配置快照（例如其他 client 的修改），熔断参数不变
+        AuthBridgeSetting updated = setting.withClientConfigPairs(setting.getClientConfigPairs());
+        updated.setConnectTimeoutMillis(setting.getConnectTimeoutMillis() + 1);
+        assertSame(breaker, registry.get(updated, "app", "app.example.com"));
+    }
+
+    @Test
+    public void resetsBreakersWhenThresholdsChange() {
+        AuthBridgeSetting setting = setting();
+        CircuitBreaker breaker = registry.get(setting, "app", "app.example.com");
+
+        AuthBridgeSetting updated = setting.withClientConfigPairs(setting.getClientConfigPairs());
+        updated.setCircuitBreakerFailureRate(setting.getCircuitBreakerFailureRate() == 50 ? 60 : 50);
+        assertNotSame(breaker, registry.get(updated, "app", "app.example.com"));
+    }
+}
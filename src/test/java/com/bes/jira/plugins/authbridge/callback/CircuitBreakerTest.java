@@ -0,0 +1,209 @@
+package com.bes.jira.plugins.authbridge.callback;
+
+import com.bes.jira.plugins.authbridge.model.AuthBridgeSetting;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CircuitBreakerTest {
+
+    private static final long OPEN_MILLIS = 50;
+
+    private AuthBridgeSetting setting;
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Before
+    public void setUp() {
+        setting = new AuthBridgeSetting();
+        setting.setCircuitBreakerFailureRate(50);
+        setting.setCircuitBreakerSlowCallRate(100);
+        setting.setCircuitBreakerSlowCallMillis(TimeUnit.MINUTES.toMillis(1));
+        setting.setCircuitBreakerWindowSize(4);
+        setting.setCircuitBreakerMinimumCalls(4);
+        setting.setCircuitBreakerOpenMillis(OPEN_MILLIS);
+        setting.setCircuitBreakerHalfOpenCalls(2);
+    }
+
+    private CompletableFuture<CallbackResult> call(CircuitBreaker breaker, CallbackResult result) {
+        return breaker.execute(() -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture(result);
+        });
+    }
+
+    private CompletableFuture<CallbackResult> failedCall(CircuitBreaker breaker) {
+        return breaker.execute(() -> {
+            calls.incrementAndGet();
+            CompletableFuture<CallbackResult> future = new CompletableFuture<>();
+            future.completeExceptionally(new IllegalStateException("boom"));
+            return future;
+        });
+    }
+
+    private CircuitBreaker openBreaker() {
+        CircuitBreaker breaker = new CircuitBreaker("test", setting);
+        for (int i = 0; i < 4; i++) {
+            failedCall(breaker);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        return breaker;
+    }
+
+    private static void awaitOpenWindow() throws InterruptedException {
+        Thread.sleep(OPEN_MILLIS + 20);
+    }
+
+    @Test
+    public void staysClosedBelowMinimumCalls() {
+        CircuitBreaker breaker = new CircuitBreaker("test", setting);
+        for (int i = 0; i < 3; i++) {
+            failedCall(breaker);
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void staysClosedBelowFailureRate() {
+        CircuitBreaker breaker = new CircuitBreaker("test", setting);
+        failedCall(breaker);
+        call(breaker, CallbackResult.success("/"));
+        call(breaker, CallbackResult.success("/"));
+        call(breaker, CallbackResult.success("/"));
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void opensOnFailureRateAndRejectsWithoutCalling() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker("test", setting);
+        call(breaker, CallbackResult.success("/"));
+        call(breaker, CallbackResult.success("/"));
+        failedCall(breaker);
+        failedCall(breaker);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        CompletableFuture<CallbackResult> rejected = call(breaker, CallbackResult.success("/"));
+        assertEquals(4, calls.get());
+        try {
+            rejected.get();
+            fail("expected rejection");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof CallNotPermittedException);
+        }
+    }
+
+    @Test
+    public void serverErrorsCountAsFailures() {
+        CircuitBreaker breaker = new CircuitBreaker("test", setting);
+        call(breaker, CallbackResult.error(404, ""));
+        call(breaker, CallbackResult.error(404, ""));
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        call(breaker, CallbackResult.error(502, ""));
+        call(breaker, CallbackResult.error(503, ""));
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    public void opensOnSlowCallRate() {
+        CircuitBreaker breaker = new CircuitBreaker("test", setting);
+        long slow = TimeUnit.MINUTES.toNanos(2);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onResult(false, slow);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    public void halfOpenAfterWaitWithLimitedProbes() throws Exception {
+        CircuitBreaker breaker = openBreaker();
+        assertFalse(breaker.tryAcquire());
+
+        awaitOpenWindow();
+        assertTrue(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    public void successfulProbesClose() throws Exception {
+        CircuitBreaker breaker = openBreaker();
+        awaitOpenWindow();
+
+        call(breaker, CallbackResult.success("/"));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        call(breaker, CallbackResult.success("/"));
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    public void failedProbesReopen() throws Exception {
+        CircuitBreaker breaker = openBreaker();
+        awaitOpenWindow();
+
+        call(breaker, CallbackResult.success("/"));
+        failedCall(breaker);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    public void cancelledCallsAreNotCounted() {
+        CircuitBreaker breaker = new CircuitBreaker("test", setting);
+        for (int i = 0; i < 4; i++) {
+            CompletableFuture<CallbackResult> pending = new CompletableFuture<>();
+            breaker.execute(() -> pending);
+            pending.cancel(true);
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        // 窗口中只有下面的调用：3 次成功、1 次失败，低于失败率阈值
+        call(breaker, CallbackResult.success("/"));
+        call(breaker, CallbackResult.success("/"));
+        call(breaker, CallbackResult.success("/"));
+        failedCall(breaker);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void cancelledProbeReturnsPermit() throws Exception {
+        CircuitBreaker breaker = openBreaker();
+        awaitOpenWindow();
+
+        CompletableFuture<CallbackResult> probe = new CompletableFuture<>();
+        breaker.execute(() -> probe);
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+
+        probe.cancel(true);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    public void lateResultsWhileOpenAreIgnored() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker("test", setting);
+        CompletableFuture<CallbackResult> pending = new CompletableFuture<>();
+        breaker.execute(() -> pending);
+        for (int i = 0; i < 4; i++) {
+            failedCall(breaker);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        // 打开前发出的调用在打开后成功返回，不影响打开状态
+        pending.complete(CallbackResult.success("/"));
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+}
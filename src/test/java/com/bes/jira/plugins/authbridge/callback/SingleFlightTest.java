@@ -0,0 +1,130 @@
+package com.bes.jira.plugins.authbridge.callback;
+
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SingleFlightTest {
+
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private CompletableFuture<String> execute(String key, CompletableFuture<String> source) {
+        return singleFlight.execute(key, () -> {
+            calls.incrementAndGet();
+            return source;
+        });
+    }
+
+    @Test
+    public void coalescesConcurrentCallsAndCleansUp() throws Exception {
+        CompletableFuture<String> source = new CompletableFuture<>();
+        CompletableFuture<String> first = execute("k", source);
+        CompletableFuture<String> second = execute("k", new CompletableFuture<>());
+
+        assertEquals(1, calls.get());
+        assertEquals(1, singleFlight.size());
+        assertNotSame(first, second);
+
+        source.complete("ok");
+        assertEquals("ok", first.get());
+        assertEquals("ok", second.get());
+        assertEquals(0, singleFlight.size());
+    }
+
+    @Test
+    public void differentKeysRunSeparately() {
+        execute("a", new CompletableFuture<>());
+        execute("b", new CompletableFuture<>());
+
+        assertEquals(2, calls.get());
+        assertEquals(2, singleFlight.size());
+    }
+
+    @Test
+    public void executesAgainAfterCompletion() throws Exception {
+        assertEquals("one", execute("k", CompletableFuture.completedFuture("one")).get());
+        assertEquals("two", execute("k", CompletableFuture.completedFuture("two")).get());
+
+        assertEquals(2, calls.get());
+        assertEquals(0, singleFlight.size());
+    }
+
+    @Test
+    public void propagatesFailureToAllCallers() throws Exception {
+        CompletableFuture<String> source = new CompletableFuture<>();
+        CompletableFuture<String> first = execute("k", source);
+        CompletableFuture<String> second = execute("k", source);
+        IllegalStateException error = new IllegalStateException("boom");
+
+        source.completeExceptionally(error);
+        assertSame(error, cause(first));
+        assertSame(error, cause(second));
+        assertEquals(0, singleFlight.size());
+    }
+
+    @Test
+    public void supplierExceptionFailsCallAndCleansUp() throws Exception {
+        IllegalStateException error = new IllegalStateException("boom");
+        CompletableFuture<String> result = singleFlight.execute("k", () -> {
+            throw error;
+        });
+
+        assertSame(error, cause(result));
+        assertEquals(0, singleFlight.size());
+        assertEquals("ok", execute("k", CompletableFuture.completedFuture("ok")).get());
+    }
+
+    @Test
+    public void cancellingOneCallerKeepsSourceRunning() throws Exception {
+        CompletableFuture<String> source = new CompletableFuture<>();
+        CompletableFuture<String> first = execute("k", source);
+        CompletableFuture<String> second = execute("k", source);
+
+        first.cancel(true);
+        assertFalse(source.isCancelled());
+        assertEquals(1, singleFlight.size());
+
+        source.complete("ok");
+        assertEquals("ok", second.get());
+        assertEquals(0, singleFlight.size());
+    }
+
+    @Test
+    public void cancellingLastCallerCancelsSourceAndCleansUp() {
+        CompletableFuture<String> source = new CompletableFuture<>();
+        CompletableFuture<String> first = execute("k", source);
+        CompletableFuture<String> second = execute("k", source);
+
+        first.cancel(true);
+        second.cancel(true);
+        assertTrue(source.isCancelled());
+        assertEquals(0, singleFlight.size());
+
+        // 之后的调用发起新的执行，而不是加入已放弃的那一次
+        CompletableFuture<String> next = new CompletableFuture<>();
+        CompletableFuture<String> third = execute("k", next);
+        assertEquals(2, calls.get());
+        assertFalse(third.isDone());
+        assertFalse(next.isCancelled());
+    }
+
+    private static Throwable cause(CompletableFuture<?> future) throws InterruptedException {
+        try {
+            future.get();
+        } catch (ExecutionException e) {
+            return e.getCause();
+        }
+        fail("expected failure");
+        return null;
+    }
+}
@@ -0,0 +1,95 @@
+package com.bes.jira.plugins.authbridge.match;
+
+import com.bes.jira.plugins.authbridge.model.ClientConfigPair;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CallbackPatternTrieTest {
+
+    private static ClientConfigPair pair(String callback) {
+        return new ClientConfigPair(callback, "client", "");
+    }
+
+    @Test
+    public void hostWildcardMatchesOneOrMoreSubdomains() {
+        CallbackPatternTrie trie = new CallbackPatternTrie();
+        ClientConfigPair pair = pair("https://*.example.com/cb");
+        assertTrue(trie.insert(pair.getCallback(), pair));
+
+        assertSame(pair, trie.match("https://a.example.com/cb"));
+        assertSame(pair, trie.match("https://a.b.example.com/cb"));
+        assertSame(pair, trie.match("https://A.Example.COM/cb"));
+        assertNull(trie.match("https://example.com/cb"));
+        assertNull(trie.match("https://a.example.org/cb"));
+        assertNull(trie.match("http://a.example.com/cb"));
+        assertNull(trie.match("https://a.example.com/other"));
+        assertNull(trie.match("https://a.example.com:8443/cb"));
+    }
+
+    @Test
+    public void trailingPathWildcardMatchesZeroOrMoreSegments() {
+        CallbackPatternTrie trie = new CallbackPatternTrie();
+        ClientConfigPair pair = pair("https://app.example.com/sso/*");
+        assertTrue(trie.insert(pair.getCallback(), pair));
+
+        assertSame(pair, trie.match("https://app.example.com/sso"));
+        assertSame(pair, trie.match("https://app.example.com/sso/"));
+        assertSame(pair, trie.match("https://app.example.com/sso/a/b"));
+        assertNull(trie.match("https://app.example.com/ssox"));
+        assertNull(trie.match("https://app.example.com/other/sso"));
+    }
+
+    @Test
+    public void exactTokenTakesPrecedenceOverWildcard() {
+        CallbackPatternTrie trie = new CallbackPatternTrie();
+        ClientConfigPair wildcard = pair("https://app.example.com/sso/*");
+        ClientConfigPair exact = pair("https://app.example.com/sso/special");
+        trie.insert(wildcard.getCallback(), wildcard);
+        trie.insert(exact.getCallback(), exact);
+
+        assertSame(exact, trie.match("https://app.example.com/sso/special"));
+        assertSame(wildcard, trie.match("https://app.example.com/sso/special/more"));
+        assertSame(wildcard, trie.match("https://app.example.com/sso/other"));
+    }
+
+    @Test
+    public void hostAndPathWildcardsCombine() {
+        CallbackPatternTrie trie = new CallbackPatternTrie();
+        ClientConfigPair pair = pair("https://*.example.com:8443/sso/*");
+        assertTrue(trie.insert(pair.getCallback(), pair));
+
+        assertSame(pair, trie.match("https://a.example.com:8443/sso/cb"));
+        assertNull(trie.match("https://a.example.com/sso/cb"));
+    }
+
+    @Test
+    public void duplicatePatternKeepsFirst() {
+        CallbackPatternTrie trie = new CallbackPatternTrie();
+        ClientConfigPair first = pair("https://app.example.com/sso/*");
+        ClientConfigPair second = pair("https://app.example.com/sso/*");
+        trie.insert(first.getCallback(), first);
+        trie.insert(second.getCallback(), second);
+
+        assertSame(first, trie.match("https://app.example.com/sso/cb"));
+    }
+
+    @Test
+    public void rejectsUnsupportedWildcards() {
+        CallbackPatternTrie trie = new CallbackPatternTrie();
+        ClientConfigPair pair = pair("unused");
+
+        assertFalse(trie.insert("https://a*.example.com/cb", pair));
+        assertFalse(trie.insert("https://app.*.com/cb", pair));
+        assertFalse(trie.insert("https://app.example.com/sso/a*", pair));
+        assertFalse(trie.insert("https://app.example.com/*/cb", pair));
+        assertFalse(trie.insert("not a url*", pair));
+
+        // 被拒绝的规则不能以字面量形式匹配
+        assertNull(trie.match("https://a*.example.com/cb"));
+        assertNull(trie.match("https://app.example.com/sso/a*"));
+    }
+}
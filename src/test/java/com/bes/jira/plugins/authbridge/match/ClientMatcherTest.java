@@ -0,0 +1,62 @@
+package com.bes.jira.plugins.authbridge.match;
+
+import com.bes.jira.plugins.authbridge.model.ClientConfigPair;
+import org.junit.Test;
+
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ClientMatcherTest {
+
+    private final ClientConfigPair exact = new ClientConfigPair("https://app.example.com/cb", "app", "");
+    private final ClientConfigPair prefix = new ClientConfigPair("https://app.example.com/sso/*", "app", "");
+    private final ClientConfigPair other = new ClientConfigPair("https://other.example.com/cb", "other", "");
+    private final ClientMatcher matcher = ClientMatcher.compile(Arrays.asList(exact, prefix, other));
+
+    @Test
+    public void matchesExactCallbackPerClient() {
+        assertSame(exact, matcher.match("app", "https://app.example.com/cb"));
+        assertSame(other, matcher.match("other", "https://other.example.com/cb"));
+        assertNull(matcher.match("other", "https://app.example.com/cb"));
+        assertNull(matcher.match("unknown", "https://app.example.com/cb"));
+    }
+
+    @Test
+    public void fallsBackToPatterns() {
+        assertSame(prefix, matcher.match("app", "https://app.example.com/sso/callback"));
+        assertSame(prefix, matcher.match("app", "https://app.example.com/sso/a..b/file.txt"));
+        assertNull(matcher.match("app", "https://app.example.com/admin"));
+    }
+
+    @Test
+    public void rejectsDotSegments() {
+        assertNull(matcher.match("app", "https://app.example.com/sso/../admin"));
+        assertNull(matcher.match("app", "https://app.example.com/sso/./cb"));
+        assertNull(matcher.match("app", "https://app.example.com/sso/.."));
+        assertNull(matcher.match("app", "https://app.example.com/sso/%2e%2e/admin"));
+        assertNull(matcher.match("app", "https://app.example.com/sso/%2E./admin"));
+        assertNull(matcher.match("app", "https://app.example.com/sso/.%2e/admin"));
+        assertNull(matcher.match("app", "https://app.example.com/sso/..%2fadmin"));
+        assertNull(matcher.match("app", "https://app.example.com/sso/..%5Cadmin"));
+        assertNull(matcher.match("app", "https://app.example.com/sso/..\\admin"));
+    }
+
+    @Test
+    public void rejectsDotSegmentsForExactCallbacks() {
+        ClientConfigPair dotted = new ClientConfigPair("https://app.example.com/a/../cb", "dotted", "");
+        ClientMatcher withDots = ClientMatcher.compile(Collections.singletonList(dotted));
+
+        assertNull(withDots.match("dotted", "https://app.example.com/a/../cb"));
+    }
+
+    @Test
+    public void normalizeDropsQueryAndFragment() throws Exception {
+        assertEquals("https://app.example.com:8443/sso/cb", ClientMatcher.normalize(new URL("https://app.example.com:8443/sso/cb?x=1#top")));
+        assertEquals("https://app.example.com", ClientMatcher.normalize(new URL("https://app.example.com")));
+    }
+}
@@ -0,0 +1,48 @@
+package com.bes.jira.plugins.authbridge.match;
+
+import com.bes.jira.plugins.authbridge.model.ClientConfigPair;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ClientMatcherWithClientTest {
+
+    private final ClientConfigPair exact = new ClientConfigPair("https://app.example.com/cb", "app", "");
+    private final ClientConfigPair prefix = new ClientConfigPair("https://app.example.com/sso/*", "app", "");
+    private final ClientConfigPair other = new ClientConfigPair("https://other.example.com/cb", "other", "");
+    private final ClientMatcher matcher = ClientMatcher.compile(Arrays.asList(exact, prefix, other));
+
+    @Test
+    public void withClientReplacesOnlyThatClient() {
+        ClientConfigPair replacement = new ClientConfigPair("https://app.example.com/new", "app", "");
+        ClientMatcher updated = matcher.withClient("app", Collections.singletonList(replacement));
+
+        assertSame(replacement, updated.match("app", "https://app.example.com/new"));
+        assertNull(updated.match("app", "https://app.example.com/cb"));
+        assertNull(updated.match("app", "https://app.example.com/sso/callback"));
+        assertSame(other, updated.match("other", "https://other.example.com/cb"));
+        // 原索引不变
+        assertSame(exact, matcher.match("app", "https://app.example.com/cb"));
+    }
+
+    @Test
+    public void withClientRemovesClient() {
+        ClientMatcher updated = matcher.withClient("app", Collections.emptyList());
+
+        assertNull(updated.match("app", "https://app.example.com/cb"));
+        assertNull(updated.match("app", "https://app.example.com/sso/callback"));
+        assertSame(other, updated.match("other", "https://other.example.com/cb"));
+    }
+
+    @Test
+    public void withClientAddsNewClient() {
+        ClientConfigPair added = new ClientConfigPair("https://new.example.com/*", "new", "");
+        ClientMatcher updated = ClientMatcher.compile(Collections.emptyList()).withClient("new", Collections.singletonList(added));
+
+        assertSame(added, updated.match("new", "https://new.example.com/cb"));
+    }
+}
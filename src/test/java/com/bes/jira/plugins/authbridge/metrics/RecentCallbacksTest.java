@@ -0,0 +1,53 @@
+package com.bes.jira.plugins.authbridge.metrics;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RecentCallbacksTest {
+
+    private static final long INTERVAL_MILLIS = 50;
+
+    private final RecentCallbacks recent = new RecentCallbacks(TimeUnit.MILLISECONDS.toNanos(INTERVAL_MILLIS));
+
+    @Test
+    public void reportsRecordedCallbacks() {
+        for (int i = 1; i <= 100; i++) {
+            recent.record(i);
+        }
+        recent.recordHedge();
+
+        assertEquals(100, recent.getCallbacks());
+        assertEquals(1, recent.getHedges());
+        assertEquals(95, recent.getPercentileMicros(0.95));
+    }
+
+    @Test
+    public void keepsPreviousInterval() throws Exception {
+        recent.record(1000);
+        Thread.sleep(INTERVAL_MILLIS + 10);
+        recent.record(10);
+
+        assertEquals(2, recent.getCallbacks());
+        // 上一个时间片的慢请求仍计入百分位
+        assertTrue(recent.getPercentileMicros(1.0) >= 900);
+    }
+
+    @Test
+    public void forgetsOldIntervals() throws Exception {
+        recent.record(100000);
+        recent.recordHedge();
+        Thread.sleep(2 * INTERVAL_MILLIS + 20);
+
+        assertEquals(0, recent.getCallbacks());
+        assertEquals(0, recent.getHedges());
+        assertEquals(0, recent.getPercentileMicros(0.95));
+
+        // 延迟下降后 p95 只反映最近的记录
+        recent.record(10);
+        assertEquals(10, recent.getPercentileMicros(0.95));
+    }
+}
@@ -0,0 +1,74 @@
+package com.bes.jira.plugins.authbridge.ratelimit;
+
+import com.bes.jira.plugins.authbridge.model.AuthBridgeSetting;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RateLimiterTest {
+
+    private static final int MAX_BUCKETS = 100000;
+
+    private static AuthBridgeSetting setting(int clientPerMinute, int userPerMinute) {
+        AuthBridgeSetting setting = new AuthBridgeSetting();
+        setting.setRateLimitEnabled(true);
+        setting.setClientRateLimitPerMinute(clientPerMinute);
+        setting.setClientRateLimitBurst(1);
+        setting.setUserRateLimitPerMinute(userPerMinute);
+        setting.setUserRateLimitBurst(1);
+        return setting;
+    }
+
+    @Test
+    public void limitsClientAndUser() {
+        RateLimiter limiter = new RateLimiter();
+        AuthBridgeSetting setting = setting(1, 1);
+
+        assertEquals(0, limiter.tryAcquire(setting, "a", "alice"));
+        assertTrue(limiter.tryAcquire(setting, "a", "bob") > 0);
+        assertTrue(limiter.tryAcquire(setting, "b", "alice") > 0);
+    }
+
+    @Test
+    public void fullLimiterLetsNewKeysThrough() {
+        RateLimiter limiter = new RateLimiter();
+        AuthBridgeSetting setting = setting(1, 0);
+
+        for (int i = 0; i < 2 * MAX_BUCKETS; i++) {
+            assertEquals(0, limiter.tryAcquire(setting, "c" + i, "alice"));
+        }
+        assertEquals(MAX_BUCKETS, limiter.getBucketCount());
+        assertTrue(limiter.getUnlimitedCount() > 0);
+        // 已有的桶仍然限流
+        assertTrue(limiter.tryAcquire(setting, "c0", "alice") > 0);
+    }
+
+    @Test
+    public void evictsIdleBucketsAtMostOncePerInterval() throws Exception {
+        RateLimiter limiter = new RateLimiter(TimeUnit.HOURS.toNanos(1));
+        // 补充间隔只有几十纳秒，取完令牌后很快变为空闲
+        AuthBridgeSetting setting = setting(Integer.MAX_VALUE, 0);
+
+        for (int i = 0; i < MAX_BUCKETS; i++) {
+            limiter.tryAcquire(setting, "c" + i, "alice");
+        }
+        Thread.sleep(5);
+        for (int i = 0; i < MAX_BUCKETS / 2; i++) {
+            limiter.tryAcquire(setting, "d" + i, "alice");
+        }
+        // 分段满时清理了空闲的桶，新 key 都建了桶
+        assertTrue(limiter.getBucketCount() < MAX_BUCKETS);
+        assertEquals(0, limiter.getUnlimitedCount());
+
+        Thread.sleep(5);
+        for (int i = 0; i < 2 * MAX_BUCKETS; i++) {
+            limiter.tryAcquire(setting, "e" + i, "alice");
+        }
+        // 清理间隔内不再扫描，分段再次满后新 key 直接放行
+        assertEquals(MAX_BUCKETS, limiter.getBucketCount());
+        assertTrue(limiter.getUnlimitedCount() > 0);
+    }
+}
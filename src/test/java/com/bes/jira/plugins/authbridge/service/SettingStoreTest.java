@@ -0,0 +1,157 @@
+package com.bes.jira.plugins.authbridge.service;
+
+import com.atlassian.sal.api.pluginsettings.PluginSettings;
+import com.bes.jira.plugins.authbridge.model.AuthBridgeSetting;
+import com.bes.jira.plugins.authbridge.model.ClientConfigPair;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SettingStoreTest {
+
+    private static final String KEY = "com.bes.jira.plugins.authbridge";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private InMemoryPluginSettings pluginSettings;
+    private SettingStore store;
+
+    @Before
+    public void setUp() {
+        pluginSettings = new InMemoryPluginSettings();
+        store = new SettingStore(pluginSettings, mapper, KEY);
+    }
+
+    private static AuthBridgeSetting setting(ClientConfigPair... pairs) {
+        AuthBridgeSetting setting = new AuthBridgeSetting(new ArrayList<>(Arrays.asList(pairs)), false, null);
+        setting.setConnectTimeoutMillis(1234);
+        return setting;
+    }
+
+    private static ClientConfigPair pair(String clientId, String callback) {
+        return new ClientConfigPair(callback, clientId, "https://" + clientId + ".example.com/");
+    }
+
+    private static List<String> callbacks(AuthBridgeSetting setting) {
+        List<String> callbacks = new ArrayList<>();
+        for (ClientConfigPair pair : setting.getClientConfigPairs()) {
+            callbacks.add(pair.getClientId() + " " + pair.getCallback());
+        }
+        return callbacks;
+    }
+
+    private List<String> clientKeys() {
+        List<String> keys = new ArrayList<>();
+        for (String key : pluginSettings.values.keySet()) {
+            if (key.startsWith(KEY + ".client.")) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+    @Test
+    public void loadReturnsNullWhenNothingSaved() throws Exception {
+        assertNull(store.load());
+        assertFalse(store.isSharded());
+    }
+
+    @Test
+    public void migratesLegacySettingsToShards() throws Exception {
+        AuthBridgeSetting legacy = setting(pair("a", "https://a.example.com/cb"), pair("b", "https://b.example.com/cb"),
+                pair("a", "https://a.example.com/other"));
+        pluginSettings.put(KEY, mapper.writeValueAsString(legacy));
+
+        AuthBridgeSetting loaded = store.load();
+        assertFalse(store.isSharded());
+        assertEquals(callbacks(legacy), callbacks(loaded));
+
+        store.save(null, loaded);
+        assertTrue(store.isSharded());
+        assertEquals(2, clientKeys().size());
+        AuthBridgeSetting globals = mapper.readValue((String) pluginSettings.get(KEY), AuthBridgeSetting.class);
+        assertTrue(globals.getClientConfigPairs().isEmpty());
+
+        AuthBridgeSetting reloaded = store.load();
+        // 同一 clientId 的配置分到同一分片，按 clientId 首次出现的顺序恢复
+        assertEquals(Arrays.asList("a https://a.example.com/cb", "a https://a.example.com/other", "b https://b.example.com/cb"),
+                callbacks(reloaded));
+        assertEquals(1234, reloaded.getConnectTimeoutMillis());
+    }
+
+    @Test
+    public void incrementalSaveRemovesDroppedClients() throws Exception {
+        AuthBridgeSetting first = setting(pair("a", "https://a.example.com/cb"), pair("b", "https://b.example.com/cb"));
+        store.save(null, first);
+        String globals = (String) pluginSettings.get(KEY);
+
+        AuthBridgeSetting second = setting(pair("a", "https://a.example.com/cb"));
+        pluginSettings.writes = 0;
+        store.save(first, second);
+
+        assertEquals(1, clientKeys().size());
+        assertEquals(Arrays.asList("a https://a.example.com/cb"), callbacks(store.load()));
+        // 只更新 manifest，未变化的 client 和全局配置不重写
+        assertEquals(1, pluginSettings.writes);
+        assertEquals(globals, pluginSettings.get(KEY));
+    }
+
+    @Test
+    public void putAndRemoveSingleClient() throws Exception {
+        store.save(null, setting(pair("a", "https://a.example.com/cb")));
+
+        store.putClient("b", Arrays.asList(pair("b", "https://b.example.com/cb")));
+        assertEquals(Arrays.asList("a https://a.example.com/cb", "b https://b.example.com/cb"), callbacks(store.load()));
+
+        store.removeClient("a");
+        assertEquals(Arrays.asList("b https://b.example.com/cb"), callbacks(store.load()));
+        assertEquals(1, clientKeys().size());
+    }
+
+    @Test
+    public void skipsMissingShard() throws Exception {
+        store.save(null, setting(pair("a", "https://a.example.com/cb"), pair("b", "https://b.example.com/cb")));
+        pluginSettings.remove(clientKeys().get(0));
+
+        assertEquals(1, store.load().getClientConfigPairs().size());
+    }
+
+    @Test
+    public void removeAllClearsEveryKey() throws Exception {
+        store.save(null, setting(pair("a", "https://a.example.com/cb"), pair("b", "https://b.example.com/cb")));
+
+        store.removeAll();
+        assertTrue(pluginSettings.values.isEmpty());
+    }
+
+    private static final class InMemoryPluginSettings implements PluginSettings {
+        private final Map<String, Object> values = new HashMap<>();
+        private int writes;
+
+        @Override
+        public Object get(String key) {
+            return values.get(key);
+        }
+
+        @Override
+        public Object put(String key, Object value) {
+            writes++;
+            return values.put(key, value);
+        }
+
+        @Override
+        public Object remove(String key) {
+            return values.remove(key);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.bes.jira.plugins.authbridge.servlet;
+
+import org.junit.Test;
+
+import javax.servlet.http.Cookie;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+public class CookiePayloadWriterTest {
+
+    private static String write(Cookie[] cookies, String... allowed) {
+        return new String(CookiePayloadWriter.write(cookies, allowed.length == 0 ? null : Arrays.asList(allowed)), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void writesOnlyAllowedCookies() {
+        Cookie[] cookies = {new Cookie("JSESSIONID", "abc"), new Cookie("_ga", "GA1"), new Cookie("seraph.rememberme.cookie", "1%3Ax")};
+
+        assertEquals("{\"cookie\":\"JSESSIONID=abc; seraph.rememberme.cookie=1%3Ax\"}", write(cookies, "JSESSIONID", "seraph.*"));
+    }
+
+    @Test
+    public void writesEmptyPayload() {
+        assertEquals("{\"cookie\":\"\"}", write(null));
+        assertEquals("{\"cookie\":\"\"}", write(new Cookie[]{new Cookie("_ga", "GA1")}, "JSESSIONID"));
+    }
+
+    @Test
+    public void escapesAndEncodesUtf8() {
+        String value = "\"q\"\\\t中é😀\uD800x";
+        Cookie[] cookies = {new Cookie("JSESSIONID", value)};
+
+        byte[] payload = CookiePayloadWriter.write(cookies, Arrays.asList("JSESSIONID"));
+        String expected = "{\"cookie\":\"JSESSIONID=\\\"q\\\"\\\\\\u0009中é😀?x\"}";
+        // 数组大小与写入长度一致
+        assertEquals(expected.getBytes(StandardCharsets.UTF_8).length, payload.length);
+        assertEquals(expected, new String(payload, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,150 @@
+package com.bes.jira.plugins.authbridge.transfer;
+
+import com.bes.jira.plugins.authbridge.model.ClientConfigPair;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ClientConfigCsvTest {
+
+    private static final String PEM = "-----BEGIN CERTIFICATE-----\nMIIBszCCAVmgAwIBAgIU\nAbCd==\n-----END CERTIFICATE-----";
+
+    @Test
+    public void roundTripsQuotedAndMultiLineFields() throws IOException {
+        ClientConfigPair pair = new ClientConfigPair("https://app.example.com/sso/*", "app,one", "https://app.example.com/\"home\"");
+        pair.setMode("assertion");
+        pair.setConnectTimeoutMillis(1500);
+        pair.setInsecureSkipVerify(Boolean.TRUE);
+        pair.setCookieNames(Arrays.asList("JSESSIONID", "seraph.rememberme.cookie"));
+        pair.setTrustCaCert(PEM);
+        pair.setMaxRetries(2);
+        pair.setFanOutCallbacks(Arrays.asList("https://a.example.com/cb?x=1;y=2", "https://b.example.com/cb"));
+        pair.setFanOutPolicy("all");
+
+        StringWriter writer = new StringWriter();
+        ClientConfigCsv.writeHeader(writer);
+        ClientConfigCsv.writeRecord(writer, pair);
+        String csv = writer.toString();
+        assertTrue(csv.contains("\"app,one\""));
+        assertTrue(csv.contains("\"https://app.example.com/\"\"home\"\"\""));
+
+        ClientConfigCsv.RecordReader reader = new ClientConfigCsv.RecordReader(new StringReader(csv));
+        Map<String, Integer> header = ClientConfigCsv.parseHeader(reader.next());
+        ClientConfigPair parsed = ClientConfigCsv.toPair(header, reader.next());
+        assertEquals(2, reader.getRecordLine());
+        assertNull(reader.next());
+
+        assertEquals("app,one", parsed.getClientId());
+        assertEquals("https://app.example.com/sso/*", parsed.getCallback());
+        assertEquals("https://app.example.com/\"home\"", parsed.getRedirectUrl());
+        assertEquals("assertion", parsed.getMode());
+        assertEquals(Integer.valueOf(1500), parsed.getConnectTimeoutMillis());
+        assertNull(parsed.getReadTimeoutMillis());
+        assertEquals(Boolean.TRUE, parsed.getInsecureSkipVerify());
+        assertEquals(Arrays.asList("JSESSIONID", "seraph.rememberme.cookie"), parsed.getCookieNames());
+        assertEquals(PEM, parsed.getTrustCaCert());
+        assertEquals(Integer.valueOf(2), parsed.getMaxRetries());
+        assertEquals(Arrays.asList("https://a.example.com/cb?x=1;y=2", "https://b.example.com/cb"), parsed.getFanOutCallbacks());
+        assertEquals("all", parsed.getFanOutPolicy());
+    }
+
+    @Test
+    public void readsRecordsAcrossLines() throws IOException {
+        String csv = "clientId,callback,trustCaCert\r\n"
+                + "\r\n"
+                + "a,https://a.example.com/cb,\"line1\r\nline2\nline3\"\r\n"
+                + "b,https://b.example.com/cb,\"say \"\"hi\"\"\"\n"
+                + "c,https://c.example.com/cb,";
+        ClientConfigCsv.RecordReader reader = new ClientConfigCsv.RecordReader(new StringReader(csv));
+
+        assertEquals(Arrays.asList("clientId", "callback", "trustCaCert"), reader.next());
+        assertEquals(1, reader.getRecordLine());
+
+        assertEquals(Arrays.asList("a", "https://a.example.com/cb", "line1\nline2\nline3"), reader.next());
+        assertEquals(3, reader.getRecordLine());
+
+        assertEquals(Arrays.asList("b", "https://b.example.com/cb", "say \"hi\""), reader.next());
+        assertEquals(6, reader.getRecordLine());
+
+        assertEquals(Arrays.asList("c", "https://c.example.com/cb", ""), reader.next());
+        assertEquals(7, reader.getRecordLine());
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void rejectsUnterminatedQuote() throws IOException {
+        ClientConfigCsv.RecordReader reader = new ClientConfigCsv.RecordReader(new StringReader("a,\"open\nstill open"));
+        try {
+            reader.next();
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Unterminated quoted field", e.getMessage());
+        }
+    }
+
+    @Test
+    public void skipsRestOfTooLongRecord() throws IOException {
+        String csv = "a,\"0123456789\n,\"\"x\",b\n"
+                + "c,d\n";
+        ClientConfigCsv.RecordReader reader = new ClientConfigCsv.RecordReader(new StringReader(csv), 8);
+
+        reader.next();
+        assertTrue(reader.isTooLong());
+        assertEquals(1, reader.getRecordLine());
+
+        assertEquals(Arrays.asList("c", "d"), reader.next());
+        assertFalse(reader.isTooLong());
+        assertEquals(3, reader.getRecordLine());
+    }
+
+    @Test
+    public void headerStripsBomAndAllowsAnyOrder() {
+        Map<String, Integer> header = ClientConfigCsv.parseHeader(Arrays.asList("\uFEFFcallback", " clientId "));
+
+        assertEquals(Integer.valueOf(0), header.get("callback"));
+        assertEquals(Integer.valueOf(1), header.get("clientId"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void headerRejectsUnknownColumn() {
+        ClientConfigCsv.parseHeader(Arrays.asList("clientId", "callback", "secret"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void headerRequiresClientIdAndCallback() {
+        ClientConfigCsv.parseHeader(Collections.singletonList("clientId"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonNumericField() {
+        Map<String, Integer> header = ClientConfigCsv.parseHeader(Arrays.asList("clientId", "callback", "maxRetries"));
+        ClientConfigCsv.toPair(header, Arrays.asList("a", "https://a.example.com/cb", "two"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonBooleanField() {
+        Map<String, Integer> header = ClientConfigCsv.parseHeader(Arrays.asList("clientId", "callback", "insecureSkipVerify"));
+        ClientConfigCsv.toPair(header, Arrays.asList("a", "https://a.example.com/cb", "yes"));
+    }
+
+    @Test
+    public void shortRowsLeaveMissingColumnsUnset() {
+        List<String> columns = Arrays.asList("clientId", "callback", "redirectUrl", "mode");
+        ClientConfigPair pair = ClientConfigCsv.toPair(ClientConfigCsv.parseHeader(columns), Arrays.asList("a", "https://a.example.com/cb"));
+
+        assertEquals("a", pair.getClientId());
+        assertNull(pair.getMode());
+    }
+}
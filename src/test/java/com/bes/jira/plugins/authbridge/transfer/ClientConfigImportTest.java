@@ -0,0 +1,107 @@
+package com.bes.jira.plugins.authbridge.transfer;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ClientConfigImportTest {
+
+    private static String repeat(char c, int count) {
+        StringBuilder sb = new StringBuilder(count);
+        for (int i = 0; i < count; i++) {
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    private static ClientConfigImport read(String format, String document) throws IOException {
+        ClientConfigImport clientImport = new ClientConfigImport(format);
+        clientImport.read(new StringReader(document));
+        return clientImport;
+    }
+
+    @Test
+    public void readsJsonLines() throws IOException {
+        ClientConfigImport clientImport = read(ClientConfigImport.FORMAT_JSONL,
+                "{\"clientId\":\"a\",\"callback\":\"https://a.example.com/cb\",\"redirectUrl\":\"https://a.example.com/\"}\r\n"
+                        + "\n"
+                        + "{\"clientId\":\"b\",\"callback\":\"https://b.example.com/cb\",\"redirectUrl\":\"https://b.example.com/\"}");
+
+        assertFalse(clientImport.hasErrors());
+        assertEquals(2, clientImport.getPairs().size());
+        assertEquals(2, clientImport.getReport().getClients());
+    }
+
+    @Test
+    public void reportsTooLongJsonLineAndContinues() throws IOException {
+        String tooLong = "{\"clientId\":\"" + repeat('x', ClientConfigImport.MAX_RECORD_CHARS) + "\"}";
+        ClientConfigImport clientImport = read(ClientConfigImport.FORMAT_JSONL,
+                tooLong + "\nnot json\n");
+
+        assertEquals(2, clientImport.getReport().getErrorCount());
+        ImportReport.ImportError error = clientImport.getReport().getErrors().get(0);
+        assertEquals(1, error.getLine());
+        assertTrue(error.getMessage().startsWith("Line too long."));
+        assertEquals(2, clientImport.getReport().getErrors().get(1).getLine());
+    }
+
+    @Test
+    public void reportsTooLongCsvRecordAndContinues() throws IOException {
+        String pem = "\"" + repeat('A', ClientConfigImport.MAX_RECORD_CHARS) + "\n,\"\"\"";
+        ClientConfigImport clientImport = read(ClientConfigImport.FORMAT_CSV,
+                "clientId,callback,redirectUrl,trustCaCert\n"
+                        + "a,https://a.example.com/cb,https://a.example.com/," + pem + "\n"
+                        + "b,https://b.example.com/cb,https://b.example.com/,\n");
+
+        assertEquals(1, clientImport.getReport().getErrorCount());
+        ImportReport.ImportError error = clientImport.getReport().getErrors().get(0);
+        assertEquals(2, error.getLine());
+        assertTrue(error.getMessage().startsWith("Record too long."));
+        // 超长字段中的换行和引号不影响之后的记录
+        assertEquals(1, clientImport.getPairs().size());
+        assertEquals("b", clientImport.getPairs().get(0).getClientId());
+    }
+
+    @Test
+    public void stopsReadingTooLargeImport() throws IOException {
+        ClientConfigImport clientImport = new ClientConfigImport(ClientConfigImport.FORMAT_JSONL);
+        clientImport.read(new BlankLines(ClientConfigImport.MAX_IMPORT_BYTES + 1));
+
+        assertEquals(1, clientImport.getReport().getErrorCount());
+        assertTrue(clientImport.getReport().getErrors().get(0).getMessage().startsWith("Import too large."));
+    }
+
+    /**
+     * 只包含空行的文档，不占用内存
+     */
+    private static final class BlankLines extends Reader {
+        private long remaining;
+
+        BlankLines(long length) {
+            this.remaining = length;
+        }
+
+        @Override
+        public int read(char[] buffer, int off, int len) {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int n = (int) Math.min(len, remaining);
+            for (int i = 0; i < n; i++) {
+                buffer[off + i] = '\n';
+            }
+            remaining -= n;
+            return n;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}